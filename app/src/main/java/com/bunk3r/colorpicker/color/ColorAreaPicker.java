@@ -32,6 +32,7 @@ import android.view.View;
 
 import com.bunk3r.colorpicker.hue.HuePicker;
 import com.bunk3r.colorpicker.hue.OnHueChangedListener;
+import com.microsoft.band.sdksample.color.ColorConversion;
 
 /**
  * Created by Bunk3r on 10/25/2014.
@@ -141,18 +142,11 @@ public class ColorAreaPicker extends View implements ColorPicker, OnHueChangedLi
     private void updateMainColors(int color) {
         mBaseColor = color;
 
-        final int baseRed = Color.red(mBaseColor);
-        final int baseGreen = Color.green(mBaseColor);
-        final int baseBlue = Color.blue(mBaseColor);
-
         // draws the NUMBER_OF_GRADIENTS into a bitmap for later use
         int[] colors = new int[2];
         colors[1] = Color.BLACK;
         for (int x = 0; x < 256; ++x) {
-            colors[0] = Color.rgb(
-                    255 - (255 - baseRed) * x / 255,
-                    255 - (255 - baseGreen) * x / 255,
-                    255 - (255 - baseBlue) * x / 255);
+            colors[0] = ColorConversion.areaColor(mBaseColor, x, 0);
             final Shader gradientShader = new LinearGradient(0,
                     0,
                     0,
@@ -292,7 +286,8 @@ public class ColorAreaPicker extends View implements ColorPicker, OnHueChangedLi
         if (mHasMoved) {
             final int transX = (int) (mCurrentX / mWidthDensityMultiplier);
             final int transY = (int) (mCurrentY / mHeightDensityMultiplier);
-            mCurrentColor = mColorsBitmap.getPixel(transX, transY);
+            mCurrentColor = ColorConversion.areaColor(mBaseColor,
+                    Math.min(transX, ColorConversion.MAX_CHANNEL), Math.min(transY, ColorConversion.MAX_CHANNEL));
         } else {
             mCurrentColor = mBaseColor;
         }
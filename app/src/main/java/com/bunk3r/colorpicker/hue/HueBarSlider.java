@@ -30,6 +30,8 @@ import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
 
+import com.microsoft.band.sdksample.color.ColorConversion;
+
 /**
  * Created by Bunk3r on 10/25/2014.
  */
@@ -39,7 +41,6 @@ public class HueBarSlider extends View implements HuePicker {
 	 * Default values for the control
 	 */
 	private static final int NUMBER_OF_HUES = 360;
-	private static final int NUMBER_OF_HUE_SETS = 6;
 	private static final int DEFAULT_SELECTED_HUE_WIDTH = 3;
 	private static final int DEFAULT_WIDTH = 256;
 	private static final int DEFAULT_HEIGHT = 30;
@@ -116,44 +117,9 @@ public class HueBarSlider extends View implements HuePicker {
      * Calculates the different hues and caches them in a Bitmap
      */
     private void preRenderHueBar() {
-		int index = 0;
 		final int[] hueBarColors = new int[NUMBER_OF_HUES];
-		final float hueIncrement = 255f / (NUMBER_OF_HUES / NUMBER_OF_HUE_SETS);
-		
-		for (float i = hueIncrement; i < 256; i += hueIncrement) // red (#f00) - yellow (#ff0)
-		{
-			hueBarColors[index] = Color.rgb(255, (int) i, 0);
-			index++;
-		}
-		
-		for (float i = hueIncrement; i < 256; i += hueIncrement) // yellow (#ff0) - green (#0f0)
-		{
-			hueBarColors[index] = Color.rgb(255 - (int) i, 255, 0);
-			index++;
-		}
-		
-		for (float i = hueIncrement; i < 256; i += hueIncrement) // green (#0f0) - cyan (#0ff)
-		{
-			hueBarColors[index] = Color.rgb(0, 255, (int) i);
-			index++;
-		}
-		
-		for (float i = hueIncrement; i < 256; i += hueIncrement) // cyan (#0ff) - blue (#00f)
-		{
-			hueBarColors[index] = Color.rgb(0, 255 - (int) i, 255);
-			index++;
-		}
-		
-		for (float i = hueIncrement; i < 256; i += hueIncrement) // blue (#00f) - Pink (#f0f)
-		{
-			hueBarColors[index] = Color.rgb((int) i, 0, 255);
-			index++;
-		}
-		
-		for (float i = hueIncrement; i < 256; i += hueIncrement) // pink (#f0f) - Red (#f00)
-		{
-			hueBarColors[index] = Color.rgb(255, 0, 255 - (int) i);
-			index++;
+		for (int hue = 0; hue < NUMBER_OF_HUES; hue++) {
+			hueBarColors[hue] = ColorConversion.hueToColor(hue);
 		}
 
 		mHuesBitmap = Bitmap.createBitmap(NUMBER_OF_HUES, 1, Config.ARGB_8888);
@@ -237,9 +203,7 @@ public class HueBarSlider extends View implements HuePicker {
 	 * @return the hue value [0 - 360)
 	 */
 	private float getHueFromColor(int color) {
-		float[] hsv = new float[3];
-		Color.colorToHSV(color, hsv);
-		return hsv[0] * mDensityMultiplier;
+		return ColorConversion.getHue(color) * mDensityMultiplier;
 	}
 
 	@Override
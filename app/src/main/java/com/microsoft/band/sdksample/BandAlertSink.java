@@ -0,0 +1,81 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.microsoft.band.BandClient;
+import com.microsoft.band.notification.BandNotificationManager;
+import com.microsoft.band.notification.MessageFlags;
+import com.microsoft.band.notification.VibrationType;
+import com.microsoft.band.sdksample.alerts.AlertDispatcher;
+import com.microsoft.band.tiles.BandTile;
+
+/**
+ * Delivers the notifications of an {@link AlertDispatcher} to a Band: it vibrates, and
+ * if the sample has a tile on the Band, the alerts are also sent as a message to that
+ * tile so the wearer can read what happened.
+ * <p>
+ * Runs on the dispatcher's thread, so it waits for each call to complete, but never
+ * longer than {@link #CALL_TIMEOUT_SECONDS}.
+ */
+public class BandAlertSink implements AlertDispatcher.Sink {
+
+    public static final long CALL_TIMEOUT_SECONDS = 10;
+
+    private final BandClient mClient;
+
+    // Only used on the dispatcher's thread. Looked up again while there is none.
+    private UUID mTileId;
+
+    public BandAlertSink(BandClient client) {
+        mClient = client;
+    }
+
+    @Override
+    public void send(String title, String body) throws Exception {
+        BandNotificationManager notifications = mClient.getNotificationManager();
+        BandCalls.await("Vibrate", notifications.vibrate(VibrationType.NOTIFICATION_ALARM),
+                CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        if (mTileId == null) {
+            mTileId = findTile();
+            if (mTileId == null) {
+                return;
+            }
+        }
+
+        try {
+            BandCalls.await("Send message", notifications.sendMessage(mTileId, title, body, new Date(), MessageFlags.NONE),
+                    CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception ex) {
+            // The tile may have been removed since
+            mTileId = null;
+            throw ex;
+        }
+    }
+
+    private UUID findTile() throws Exception {
+        Collection<BandTile> tiles = BandCalls.await("Get tiles", mClient.getTileManager().getTiles(),
+                CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        return tiles.isEmpty() ? null : tiles.iterator().next().getTileId();
+    }
+}
@@ -0,0 +1,126 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.microsoft.band.BandException;
+import com.microsoft.band.BandPendingResult;
+import com.microsoft.band.sdksample.stats.LogHistogram;
+
+import android.os.Looper;
+
+/**
+ * Waits for the results of Band SDK calls, and measures how long that blocked the UI
+ * thread.
+ * <p>
+ * Most screens of the sample call the SDK from click listeners and wait for the
+ * result right there, which freezes the UI for as long as the Band takes to answer.
+ * Going through these methods records every such wait in a histogram, along with the
+ * slowest call, so {@link PerformanceOverlay} can show where the UI thread spent its
+ * time. Waits on other threads are not counted, since they block nobody.
+ */
+public final class BandCalls {
+
+    // Microseconds each call blocked the UI thread
+    private static final LogHistogram sBlockedTimes = new LogHistogram();
+
+    private static volatile long sBlockedNanos;
+    private static volatile String sSlowestCall;
+    private static volatile long sSlowestCallNanos;
+
+    private BandCalls() {
+    }
+
+    /**
+     * Waits for the result of a call.
+     *
+     * @param name what the call does, e.g. "Get theme", for the overlay
+     */
+    public static <R> R await(String name, BandPendingResult<R> result) throws InterruptedException, BandException {
+        if (!isOnUiThread()) {
+            return result.await();
+        }
+
+        long start = System.nanoTime();
+        try {
+            return result.await();
+        } finally {
+            onBlocked(name, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Waits at most the given time for the result of a call.
+     *
+     * @param name what the call does, e.g. "Get theme", for the overlay
+     */
+    public static <R> R await(String name, BandPendingResult<R> result, long timeout, TimeUnit unit)
+            throws InterruptedException, TimeoutException, BandException {
+        if (!isOnUiThread()) {
+            return result.await(timeout, unit);
+        }
+
+        long start = System.nanoTime();
+        try {
+            return result.await(timeout, unit);
+        } finally {
+            onBlocked(name, System.nanoTime() - start);
+        }
+    }
+
+    private static boolean isOnUiThread() {
+        return Looper.myLooper() == Looper.getMainLooper();
+    }
+
+    // Only called on the UI thread
+    private static void onBlocked(String name, long nanos) {
+        sBlockedTimes.record(nanos / 1000);
+        sBlockedNanos += nanos;
+        if (nanos > sSlowestCallNanos) {
+            sSlowestCallNanos = nanos;
+            sSlowestCall = name;
+        }
+    }
+
+    /**
+     * Copies the microseconds each call blocked the UI thread into the snapshot.
+     */
+    public static void getBlockedTimes(LogHistogram.Snapshot snapshot) {
+        sBlockedTimes.getSnapshot(snapshot);
+    }
+
+    /**
+     * Returns the total time the UI thread waited for the Band.
+     */
+    public static long getBlockedNanos() {
+        return sBlockedNanos;
+    }
+
+    /**
+     * Returns the name of the call that blocked the UI thread the longest, or null.
+     */
+    public static String getSlowestCall() {
+        return sSlowestCall;
+    }
+
+    public static long getSlowestCallNanos() {
+        return sSlowestCallNanos;
+    }
+}
@@ -0,0 +1,356 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample;
+
+import com.microsoft.band.BandException;
+import com.microsoft.band.sdksample.alerts.AlertDispatcher;
+import com.microsoft.band.sdksample.align.SensorStreams;
+import com.microsoft.band.sdksample.channels.AnomalyMonitor;
+import com.microsoft.band.sdksample.channels.GyroscopeSample;
+import com.microsoft.band.sdksample.channels.SampleRateController;
+import com.microsoft.band.sdksample.channels.SensorChannel;
+import com.microsoft.band.sdksample.channels.SensorChannelRegistry;
+import com.microsoft.band.sdksample.channels.SensorHandoff;
+import com.microsoft.band.sdksample.dsp.FilterChain;
+import com.microsoft.band.sdksample.fusion.MadgwickFilter;
+import com.microsoft.band.sdksample.fusion.OrientationTracker;
+import com.microsoft.band.sdksample.recording.SessionRecorder;
+import com.microsoft.band.sdksample.sensors.SensorType;
+import com.microsoft.band.sdksample.storage.SampleWriter;
+import com.microsoft.band.sensors.BandGyroscopeEvent;
+import com.microsoft.band.sensors.BandSensorManager;
+import com.microsoft.band.sensors.SampleRate;
+
+import android.util.Log;
+
+/**
+ * Everything {@link SensorCaptureService} keeps for one Band: its sensor channels with
+ * their buffers and stores, the processing threads, the rate controller, the
+ * orientation, the streams aligned for the anomaly detectors, and the recorder and
+ * database writer while those are on.
+ * <p>
+ * Pipelines share nothing, so the samples of each Band are handled on its own
+ * processing threads without waiting for any other Band, and the work grows linearly
+ * with the number of Bands. All methods must be called on the UI thread.
+ */
+public class BandPipeline {
+
+    private static final String TAG = "BandPipeline";
+
+    // How long the UI thread waits for the processing threads to end
+    private static final long HANDOFF_STOP_TIMEOUT_MS = 200;
+
+    private final Model.Band mBand;
+    private final SensorChannelRegistry mChannels;
+    private final SampleRateController mRateController;
+    private final OrientationTracker mOrientation;
+
+    // Only fed by the channels while alerting
+    private final SensorStreams mStreams;
+
+    // The processing threads, only running while a sensor is captured
+    private SensorHandoff mHandoff;
+
+    // The previous handoff, if its threads were still working off their queues when it
+    // was stopped
+    private SensorHandoff mStoppingHandoff;
+
+    private BandSensorManager mSensorManager;
+    private SampleWriter mWriter;
+    private AlertDispatcher mAlertDispatcher;
+    private AnomalyMonitor mAnomalyMonitor;
+
+    BandPipeline(Model.Band band, FilterChain.Builder inertialFilter) {
+        mBand = band;
+        mChannels = new SensorChannelRegistry(band.getName(), inertialFilter);
+        mRateController = new SampleRateController(mChannels);
+
+        // The orientation is fused from every gyroscope sample, at the rate they arrive
+        mOrientation = new OrientationTracker(new MadgwickFilter());
+        mChannels.getGyroscope().addConsumer(mOrientationConsumer);
+
+        mStreams = new SensorStreams(AnomalyMonitor.FRAME_PERIOD_MS, null);
+    }
+
+    private SensorChannel.Consumer<BandGyroscopeEvent> mOrientationConsumer = new SensorChannel.Consumer<BandGyroscopeEvent>() {
+        // Only used on the gyroscope's processing thread
+        private final GyroscopeSample mSample = new GyroscopeSample();
+
+        @Override
+        public void onSample(SensorType type, BandGyroscopeEvent event) {
+            mOrientation.onSample(mSample.set(event));
+        }
+    };
+
+    /**
+     * Stops the processing threads if they still run. Must be called once the pipeline
+     * is no longer used, after {@link #stopAllCapture()}.
+     */
+    void release() {
+        setAlerting(false);
+        if (mHandoff != null) {
+            stopHandoff();
+        }
+    }
+
+    //
+    // A Band that is connected but not captured shouldn't keep threads around, so the
+    // processing threads are started with the first sensor and stopped, after they have
+    // processed what was queued, once the last one is stopped. This runs on the UI
+    // thread, so it waits only briefly for them; threads with a backlog finish it on
+    // their own. A handoff can't be restarted; the next capture gets a new one, which
+    // takes over the channels once the previous threads are done, so that a channel is
+    // never processed by two threads at once.
+    //
+    private void startHandoff() {
+        if (mHandoff != null) {
+            return;
+        }
+
+        if (mStoppingHandoff != null) {
+            if (!mStoppingHandoff.awaitStop(HANDOFF_STOP_TIMEOUT_MS)) {
+                Log.w(TAG, "Processing threads of " + mBand + " are still busy; starting new ones anyway");
+            }
+            mStoppingHandoff = null;
+        }
+        mHandoff = new SensorHandoff(mChannels, SensorHandoff.DEFAULT_THREAD_COUNT);
+        mHandoff.start();
+    }
+
+    private void stopHandoffIfIdle() {
+        if (mHandoff != null && getCapturedCount() == 0) {
+            stopHandoff();
+        }
+    }
+
+    private void stopHandoff() {
+        mHandoff.stop();
+        if (!mHandoff.awaitStop(HANDOFF_STOP_TIMEOUT_MS)) {
+            mStoppingHandoff = mHandoff;
+        }
+        mHandoff = null;
+    }
+
+    public Model.Band getBand() {
+        return mBand;
+    }
+
+    public SensorChannelRegistry getChannels() {
+        return mChannels;
+    }
+
+    /**
+     * Returns the queues between the SDK threads and the processing threads, for
+     * their metrics, or null while no sensor is captured.
+     */
+    public SensorHandoff getHandoff() {
+        return mHandoff;
+    }
+
+    public SampleRateController getRateController() {
+        return mRateController;
+    }
+
+    /**
+     * Returns the orientation of the Band, estimated while the gyroscope is captured.
+     */
+    public OrientationTracker getOrientation() {
+        return mOrientation;
+    }
+
+    /**
+     * Starts capturing a sensor; see {@link SensorCaptureService#startCapture}.
+     */
+    void startCapture(SensorType type, SampleRate rate, boolean autoRate) throws BandException {
+        SensorChannel<?> channel = mChannels.get(type);
+        if (channel.isRegistered()) {
+            return;
+        }
+
+        if (type == SensorType.GYROSCOPE) {
+            mOrientation.reset();
+        }
+        if (mAnomalyMonitor != null) {
+            mAnomalyMonitor.reset(type);
+        }
+
+        if (type == SensorType.ACCELEROMETER || type == SensorType.GYROSCOPE) {
+            mRateController.setEnabled(type, autoRate);
+            if (autoRate) {
+                rate = mRateController.getTargetRate(type);
+            }
+        }
+
+        // Every channel of a capture goes to the same client
+        if (mSensorManager == null) {
+            mSensorManager = mBand.getClient().getSensorManager();
+        }
+
+        startHandoff();
+        try {
+            channel.register(mSensorManager, rate);
+        } finally {
+            stopHandoffIfIdle();
+        }
+    }
+
+    void stopCapture(SensorType type) throws BandException {
+        SensorChannel<?> channel = mChannels.get(type);
+        if (channel.isRegistered()) {
+            try {
+                channel.unregister(mSensorManager);
+            } finally {
+                stopHandoffIfIdle();
+            }
+        }
+    }
+
+    public boolean isCapturing(SensorType type) {
+        return mChannels.get(type).isRegistered();
+    }
+
+    /**
+     * Stops every sensor. Failures to unregister are only logged, since this is also
+     * how we clean up after the Band went away.
+     */
+    void stopAllCapture() {
+        for (SensorType type : SensorType.values()) {
+            SensorChannel<?> channel = mChannels.get(type);
+            if (channel.isRegistered()) {
+                try {
+                    channel.unregister(mSensorManager);
+                } catch (BandException ex) {
+                    Log.w(TAG, "Unregistering " + type + " of " + mBand + " failed", ex);
+                }
+            }
+        }
+        mSensorManager = null;
+        stopHandoffIfIdle();
+    }
+
+    int getCapturedCount() {
+        int count = 0;
+        for (SensorType type : SensorType.values()) {
+            if (mChannels.get(type).isRegistered()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Lets the rate controller adjust the inertial sample rates. A sensor whose rate
+     * can't be changed gives up the change under way and keeps its current rate from
+     * then on, rather than failing the same way every time; the other sensor goes on.
+     */
+    void updateSampleRates(long nowMs) {
+        if (mSensorManager == null || !mBand.isConnected()) {
+            return;
+        }
+
+        updateSampleRate(SensorType.ACCELEROMETER, nowMs);
+        updateSampleRate(SensorType.GYROSCOPE, nowMs);
+    }
+
+    private void updateSampleRate(SensorType type, long nowMs) {
+        try {
+            mRateController.update(type, mSensorManager, nowMs);
+        } catch (BandException ex) {
+            Log.w(TAG, "Changing the sample rate of " + type + " on " + mBand + " failed", ex);
+            try {
+                mRateController.abortRateChange(type, mSensorManager);
+            } catch (BandException abortEx) {
+                Log.w(TAG, "Aborting the rate change of " + type + " on " + mBand + " failed", abortEx);
+            }
+            mRateController.setEnabled(type, false);
+        }
+    }
+
+    SessionRecorder getRecorder() {
+        return mChannels.getRecorder();
+    }
+
+    /**
+     * Sets the recorder of the Band's samples, or null to stop recording; the previous
+     * recorder is returned for the caller to close.
+     */
+    SessionRecorder setRecorder(SessionRecorder recorder) {
+        SessionRecorder previous = mChannels.getRecorder();
+        mChannels.setRecorder(recorder);
+        return previous;
+    }
+
+    SampleWriter getWriter() {
+        return mWriter;
+    }
+
+    /**
+     * Sets the writer of the Band's samples, or null to stop storing; the previous writer
+     * is returned for the caller to close.
+     */
+    SampleWriter setWriter(SampleWriter writer) {
+        SampleWriter previous = mWriter;
+        if (previous != null) {
+            previous.removeFrom(mChannels);
+        }
+        mWriter = writer;
+        if (writer != null) {
+            writer.addTo(mChannels);
+        }
+        return previous;
+    }
+
+    boolean isAlerting() {
+        return mAnomalyMonitor != null;
+    }
+
+    /**
+     * Starts or stops watching the Band's sensors for anomalies and alerting the wearer
+     * on the Band. While alerting, the accelerometer runs at its highest rate so the
+     * motion detectors see every sample.
+     */
+    void setAlerting(boolean alerting) {
+        if (alerting == isAlerting()) {
+            return;
+        }
+
+        if (alerting) {
+            mAlertDispatcher = new AlertDispatcher(new BandAlertSink(mBand.getClient()));
+            mAnomalyMonitor = new AnomalyMonitor(mAlertDispatcher);
+
+            // Start the frames over rather than from samples of an earlier alerting
+            mStreams.getAligner().reset();
+            mAnomalyMonitor.addTo(mChannels, mStreams);
+            mStreams.addTo(mChannels);
+        } else {
+            mStreams.removeFrom(mChannels);
+            mAnomalyMonitor.removeFrom(mChannels, mStreams);
+            mAnomalyMonitor = null;
+            mAlertDispatcher.close();
+            mAlertDispatcher = null;
+        }
+        mRateController.setDemand(SensorType.ACCELEROMETER, SampleRateController.DEMAND_HIGH_RATE, alerting);
+    }
+
+    /**
+     * Returns the dispatcher of the alerts, for its counts, or null while not alerting.
+     */
+    public AlertDispatcher getAlertDispatcher() {
+        return mAlertDispatcher;
+    }
+}
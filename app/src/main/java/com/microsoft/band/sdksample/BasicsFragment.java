@@ -17,6 +17,8 @@
 //IN THE SOFTWARE.
 package com.microsoft.band.sdksample;
 
+import java.io.File;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -27,6 +29,10 @@ import com.microsoft.band.BandDeviceInfo;
 import com.microsoft.band.BandException;
 import com.microsoft.band.BandPendingResult;
 import com.microsoft.band.notification.VibrationType;
+import com.microsoft.band.sdksample.offline.OfflineBandClient;
+import com.microsoft.band.sdksample.offline.ReplaySensorManager;
+import com.microsoft.band.sdksample.offline.SimulatedBandClient;
+import com.microsoft.band.sdksample.recording.SessionReader;
 
 import android.support.v4.app.Fragment;
 import android.app.AlertDialog;
@@ -44,6 +50,7 @@ public class BasicsFragment extends Fragment implements FragmentListener {
 
     private Button mButtonConnect;
     private Button mButtonChooseBand;
+    private Button mButtonShowBand;
 
     private Button mButtonGetHwVersion;
     private Button mButtonGetFwVersion;
@@ -54,8 +61,23 @@ public class BasicsFragment extends Fragment implements FragmentListener {
     private Button mButtonVibrate;
     private Button mButtonVibratePattern;
 
+    // The simulated band is offered after the paired ones, followed by the recorded
+    // sessions, which are played back as bands of their own
+    private static final String SIMULATED_BAND_NAME = "Simulated Band";
+    private static final String REPLAY_BAND_PREFIX = "Replay ";
+
+    //
+    // Any number of bands can be chosen and are then connected together. Each entry
+    // of mChosenBands says whether the paired band at that index is chosen, the next
+    // one whether the simulated band is, and the rest whether the recorded session at
+    // that index of mSessions is.
+    //
     private BandDeviceInfo[] mPairedBands;
-    private int mSelectedBandIndex = 0;
+    private List<File> mSessions;
+    private boolean[] mChosenBands;
+
+    // The connect tasks still running
+    private int mConnectingCount;
 
     private VibrationType mSelectedVibrationType = VibrationType.NOTIFICATION_ALARM;
 
@@ -78,6 +100,9 @@ public class BasicsFragment extends Fragment implements FragmentListener {
         mButtonChooseBand = (Button) rootView.findViewById(R.id.buttonChooseBand);
         mButtonChooseBand.setOnClickListener(mButtonChooseBandClickListener);
 
+        mButtonShowBand = (Button) rootView.findViewById(R.id.buttonShowBand);
+        mButtonShowBand.setOnClickListener(mButtonShowBandClickListener);
+
         mButtonGetHwVersion = (Button) rootView.findViewById(R.id.buttonGetHardwareVersion);
         mButtonGetHwVersion.setOnClickListener(mButtonGetHwVersionClickListener);
 
@@ -102,25 +127,37 @@ public class BasicsFragment extends Fragment implements FragmentListener {
         super.onResume();
 
         mPairedBands = BandClientManager.getInstance().getPairedBands();
-
-        // If one or more bands were removed, making our band selection invalid,
-        // reset the selection to the first in the list.
-        if (mSelectedBandIndex >= mPairedBands.length) {
-            mSelectedBandIndex = 0;
+        List<File> sessions = SessionReader.findSessions(Util.getSessionsDirectory(getActivity()));
+
+        // If bands were paired or removed, or sessions recorded, making our band
+        // selection invalid, reset the selection to the first in the list, or the
+        // simulated band if none.
+        if (mChosenBands == null || !sessions.equals(mSessions)
+                || mChosenBands.length != mPairedBands.length + 1 + sessions.size()) {
+            mChosenBands = new boolean[mPairedBands.length + 1 + sessions.size()];
+            mChosenBands[0] = true;
         }
+        mSessions = sessions;
 
         refreshControls();
     }
 
     //
     // The connect call must be done on a background thread because it
-    // involves a callback that must be handled on the UI thread.
+    // involves a callback that must be handled on the UI thread. The bands
+    // connect in parallel, so a slow band doesn't hold up the others.
     //
-    private class ConnectTask extends AsyncTask<BandClient, Void, ConnectionResult> {
+    private class ConnectTask extends AsyncTask<Void, Void, ConnectionResult> {
+        private final Model.Band mBand;
+
+        ConnectTask(Model.Band band) {
+            mBand = band;
+        }
+
         @Override
-        protected ConnectionResult doInBackground(BandClient... clientParams) {
+        protected ConnectionResult doInBackground(Void... params) {
             try {
-                return clientParams[0].connect().await();
+                return mBand.getClient().connect().await();
             } catch (InterruptedException e) {
                 return ConnectionResult.TIMEOUT;
             } catch (BandException e) {
@@ -129,10 +166,24 @@ public class BasicsFragment extends Fragment implements FragmentListener {
         }
 
         protected void onPostExecute(ConnectionResult result) {
+            mConnectingCount--;
             if (result != ConnectionResult.OK) {
-                Util.showExceptionAlert(getActivity(), "Connect", new Exception("Connection failed: result=" + result.toString()));
+                removeBand(mBand);
+                if (getActivity() != null) {
+                    Util.showExceptionAlert(getActivity(), "Connect " + mBand.getName(),
+                            new Exception("Connection failed: result=" + result.toString()));
+                }
             }
-            refreshControls();
+            if (isAdded()) {
+                refreshControls();
+            }
+        }
+    }
+
+    private static void removeBand(Model.Band band) {
+        Model.getInstance().removeBand(band);
+        if (band.getClient() instanceof SimulatedBandClient) {
+            ((SimulatedBandClient) band.getClient()).shutdown();
         }
     }
 
@@ -142,51 +193,110 @@ public class BasicsFragment extends Fragment implements FragmentListener {
     private OnClickListener mButtonConnectClickListener = new OnClickListener() {
         @Override
         public void onClick(View button) {
-            if (Model.getInstance().isConnected()) {
-                try {
-                    Model.getInstance().getClient().disconnect().await(2, TimeUnit.SECONDS);
-                    refreshControls();
-                } catch (Exception ex) {
-                    Util.showExceptionAlert(getActivity(), "Disconnect", ex);
+            if (Model.getInstance().isAnyConnected()) {
+                for (Model.Band band : Model.getInstance().getBands()) {
+                    try {
+                        if (band.isConnected()) {
+                            BandCalls.await("Disconnect", band.getClient().disconnect(), 2, TimeUnit.SECONDS);
+                        }
+                    } catch (Exception ex) {
+                        Util.showExceptionAlert(getActivity(), "Disconnect " + band.getName(), ex);
+                    }
                 }
+                refreshControls();
             } else {
-                // Always recreate our BandClient since the selection might
+                // Always recreate our BandClients since the selection might
                 // have changed. This is safe since we aren't connected.
-                BandClient client = BandClientManager.getInstance().create(getActivity(), mPairedBands[mSelectedBandIndex]);
-                Model.getInstance().setClient(client);
+                for (Model.Band band : Model.getInstance().getBands()) {
+                    removeBand(band);
+                }
 
-                mButtonConnect.setEnabled(false);
+                for (int i = 0; i < mChosenBands.length; i++) {
+                    if (!mChosenBands[i]) {
+                        continue;
+                    }
+
+                    Model.Band band;
+                    if (i == mPairedBands.length) {
+                        band = Model.getInstance().addBand(SIMULATED_BAND_NAME, new SimulatedBandClient());
+                    } else if (i > mPairedBands.length) {
+                        File session = getSession(i);
+                        band = Model.getInstance().addBand(getBandName(i),
+                                new OfflineBandClient(new ReplaySensorManager(session)));
+                    } else {
+                        BandClient client = BandClientManager.getInstance().create(getActivity(), mPairedBands[i]);
+                        band = Model.getInstance().addBand(mPairedBands[i].getName(), client);
+                    }
+
+                    // Connect must be called on a background thread.
+                    mConnectingCount++;
+                    new ConnectTask(band).executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+                }
 
-                // Connect must be called on a background thread.
-                new ConnectTask().execute(Model.getInstance().getClient());
+                refreshControls();
             }
         }
     };
 
     //
-    // If there are multiple bands, the "choose band" button is enabled and
-    // launches a dialog where we can select the band to use.
+    // The "choose band" button launches a dialog where we can select the
+    // bands to use, including the simulated band.
     //
     private OnClickListener mButtonChooseBandClickListener = new OnClickListener() {
         @Override
         public void onClick(View button) {
             AlertDialog.Builder builder = new AlertDialog.Builder(getActivity());
 
-            String[] names = new String[mPairedBands.length];
+            String[] names = new String[mChosenBands.length];
             for (int i = 0; i < names.length; i++) {
-                names[i] = mPairedBands[i].getName();
+                names[i] = getBandName(i);
+            }
+
+            final boolean[] chosen = mChosenBands.clone();
+            builder.setMultiChoiceItems(names, chosen, new DialogInterface.OnMultiChoiceClickListener() {
+                public void onClick(DialogInterface dialog, int which, boolean isChecked) {
+                    chosen[which] = isChecked;
+                }
+            });
+            builder.setPositiveButton(R.string.ok_button_text, new AlertDialog.OnClickListener() {
+                public void onClick(DialogInterface dialog, int which) {
+                    mChosenBands = chosen;
+                    refreshControls();
+                }
+            });
+            builder.setNegativeButton(R.string.cancel_button_text, null);
+
+            builder.setTitle("Select bands:");
+            builder.show();
+        }
+    };
+
+    //
+    // The "show band" button picks which of the connected bands the other
+    // tabs, and the version and vibration buttons here, act on.
+    //
+    private OnClickListener mButtonShowBandClickListener = new OnClickListener() {
+        @Override
+        public void onClick(View button) {
+            AlertDialog.Builder builder = new AlertDialog.Builder(getActivity());
+
+            final List<Model.Band> bands = Model.getInstance().getBands();
+            String[] names = new String[bands.size()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = bands.get(i).getName();
             }
 
-            builder.setItems(names, null);
             builder.setItems(names, new AlertDialog.OnClickListener() {
                 public void onClick(DialogInterface dialog, int which) {
-                    mSelectedBandIndex = which;
+                    Model.getInstance().setShownBand(bands.get(which));
+                    mTextFwVersion.setText("");
+                    mTextHwVersion.setText("");
                     dialog.dismiss();
                     refreshControls();
                 }
             });
 
-            builder.setTitle("Select band:");
+            builder.setTitle("Show band:");
             builder.show();
         }
     };
@@ -197,7 +307,7 @@ public class BasicsFragment extends Fragment implements FragmentListener {
             try {
                 mTextFwVersion.setText("");
                 BandPendingResult<String> result = Model.getInstance().getClient().getFirmwareVersion();
-                String fwVersion = result.await(2, TimeUnit.SECONDS);
+                String fwVersion = BandCalls.await("Get firmware version", result, 2, TimeUnit.SECONDS);
                 mTextFwVersion.setText(fwVersion);
             } catch (TimeoutException t) {
                 mTextFwVersion.setText("timeout");
@@ -213,7 +323,7 @@ public class BasicsFragment extends Fragment implements FragmentListener {
             try {
                 mTextHwVersion.setText("");
                 BandPendingResult<String> result = Model.getInstance().getClient().getHardwareVersion();
-                String hwVersion = result.await(2, TimeUnit.SECONDS);
+                String hwVersion = BandCalls.await("Get hardware version", result, 2, TimeUnit.SECONDS);
                 mTextHwVersion.setText(hwVersion);
             } catch (TimeoutException t) {
                 mTextHwVersion.setText("timeout");
@@ -227,11 +337,10 @@ public class BasicsFragment extends Fragment implements FragmentListener {
         @Override
         public void onClick(View button) {
             try {
-                Model.getInstance()
+                BandCalls.await("Vibrate band", Model.getInstance()
                     .getClient()
                     .getNotificationManager()
-                    .vibrate(mSelectedVibrationType)
-                    .await();
+                    .vibrate(mSelectedVibrationType));
             } catch (Exception e) {
                 Util.showExceptionAlert(getActivity(), "Vibrate band", e);
             }
@@ -263,31 +372,52 @@ public class BasicsFragment extends Fragment implements FragmentListener {
         }
     };
 
-    private void refreshControls() {
-        switch (mPairedBands.length) {
-        case 0:
-            mButtonChooseBand.setText("No paired bands");
-            mButtonChooseBand.setEnabled(false);
-            mButtonConnect.setEnabled(false);
-            break;
+    private File getSession(int choice) {
+        return mSessions.get(choice - mPairedBands.length - 1);
+    }
 
-        case 1:
-            mButtonChooseBand.setText(mPairedBands[mSelectedBandIndex].getName());
-            mButtonChooseBand.setEnabled(false);
-            mButtonConnect.setEnabled(true);
-            break;
-
-        default:
-            mButtonChooseBand.setText(mPairedBands[mSelectedBandIndex].getName());
-            mButtonChooseBand.setEnabled(true);
-            mButtonConnect.setEnabled(true);
-            break;
+    // A replayed session is named after its directory below the sessions directory,
+    // which for a recording of several bands includes the band
+    private String getBandName(int choice) {
+        if (choice < mPairedBands.length) {
+            return mPairedBands[choice].getName();
+        } else if (choice == mPairedBands.length) {
+            return SIMULATED_BAND_NAME;
         }
 
+        File session = getSession(choice);
+        File parent = session.getParentFile();
+        if (parent.equals(Util.getSessionsDirectory(getActivity()))) {
+            return REPLAY_BAND_PREFIX + session.getName();
+        }
+        return REPLAY_BAND_PREFIX + parent.getName() + "/" + session.getName();
+    }
+
+    private void refreshControls() {
+        // There's always the simulated band to choose besides the paired ones
+        StringBuilder chosenNames = new StringBuilder();
+        for (int i = 0; i < mChosenBands.length; i++) {
+            if (mChosenBands[i]) {
+                if (chosenNames.length() > 0) {
+                    chosenNames.append(", ");
+                }
+                chosenNames.append(getBandName(i));
+            }
+        }
+        mButtonChooseBand.setText(chosenNames.length() > 0 ? chosenNames : "None");
+        mButtonChooseBand.setEnabled(mConnectingCount == 0);
+        mButtonConnect.setEnabled(mConnectingCount == 0 && chosenNames.length() > 0);
+
+        Model.Band shownBand = Model.getInstance().getShownBand();
+        mButtonShowBand.setText(shownBand != null ? shownBand.getName() : "");
+        mButtonShowBand.setEnabled(Model.getInstance().getBands().size() > 1);
+
+        // The other buttons act on the shown band
         boolean connected = Model.getInstance().isConnected();
 
-        if (connected) {
+        if (Model.getInstance().isAnyConnected()) {
             mButtonConnect.setText(R.string.disconnect_label);
+            mButtonConnect.setEnabled(mConnectingCount == 0);
 
             // must disconnect before changing the band selection
             mButtonChooseBand.setEnabled(false);
@@ -23,7 +23,11 @@ import java.util.Locale;
 
 import android.app.ActionBar;
 import android.app.FragmentTransaction;
+import android.content.ComponentName;
+import android.content.Intent;
+import android.content.ServiceConnection;
 import android.os.Bundle;
+import android.os.IBinder;
 import android.support.v4.app.Fragment;
 import android.support.v4.app.FragmentActivity;
 import android.support.v4.app.FragmentManager;
@@ -48,6 +52,11 @@ public class MainActivity extends FragmentActivity implements ActionBar.TabListe
      */
     ViewPager mViewPager;
 
+    private static final String STATE_PERFORMANCE_OVERLAY = "performanceOverlay";
+
+    private PerformanceOverlay mPerformanceOverlay;
+    private boolean mOverlayServiceBound;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -83,27 +92,48 @@ public class MainActivity extends FragmentActivity implements ActionBar.TabListe
             // this tab is selected.
             actionBar.addTab(actionBar.newTab().setText(mSectionsPagerAdapter.getPageTitle(i)).setTabListener(this));
         }
+
+        mPerformanceOverlay = (PerformanceOverlay) findViewById(R.id.performanceOverlay);
+        if (savedInstanceState != null && savedInstanceState.getBoolean(STATE_PERFORMANCE_OVERLAY)) {
+            showPerformanceOverlay(true);
+        }
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putBoolean(STATE_PERFORMANCE_OVERLAY, mPerformanceOverlay.isRunning());
     }
     
     @Override
     public void onDestroy() {
-        try {
-            if (Model.getInstance().isConnected()) {
-                Model.getInstance().getClient().disconnect().await();
+        showPerformanceOverlay(false);
+
+        // A running capture keeps using the connection after we are gone
+        if (SensorCaptureService.isInForeground()) {
+            super.onDestroy();
+            return;
+        }
+
+        for (Model.Band band : Model.getInstance().getBands()) {
+            try {
+                if (band.isConnected()) {
+                    BandCalls.await("Disconnect", band.getClient().disconnect());
+                }
+            } catch (Exception e) {
+                // ignore failures here
             }
-        } catch (Exception e) {
-            // ignore failures here
-        } finally {
-            Model.getInstance().setClient(null);
         }
+        Model.getInstance().setClient(null);
 
-        super.onPause();
+        super.onDestroy();
     }
 
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         // Inflate the menu; this adds items to the action bar if it is present.
         getMenuInflater().inflate(R.menu.main, menu);
+        menu.findItem(R.id.action_performance_overlay).setChecked(mPerformanceOverlay.isRunning());
         return true;
     }
 
@@ -116,9 +146,48 @@ public class MainActivity extends FragmentActivity implements ActionBar.TabListe
         if (id == R.id.action_settings) {
             return true;
         }
+        if (id == R.id.action_performance_overlay) {
+            showPerformanceOverlay(!item.isChecked());
+            item.setChecked(mPerformanceOverlay.isRunning());
+            return true;
+        }
         return super.onOptionsItemSelected(item);
     }
 
+    /**
+     * Shows or hides the performance overlay. The overlay reads the sensor metrics from
+     * the capture service, but binding to it for the overlay doesn't start the service;
+     * the overlay shows the sensors once the sensors screen has started it.
+     */
+    private void showPerformanceOverlay(boolean show) {
+        if (show) {
+            if (!mOverlayServiceBound) {
+                mOverlayServiceBound = bindService(new Intent(this, SensorCaptureService.class),
+                        mOverlayServiceConnection, 0);
+            }
+            mPerformanceOverlay.start();
+        } else {
+            mPerformanceOverlay.stop();
+            mPerformanceOverlay.setService(null);
+            if (mOverlayServiceBound) {
+                unbindService(mOverlayServiceConnection);
+                mOverlayServiceBound = false;
+            }
+        }
+    }
+
+    private ServiceConnection mOverlayServiceConnection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder binder) {
+            mPerformanceOverlay.setService(((SensorCaptureService.LocalBinder) binder).getService());
+        }
+
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            mPerformanceOverlay.setService(null);
+        }
+    };
+
     @Override
     public void onTabSelected(ActionBar.Tab tab, FragmentTransaction fragmentTransaction) {
         // When the given tab is selected, switch to the corresponding page in
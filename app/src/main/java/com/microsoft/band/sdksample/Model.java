@@ -17,27 +17,161 @@
 //IN THE SOFTWARE.
 package com.microsoft.band.sdksample;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 import com.microsoft.band.BandClient;
 
+/**
+ * The Bands the app uses. Several Bands can be connected at once, for example to
+ * capture the sensors of a whole team; each has its own client and, in
+ * {@link SensorCaptureService}, its own sensor pipeline.
+ * <p>
+ * One of them is the shown Band, which the screens that deal with a single Band
+ * (versions, tiles, themes and the sensor displays) act on. {@link #getClient()} and
+ * {@link #isConnected()} refer to it.
+ * <p>
+ * The list of Bands is only changed on the UI thread, but can be read from any thread.
+ */
 public class Model {
 
+    /**
+     * A Band and the client connecting to it.
+     */
+    public static class Band {
+        private final String mName;
+        private final BandClient mClient;
+
+        Band(String name, BandClient client) {
+            mName = name;
+            mClient = client;
+        }
+
+        /**
+         * Returns the name of the Band, which is unique among the Bands of the model.
+         */
+        public String getName() {
+            return mName;
+        }
+
+        public BandClient getClient() {
+            return mClient;
+        }
+
+        public boolean isConnected() {
+            return mClient.isConnected();
+        }
+
+        @Override
+        public String toString() {
+            return mName;
+        }
+    }
+
     private static Model INSTANCE = new Model();
 
     public static Model getInstance() {
         return INSTANCE;
     }
 
-    private BandClient mClient;
+    private final CopyOnWriteArrayList<Band> mBands = new CopyOnWriteArrayList<Band>();
+    private volatile Band mShownBand;
+
+    /**
+     * Returns the Bands in the order they were added. Iterating the list is safe while
+     * Bands are added or removed.
+     */
+    public List<Band> getBands() {
+        return Collections.unmodifiableList(mBands);
+    }
+
+    /**
+     * Adds a Band, which becomes the shown one if there was none.
+     *
+     * @param name the name of the Band; a number is appended if another Band has it
+     */
+    public Band addBand(String name, BandClient client) {
+        String uniqueName = name;
+        for (int i = 2; findBand(uniqueName) != null; i++) {
+            uniqueName = name + " (" + i + ")";
+        }
 
+        Band band = new Band(uniqueName, client);
+        mBands.add(band);
+        if (mShownBand == null) {
+            mShownBand = band;
+        }
+        return band;
+    }
+
+    /**
+     * Removes a Band. If it was the shown one, the first remaining Band is shown.
+     */
+    public void removeBand(Band band) {
+        mBands.remove(band);
+        if (mShownBand == band) {
+            mShownBand = mBands.isEmpty() ? null : mBands.get(0);
+        }
+    }
+
+    public Band findBand(String name) {
+        for (Band band : mBands) {
+            if (band.getName().equals(name)) {
+                return band;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the Band the single-Band screens act on, or null if there is no Band.
+     */
+    public Band getShownBand() {
+        return mShownBand;
+    }
+
+    public void setShownBand(Band band) {
+        if (!mBands.contains(band)) {
+            throw new IllegalArgumentException("Unknown band " + band);
+        }
+        mShownBand = band;
+    }
+
+    /**
+     * Returns the client of the shown Band, or null if there is no Band.
+     */
     public BandClient getClient() {
-        return mClient;
+        Band band = mShownBand;
+        return (band != null) ? band.getClient() : null;
     }
 
+    /**
+     * Replaces all Bands with a single one using the given client, or removes them all
+     * if it is null.
+     */
     public void setClient(BandClient client) {
-        mClient = client;
+        mBands.clear();
+        mShownBand = null;
+        if (client != null) {
+            addBand("Band", client);
+        }
     }
 
+    /**
+     * Returns true if the shown Band is connected.
+     */
     public boolean isConnected() {
-        return (mClient != null) && mClient.isConnected();
+        Band band = mShownBand;
+        return (band != null) && band.isConnected();
+    }
+
+    public boolean isAnyConnected() {
+        for (Band band : mBands) {
+            if (band.isConnected()) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,369 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample;
+
+import java.util.List;
+import java.util.Locale;
+
+import com.microsoft.band.sdksample.channels.SensorChannel;
+import com.microsoft.band.sdksample.channels.SensorChannelRegistry;
+import com.microsoft.band.sdksample.channels.SensorHandoff;
+import com.microsoft.band.sdksample.channels.SensorMetrics;
+import com.microsoft.band.sdksample.sensors.SensorType;
+import com.microsoft.band.sdksample.stats.LogHistogram;
+import com.microsoft.band.sdksample.storage.SampleWriter;
+import com.microsoft.band.sdksample.text.FixedPointFormatter;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.util.AttributeSet;
+import android.view.Choreographer;
+import android.view.View;
+
+/**
+ * A panel of live performance figures drawn over the app, for diagnosing slow phones
+ * without a profiler: frame times, heap usage, how long the UI thread waited for the
+ * Band ({@link BandCalls}), and for every captured sensor of every Band its delivered
+ * and requested rate, handoff queue depth, lost samples and the age of the samples on
+ * screen ({@link SensorMetrics}), and while samples are stored, the sustained insert
+ * rate of the {@link SampleWriter}.
+ * <p>
+ * The overlay costs next to nothing while it is shown. Every {@link #REFRESH_INTERVAL_MS}
+ * it takes one snapshot of everything into reused objects, formats it into reused
+ * character arrays with {@link FixedPointFormatter} and redraws; nothing else ever
+ * invalidates it, so the rest of the time it is just a cached picture. Frame times
+ * come from a Choreographer callback that only records the interval since the
+ * previous frame. The overlay doesn't take touches, so the app stays usable under it.
+ */
+public class PerformanceOverlay extends View implements Choreographer.FrameCallback {
+
+    public static final long REFRESH_INTERVAL_MS = 500;
+
+    // Frames further apart than this missed at least one vsync at 60 Hz
+    private static final long SLOW_FRAME_NANOS = 25 * 1000 * 1000L;
+
+    private static final int MAX_LINES = 48;
+    private static final int MAX_LINE_LENGTH = 64;
+
+    private static final int TEXT_COLOR = 0xffffffff;
+    private static final int BACKGROUND_COLOR = 0xb0000000;
+    private static final float TEXT_SIZE_DP = 10f;
+    private static final float PADDING_DP = 4f;
+
+    private static final SensorType[] SENSOR_TYPES = SensorType.values();
+    private static final String[] SENSOR_LABELS = new String[SENSOR_TYPES.length];
+
+    static {
+        for (SensorType type : SENSOR_TYPES) {
+            SENSOR_LABELS[type.ordinal()] = type.name().toLowerCase(Locale.US);
+        }
+    }
+
+    private final Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mBackgroundPaint = new Paint();
+    private float mCharWidth;
+    private float mLineHeight;
+    private float mPadding;
+
+    private SensorCaptureService mService;
+    private boolean mRunning;
+
+    // The text, with room for a number past the end of a line, which is cut off when
+    // drawn
+    private final char[][] mLines = new char[MAX_LINES][MAX_LINE_LENGTH + FixedPointFormatter.MAX_NUMBER_LENGTH];
+    private final int[] mLineLengths = new int[MAX_LINES];
+    private int mLineCount;
+    private int mWidestLine;
+
+    // Frame intervals in microseconds since the last refresh, only used by the UI thread
+    private final LogHistogram mFrameTimes = new LogHistogram();
+    private long mLastFrameNanos;
+    private int mSlowFrameCount;
+
+    private final LogHistogram.Snapshot mHistogram = new LogHistogram.Snapshot();
+    private final SensorMetrics.Snapshot mMetrics = new SensorMetrics.Snapshot();
+
+    public PerformanceOverlay(Context context) {
+        super(context);
+        init();
+    }
+
+    public PerformanceOverlay(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init();
+    }
+
+    private void init() {
+        float density = getResources().getDisplayMetrics().density;
+        mTextPaint.setColor(TEXT_COLOR);
+        mTextPaint.setTextSize(TEXT_SIZE_DP * density);
+        mTextPaint.setTypeface(Typeface.MONOSPACE);
+        mBackgroundPaint.setColor(BACKGROUND_COLOR);
+        mCharWidth = mTextPaint.measureText("0");
+        mLineHeight = mTextPaint.getFontSpacing();
+        mPadding = PADDING_DP * density;
+    }
+
+    /**
+     * Sets the service whose Bands are shown, or null while it isn't bound.
+     */
+    public void setService(SensorCaptureService service) {
+        mService = service;
+    }
+
+    /**
+     * Shows the overlay and starts refreshing it. Must be called on the UI thread.
+     */
+    public void start() {
+        if (mRunning) {
+            return;
+        }
+
+        mRunning = true;
+        setVisibility(VISIBLE);
+        mFrameTimes.clear();
+        mSlowFrameCount = 0;
+        mLastFrameNanos = 0;
+        Choreographer.getInstance().postFrameCallback(this);
+        mRefresh.run();
+    }
+
+    /**
+     * Hides the overlay and stops everything it does. Must be called on the UI thread.
+     */
+    public void stop() {
+        if (!mRunning) {
+            return;
+        }
+
+        mRunning = false;
+        setVisibility(GONE);
+        Choreographer.getInstance().removeFrameCallback(this);
+        removeCallbacks(mRefresh);
+    }
+
+    public boolean isRunning() {
+        return mRunning;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        stop();
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mRunning) {
+            return;
+        }
+
+        if (mLastFrameNanos != 0) {
+            long interval = frameTimeNanos - mLastFrameNanos;
+            mFrameTimes.record(interval / 1000);
+            if (interval > SLOW_FRAME_NANOS) {
+                mSlowFrameCount++;
+            }
+        }
+        mLastFrameNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    private final Runnable mRefresh = new Runnable() {
+        @Override
+        public void run() {
+            update();
+            invalidate();
+            postDelayed(this, REFRESH_INTERVAL_MS);
+        }
+    };
+
+    //
+    // Builds the text of the overlay. Everything is read into the reused snapshots and
+    // formatted straight into the line arrays, so a refresh doesn't allocate.
+    //
+    private void update() {
+        mLineCount = 0;
+        mWidestLine = 0;
+
+        mFrameTimes.getSnapshot(mHistogram);
+        mFrameTimes.clear();
+        newLine().append("Frames  ");
+        if (mHistogram.getCount() > 0) {
+            appendMillis(mHistogram.getPercentile(0.5)).append(" p50 ");
+            appendMillis(mHistogram.getPercentile(0.99)).append(" p99 ");
+            appendMillis(mHistogram.getMax()).append(" max, ");
+            append(mSlowFrameCount).append(" slow");
+        }
+        mSlowFrameCount = 0;
+
+        Runtime runtime = Runtime.getRuntime();
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        newLine().append("Heap    ");
+        append(used / (1024.0 * 1024.0), 1).append(" of ");
+        append(runtime.maxMemory() / (1024.0 * 1024.0), 1).append(" MB");
+
+        BandCalls.getBlockedTimes(mHistogram);
+        newLine().append("UI wait ");
+        append(BandCalls.getBlockedNanos() / 1e9, 1).append(" s in ");
+        append(mHistogram.getCount()).append(" calls");
+        String slowest = BandCalls.getSlowestCall();
+        if (slowest != null) {
+            append(", slowest ").append(slowest).append(' ');
+            appendMillis(BandCalls.getSlowestCallNanos() / 1000);
+        }
+
+        SensorCaptureService service = mService;
+        if (service == null) {
+            return;
+        }
+
+        List<BandPipeline> pipelines = service.getPipelines();
+        for (int i = 0; i < pipelines.size(); i++) {
+            BandPipeline pipeline = pipelines.get(i);
+            SensorChannelRegistry channels = pipeline.getChannels();
+            SensorHandoff handoff = pipeline.getHandoff();
+            newLine().append(pipeline.getBand().getName());
+            if (handoff != null && handoff.getErrorCount() > 0) {
+                append(", ").append(handoff.getErrorCount()).append(" errors");
+            }
+
+            for (SensorType type : SENSOR_TYPES) {
+                SensorChannel<?> channel = channels.get(type);
+                if (channel.isRegistered()) {
+                    appendSensor(SENSOR_LABELS[type.ordinal()], channel);
+                }
+            }
+
+            SampleWriter writer = pipeline.getWriter();
+            if (writer != null) {
+                appendStorage(writer);
+            }
+        }
+    }
+
+    private void appendStorage(SampleWriter writer) {
+        newLine().append("  storage ").append(writer.getWrittenCount());
+        append(" rows in ").append(writer.getCommitCount()).append(" commits, ");
+        append(writer.getInsertRate(), 0).append(" rows/s, lost ");
+        append(writer.getDroppedCount());
+    }
+
+    private void appendSensor(String label, SensorChannel<?> channel) {
+        SensorMetrics.Snapshot metrics = mMetrics;
+        channel.getMetricsSnapshot(metrics);
+
+        newLine().append("  ").append(label).append(' ');
+        append(metrics.getRate(), 1);
+        if (metrics.getSampleRate() != null) {
+            append('/').append(metrics.getRequestedRate(), 1);
+        }
+        append(" Hz, queue ").append(metrics.getQueueDepth());
+        append('/').append(metrics.getQueueMaxDepth());
+        append(", lost ").append(metrics.getQueueDroppedCount());
+
+        LogHistogram.Snapshot ages = metrics.getScreenLatencies();
+        if (ages.getCount() > 0) {
+            append(", age ");
+            appendMillis(ages.getPercentile(0.99)).append(" p99");
+        }
+    }
+
+    //
+    // Line building. A line that runs out of room is cut off, and lines past the last
+    // one are dropped.
+    //
+
+    private char[] mLine;
+    private int mLength;
+
+    private PerformanceOverlay newLine() {
+        if (mLineCount < MAX_LINES) {
+            mLine = mLines[mLineCount];
+            mLineLengths[mLineCount] = 0;
+            mLineCount++;
+        } else {
+            mLine = null;
+        }
+        mLength = 0;
+        return this;
+    }
+
+    private PerformanceOverlay endAppend(int length) {
+        mLength = Math.min(length, MAX_LINE_LENGTH);
+        mLineLengths[mLineCount - 1] = mLength;
+        mWidestLine = Math.max(mWidestLine, mLength);
+        return this;
+    }
+
+    private PerformanceOverlay append(String text) {
+        if (mLine == null) {
+            return this;
+        }
+        int count = Math.min(text.length(), MAX_LINE_LENGTH - mLength);
+        text.getChars(0, count, mLine, mLength);
+        return endAppend(mLength + count);
+    }
+
+    private PerformanceOverlay append(char c) {
+        if (mLine == null || mLength == MAX_LINE_LENGTH) {
+            return this;
+        }
+        mLine[mLength] = c;
+        return endAppend(mLength + 1);
+    }
+
+    private PerformanceOverlay append(long value) {
+        if (mLine == null || mLength == MAX_LINE_LENGTH) {
+            return this;
+        }
+        return endAppend(FixedPointFormatter.formatLong(value, mLine, mLength));
+    }
+
+    private PerformanceOverlay append(double value, int decimals) {
+        if (mLine == null || mLength == MAX_LINE_LENGTH) {
+            return this;
+        }
+        return endAppend(FixedPointFormatter.formatFixed(value, decimals, mLine, mLength));
+    }
+
+    private PerformanceOverlay appendMillis(long micros) {
+        return append(micros / 1000.0, 1).append(" ms");
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (mLineCount == 0) {
+            return;
+        }
+
+        float left = getPaddingLeft();
+        float top = getPaddingTop();
+        canvas.drawRect(left, top, left + mWidestLine * mCharWidth + 2 * mPadding,
+                top + mLineCount * mLineHeight + 2 * mPadding, mBackgroundPaint);
+
+        float x = left + mPadding;
+        float y = top + mPadding - mTextPaint.ascent();
+        for (int i = 0; i < mLineCount; i++) {
+            canvas.drawText(mLines[i], 0, mLineLengths[i], x, y, mTextPaint);
+            y += mLineHeight;
+        }
+    }
+}
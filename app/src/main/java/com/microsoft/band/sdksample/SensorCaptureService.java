@@ -0,0 +1,543 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import com.microsoft.band.BandException;
+import com.microsoft.band.sdksample.channels.SampleRateController;
+import com.microsoft.band.sdksample.dsp.FilterChain;
+import com.microsoft.band.sdksample.recording.SessionRecorder;
+import com.microsoft.band.sdksample.sensors.SensorType;
+import com.microsoft.band.sdksample.storage.SampleDatabase;
+import com.microsoft.band.sdksample.storage.SampleWriter;
+import com.microsoft.band.sensors.SampleRate;
+
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Intent;
+import android.os.AsyncTask;
+import android.os.Binder;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Owns the sensor subscriptions of every connected Band, each in its own
+ * {@link BandPipeline} with the channels, buffers and stores, the session recording
+ * and the sample databases, so capture goes on while no screen shows it.
+ * <p>
+ * The UI binds to the service to display the pipeline of the shown Band and to turn
+ * sensors and recording on and off, which applies to all connected Bands at once.
+ * While any sensor is captured or a session is recorded, the service is started and
+ * runs in the foreground with an ongoing notification, so it outlives its bindings and
+ * the system keeps it around for hours. Once nothing is captured any more it leaves
+ * the foreground and stops itself, and is destroyed when the last binding goes away.
+ * <p>
+ * All methods must be called on the UI thread.
+ */
+public class SensorCaptureService extends Service {
+
+    private static final String TAG = "SensorCaptureService";
+
+    /**
+     * The file in the recording directory of each Band that receives the delivery
+     * metrics of its sensors as CSV when the recording stops.
+     */
+    public static final String METRICS_FILE_NAME = "metrics.csv";
+
+    private static final int NOTIFICATION_ID = 1;
+
+    /**
+     * Returned by {@link SensorCaptureService#onBind}; the service only runs in our
+     * own process.
+     */
+    public class LocalBinder extends Binder {
+        public SensorCaptureService getService() {
+            return SensorCaptureService.this;
+        }
+    }
+
+    //
+    // Before they are stored, the inertial samples go through a filter chain, which
+    // can smooth them and reduce their rate so the Band can run at 16ms while the
+    // stores and the UI see fewer samples. The UI shows the newest stored sample, so
+    // it sees the same filtered values. Recordings and the ring buffers keep the raw
+    // samples. The default chain passes everything through; for example
+    // new FilterChain.Builder().lowPass(5f).decimate(4) would store a smoothed 15.6
+    // samples per second at the 16ms rate.
+    //
+    private static final FilterChain.Builder INERTIAL_FILTER = new FilterChain.Builder();
+
+    // With the Auto rate, the accelerometer and gyroscope rates follow what their data is
+    // needed for and how much the Band moves, see SampleRateController. The controllers
+    // are updated periodically while anything is captured.
+    private static final long RATE_UPDATE_INTERVAL_MS = 500;
+
+    private final IBinder mBinder = new LocalBinder();
+
+    // One per Band of the model that was used for anything, in the model's order
+    private final ArrayList<BandPipeline> mPipelines = new ArrayList<BandPipeline>();
+    private Handler mHandler;
+
+    private boolean mDisplayed;
+    private File mRecordingDirectory;
+    private boolean mStoring;
+    private boolean mAlerting;
+    private boolean mForeground;
+
+    // Whether any instance is capturing in the foreground
+    private static volatile boolean sInForeground;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        mHandler = new Handler();
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        // We are only started to keep running while unbound; after being killed there is
+        // no capture to resume, since the subscriptions went away with the process.
+        return START_NOT_STICKY;
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return mBinder;
+    }
+
+    @Override
+    public void onDestroy() {
+        stopAllCapture();
+        stopRecording();
+        stopStoring();
+        mHandler.removeCallbacks(mUpdateSampleRates);
+        for (BandPipeline pipeline : mPipelines) {
+            pipeline.release();
+        }
+        mPipelines.clear();
+        super.onDestroy();
+    }
+
+    /**
+     * Returns true while the service captures or records in the foreground, which means
+     * the connections to the Bands must be kept even when no activity is left.
+     */
+    public static boolean isInForeground() {
+        return sInForeground;
+    }
+
+    /**
+     * Returns the pipelines of the Bands, in the order they were created.
+     */
+    public List<BandPipeline> getPipelines() {
+        return Collections.unmodifiableList(mPipelines);
+    }
+
+    /**
+     * Returns the pipeline of a Band of the model, creating it if needed.
+     */
+    public BandPipeline getPipeline(Model.Band band) {
+        for (BandPipeline pipeline : mPipelines) {
+            if (pipeline.getBand() == band) {
+                return pipeline;
+            }
+        }
+
+        BandPipeline pipeline = new BandPipeline(band, INERTIAL_FILTER);
+        mPipelines.add(pipeline);
+
+        // A Band that joins while the session is recorded or stored is included
+        try {
+            if (mRecordingDirectory != null) {
+                pipeline.setRecorder(newRecorder(band));
+            }
+        } catch (IOException ex) {
+            Log.w(TAG, "Can't record " + band, ex);
+        }
+        if (mStoring) {
+            pipeline.setWriter(newWriter(band));
+        }
+        pipeline.setAlerting(mAlerting);
+        return pipeline;
+    }
+
+    /**
+     * Returns the pipeline of the shown Band, or null if there is no Band.
+     */
+    public BandPipeline getShownPipeline() {
+        Model.Band band = Model.getInstance().getShownBand();
+        return (band != null) ? getPipeline(band) : null;
+    }
+
+    /**
+     * Starts capturing a sensor of every connected Band. A Band that fails doesn't keep
+     * the others from starting; the first failure is thrown after all were tried.
+     *
+     * @param rate     the rate for the accelerometer and gyroscope, ignored for the others
+     * @param autoRate true to let the rate controllers change the rate while capturing;
+     *                 rate is then ignored too
+     */
+    public void startCapture(SensorType type, SampleRate rate, boolean autoRate) throws BandException {
+        BandException failure = null;
+        try {
+            for (Model.Band band : Model.getInstance().getBands()) {
+                if (band.isConnected()) {
+                    try {
+                        getPipeline(band).startCapture(type, rate, autoRate);
+                    } catch (BandException ex) {
+                        Log.w(TAG, "Registering " + type + " of " + band + " failed", ex);
+                        if (failure == null) {
+                            failure = ex;
+                        }
+                    }
+                }
+            }
+        } finally {
+            updateForeground();
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Stops capturing a sensor of every Band; the first failure is thrown after all
+     * were tried.
+     */
+    public void stopCapture(SensorType type) throws BandException {
+        BandException failure = null;
+        for (BandPipeline pipeline : mPipelines) {
+            try {
+                pipeline.stopCapture(type);
+            } catch (BandException ex) {
+                if (failure == null) {
+                    failure = ex;
+                }
+            }
+        }
+        updateForeground();
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Stops every sensor of every Band. Failures to unregister are only logged, since
+     * this is also how we clean up after the Bands went away.
+     */
+    public void stopAllCapture() {
+        for (BandPipeline pipeline : mPipelines) {
+            pipeline.stopAllCapture();
+        }
+        updateForeground();
+    }
+
+    /**
+     * Stops capturing the Bands that are no longer connected, and drops the pipelines
+     * of Bands that were removed from the model, closing their recorders and writers.
+     */
+    public void releaseDisconnectedBands() {
+        Iterator<BandPipeline> iterator = mPipelines.iterator();
+        while (iterator.hasNext()) {
+            BandPipeline pipeline = iterator.next();
+            Model.Band band = pipeline.getBand();
+            if (!band.isConnected()) {
+                pipeline.stopAllCapture();
+            }
+            if (!Model.getInstance().getBands().contains(band)) {
+                closeRecorder(pipeline.setRecorder(null), pipeline);
+                closeWriter(pipeline.setWriter(null));
+                pipeline.stopAllCapture();
+                pipeline.release();
+                iterator.remove();
+            }
+        }
+        updateForeground();
+    }
+
+    /**
+     * Starts recording every captured sample into a new session in the given directory,
+     * with a subdirectory for each Band.
+     */
+    public void startRecording(File directory) throws IOException {
+        if (mRecordingDirectory != null) {
+            return;
+        }
+
+        mRecordingDirectory = directory;
+        try {
+            createConnectedPipelines();
+            for (BandPipeline pipeline : mPipelines) {
+                pipeline.setRecorder(newRecorder(pipeline.getBand()));
+            }
+        } catch (IOException ex) {
+            stopRecording();
+            throw ex;
+        }
+        updateForeground();
+    }
+
+    public void stopRecording() {
+        if (mRecordingDirectory == null) {
+            return;
+        }
+
+        mRecordingDirectory = null;
+        for (BandPipeline pipeline : mPipelines) {
+            closeRecorder(pipeline.setRecorder(null), pipeline);
+        }
+        updateForeground();
+    }
+
+    /**
+     * Returns the directory of the session being recorded, or null if nothing is
+     * recorded.
+     */
+    public File getRecordingDirectory() {
+        return mRecordingDirectory;
+    }
+
+    /**
+     * Starts writing every captured sample into the {@link SampleDatabase} of its Band.
+     */
+    public void startStoring() {
+        if (mStoring) {
+            return;
+        }
+
+        mStoring = true;
+        createConnectedPipelines();
+        for (BandPipeline pipeline : mPipelines) {
+            pipeline.setWriter(newWriter(pipeline.getBand()));
+        }
+        updateForeground();
+    }
+
+    public void stopStoring() {
+        if (!mStoring) {
+            return;
+        }
+
+        mStoring = false;
+        for (BandPipeline pipeline : mPipelines) {
+            closeWriter(pipeline.setWriter(null));
+        }
+        updateForeground();
+    }
+
+    public boolean isStoring() {
+        return mStoring;
+    }
+
+    /**
+     * Starts watching the captured sensors of every Band for anomalies, which are
+     * notified on the Band they come from.
+     */
+    public void startAlerting() {
+        mAlerting = true;
+        createConnectedPipelines();
+        for (BandPipeline pipeline : mPipelines) {
+            pipeline.setAlerting(true);
+        }
+    }
+
+    public void stopAlerting() {
+        mAlerting = false;
+        for (BandPipeline pipeline : mPipelines) {
+            pipeline.setAlerting(false);
+        }
+    }
+
+    public boolean isAlerting() {
+        return mAlerting;
+    }
+
+    /**
+     * Tells the service whether the channels of the shown Band are being displayed,
+     * which its rate controller takes into account.
+     */
+    public void setDisplayed(boolean displayed) {
+        mDisplayed = displayed;
+        updateDisplayDemand();
+    }
+
+    private void updateDisplayDemand() {
+        BandPipeline shown = getShownPipeline();
+        for (BandPipeline pipeline : mPipelines) {
+            pipeline.getRateController().setDemand(SampleRateController.DEMAND_DISPLAY,
+                    mDisplayed && pipeline == shown);
+        }
+    }
+
+    private void createConnectedPipelines() {
+        for (Model.Band band : Model.getInstance().getBands()) {
+            if (band.isConnected()) {
+                getPipeline(band);
+            }
+        }
+    }
+
+    private SessionRecorder newRecorder(Model.Band band) throws IOException {
+        return new SessionRecorder(new File(mRecordingDirectory, Util.toFileName(band.getName())));
+    }
+
+    private SampleWriter newWriter(Model.Band band) {
+        return new SampleWriter(new SampleDatabase(this, band.getName()));
+    }
+
+    //
+    // Closing a recorder or writer flushes it to storage, which we keep off the UI thread.
+    // A recording is completed with the delivery metrics of its Band's sensors, taken
+    // when the recording stops.
+    //
+    private static void closeRecorder(SessionRecorder recorder, BandPipeline pipeline) {
+        if (recorder != null) {
+            StringBuilder metrics = new StringBuilder();
+            pipeline.getChannels().appendMetricsCsv(metrics);
+            new CloseRecorderTask(metrics.toString()).execute(recorder);
+        }
+    }
+
+    private static void closeWriter(SampleWriter writer) {
+        if (writer != null) {
+            new CloseWriterTask().execute(writer);
+        }
+    }
+
+    private static class CloseRecorderTask extends AsyncTask<SessionRecorder, Void, Void> {
+        private final String mMetrics;
+
+        CloseRecorderTask(String metrics) {
+            mMetrics = metrics;
+        }
+
+        @Override
+        protected Void doInBackground(SessionRecorder... recorders) {
+            recorders[0].close();
+
+            File file = new File(recorders[0].getDirectory(), METRICS_FILE_NAME);
+            try {
+                Writer writer = new FileWriter(file);
+                try {
+                    writer.write(mMetrics);
+                } finally {
+                    writer.close();
+                }
+            } catch (IOException ex) {
+                Log.w(TAG, "Can't write " + file, ex);
+            }
+            return null;
+        }
+    }
+
+    private static class CloseWriterTask extends AsyncTask<SampleWriter, Void, Void> {
+        @Override
+        protected Void doInBackground(SampleWriter... writers) {
+            writers[0].close();
+            return null;
+        }
+    }
+
+    private void updateForeground() {
+        int captured = 0;
+        int capturingBands = 0;
+        for (BandPipeline pipeline : mPipelines) {
+            int count = pipeline.getCapturedCount();
+            if (count > 0) {
+                captured += count;
+                capturingBands++;
+            }
+        }
+        boolean recording = mRecordingDirectory != null;
+
+        // Recorded and stored samples are kept for later, so their rate matters
+        for (BandPipeline pipeline : mPipelines) {
+            pipeline.getRateController().setDemand(SampleRateController.DEMAND_RECORDING, recording || mStoring);
+        }
+        updateDisplayDemand();
+
+        if (captured > 0 || recording || mStoring) {
+            Notification notification = buildNotification(captured, capturingBands, recording, mStoring);
+            if (!mForeground) {
+                mForeground = true;
+                sInForeground = true;
+                startService(new Intent(this, SensorCaptureService.class));
+                startForeground(NOTIFICATION_ID, notification);
+                mHandler.postDelayed(mUpdateSampleRates, RATE_UPDATE_INTERVAL_MS);
+            } else {
+                ((NotificationManager) getSystemService(NOTIFICATION_SERVICE)).notify(NOTIFICATION_ID, notification);
+            }
+        } else if (mForeground) {
+            mForeground = false;
+            sInForeground = false;
+            mHandler.removeCallbacks(mUpdateSampleRates);
+            stopForeground(true);
+            stopSelf();
+        }
+    }
+
+    private Notification buildNotification(int captured, int bands, boolean recording, boolean storing) {
+        Intent intent = new Intent(this, MainActivity.class);
+        intent.setFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_SINGLE_TOP);
+
+        String text = "Capturing " + captured + (captured == 1 ? " sensor" : " sensors");
+        if (bands > 1) {
+            text += " on " + bands + " bands";
+        }
+        if (recording) {
+            text += ", recording";
+        }
+        if (storing) {
+            text += ", storing";
+        }
+
+        return new Notification.Builder(this)
+                .setSmallIcon(R.drawable.ic_launcher)
+                .setContentTitle("Pillar")
+                .setContentText(text)
+                .setContentIntent(PendingIntent.getActivity(this, 0, intent, PendingIntent.FLAG_UPDATE_CURRENT))
+                .setOngoing(true)
+                .build();
+    }
+
+    private Runnable mUpdateSampleRates = new Runnable() {
+        @Override
+        public void run() {
+            long now = SystemClock.elapsedRealtime();
+            for (BandPipeline pipeline : mPipelines) {
+                pipeline.updateSampleRates(now);
+            }
+
+            mHandler.postDelayed(this, RATE_UPDATE_INTERVAL_MS);
+        }
+    };
+}
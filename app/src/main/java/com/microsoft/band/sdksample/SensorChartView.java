@@ -0,0 +1,257 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample;
+
+import com.microsoft.band.sdksample.sensors.SampleStore;
+import com.microsoft.band.sdksample.text.FixedPointFormatter;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.View;
+
+/**
+ * A rolling line chart of the newest samples in a {@link SampleStore}, one line per
+ * column, with the newest sample at the right edge.
+ * <p>
+ * Drawing doesn't allocate: the samples are copied into arrays allocated once with
+ * the view, turned into line segments in a preallocated vertex buffer and drawn with
+ * one {@link Canvas#drawLines} call per line. The store may be written by another
+ * thread while the chart draws. The chart only redraws when invalidated, so the
+ * owner should call {@link #invalidate()} when new samples were stored.
+ */
+public class SensorChartView extends View {
+
+    // Newest samples drawn; 16 seconds at the fastest Band sample rate
+    private static final int MAX_POINTS = 1024;
+    private static final int MAX_LINES = 6;
+
+    private static final long DEFAULT_TIME_SPAN_MS = 10 * 1000;
+
+    private static final int GRID_COLOR = 0xff808080;
+    private static final int LABEL_COLOR = 0xffa0a0a0;
+    private static final float LINE_WIDTH_DP = 1.5f;
+    private static final float LABEL_SIZE_DP = 10f;
+
+    private SampleStore mStore;
+    private int[] mColumns = new int[0];
+    private long mTimeSpanMs = DEFAULT_TIME_SPAN_MS;
+    private int mLabelDecimals = 1;
+
+    // A fixed range, or NaN to fit the range to the visible samples
+    private float mRangeMin = Float.NaN;
+    private float mRangeMax = Float.NaN;
+
+    private final Paint[] mLinePaints = new Paint[MAX_LINES];
+    private final Paint mGridPaint = new Paint();
+    private final Paint mLabelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    // Drawing buffers, only used by onDraw()
+    private final long[] mTimestamps = new long[MAX_POINTS];
+    private final float[][] mValues = new float[MAX_LINES][MAX_POINTS];
+    private final float[] mX = new float[MAX_POINTS];
+    private final float[] mLines = new float[4 * (MAX_POINTS - 1)];
+    private final char[] mLabel = new char[FixedPointFormatter.MAX_NUMBER_LENGTH];
+
+    public SensorChartView(Context context) {
+        super(context);
+        init();
+    }
+
+    public SensorChartView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init();
+    }
+
+    private void init() {
+        float density = getResources().getDisplayMetrics().density;
+        for (int i = 0; i < MAX_LINES; i++) {
+            mLinePaints[i] = new Paint(Paint.ANTI_ALIAS_FLAG);
+            mLinePaints[i].setStrokeWidth(LINE_WIDTH_DP * density);
+        }
+        mGridPaint.setColor(GRID_COLOR);
+        mLabelPaint.setColor(LABEL_COLOR);
+        mLabelPaint.setTextSize(LABEL_SIZE_DP * density);
+    }
+
+    /**
+     * Sets the store to chart and the columns to draw, each with its color.
+     */
+    public void setSource(SampleStore store, int[] columns, int[] colors) {
+        if (columns.length > MAX_LINES || colors.length != columns.length) {
+            throw new IllegalArgumentException("Up to " + MAX_LINES + " columns, with one color each");
+        }
+        mStore = store;
+        mColumns = columns.clone();
+        for (int i = 0; i < columns.length; i++) {
+            mLinePaints[i].setColor(colors[i]);
+        }
+        invalidate();
+    }
+
+    /**
+     * Sets how much time the chart shows, ending at the newest sample.
+     */
+    public void setTimeSpan(long timeSpanMs) {
+        if (timeSpanMs <= 0) {
+            throw new IllegalArgumentException("Invalid time span " + timeSpanMs);
+        }
+        mTimeSpanMs = timeSpanMs;
+        invalidate();
+    }
+
+    /**
+     * Fixes the value range of the chart. Pass NaN for both to fit the range to the
+     * samples shown, which is the default.
+     */
+    public void setRange(float min, float max) {
+        mRangeMin = min;
+        mRangeMax = max;
+        invalidate();
+    }
+
+    /**
+     * Sets the number of decimals of the range labels.
+     */
+    public void setLabelDecimals(int decimals) {
+        mLabelDecimals = decimals;
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        float left = getPaddingLeft();
+        float top = getPaddingTop();
+        float right = getWidth() - getPaddingRight();
+        float bottom = getHeight() - getPaddingBottom();
+        float width = right - left;
+        float height = bottom - top;
+
+        canvas.drawLine(left, bottom, right, bottom, mGridPaint);
+
+        SampleStore store = mStore;
+        int lineCount = mColumns.length;
+        if (store == null || lineCount == 0 || width <= 0 || height <= 0) {
+            return;
+        }
+
+        int count = copySamples(store);
+        if (count < 2) {
+            return;
+        }
+
+        // Only draw what falls into the time span
+        long newest = mTimestamps[count - 1];
+        long oldest = newest - mTimeSpanMs;
+        int first = findFirstAtOrAfter(oldest, count);
+        if (count - first < 2) {
+            return;
+        }
+
+        float min = mRangeMin;
+        float max = mRangeMax;
+        if (Float.isNaN(min) || Float.isNaN(max)) {
+            min = Float.POSITIVE_INFINITY;
+            max = Float.NEGATIVE_INFINITY;
+            for (int line = 0; line < lineCount; line++) {
+                float[] values = mValues[line];
+                for (int i = first; i < count; i++) {
+                    min = Math.min(min, values[i]);
+                    max = Math.max(max, values[i]);
+                }
+            }
+        }
+        if (!(max > min)) {
+            // A flat line is drawn in the middle
+            min -= 1;
+            max += 1;
+        }
+
+        float xScale = width / mTimeSpanMs;
+        for (int i = first; i < count; i++) {
+            mX[i] = left + (mTimestamps[i] - oldest) * xScale;
+        }
+
+        float yScale = height / (max - min);
+        float[] lines = mLines;
+        for (int line = 0; line < lineCount; line++) {
+            float[] values = mValues[line];
+            int vertex = 0;
+            float previousX = mX[first];
+            float previousY = bottom - (values[first] - min) * yScale;
+            for (int i = first + 1; i < count; i++) {
+                float x = mX[i];
+                float y = bottom - (values[i] - min) * yScale;
+                lines[vertex++] = previousX;
+                lines[vertex++] = previousY;
+                lines[vertex++] = x;
+                lines[vertex++] = y;
+                previousX = x;
+                previousY = y;
+            }
+            canvas.drawLines(lines, 0, vertex, mLinePaints[line]);
+        }
+
+        drawLabel(canvas, max, left, top - mLabelPaint.ascent());
+        drawLabel(canvas, min, left, bottom - mLabelPaint.descent());
+    }
+
+    //
+    // Copies the newest samples of every charted column and returns how many there
+    // are. Returns 0 if the store recycled some of them while they were copied, which
+    // only happens when the store holds little more than MAX_POINTS samples.
+    //
+    private int copySamples(SampleStore store) {
+        long end = store.getEndIndex();
+        int count = (int) Math.min(MAX_POINTS, end - store.getFirstIndex());
+        if (count <= 0) {
+            return 0;
+        }
+
+        long from = end - count;
+        if (store.copyTimestamps(from, mTimestamps, 0, count) != count) {
+            return 0;
+        }
+        for (int line = 0; line < mColumns.length; line++) {
+            if (store.copyValues(mColumns[line], from, mValues[line], 0, count) != count) {
+                return 0;
+            }
+        }
+        return count;
+    }
+
+    private int findFirstAtOrAfter(long timestamp, int count) {
+        int low = 0;
+        int high = count - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (mTimestamps[middle] < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void drawLabel(Canvas canvas, float value, float x, float y) {
+        int length = FixedPointFormatter.formatFixed(value, mLabelDecimals, mLabel, 0);
+        canvas.drawText(mLabel, 0, length, x, y, mLabelPaint);
+    }
+}
@@ -0,0 +1,94 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import android.view.Choreographer;
+
+/**
+ * Coalesces sensor updates coming from any thread into at most one UI update per
+ * display frame.
+ * <p>
+ * The first {@link #requestFrame()} after a frame posts a Choreographer frame callback;
+ * further requests before that frame is drawn are absorbed by a single atomic flag.
+ * The producer side never takes a lock of ours and never allocates, and the update
+ * runs right before the frame is rendered instead of at some arbitrary time.
+ */
+public class SensorFrameDispatcher implements Choreographer.FrameCallback {
+
+    public interface Callback {
+        /**
+         * Called on the UI thread once per frame in which an update was requested.
+         *
+         * @param frameTimeNanos the frame time reported by the Choreographer
+         */
+        void onFrame(long frameTimeNanos);
+    }
+
+    private final Choreographer mChoreographer;
+    private final Callback mCallback;
+    private final AtomicBoolean mFrameRequested = new AtomicBoolean();
+    private volatile boolean mStarted;
+
+    /**
+     * Must be called on the UI thread, whose Choreographer will run the updates.
+     */
+    public SensorFrameDispatcher(Callback callback) {
+        mChoreographer = Choreographer.getInstance();
+        mCallback = callback;
+    }
+
+    /**
+     * Starts delivering updates. Must be called on the UI thread.
+     */
+    public void start() {
+        mStarted = true;
+    }
+
+    /**
+     * Stops delivering updates and drops a pending one. Must be called on the UI thread.
+     */
+    public void stop() {
+        mStarted = false;
+        mChoreographer.removeFrameCallback(this);
+        mFrameRequested.set(false);
+    }
+
+    /**
+     * Requests an update on the next frame. Can be called from any thread; a
+     * Choreographer accepts callbacks from other threads and runs them on its own.
+     */
+    public void requestFrame() {
+        if (mStarted && !mFrameRequested.get() && mFrameRequested.compareAndSet(false, true)) {
+            mChoreographer.postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        // Because we clear this flag before running the update, a sample that arrives
+        // during the update may schedule another frame unnecessarily. This is harmless.
+        // If we cleared it afterwards, we could miss that sample until the next one.
+        mFrameRequested.set(false);
+
+        if (mStarted) {
+            mCallback.onFrame(frameTimeNanos);
+        }
+    }
+}
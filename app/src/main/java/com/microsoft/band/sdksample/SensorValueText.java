@@ -0,0 +1,144 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample;
+
+import com.microsoft.band.sdksample.text.FixedPointFormatter;
+
+import android.widget.TextView;
+
+/**
+ * Drives a TextView showing one sensor value, formatting numbers into a reusable
+ * char buffer instead of creating Strings on every update. Updates that would not
+ * change the displayed text are skipped so the view doesn't re-layout needlessly.
+ * Must only be used from the UI thread.
+ */
+public class SensorValueText {
+
+    // Room for three numbers, see setRange()
+    private static final int BUFFER_LENGTH = 3 * FixedPointFormatter.MAX_NUMBER_LENGTH + 16;
+
+    private static final String RANGE_SEPARATOR = " / ";
+
+    private final TextView mView;
+
+    // The TextView keeps a reference to the array we hand it, so we format into a
+    // scratch buffer and only copy over the displayed one when the text changes.
+    private final char[] mDisplayed = new char[BUFFER_LENGTH];
+    private final char[] mScratch = new char[BUFFER_LENGTH];
+    private int mDisplayedLength = -1;
+    private CharSequence mDisplayedText;
+
+    public SensorValueText(TextView view) {
+        mView = view;
+    }
+
+    public TextView getView() {
+        return mView;
+    }
+
+    /**
+     * Shows the value with a fixed number of decimals, optionally followed by a unit.
+     */
+    public void setFixed(double value, int decimals, String suffix) {
+        int length = FixedPointFormatter.formatFixed(value, decimals, mScratch, 0);
+        if (suffix != null) {
+            length = FixedPointFormatter.append(suffix, mScratch, length);
+        }
+        show(length);
+    }
+
+    public void setFixed(double value, int decimals) {
+        setFixed(value, decimals, null);
+    }
+
+    /**
+     * Shows the value as an integer, optionally followed by a unit.
+     */
+    public void setLong(long value, String suffix) {
+        int length = FixedPointFormatter.formatLong(value, mScratch, 0);
+        if (suffix != null) {
+            length = FixedPointFormatter.append(suffix, mScratch, length);
+        }
+        show(length);
+    }
+
+    public void setLong(long value) {
+        setLong(value, null);
+    }
+
+    /**
+     * Shows a minimum, mean and maximum as "min / mean / max", or nothing if the mean
+     * is NaN because there were no samples.
+     */
+    public void setRange(double min, double mean, double max, int decimals) {
+        if (Double.isNaN(mean)) {
+            show(0);
+            return;
+        }
+        setTriple(min, mean, max, decimals);
+    }
+
+    /**
+     * Shows three values as "a / b / c", such as the components of a vector.
+     */
+    public void setTriple(double a, double b, double c, int decimals) {
+        int length = FixedPointFormatter.formatFixed(a, decimals, mScratch, 0);
+        length = FixedPointFormatter.append(RANGE_SEPARATOR, mScratch, length);
+        length = FixedPointFormatter.formatFixed(b, decimals, mScratch, length);
+        length = FixedPointFormatter.append(RANGE_SEPARATOR, mScratch, length);
+        length = FixedPointFormatter.formatFixed(c, decimals, mScratch, length);
+        show(length);
+    }
+
+    /**
+     * Shows a text that doesn't need formatting, like an enum name.
+     */
+    public void setText(CharSequence text) {
+        if (text != mDisplayedText) {
+            mDisplayedText = text;
+            mDisplayedLength = -1;
+            mView.setText(text);
+        }
+    }
+
+    public void clear() {
+        mDisplayedText = null;
+        mDisplayedLength = 0;
+        mView.setText(mDisplayed, 0, 0);
+    }
+
+    private void show(int length) {
+        if (mDisplayedText == null && length == mDisplayedLength && sameChars(length)) {
+            return;
+        }
+
+        System.arraycopy(mScratch, 0, mDisplayed, 0, length);
+        mDisplayedText = null;
+        mDisplayedLength = length;
+        mView.setText(mDisplayed, 0, length);
+    }
+
+    private boolean sameChars(int length) {
+        for (int i = 0; i < length; i++) {
+            if (mScratch[i] != mDisplayed[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
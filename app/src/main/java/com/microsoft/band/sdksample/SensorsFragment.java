@@ -17,35 +17,48 @@
 //IN THE SOFTWARE.
 package com.microsoft.band.sdksample;
 
-import java.util.HashMap;
-import java.util.concurrent.atomic.AtomicReference;
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
 
 import com.microsoft.band.BandException;
-import com.microsoft.band.sensors.BandAccelerometerEvent;
-import com.microsoft.band.sensors.BandAccelerometerEventListener;
+import com.microsoft.band.sdksample.channels.SensorChannel;
+import com.microsoft.band.sdksample.channels.SensorChannelRegistry;
+import com.microsoft.band.sdksample.recording.SessionExporter;
+import com.microsoft.band.sdksample.recording.SessionReader;
+import com.microsoft.band.sdksample.sensors.SampleStore;
+import com.microsoft.band.sdksample.sensors.SensorRingBuffer;
+import com.microsoft.band.sdksample.sensors.SensorType;
+import com.microsoft.band.sdksample.stats.SlidingWindowStats;
 import com.microsoft.band.sensors.BandContactEvent;
-import com.microsoft.band.sensors.BandContactEventListener;
 import com.microsoft.band.sensors.BandDistanceEvent;
-import com.microsoft.band.sensors.BandDistanceEventListener;
-import com.microsoft.band.sensors.BandGyroscopeEvent;
-import com.microsoft.band.sensors.BandGyroscopeEventListener;
 import com.microsoft.band.sensors.BandHeartRateEvent;
-import com.microsoft.band.sensors.BandHeartRateEventListener;
 import com.microsoft.band.sensors.BandPedometerEvent;
-import com.microsoft.band.sensors.BandPedometerEventListener;
-import com.microsoft.band.sensors.BandSensorManager;
+import com.microsoft.band.sensors.BandSensorEvent;
 import com.microsoft.band.sensors.BandSkinTemperatureEvent;
-import com.microsoft.band.sensors.BandSkinTemperatureEventListener;
 import com.microsoft.band.sensors.BandUVEvent;
-import com.microsoft.band.sensors.BandUVEventListener;
 import com.microsoft.band.sensors.SampleRate;
 
 import android.support.v4.app.Fragment;
-import android.app.Activity;
+import android.app.AlertDialog;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.DialogInterface;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.net.Uri;
+import android.os.AsyncTask;
 import android.os.Bundle;
+import android.os.IBinder;
 import android.view.LayoutInflater;
 import android.view.View;
+import android.view.View.OnClickListener;
 import android.view.ViewGroup;
+import android.widget.Button;
 import android.widget.CompoundButton;
 import android.widget.CompoundButton.OnCheckedChangeListener;
 import android.widget.RadioButton;
@@ -56,79 +69,55 @@ import android.widget.TextView;
 
 public class SensorsFragment extends Fragment implements FragmentListener {
 
-    // Accelerometer controls
-    private Switch mSwitchAccelerometer;
-    private TableLayout mTableAccelerometer;
-    private RadioGroup mRadioGroupAccelerometer;
-    private TextView mTextAccX;
-    private TextView mTextAccY;
-    private TextView mTextAccZ;
-    private RadioButton mRadioAcc16;
-    private RadioButton mRadioAcc32;
-
-    // Gyroscope controls
-    private Switch mSwitchGyro;
-    private TableLayout mTableGyro;
-    private RadioGroup mRadioGroupGyro;
-    private TextView mTextGyroAccX;
-    private TextView mTextGyroAccY;
-    private TextView mTextGyroAccZ;
-    private TextView mTextGyroAngX;
-    private TextView mTextGyroAngY;
-    private TextView mTextGyroAngZ;
-    private RadioButton mRadioGyro16;
-    private RadioButton mRadioGyro32;
-
-    // Distance sensor controls
-    private Switch mSwitchDistance;
-    private TableLayout mTableDistance;
-    private TextView mTextTotalDistance;
-    private TextView mTextSpeed;
-    private TextView mTextPace;
-    private TextView mTextPedometerMode;
-
-    // HR sensor controls
-    private Switch mSwitchHeartRate;
-    private TableLayout mTableHeartRate;
-    private TextView mTextHeartRate;
-    private TextView mTextHeartRateQuality;
-
-    // Contact sensor controls
-    private Switch mSwitchContact;
-    private TableLayout mTableContact;
-    private TextView mTextContact;
-
-    // Skin temperature sensor controls
-    private Switch mSwitchSkinTemperature;
-    private TableLayout mTableSkinTemperature;
-    private TextView mTextSkinTemperature;
-
-    // UV sensor controls
-    private Switch mSwitchUltraviolet;
-    private TableLayout mTableUltraviolet;
-    private TextView mTextUltraviolet;
-
-    // Pedometer sensor controls
-    private Switch mSwitchPedometer;
-    private TableLayout mTablePedometer;
-    private TextView mTextTotalSteps;
-
-    // Each sensor switch has an associated TableLayout containing it's display controls.
-    // The TableLayout remains hidden until the corresponding sensor switch is turned on.
-    private HashMap<Switch, TableLayout> mSensorMap;
+    // Session recording controls
+    private Switch mSwitchRecord;
+    private TextView mTextRecordingStatus;
+    private Button mButtonExport;
+    private Switch mSwitchDatabase;
+    private Switch mSwitchAlerts;
 
+    // Units appended to the formatted sensor values
+    private static final String UNIT_DISTANCE = " cm";
+    private static final String UNIT_SPEED = " cm/s";
+    private static final String UNIT_PACE = " ms/m";
+
+    // The charts are drawn from the stores: X, Y and Z in red, green and blue
+    private static final int[] AXIS_COLORS = { 0xffe53935, 0xff43a047, 0xff1e88e5 };
+    private static final int HEART_RATE_COLOR = 0xffd81b60;
+    private static final long HEART_RATE_CHART_SPAN_MS = 5 * 60 * 1000;
+
+    //
+    // The sensors are captured by SensorCaptureService, which owns the subscriptions
+    // and, for every Band, a pipeline of channels with their buffers and stores, so
+    // capture goes on while this fragment is paused or gone. The fragment binds to the
+    // service while it is started, and only turns sensors on and off and displays the
+    // channels of the shown Band.
     //
-    // For managing communication between the incoming sensor events and the UI thread
+    // Every sensor has a channel, which is the SDK listener of the sensor. A channel
+    // publishes each sample to its ring buffer, updates the statistics of the sensor
+    // over the last minute, hands the raw sample to the recorder while a session is
+    // being recorded, and the inertial and heart rate channels copy their (filtered)
+    // values into sample stores. See SensorChannel.
     //
-    private volatile boolean mIsHandlerScheduled;
-    private AtomicReference<BandAccelerometerEvent> mPendingAccelerometerEvent = new AtomicReference<BandAccelerometerEvent>();
-    private AtomicReference<BandGyroscopeEvent> mPendingGyroscopeEvent = new AtomicReference<BandGyroscopeEvent>();
-    private AtomicReference<BandDistanceEvent> mPendingDistanceEvent = new AtomicReference<BandDistanceEvent>();
-    private AtomicReference<BandHeartRateEvent> mPendingHeartRateEvent = new AtomicReference<BandHeartRateEvent>();
-    private AtomicReference<BandContactEvent> mPendingContactEvent = new AtomicReference<BandContactEvent>();
-    private AtomicReference<BandSkinTemperatureEvent> mPendingSkinTemperatureEvent = new AtomicReference<BandSkinTemperatureEvent>();
-    private AtomicReference<BandUVEvent> mPendingUVEvent = new AtomicReference<BandUVEvent>();
-    private AtomicReference<BandPedometerEvent> mPendingPedometerEvent = new AtomicReference<BandPedometerEvent>();
+    // When a channel has something new to show it sets its bit in the registry's dirty
+    // mask and requests a frame from mFrameDispatcher, which makes sure the sensor
+    // displays are updated at most once per frame however many samples arrive. The
+    // frame only updates the sections whose bits are set.
+    //
+    private SensorCaptureService mService;
+
+    // The pipeline of the Band the sections show, see attachPipeline()
+    private BandPipeline mPipeline;
+
+    private SensorFrameDispatcher mFrameDispatcher;
+    private boolean mResumed;
+
+    // The display section of each sensor, indexed by sensor type ordinal. Each sensor
+    // switch has its section as its tag.
+    private SensorSection[] mSections = new SensorSection[SensorType.values().length];
+
+    // Only used by the UI thread
+    private SlidingWindowStats.Summary mStatsSummary = new SlidingWindowStats.Summary();
 
     public SensorsFragment() {
     }
@@ -143,244 +132,172 @@ public class SensorsFragment extends Fragment implements FragmentListener {
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         View rootView = inflater.inflate(R.layout.fragment_sensors, container, false);
 
-        mSensorMap = new HashMap<Switch, TableLayout>();
+        mFrameDispatcher = new SensorFrameDispatcher(mSensorFrameCallback);
 
         //
-        // Accelerometer setup
+        // Recording setup
         //
-        mSwitchAccelerometer = (Switch)rootView.findViewById(R.id.switchAccelerometer);
-        mTableAccelerometer = (TableLayout)rootView.findViewById(R.id.tableAccelerometer);
-        mRadioGroupAccelerometer = (RadioGroup)rootView.findViewById(R.id.rgAccelerometer);
-        mSensorMap.put(mSwitchAccelerometer, mTableAccelerometer);
-        mTableAccelerometer.setVisibility(View.GONE);
-        mSwitchAccelerometer.setOnCheckedChangeListener(mToggleSensorSection);
-
-        mTextAccX = (TextView)rootView.findViewById(R.id.textAccX);
-        mTextAccY = (TextView)rootView.findViewById(R.id.textAccY);
-        mTextAccZ = (TextView)rootView.findViewById(R.id.textAccZ);
-        mRadioAcc16 = (RadioButton)rootView.findViewById(R.id.rbAccelerometerRate16ms);
-        mRadioAcc32 = (RadioButton)rootView.findViewById(R.id.rbAccelerometerRate32ms);
+        mSwitchRecord = (Switch)rootView.findViewById(R.id.switchRecord);
+        mSwitchRecord.setOnCheckedChangeListener(mToggleRecording);
+        mTextRecordingStatus = (TextView)rootView.findViewById(R.id.textRecordingStatus);
+        mButtonExport = (Button)rootView.findViewById(R.id.buttonExport);
+        mButtonExport.setOnClickListener(mButtonExportClickListener);
+        mSwitchDatabase = (Switch)rootView.findViewById(R.id.switchDatabase);
+        mSwitchDatabase.setOnCheckedChangeListener(mToggleStoring);
+        mSwitchAlerts = (Switch)rootView.findViewById(R.id.switchAlerts);
+        mSwitchAlerts.setOnCheckedChangeListener(mToggleAlerting);
 
         //
-        // Gyro setup
+        // Sensor sections setup
         //
-        mSwitchGyro = (Switch)rootView.findViewById(R.id.switchGyro);
-        mTableGyro = (TableLayout)rootView.findViewById(R.id.tableGyro);
-        mRadioGroupGyro = (RadioGroup)rootView.findViewById(R.id.rgGyro);
-        mSensorMap.put(mSwitchGyro, mTableGyro);
-        mTableGyro.setVisibility(View.GONE);
-        mSwitchGyro.setOnCheckedChangeListener(mToggleSensorSection);
-
-        mTextGyroAccX = (TextView)rootView.findViewById(R.id.textGyroAccX);
-        mTextGyroAccY = (TextView)rootView.findViewById(R.id.textGyroAccY);
-        mTextGyroAccZ = (TextView)rootView.findViewById(R.id.textGyroAccZ);
-        mTextGyroAngX = (TextView)rootView.findViewById(R.id.textAngX);
-        mTextGyroAngY = (TextView)rootView.findViewById(R.id.textAngY);
-        mTextGyroAngZ = (TextView)rootView.findViewById(R.id.textAngZ);
-        mRadioGyro16 = (RadioButton)rootView.findViewById(R.id.rbGyroRate16ms);
-        mRadioGyro32 = (RadioButton)rootView.findViewById(R.id.rbGyroRate32ms);
+        new AccelerometerSection(rootView);
+        new GyroscopeSection(rootView);
+        new DistanceSection(rootView);
+        new HeartRateSection(rootView);
+        new ContactSection(rootView);
+        new SkinTemperatureSection(rootView);
+        new UltravioletSection(rootView);
+        new PedometerSection(rootView);
+
+        // Until the service is bound there is nothing to turn on
+        refreshControls();
 
-        //
-        // Distance setup
-        //
-        mSwitchDistance = (Switch)rootView.findViewById(R.id.switchDistance);
-        mTableDistance = (TableLayout)rootView.findViewById(R.id.tableDistance);
-        mSensorMap.put(mSwitchDistance, mTableDistance);
-        mTableDistance.setVisibility(View.GONE);
-        mSwitchDistance.setOnCheckedChangeListener(mToggleSensorSection);
+        return rootView;
+    }
 
-        mTextTotalDistance = (TextView)rootView.findViewById(R.id.textTotalDistance);
-        mTextSpeed = (TextView)rootView.findViewById(R.id.textSpeed);
-        mTextPace = (TextView)rootView.findViewById(R.id.textPace);
-        mTextPedometerMode = (TextView)rootView.findViewById(R.id.textPedometerMode);
+    @Override
+    public void onStart() {
+        super.onStart();
+        getActivity().bindService(new Intent(getActivity(), SensorCaptureService.class),
+                mServiceConnection, Context.BIND_AUTO_CREATE);
+    }
 
-        //
-        // Heart rate setup
-        //
-        mSwitchHeartRate = (Switch)rootView.findViewById(R.id.switchHeartRate);
-        mTableHeartRate = (TableLayout)rootView.findViewById(R.id.tableHeartRate);
-        mSensorMap.put(mSwitchHeartRate, mTableHeartRate);
-        mTableHeartRate.setVisibility(View.GONE);
-        mSwitchHeartRate.setOnCheckedChangeListener(mToggleSensorSection);
+    @Override
+    public void onResume() {
+        super.onResume();
+        mResumed = true;
+        mFrameDispatcher.start();
 
-        mTextHeartRate = (TextView)rootView.findViewById(R.id.textHeartRate);
-        mTextHeartRateQuality = (TextView)rootView.findViewById(R.id.textHeartRateQuality);
+        if (mService != null) {
+            mService.setDisplayed(true);
+        }
+    }
 
-        //
-        // Contact setup
-        //
-        mSwitchContact = (Switch)rootView.findViewById(R.id.switchContact);
-        mTableContact = (TableLayout)rootView.findViewById(R.id.tableContact);
-        mSensorMap.put(mSwitchContact, mTableContact);
-        mTableContact.setVisibility(View.GONE);
-        mSwitchContact.setOnCheckedChangeListener(mToggleSensorSection);
+    //
+    // When pausing we only stop updating the display; the service keeps capturing.
+    //
+    @Override
+    public void onPause() {
+        mResumed = false;
+        if (mService != null) {
+            mService.setDisplayed(false);
+        }
 
-        mTextContact = (TextView)rootView.findViewById(R.id.textContact);
+        mFrameDispatcher.stop();
+        super.onPause();
+    }
 
-        //
-        // Skin temperature setup
-        //
-        mSwitchSkinTemperature = (Switch)rootView.findViewById(R.id.switchSkinTemperature);
-        mTableSkinTemperature = (TableLayout)rootView.findViewById(R.id.tableSkinTemperature);
-        mSensorMap.put(mSwitchSkinTemperature, mTableSkinTemperature);
-        mTableSkinTemperature.setVisibility(View.GONE);
-        mSwitchSkinTemperature.setOnCheckedChangeListener(mToggleSensorSection);
+    @Override
+    public void onStop() {
+        if (mService != null) {
+            detachService();
+        }
 
-        mTextSkinTemperature = (TextView)rootView.findViewById(R.id.textSkinTemperature);
+        getActivity().unbindService(mServiceConnection);
+        super.onStop();
+    }
 
-        //
-        // Ultraviolet setup
-        //
-        mSwitchUltraviolet = (Switch)rootView.findViewById(R.id.switchUltraviolet);
-        mTableUltraviolet = (TableLayout)rootView.findViewById(R.id.tableUltraviolet);
-        mSensorMap.put(mSwitchUltraviolet, mTableUltraviolet);
-        mTableUltraviolet.setVisibility(View.GONE);
-        mSwitchUltraviolet.setOnCheckedChangeListener(mToggleSensorSection);
+    private ServiceConnection mServiceConnection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder binder) {
+            mService = ((SensorCaptureService.LocalBinder)binder).getService();
+            attachPipeline();
+
+            File recording = mService.getRecordingDirectory();
+            setCheckedQuietly(mSwitchRecord, recording != null, mToggleRecording);
+            mTextRecordingStatus.setText(recording != null ? recording.getPath() : "");
+            setCheckedQuietly(mSwitchDatabase, mService.isStoring(), mToggleStoring);
+            setCheckedQuietly(mSwitchAlerts, mService.isAlerting(), mToggleAlerting);
+
+            if (mResumed) {
+                mService.setDisplayed(true);
+            }
+            refreshControls();
+        }
 
-        mTextUltraviolet = (TextView)rootView.findViewById(R.id.textUltraviolet);
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            // Only happens if the service's process dies, which is ours
+            detachService();
+        }
+    };
 
-        //
-        // Pedometer setup
-        //
-        mSwitchPedometer = (Switch)rootView.findViewById(R.id.switchPedometer);
-        mTablePedometer = (TableLayout)rootView.findViewById(R.id.tablePedometer);
-        mSensorMap.put(mSwitchPedometer, mTablePedometer);
-        mTablePedometer.setVisibility(View.GONE);
-        mSwitchPedometer.setOnCheckedChangeListener(mToggleSensorSection);
+    private void detachService() {
+        detachPipeline();
+        mService.setDisplayed(false);
+        mService = null;
+    }
 
-        mTextTotalSteps = (TextView)rootView.findViewById(R.id.textTotalSteps);
+    /**
+     * Attaches the sections to the pipeline of the shown Band, unless they already are.
+     */
+    private void attachPipeline() {
+        BandPipeline pipeline = mService.getShownPipeline();
+        if (pipeline == mPipeline) {
+            return;
+        }
 
-        return rootView;
+        detachPipeline();
+        mPipeline = pipeline;
+        if (pipeline == null) {
+            return;
+        }
+
+        SensorChannelRegistry channels = pipeline.getChannels();
+        channels.setCallback(mChannelCallback);
+
+        // Show whatever the service captured while we were away
+        channels.takeDirty();
+        for (SensorSection section : mSections) {
+            section.attach(channels);
+        }
     }
 
-    //
-    // When pausing, turn off any active sensors.
-    //
-    @Override
-    public void onPause() {
-        for (Switch sw : mSensorMap.keySet()) {
-            if (sw.isChecked()) {
-                sw.setChecked(false);
-                mToggleSensorSection.onCheckedChanged(sw, false);
-            }
+    private void detachPipeline() {
+        if (mPipeline == null) {
+            return;
         }
 
-        super.onPause();
+        mPipeline.getChannels().setCallback(null);
+        mPipeline = null;
+        for (SensorSection section : mSections) {
+            section.detach();
+        }
     }
 
     private OnCheckedChangeListener mToggleSensorSection = new OnCheckedChangeListener() {
         @Override
         public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
-            if (!Model.getInstance().isConnected()) {
+            if (!Model.getInstance().isAnyConnected() || mService == null) {
                 return;
             }
 
-            Switch sw = (Switch)buttonView;
-            TableLayout table = mSensorMap.get(sw);
-            BandSensorManager sensorMgr = Model.getInstance().getClient().getSensorManager();
+            SensorSection section = (SensorSection)buttonView.getTag();
 
-            if (isChecked) {
-                table.setVisibility(View.VISIBLE);
-
-                if (table == mTableAccelerometer) {
-                    mRadioGroupAccelerometer.setEnabled(false);
-                    setChildrenEnabled(mRadioGroupAccelerometer, false);
-                } else if (table == mTableGyro) {
-                    mRadioGroupGyro.setEnabled(false);
-                    setChildrenEnabled(mRadioGroupGyro, false);
-                }
-
-                // Turn on the appropriate sensor
+            section.setActive(isChecked);
 
+            if (isChecked) {
+                // Turn on the sensor
                 try {
-                    if (sw == mSwitchAccelerometer) {
-                        SampleRate rate;
-                        if (mRadioAcc16.isChecked()) {
-                            rate = SampleRate.MS16;
-                        } else if (mRadioAcc32.isChecked()) {
-                            rate = SampleRate.MS32;
-                        } else {
-                            rate = SampleRate.MS128;
-                        }
-
-                        mTextAccX.setText("");
-                        mTextAccY.setText("");
-                        mTextAccZ.setText("");
-                        sensorMgr.registerAccelerometerEventListener(mAccelerometerEventListener, rate);
-                    } else if (sw == mSwitchGyro) {
-                        SampleRate rate;
-                        if (mRadioGyro16.isChecked()) {
-                            rate = SampleRate.MS16;
-                        } else if (mRadioGyro32.isChecked()) {
-                            rate = SampleRate.MS32;
-                        } else {
-                            rate = SampleRate.MS128;
-                        }
-
-                        mTextGyroAccX.setText("");
-                        mTextGyroAccY.setText("");
-                        mTextGyroAccZ.setText("");
-                        mTextGyroAngX.setText("");
-                        mTextGyroAngY.setText("");
-                        mTextGyroAngZ.setText("");
-                        sensorMgr.registerGyroscopeEventListener(mGyroEventListener, rate);
-                    } else if (sw == mSwitchDistance) {
-                        mTextTotalDistance.setText("");
-                        mTextSpeed.setText("");
-                        mTextPace.setText("");
-                        mTextPedometerMode.setText("");
-                        sensorMgr.registerDistanceEventListener(mDistanceEventListener);
-                    } else if (sw == mSwitchHeartRate) {
-                        mTextHeartRate.setText("");
-                        mTextHeartRateQuality.setText("");
-                        sensorMgr.registerHeartRateEventListener(mHeartRateEventListener);
-                    } else if (sw == mSwitchContact) {
-                        mTextContact.setText("");
-                        sensorMgr.registerContactEventListener(mContactEventListener);
-                    } else if (sw == mSwitchSkinTemperature) {
-                        mTextSkinTemperature.setText("");
-                        sensorMgr.registerSkinTemperatureEventListener(mSkinTemperatureEventListener);
-                    } else if (sw == mSwitchUltraviolet) {
-                        mTextUltraviolet.setText("");
-                        sensorMgr.registerUVEventListener(mUltravioletEventListener);
-                    } else if (sw == mSwitchPedometer) {
-                        mTextTotalSteps.setText("");
-                        sensorMgr.registerPedometerEventListener(mPedometerEventListener);
-                    }
+                    section.clear();
+                    mService.startCapture(section.mType, section.getSampleRate(), section.isAutoRate());
                 } catch (BandException ex) {
                     Util.showExceptionAlert(getActivity(), "Register sensor listener", ex);
                 }
             } else {
-                table.setVisibility(View.GONE);
-
-                if (table == mTableAccelerometer) {
-                    mRadioGroupAccelerometer.setEnabled(true);
-                    setChildrenEnabled(mRadioGroupAccelerometer, true);
-                } else if (table == mTableGyro) {
-                    mRadioGroupGyro.setEnabled(true);
-                    setChildrenEnabled(mRadioGroupGyro, true);
-                }
-
-                // Turn off the appropriate sensor
-
+                // Turn off the sensor
                 try {
-                    if (sw == mSwitchAccelerometer) {
-                        sensorMgr.unregisterAccelerometerEventListener(mAccelerometerEventListener);
-                    } else if (sw == mSwitchGyro) {
-                        sensorMgr.unregisterGyroscopeEventListener(mGyroEventListener);
-                    } else if (sw == mSwitchDistance) {
-                        sensorMgr.unregisterDistanceEventListener(mDistanceEventListener);
-                    } else if (sw == mSwitchHeartRate) {
-                        sensorMgr.unregisterHeartRateEventListener(mHeartRateEventListener);
-                    } else if (sw == mSwitchContact) {
-                        sensorMgr.unregisterContactEventListener(mContactEventListener);
-                    } else if (sw == mSwitchSkinTemperature) {
-                        sensorMgr.unregisterSkinTemperatureEventListener(mSkinTemperatureEventListener);
-                    } else if (sw == mSwitchUltraviolet) {
-                        sensorMgr.unregisterUVEventListener(mUltravioletEventListener);
-                    } else if (sw == mSwitchPedometer) {
-                        sensorMgr.unregisterPedometerEventListener(mPedometerEventListener);
-                    }
+                    mService.stopCapture(section.mType);
                 } catch (BandException ex) {
                     Util.showExceptionAlert(getActivity(), "Unregister sensor listener", ex);
                 }
@@ -388,163 +305,644 @@ public class SensorsFragment extends Fragment implements FragmentListener {
         }
     };
 
+    private OnCheckedChangeListener mToggleRecording = new OnCheckedChangeListener() {
+        @Override
+        public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+            if (isChecked) {
+                startRecording();
+            } else {
+                stopRecording();
+            }
+        }
+    };
+
+    private void startRecording() {
+        if (mService == null) {
+            setCheckedQuietly(mSwitchRecord, false, mToggleRecording);
+            return;
+        }
+
+        String sessionName = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        File directory = new File(Util.getSessionsDirectory(getActivity()), sessionName);
+
+        try {
+            mService.startRecording(directory);
+            mTextRecordingStatus.setText(directory.getPath());
+        } catch (IOException ex) {
+            mSwitchRecord.setChecked(false);
+            Util.showExceptionAlert(getActivity(), "Start recording", ex);
+        }
+    }
+
+    private void stopRecording() {
+        if (mService != null) {
+            mService.stopRecording();
+        }
+        mTextRecordingStatus.setText("");
+    }
+
     //
-    // This method is scheduled to run on the UI thread after a sensor event has been received.
-    // We clear our "is scheduled" flag and then update the UI controls for any new sensor
-    // events (which we also clear).
+    // A finished session is exported as CSV or in the columnar format, see
+    // SessionExporter, to the exports directory on a background thread, and then offered
+    // to other apps through a share intent. The session being recorded isn't offered.
     //
-    private void handlePendingSensorReports() {
-        // Because we clear this flag before reading the sensor events, it's possible that a
-        // newly-generated event will schedule the handler to run unnecessarily. This is
-        // harmless. If we update the flag after checking the sensors, we could fail to call
-        // the handler at all.
-        mIsHandlerScheduled = false;
+    private OnClickListener mButtonExportClickListener = new OnClickListener() {
+        @Override
+        public void onClick(View button) {
+            final File sessionsDirectory = Util.getSessionsDirectory(getActivity());
+            final List<File> sessions = SessionReader.findSessions(sessionsDirectory);
+            File recording = (mService != null) ? mService.getRecordingDirectory() : null;
+            if (recording != null) {
+                for (Iterator<File> it = sessions.iterator(); it.hasNext();) {
+                    File session = it.next();
+                    if (session.equals(recording) || recording.equals(session.getParentFile())) {
+                        it.remove();
+                    }
+                }
+            }
+
+            AlertDialog.Builder builder = new AlertDialog.Builder(getActivity());
+            builder.setTitle("Export session:");
+            if (sessions.isEmpty()) {
+                builder.setMessage("There are no finished sessions.");
+                builder.setPositiveButton(R.string.ok_button_text, null);
+                builder.show();
+                return;
+            }
 
-        BandAccelerometerEvent accelerometerEvent = mPendingAccelerometerEvent.getAndSet(null);
-        if (accelerometerEvent != null) {
-            mTextAccX.setText(String.format("%.3f", accelerometerEvent.getAccelerationX()));
-            mTextAccY.setText(String.format("%.3f", accelerometerEvent.getAccelerationY()));
-            mTextAccZ.setText(String.format("%.3f", accelerometerEvent.getAccelerationZ()));
+            String[] names = new String[sessions.size()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = sessions.get(i).getPath().substring(sessionsDirectory.getPath().length() + 1);
+            }
+            builder.setItems(names, new DialogInterface.OnClickListener() {
+                public void onClick(DialogInterface dialog, int which) {
+                    chooseExportFormat(sessions.get(which));
+                }
+            });
+            builder.setNegativeButton(R.string.cancel_button_text, null);
+            builder.show();
         }
+    };
+
+    private void chooseExportFormat(final File session) {
+        AlertDialog.Builder builder = new AlertDialog.Builder(getActivity());
+        builder.setTitle("Export as:");
+        builder.setItems(new String[] { "CSV", "BNDX (columnar)" }, new DialogInterface.OnClickListener() {
+            public void onClick(DialogInterface dialog, int which) {
+                SessionExporter.Format format = (which == 0) ? SessionExporter.Format.CSV
+                        : SessionExporter.Format.COLUMNAR;
+                mButtonExport.setEnabled(false);
+                new ExportTask(session, format).execute();
+            }
+        });
+        builder.setNegativeButton(R.string.cancel_button_text, null);
+        builder.show();
+    }
+
+    private class ExportTask extends AsyncTask<Void, Void, Exception> {
+        private final File mSession;
+        private final SessionExporter mExporter;
+        private final File mDestination;
 
-        BandGyroscopeEvent gyroscopeEvent = mPendingGyroscopeEvent.getAndSet(null);
-        if (gyroscopeEvent != null) {
-            mTextGyroAccX.setText(String.format("%.3f", gyroscopeEvent.getAccelerationX()));
-            mTextGyroAccY.setText(String.format("%.3f", gyroscopeEvent.getAccelerationY()));
-            mTextGyroAccZ.setText(String.format("%.3f", gyroscopeEvent.getAccelerationZ()));
-            mTextGyroAngX.setText(String.format("%.2f", gyroscopeEvent.getAngularVelocityX()));
-            mTextGyroAngY.setText(String.format("%.2f", gyroscopeEvent.getAngularVelocityY()));
-            mTextGyroAngZ.setText(String.format("%.2f", gyroscopeEvent.getAngularVelocityZ()));
+        ExportTask(File session, SessionExporter.Format format) {
+            mSession = session;
+            mExporter = new SessionExporter(format, false);
+
+            // A per-Band session is named after its recording and its Band
+            String name = session.getName();
+            File parent = session.getParentFile();
+            if (!parent.equals(Util.getSessionsDirectory(getActivity()))) {
+                name = parent.getName() + "-" + name;
+            }
+            mDestination = new File(Util.getExportsDirectory(getActivity()),
+                    Util.toFileName(name) + mExporter.getExtension());
         }
 
-        BandDistanceEvent distanceEvent = mPendingDistanceEvent.getAndSet(null);
-        if (distanceEvent != null) {
-            mTextTotalDistance.setText(String.format("%d cm", distanceEvent.getTotalDistance()));
-            mTextSpeed.setText(String.format("%.2f cm/s", distanceEvent.getSpeed()));
-            mTextPace.setText(String.format("%.2f ms/m", distanceEvent.getPace()));
-            mTextPedometerMode.setText(distanceEvent.getPedometerMode().toString());
+        @Override
+        protected Exception doInBackground(Void... params) {
+            try {
+                File directory = mDestination.getParentFile();
+                if (!directory.isDirectory() && !directory.mkdirs()) {
+                    throw new IOException("Can't create " + directory);
+                }
+                mExporter.export(mSession, mDestination);
+                return null;
+            } catch (IOException ex) {
+                return ex;
+            }
         }
 
-        BandHeartRateEvent heartRateEvent = mPendingHeartRateEvent.getAndSet(null);
-        if (heartRateEvent != null) {
-            mTextHeartRate.setText(String.valueOf(heartRateEvent.getHeartRate()));
-            mTextHeartRateQuality.setText(heartRateEvent.getQuality().toString());
+        @Override
+        protected void onPostExecute(Exception failure) {
+            if (getActivity() == null) {
+                return;
+            }
+
+            mButtonExport.setEnabled(true);
+            if (failure != null) {
+                Util.showExceptionAlert(getActivity(), "Export session", failure);
+                return;
+            }
+
+            Intent share = new Intent(Intent.ACTION_SEND);
+            share.setType(mExporter.getFormat() == SessionExporter.Format.CSV ? "text/csv"
+                    : "application/octet-stream");
+            share.putExtra(Intent.EXTRA_SUBJECT, mDestination.getName());
+            share.putExtra(Intent.EXTRA_STREAM, Uri.fromFile(mDestination));
+            startActivity(Intent.createChooser(share, "Share " + mDestination.getName()));
         }
+    }
 
-        BandContactEvent contactEvent = mPendingContactEvent.getAndSet(null);
-        if (contactEvent != null) {
-            mTextContact.setText(contactEvent.getContactStatus().toString());
+    private OnCheckedChangeListener mToggleStoring = new OnCheckedChangeListener() {
+        @Override
+        public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+            if (mService == null) {
+                setCheckedQuietly(mSwitchDatabase, false, mToggleStoring);
+            } else if (isChecked) {
+                mService.startStoring();
+            } else {
+                mService.stopStoring();
+            }
         }
+    };
 
-        BandSkinTemperatureEvent skinTemperatureEvent = mPendingSkinTemperatureEvent.getAndSet(null);
-        if (skinTemperatureEvent != null) {
-            mTextSkinTemperature.setText(String.format("%.1f", skinTemperatureEvent.getTemperature()));
+    private OnCheckedChangeListener mToggleAlerting = new OnCheckedChangeListener() {
+        @Override
+        public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+            if (mService == null) {
+                setCheckedQuietly(mSwitchAlerts, false, mToggleAlerting);
+            } else if (isChecked) {
+                mService.startAlerting();
+            } else {
+                mService.stopAlerting();
+            }
         }
+    };
 
-        BandUVEvent uvEvent = mPendingUVEvent.getAndSet(null);
-        if (uvEvent != null) {
-            mTextUltraviolet.setText(uvEvent.getUVIndexLevel().toString());
+    //
+    // This method runs on the UI thread, right before a frame is drawn, when a sensor
+    // event has been received since the previous frame. We update the section of every
+    // sensor whose channel was marked dirty since the last update, and skip the rest.
+    // Values are formatted into reusable buffers, so this doesn't allocate per update.
+    // Once the views are updated, the channels note how old the shown samples are.
+    //
+    private void handlePendingSensorReports() {
+        if (mPipeline == null) {
+            return;
+        }
+
+        SensorChannelRegistry channels = mPipeline.getChannels();
+        int dirty = channels.takeDirty();
+        for (int pending = dirty; pending != 0; pending &= pending - 1) {
+            mSections[Integer.numberOfTrailingZeros(pending)].show();
         }
 
-        BandPedometerEvent pedometerEvent = mPendingPedometerEvent.getAndSet(null);
-        if (pedometerEvent != null) {
-            mTextTotalSteps.setText(String.format("%d", pedometerEvent.getTotalSteps()));
+        long now = System.nanoTime();
+        for (int pending = dirty; pending != 0; pending &= pending - 1) {
+            SensorType type = mSections[Integer.numberOfTrailingZeros(pending)].mType;
+            channels.get(type).getMetrics().onShown(now);
         }
     }
 
+    private SensorFrameDispatcher.Callback mSensorFrameCallback = new SensorFrameDispatcher.Callback() {
+        @Override
+        public void onFrame(long frameTimeNanos) {
+            handlePendingSensorReports();
+        }
+    };
+
+    private SensorChannelRegistry.Callback mChannelCallback = new SensorChannelRegistry.Callback() {
+        @Override
+        public void onChannelDirty(SensorType type) {
+            mFrameDispatcher.requestFrame();
+        }
+    };
+
     //
-    // Queue an action to run on the UI thread to process sensor updates. Make sure
-    // that we have at most one callback queued for the UI thread.
+    // Sensor display sections - each sensor has a switch and a TableLayout containing
+    // its display controls, which remains hidden until the switch is turned on. The
+    // inertial sensors also have a radio group to choose their sample rate, which is
+    // disabled while the sensor is on; with Auto, the service's rate controller changes
+    // the rate of the running sensor. A section clears its controls when its sensor is
+    // turned on and shows the newest data of its channel when that is dirty.
     //
-    private synchronized void scheduleSensorHandler() {
-        if (mIsHandlerScheduled) {
-            return;
+    // The sections are attached to the channels of the service while it is bound, and
+    // take the state of their switch from it, since a sensor may have been turned on
+    // while the fragment was gone.
+    //
+
+    private abstract class SensorSection {
+        final SensorType mType;
+        final Switch mSwitch;
+        final TableLayout mTable;
+        RadioGroup mRadioGroup;
+        RadioButton mRadio16;
+        RadioButton mRadio32;
+        RadioButton mRadio128;
+        RadioButton mRadioAuto;
+
+        // Set while the service is bound
+        SensorChannel<?> mChannel;
+
+        SensorSection(View rootView, SensorType type, int switchId, int tableId) {
+            mType = type;
+            mSwitch = (Switch)rootView.findViewById(switchId);
+            mTable = (TableLayout)rootView.findViewById(tableId);
+            mTable.setVisibility(View.GONE);
+            mSwitch.setTag(this);
+            mSwitch.setOnCheckedChangeListener(mToggleSensorSection);
+            mSections[type.ordinal()] = this;
         }
 
-        Activity activity = getActivity();
+        void setRateControls(View rootView, int radioGroupId, int radio16Id, int radio32Id, int radio128Id,
+                int radioAutoId) {
+            mRadioGroup = (RadioGroup)rootView.findViewById(radioGroupId);
+            mRadio16 = (RadioButton)rootView.findViewById(radio16Id);
+            mRadio32 = (RadioButton)rootView.findViewById(radio32Id);
+            mRadio128 = (RadioButton)rootView.findViewById(radio128Id);
+            mRadioAuto = (RadioButton)rootView.findViewById(radioAutoId);
+        }
 
-        if (activity != null) {
-            mIsHandlerScheduled = true;
-            activity.runOnUiThread(new Runnable() {
-                @Override
-                public void run() {
-                    handlePendingSensorReports();
+        SampleRate getSampleRate() {
+            if (mRadio16 != null && mRadio16.isChecked()) {
+                return SampleRate.MS16;
+            } else if (mRadio32 != null && mRadio32.isChecked()) {
+                return SampleRate.MS32;
+            } else {
+                return SampleRate.MS128;
+            }
+        }
+
+        boolean isAutoRate() {
+            return mRadioAuto != null && mRadioAuto.isChecked();
+        }
+
+        void setActive(boolean active) {
+            mTable.setVisibility(active ? View.VISIBLE : View.GONE);
+
+            if (mRadioGroup != null) {
+                mRadioGroup.setEnabled(!active);
+                setChildrenEnabled(mRadioGroup, !active);
+            }
+        }
+
+        void attach(SensorChannelRegistry channels) {
+            mChannel = channels.get(mType);
+            onAttach(channels);
+
+            boolean capturing = mChannel.isRegistered();
+            setCheckedQuietly(mSwitch, capturing, mToggleSensorSection);
+            setActive(capturing);
+
+            if (capturing && mRadioGroup != null) {
+                if (mPipeline.getRateController().isEnabled(mType)) {
+                    mRadioAuto.setChecked(true);
+                } else if (mChannel.getSampleRate() == SampleRate.MS16) {
+                    mRadio16.setChecked(true);
+                } else if (mChannel.getSampleRate() == SampleRate.MS32) {
+                    mRadio32.setChecked(true);
+                } else {
+                    mRadio128.setChecked(true);
                 }
-            });
+            }
+
+            show();
+        }
+
+        void detach() {
+            mChannel = null;
+        }
+
+        /**
+         * Called when the section is attached to the channels of the service.
+         */
+        abstract void onAttach(SensorChannelRegistry channels);
+
+        abstract void clear();
+
+        abstract void show();
+    }
+
+    private class AccelerometerSection extends SensorSection {
+        private final SensorValueText mTextX;
+        private final SensorValueText mTextY;
+        private final SensorValueText mTextZ;
+        private final SensorValueText mTextMagnitudeStats;
+        private final SensorChartView mChart;
+
+        private SampleStore mStore;
+
+        // The end index of the store when it was last shown
+        private long mShownEnd;
+
+        AccelerometerSection(View rootView) {
+            super(rootView, SensorType.ACCELEROMETER, R.id.switchAccelerometer, R.id.tableAccelerometer);
+            setRateControls(rootView, R.id.rgAccelerometer, R.id.rbAccelerometerRate16ms, R.id.rbAccelerometerRate32ms,
+                    R.id.rbAccelerometerRate128ms, R.id.rbAccelerometerRateAuto);
+
+            mTextX = new SensorValueText((TextView)rootView.findViewById(R.id.textAccX));
+            mTextY = new SensorValueText((TextView)rootView.findViewById(R.id.textAccY));
+            mTextZ = new SensorValueText((TextView)rootView.findViewById(R.id.textAccZ));
+            mTextMagnitudeStats = new SensorValueText((TextView)rootView.findViewById(R.id.textAccMagnitudeStats));
+            mChart = (SensorChartView)rootView.findViewById(R.id.chartAccelerometer);
+            mChart.setLabelDecimals(2);
+        }
+
+        @Override
+        void onAttach(SensorChannelRegistry channels) {
+            mStore = channels.getAccelerometer().getStore();
+            mShownEnd = 0;
+            mChart.setSource(mStore, new int[] {
+                    SampleStore.ACCELERATION_X, SampleStore.ACCELERATION_Y, SampleStore.ACCELERATION_Z }, AXIS_COLORS);
+        }
+
+        @Override
+        void clear() {
+            mTextX.clear();
+            mTextY.clear();
+            mTextZ.clear();
+            mTextMagnitudeStats.clear();
+        }
+
+        @Override
+        void show() {
+            long end = mStore.getEndIndex();
+            if (end != mShownEnd && end > mStore.getFirstIndex()) {
+                long newest = end - 1;
+                mTextX.setFixed(mStore.getValue(SampleStore.ACCELERATION_X, newest), 3);
+                mTextY.setFixed(mStore.getValue(SampleStore.ACCELERATION_Y, newest), 3);
+                mTextZ.setFixed(mStore.getValue(SampleStore.ACCELERATION_Z, newest), 3);
+                mShownEnd = end;
+
+                mChart.invalidate();
+
+                mPipeline.getChannels().getStatistics().get(SensorType.ACCELEROMETER).getSummary(mStatsSummary);
+                mTextMagnitudeStats.setRange(mStatsSummary.getMin(), mStatsSummary.getMean(), mStatsSummary.getMax(), 2);
+            }
+        }
+    }
+
+    private class GyroscopeSection extends SensorSection {
+        private final SensorValueText mTextAccX;
+        private final SensorValueText mTextAccY;
+        private final SensorValueText mTextAccZ;
+        private final SensorValueText mTextAngX;
+        private final SensorValueText mTextAngY;
+        private final SensorValueText mTextAngZ;
+        private final SensorValueText mTextOrientation;
+        private final SensorChartView mChart;
+
+        // Roll, pitch and yaw in radians
+        private final float[] mAngles = new float[3];
+
+        private SampleStore mStore;
+
+        // The end index of the store when it was last shown
+        private long mShownEnd;
+
+        GyroscopeSection(View rootView) {
+            super(rootView, SensorType.GYROSCOPE, R.id.switchGyro, R.id.tableGyro);
+            setRateControls(rootView, R.id.rgGyro, R.id.rbGyroRate16ms, R.id.rbGyroRate32ms, R.id.rbGyroRate128ms,
+                    R.id.rbGyroRateAuto);
+
+            mTextAccX = new SensorValueText((TextView)rootView.findViewById(R.id.textGyroAccX));
+            mTextAccY = new SensorValueText((TextView)rootView.findViewById(R.id.textGyroAccY));
+            mTextAccZ = new SensorValueText((TextView)rootView.findViewById(R.id.textGyroAccZ));
+            mTextAngX = new SensorValueText((TextView)rootView.findViewById(R.id.textAngX));
+            mTextAngY = new SensorValueText((TextView)rootView.findViewById(R.id.textAngY));
+            mTextAngZ = new SensorValueText((TextView)rootView.findViewById(R.id.textAngZ));
+            mTextOrientation = new SensorValueText((TextView)rootView.findViewById(R.id.textOrientation));
+            mChart = (SensorChartView)rootView.findViewById(R.id.chartGyroscope);
+        }
+
+        @Override
+        void onAttach(SensorChannelRegistry channels) {
+            mStore = channels.getGyroscope().getStore();
+            mShownEnd = 0;
+            mChart.setSource(mStore, new int[] {
+                    SampleStore.ANGULAR_VELOCITY_X, SampleStore.ANGULAR_VELOCITY_Y, SampleStore.ANGULAR_VELOCITY_Z }, AXIS_COLORS);
+        }
+
+        @Override
+        void clear() {
+            mTextAccX.clear();
+            mTextAccY.clear();
+            mTextAccZ.clear();
+            mTextAngX.clear();
+            mTextAngY.clear();
+            mTextAngZ.clear();
+            mTextOrientation.clear();
+        }
+
+        @Override
+        void show() {
+            long end = mStore.getEndIndex();
+            if (end != mShownEnd && end > mStore.getFirstIndex()) {
+                long newest = end - 1;
+                mTextAccX.setFixed(mStore.getValue(SampleStore.ACCELERATION_X, newest), 3);
+                mTextAccY.setFixed(mStore.getValue(SampleStore.ACCELERATION_Y, newest), 3);
+                mTextAccZ.setFixed(mStore.getValue(SampleStore.ACCELERATION_Z, newest), 3);
+                mTextAngX.setFixed(mStore.getValue(SampleStore.ANGULAR_VELOCITY_X, newest), 2);
+                mTextAngY.setFixed(mStore.getValue(SampleStore.ANGULAR_VELOCITY_Y, newest), 2);
+                mTextAngZ.setFixed(mStore.getValue(SampleStore.ANGULAR_VELOCITY_Z, newest), 2);
+
+                mPipeline.getOrientation().getEulerAngles(mAngles);
+                mTextOrientation.setTriple(Math.toDegrees(mAngles[0]), Math.toDegrees(mAngles[1]),
+                        Math.toDegrees(mAngles[2]), 1);
+                mShownEnd = end;
+                mChart.invalidate();
+            }
         }
     }
 
     //
-    // Sensor event handlers - each handler just writes the new sample to an atomic
-    // reference where it will be read by the UI thread. Samples that arrive faster
-    // than they can be processed by the UI thread overwrite older samples. Each
-    // handler calls scheduleSensorHandler() which makes sure that at most one call
-    // is queued to the UI thread to update all of the sensor displays.
+    // The other sensors only ever show the newest sample, so each of their sections
+    // follows the channel's ring buffer with its own cursor and skips whatever it
+    // doesn't have time to display.
     //
+    private abstract class LatestSampleSection<E extends BandSensorEvent> extends SensorSection {
+        private SensorRingBuffer<E>.Cursor mCursor;
+
+        LatestSampleSection(View rootView, SensorType type, int switchId, int tableId) {
+            super(rootView, type, switchId, tableId);
+        }
 
-    private BandAccelerometerEventListener mAccelerometerEventListener = new BandAccelerometerEventListener() {
         @Override
-        public void onBandAccelerometerChanged(final BandAccelerometerEvent event) {
-            mPendingAccelerometerEvent.set(event);
-            scheduleSensorHandler();
+        @SuppressWarnings("unchecked")
+        void onAttach(SensorChannelRegistry channels) {
+            SensorRingBuffer<E> buffer = ((SensorChannel<E>)channels.get(mType)).getBuffer();
+            mCursor = buffer.newCursor();
+
+            // The cursor only sees samples published from now on
+            E latest = buffer.latest();
+            if (latest != null) {
+                display(latest);
+            }
         }
-    };
 
-    private BandGyroscopeEventListener mGyroEventListener = new BandGyroscopeEventListener() {
         @Override
-        public void onBandGyroscopeChanged(final BandGyroscopeEvent event) {
-            mPendingGyroscopeEvent.set(event);
-            scheduleSensorHandler();
+        void show() {
+            E event = mCursor.pollLatest();
+            if (event != null) {
+                display(event);
+            }
+        }
+
+        abstract void display(E event);
+    }
+
+    private class DistanceSection extends LatestSampleSection<BandDistanceEvent> {
+        private final SensorValueText mTextTotalDistance;
+        private final SensorValueText mTextSpeed;
+        private final SensorValueText mTextPace;
+        private final SensorValueText mTextPedometerMode;
+
+        DistanceSection(View rootView) {
+            super(rootView, SensorType.DISTANCE, R.id.switchDistance, R.id.tableDistance);
+
+            mTextTotalDistance = new SensorValueText((TextView)rootView.findViewById(R.id.textTotalDistance));
+            mTextSpeed = new SensorValueText((TextView)rootView.findViewById(R.id.textSpeed));
+            mTextPace = new SensorValueText((TextView)rootView.findViewById(R.id.textPace));
+            mTextPedometerMode = new SensorValueText((TextView)rootView.findViewById(R.id.textPedometerMode));
         }
-    };
 
-    private BandDistanceEventListener mDistanceEventListener = new BandDistanceEventListener() {
         @Override
-        public void onBandDistanceChanged(final BandDistanceEvent event) {
-            mPendingDistanceEvent.set(event);
-            scheduleSensorHandler();
+        void clear() {
+            mTextTotalDistance.clear();
+            mTextSpeed.clear();
+            mTextPace.clear();
+            mTextPedometerMode.clear();
         }
-    };
 
-    private BandHeartRateEventListener mHeartRateEventListener = new BandHeartRateEventListener() {
         @Override
-        public void onBandHeartRateChanged(final BandHeartRateEvent event) {
-            mPendingHeartRateEvent.set(event);
-            scheduleSensorHandler();
+        void display(BandDistanceEvent event) {
+            mTextTotalDistance.setLong(event.getTotalDistance(), UNIT_DISTANCE);
+            mTextSpeed.setFixed(event.getSpeed(), 2, UNIT_SPEED);
+            mTextPace.setFixed(event.getPace(), 2, UNIT_PACE);
+            mTextPedometerMode.setText(event.getPedometerMode().toString());
+        }
+    }
+
+    private class HeartRateSection extends LatestSampleSection<BandHeartRateEvent> {
+        private final SensorValueText mTextHeartRate;
+        private final SensorValueText mTextQuality;
+        private final SensorValueText mTextStats;
+        private final SensorChartView mChart;
+
+        HeartRateSection(View rootView) {
+            super(rootView, SensorType.HEART_RATE, R.id.switchHeartRate, R.id.tableHeartRate);
+
+            mTextHeartRate = new SensorValueText((TextView)rootView.findViewById(R.id.textHeartRate));
+            mTextQuality = new SensorValueText((TextView)rootView.findViewById(R.id.textHeartRateQuality));
+            mTextStats = new SensorValueText((TextView)rootView.findViewById(R.id.textHeartRateStats));
+            mChart = (SensorChartView)rootView.findViewById(R.id.chartHeartRate);
+            mChart.setTimeSpan(HEART_RATE_CHART_SPAN_MS);
+            mChart.setLabelDecimals(0);
         }
-    };
 
-    private BandContactEventListener mContactEventListener = new BandContactEventListener() {
         @Override
-        public void onBandContactChanged(final BandContactEvent event) {
-            mPendingContactEvent.set(event);
-            scheduleSensorHandler();
+        void onAttach(SensorChannelRegistry channels) {
+            mChart.setSource(channels.getHeartRate().getStore(), new int[] { SampleStore.VALUE }, new int[] { HEART_RATE_COLOR });
+            super.onAttach(channels);
         }
-    };
 
-    private BandSkinTemperatureEventListener mSkinTemperatureEventListener = new BandSkinTemperatureEventListener() {
         @Override
-        public void onBandSkinTemperatureChanged(final BandSkinTemperatureEvent event) {
-            mPendingSkinTemperatureEvent.set(event);
-            scheduleSensorHandler();
+        void clear() {
+            mTextHeartRate.clear();
+            mTextQuality.clear();
+            mTextStats.clear();
         }
-    };
 
-    private BandUVEventListener mUltravioletEventListener = new BandUVEventListener() {
         @Override
-        public void onBandUVChanged(final BandUVEvent event) {
-            mPendingUVEvent.set(event);
-            scheduleSensorHandler();
+        void display(BandHeartRateEvent event) {
+            mTextHeartRate.setLong(event.getHeartRate());
+            mTextQuality.setText(event.getQuality().toString());
+
+            mPipeline.getChannels().getStatistics().get(SensorType.HEART_RATE).getSummary(mStatsSummary);
+            mTextStats.setRange(mStatsSummary.getMin(), mStatsSummary.getMean(), mStatsSummary.getMax(), 0);
+            mChart.invalidate();
+        }
+    }
+
+    private class ContactSection extends LatestSampleSection<BandContactEvent> {
+        private final SensorValueText mTextContact;
+
+        ContactSection(View rootView) {
+            super(rootView, SensorType.CONTACT, R.id.switchContact, R.id.tableContact);
+
+            mTextContact = new SensorValueText((TextView)rootView.findViewById(R.id.textContact));
         }
-    };
 
-    private BandPedometerEventListener mPedometerEventListener = new BandPedometerEventListener() {
         @Override
-        public void onBandPedometerChanged(final BandPedometerEvent event) {
-            mPendingPedometerEvent.set(event);
-            scheduleSensorHandler();
+        void clear() {
+            mTextContact.clear();
+        }
+
+        @Override
+        void display(BandContactEvent event) {
+            mTextContact.setText(event.getContactStatus().toString());
+        }
+    }
+
+    private class SkinTemperatureSection extends LatestSampleSection<BandSkinTemperatureEvent> {
+        private final SensorValueText mTextSkinTemperature;
+
+        SkinTemperatureSection(View rootView) {
+            super(rootView, SensorType.SKIN_TEMPERATURE, R.id.switchSkinTemperature, R.id.tableSkinTemperature);
+
+            mTextSkinTemperature = new SensorValueText((TextView)rootView.findViewById(R.id.textSkinTemperature));
+        }
+
+        @Override
+        void clear() {
+            mTextSkinTemperature.clear();
         }
-    };
+
+        @Override
+        void display(BandSkinTemperatureEvent event) {
+            mTextSkinTemperature.setFixed(event.getTemperature(), 1);
+        }
+    }
+
+    private class UltravioletSection extends LatestSampleSection<BandUVEvent> {
+        private final SensorValueText mTextUltraviolet;
+
+        UltravioletSection(View rootView) {
+            super(rootView, SensorType.ULTRAVIOLET, R.id.switchUltraviolet, R.id.tableUltraviolet);
+
+            mTextUltraviolet = new SensorValueText((TextView)rootView.findViewById(R.id.textUltraviolet));
+        }
+
+        @Override
+        void clear() {
+            mTextUltraviolet.clear();
+        }
+
+        @Override
+        void display(BandUVEvent event) {
+            mTextUltraviolet.setText(event.getUVIndexLevel().toString());
+        }
+    }
+
+    private class PedometerSection extends LatestSampleSection<BandPedometerEvent> {
+        private final SensorValueText mTextTotalSteps;
+
+        PedometerSection(View rootView) {
+            super(rootView, SensorType.PEDOMETER, R.id.switchPedometer, R.id.tablePedometer);
+
+            mTextTotalSteps = new SensorValueText((TextView)rootView.findViewById(R.id.textTotalSteps));
+        }
+
+        @Override
+        void clear() {
+            mTextTotalSteps.clear();
+        }
+
+        @Override
+        void display(BandPedometerEvent event) {
+            mTextTotalSteps.setLong(event.getTotalSteps());
+        }
+    }
 
     //
     // Other helpers
@@ -556,14 +954,31 @@ public class SensorsFragment extends Fragment implements FragmentListener {
         }
     }
 
+    private static void setCheckedQuietly(CompoundButton button, boolean checked, OnCheckedChangeListener listener) {
+        button.setOnCheckedChangeListener(null);
+        button.setChecked(checked);
+        button.setOnCheckedChangeListener(listener);
+    }
+
+    //
+    // The sensors can only be turned on while a Band is connected and the service is
+    // bound, and then are turned on for all connected Bands. When a Band is gone, the
+    // service stops capturing it. The sections show the shown Band, which may have
+    // changed since they were attached.
+    //
     private void refreshControls() {
-        boolean connected = Model.getInstance().isConnected();
+        boolean connected = Model.getInstance().isAnyConnected();
+
+        if (mService != null) {
+            mService.releaseDisconnectedBands();
+            attachPipeline();
+        }
 
-        for (Switch sw : mSensorMap.keySet()) {
-            sw.setEnabled(connected);
+        for (SensorSection section : mSections) {
+            section.mSwitch.setEnabled(connected && mPipeline != null);
             if (!connected) {
-                sw.setChecked(false);
-                mToggleSensorSection.onCheckedChanged(sw, false);
+                setCheckedQuietly(section.mSwitch, false, mToggleSensorSection);
+                section.setActive(false);
             }
         }
     }
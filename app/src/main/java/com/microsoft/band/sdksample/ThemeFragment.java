@@ -95,11 +95,10 @@ public class ThemeFragment extends Fragment implements FragmentListener {
         @Override
         public void onClick(View button) {
             try {
-                mSelectedImage = Model.getInstance()
+                mSelectedImage = BandCalls.await("Get background image", Model.getInstance()
                     .getClient()
                     .getPersonalizationManager()
-                    .getMeTileImage()
-                    .await();
+                    .getMeTileImage());
 
                 mImageBackground.setImageBitmap(mSelectedImage);
                 refreshControls();
@@ -113,11 +112,10 @@ public class ThemeFragment extends Fragment implements FragmentListener {
         @Override
         public void onClick(View button) {
             try {
-                Model.getInstance()
+                BandCalls.await("Set background image", Model.getInstance()
                     .getClient()
                     .getPersonalizationManager()
-                    .setMeTileImage(mSelectedImage)
-                    .await();
+                    .setMeTileImage(mSelectedImage));
             } catch (Exception ex) {
                 Util.showExceptionAlert(getActivity(), "Set background image", ex);
             }
@@ -166,11 +164,10 @@ public class ThemeFragment extends Fragment implements FragmentListener {
         @Override
         public void onClick(View button) {
             try {
-                BandTheme theme = Model.getInstance()
+                BandTheme theme = BandCalls.await("Get theme", Model.getInstance()
                     .getClient()
                     .getPersonalizationManager()
-                    .getTheme()
-                    .await();
+                    .getTheme());
                 
                 mViewTheme.setTheme(theme);
                 refreshControls();
@@ -184,11 +181,10 @@ public class ThemeFragment extends Fragment implements FragmentListener {
         @Override
         public void onClick(View button) {
             try {
-                Model.getInstance()
+                BandCalls.await("Set theme", Model.getInstance()
                     .getClient()
                     .getPersonalizationManager()
-                    .setTheme(mViewTheme.getTheme())
-                    .await();
+                    .setTheme(mViewTheme.getTheme()));
                 
                 refreshControls();
             } catch (Exception ex) {
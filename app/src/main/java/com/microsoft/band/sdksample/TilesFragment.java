@@ -225,11 +225,10 @@ public class TilesFragment extends Fragment implements FragmentListener, OnCheck
         @Override
         public void onClick(View button) {
             try {
-                Model.getInstance()
+                BandCalls.await("Remove tile", Model.getInstance()
                     .getClient()
                     .getTileManager()
-                    .removeTile(mSelectedTile.getTileId())
-                    .await();
+                    .removeTile(mSelectedTile.getTileId()));
                 mSelectedTile = null;
                 Toast.makeText(getActivity(), "Tile removed", Toast.LENGTH_SHORT).show();
                 refreshData();
@@ -244,7 +243,7 @@ public class TilesFragment extends Fragment implements FragmentListener, OnCheck
         @Override
         public void onClick(View button) {
             try {
-                Model.getInstance()
+                BandCalls.await("Send message", Model.getInstance()
                     .getClient()
                     .getNotificationManager()
                     .sendMessage(
@@ -252,8 +251,7 @@ public class TilesFragment extends Fragment implements FragmentListener, OnCheck
                         mEditTitle.getText().toString(),
                         mEditBody.getText().toString(),
                         new Date(),
-                        mCheckboxWithDialog.isChecked() ? MessageFlags.SHOW_DIALOG : MessageFlags.NONE)
-                    .await();
+                        mCheckboxWithDialog.isChecked() ? MessageFlags.SHOW_DIALOG : MessageFlags.NONE));
 
             } catch (Exception e) {
                 Util.showExceptionAlert(getActivity(), "Send message", e);
@@ -265,14 +263,13 @@ public class TilesFragment extends Fragment implements FragmentListener, OnCheck
         @Override
         public void onClick(View button) {
             try {
-                Model.getInstance()
+                BandCalls.await("Show dialog", Model.getInstance()
                     .getClient()
                     .getNotificationManager()
                     .showDialog(
                         mSelectedTile.getTileId(),
                         mEditTitle.getText().toString(),
-                        mEditBody.getText().toString())
-                    .await();
+                        mEditBody.getText().toString()));
 
             } catch (Exception e) {
                 Util.showExceptionAlert(getActivity(), "Show dialog", e);
@@ -301,11 +298,10 @@ public class TilesFragment extends Fragment implements FragmentListener, OnCheck
     private void refreshData() {
         if (Model.getInstance().isConnected()) {
             try {
-                mRemainingCapacity = Model.getInstance()
+                mRemainingCapacity = BandCalls.await("Check capacity", Model.getInstance()
                     .getClient()
                     .getTileManager()
-                    .getRemainingTileCapacity()
-                    .await();
+                    .getRemainingTileCapacity());
 
             } catch (Exception e) {
                 mRemainingCapacity = -1;
@@ -313,11 +309,10 @@ public class TilesFragment extends Fragment implements FragmentListener, OnCheck
             }
 
             try {
-                mTiles = Model.getInstance()
+                mTiles = BandCalls.await("Get tiles", Model.getInstance()
                     .getClient()
                     .getTileManager()
-                    .getTiles()
-                    .await();
+                    .getTiles());
 
                 if (!mTiles.contains(mSelectedTile)) {
                     mSelectedTile = null;
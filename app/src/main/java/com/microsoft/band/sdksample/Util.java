@@ -17,8 +17,11 @@
 //IN THE SOFTWARE.
 package com.microsoft.band.sdksample;
 
+import java.io.File;
+
 import android.app.Activity;
 import android.app.AlertDialog;
+import android.content.Context;
 
 public class Util {
     
@@ -35,4 +38,40 @@ public class Util {
             .setPositiveButton("OK", null)
             .show();
     }
+
+    /**
+     * Turns a name, such as a Band name, into something that can be used as a file
+     * name, by replacing every character other than letters, digits, '-' and '.' with
+     * '_'.
+     */
+    public static String toFileName(String name) {
+        StringBuilder fileName = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean safe = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '.';
+            fileName.append(safe ? c : '_');
+        }
+        return fileName.toString();
+    }
+
+    //
+    // Recorded sensor sessions go to the app's external files directory when there is
+    // one, so they can be pulled off the phone, and to internal storage otherwise.
+    //
+    public static File getSessionsDirectory(Context context) {
+        File base = context.getExternalFilesDir(null);
+        if (base == null) {
+            base = context.getFilesDir();
+        }
+        return new File(base, "sessions");
+    }
+
+    //
+    // Exported sessions go next to the sessions, so apps they are shared with can read
+    // them from external storage.
+    //
+    public static File getExportsDirectory(Context context) {
+        return new File(getSessionsDirectory(context).getParentFile(), "exports");
+    }
 }
@@ -0,0 +1,163 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.align;
+
+import com.microsoft.band.sdksample.channels.SensorChannel;
+import com.microsoft.band.sdksample.channels.SensorChannelRegistry;
+import com.microsoft.band.sdksample.sensors.SensorType;
+import com.microsoft.band.sensors.BandAccelerometerEvent;
+import com.microsoft.band.sensors.BandDistanceEvent;
+import com.microsoft.band.sensors.BandGyroscopeEvent;
+import com.microsoft.band.sensors.BandHeartRateEvent;
+
+/**
+ * Aligns the accelerometer, gyroscope, heart rate and distance channels into
+ * fixed-rate frames with a {@link StreamAligner}.
+ * <p>
+ * The frame columns are given by the constants below. Accelerations, angular
+ * velocities, heart rate, speed and pace are interpolated linearly; the total distance
+ * and the enum ordinals are held. The heart rate and distance arrive about once per
+ * second, so frames lag the newest inertial sample by up to {@link #MAX_LAG_MS}. Frames
+ * go to the listener on the sensor threads.
+ */
+public class SensorStreams {
+
+    public static final int STREAM_ACCELEROMETER = 0;
+    public static final int STREAM_GYROSCOPE = 1;
+    public static final int STREAM_HEART_RATE = 2;
+    public static final int STREAM_DISTANCE = 3;
+
+    public static final int ACCELERATION_X = 0;
+    public static final int ACCELERATION_Y = 1;
+    public static final int ACCELERATION_Z = 2;
+    public static final int GYRO_ACCELERATION_X = 3;
+    public static final int GYRO_ACCELERATION_Y = 4;
+    public static final int GYRO_ACCELERATION_Z = 5;
+    public static final int ANGULAR_VELOCITY_X = 6;
+    public static final int ANGULAR_VELOCITY_Y = 7;
+    public static final int ANGULAR_VELOCITY_Z = 8;
+    public static final int HEART_RATE = 9;
+    public static final int HEART_RATE_QUALITY = 10;
+    public static final int TOTAL_DISTANCE = 11;
+    public static final int SPEED = 12;
+    public static final int PACE = 13;
+    public static final int PEDOMETER_MODE = 14;
+
+    // Slightly more than the one second between heart rate and distance samples
+    public static final long MAX_LAG_MS = 1500;
+
+    // MAX_LAG_MS of samples at the fastest rate of each stream, with room to spare
+    private static final int INERTIAL_CAPACITY = 128;
+    private static final int LOW_RATE_CAPACITY = 8;
+
+    private static final StreamAligner.Mode LINEAR = StreamAligner.Mode.LINEAR;
+    private static final StreamAligner.Mode HOLD = StreamAligner.Mode.HOLD;
+
+    private final StreamAligner mAligner;
+
+    /**
+     * @param periodMs the time between frames
+     */
+    public SensorStreams(long periodMs, StreamAligner.FrameListener listener) {
+        mAligner = new StreamAligner(periodMs, MAX_LAG_MS);
+        mAligner.addStream(new StreamAligner.Mode[] { LINEAR, LINEAR, LINEAR }, INERTIAL_CAPACITY);
+        mAligner.addStream(new StreamAligner.Mode[] { LINEAR, LINEAR, LINEAR, LINEAR, LINEAR, LINEAR },
+                INERTIAL_CAPACITY);
+        mAligner.addStream(new StreamAligner.Mode[] { LINEAR, HOLD }, LOW_RATE_CAPACITY);
+        mAligner.addStream(new StreamAligner.Mode[] { HOLD, LINEAR, LINEAR, HOLD }, LOW_RATE_CAPACITY);
+        mAligner.setListener(listener);
+    }
+
+    public StreamAligner getAligner() {
+        return mAligner;
+    }
+
+    /**
+     * Feeds the registry's channels into the aligner until {@link #removeFrom} is called.
+     */
+    public void addTo(SensorChannelRegistry channels) {
+        channels.getAccelerometer().addConsumer(mAccelerometerConsumer);
+        channels.getGyroscope().addConsumer(mGyroscopeConsumer);
+        channels.getHeartRate().addConsumer(mHeartRateConsumer);
+        channels.getDistance().addConsumer(mDistanceConsumer);
+    }
+
+    public void removeFrom(SensorChannelRegistry channels) {
+        channels.getAccelerometer().removeConsumer(mAccelerometerConsumer);
+        channels.getGyroscope().removeConsumer(mGyroscopeConsumer);
+        channels.getHeartRate().removeConsumer(mHeartRateConsumer);
+        channels.getDistance().removeConsumer(mDistanceConsumer);
+    }
+
+    //
+    // Each consumer is only called on its channel's sensor thread, so it can keep its
+    // own scratch array for the values it pushes.
+    //
+
+    private SensorChannel.Consumer<BandAccelerometerEvent> mAccelerometerConsumer = new SensorChannel.Consumer<BandAccelerometerEvent>() {
+        private final float[] mValues = new float[3];
+
+        @Override
+        public void onSample(SensorType type, BandAccelerometerEvent event) {
+            mValues[0] = event.getAccelerationX();
+            mValues[1] = event.getAccelerationY();
+            mValues[2] = event.getAccelerationZ();
+            mAligner.push(STREAM_ACCELEROMETER, event.getTimestamp(), mValues);
+        }
+    };
+
+    private SensorChannel.Consumer<BandGyroscopeEvent> mGyroscopeConsumer = new SensorChannel.Consumer<BandGyroscopeEvent>() {
+        private final float[] mValues = new float[6];
+
+        @Override
+        public void onSample(SensorType type, BandGyroscopeEvent event) {
+            mValues[0] = event.getAccelerationX();
+            mValues[1] = event.getAccelerationY();
+            mValues[2] = event.getAccelerationZ();
+            mValues[3] = event.getAngularVelocityX();
+            mValues[4] = event.getAngularVelocityY();
+            mValues[5] = event.getAngularVelocityZ();
+            mAligner.push(STREAM_GYROSCOPE, event.getTimestamp(), mValues);
+        }
+    };
+
+    private SensorChannel.Consumer<BandHeartRateEvent> mHeartRateConsumer = new SensorChannel.Consumer<BandHeartRateEvent>() {
+        private final float[] mValues = new float[2];
+
+        @Override
+        public void onSample(SensorType type, BandHeartRateEvent event) {
+            mValues[0] = event.getHeartRate();
+            mValues[1] = event.getQuality().ordinal();
+            mAligner.push(STREAM_HEART_RATE, event.getTimestamp(), mValues);
+        }
+    };
+
+    private SensorChannel.Consumer<BandDistanceEvent> mDistanceConsumer = new SensorChannel.Consumer<BandDistanceEvent>() {
+        private final float[] mValues = new float[4];
+
+        @Override
+        public void onSample(SensorType type, BandDistanceEvent event) {
+            // Exact up to 167 km, after which the last centimeters are rounded
+            mValues[0] = event.getTotalDistance();
+            mValues[1] = event.getSpeed();
+            mValues[2] = event.getPace();
+            mValues[3] = event.getPedometerMode().ordinal();
+            mAligner.push(STREAM_DISTANCE, event.getTimestamp(), mValues);
+        }
+    };
+}
@@ -0,0 +1,181 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.channels;
+
+import com.microsoft.band.sdksample.alerts.AlertDispatcher;
+import com.microsoft.band.sdksample.alerts.AnomalyDetector;
+import com.microsoft.band.sdksample.alerts.RateOfChangeDetector;
+import com.microsoft.band.sdksample.alerts.ThresholdDetector;
+import com.microsoft.band.sdksample.alerts.ZScoreDetector;
+import com.microsoft.band.sdksample.align.SensorStreams;
+import com.microsoft.band.sdksample.align.StreamAligner;
+import com.microsoft.band.sdksample.sensors.SensorType;
+import com.microsoft.band.sensors.BandSkinTemperatureEvent;
+import com.microsoft.band.sensors.HeartRateQuality;
+
+/**
+ * Runs anomaly detectors over the heart rate, skin temperature and acceleration of one
+ * Band and posts an alert to the {@link AlertDispatcher} whenever one is raised.
+ * <p>
+ * The motion and heart rate detectors run on the frames of a {@link SensorStreams}, every
+ * {@link #FRAME_PERIOD_MS}, so they see both sensors at the same instants whatever rate
+ * each is captured at. Frames come with the aligner locked, so those detectors are only
+ * used by one processing thread at a time. The skin temperature arrives every 30
+ * seconds, far apart for the aligner's lag, so its detectors run in its channel's
+ * consumer instead. Detectors take constant time per sample, and posting an alert never
+ * waits for the Band, since the dispatcher sends the notifications on its own thread.
+ * <ul>
+ * <li>Heart rate: out of range, or rising or falling fast. Only frames where the Band
+ * has locked onto the heart rate count.</li>
+ * <li>Skin temperature: out of range, or changing fast.</li>
+ * <li>Motion: an acceleration magnitude far off its recent normal, or near free fall
+ * or a hard impact. The accelerometer should run at the highest rate for this, see
+ * {@link SampleRateController#DEMAND_HIGH_RATE}.</li>
+ * </ul>
+ */
+public class AnomalyMonitor {
+
+    public static final float MIN_HEART_RATE = 40;
+    public static final float MAX_HEART_RATE = 170;
+    public static final float MIN_SKIN_TEMPERATURE = 25;
+    public static final float MAX_SKIN_TEMPERATURE = 38;
+
+    // The highest rate of the accelerometer, so frames don't smooth over an impact
+    public static final long FRAME_PERIOD_MS = 16;
+
+    // About a second of frames
+    private static final int MOTION_WINDOW = 64;
+
+    private final AlertDispatcher mDispatcher;
+
+    private final AnomalyDetector mHeartRateRange = new ThresholdDetector(MIN_HEART_RATE, MAX_HEART_RATE, 5);
+    private final AnomalyDetector mHeartRateChange = new RateOfChangeDetector(3, 1, 5);
+    private final AnomalyDetector mTemperatureRange = new ThresholdDetector(MIN_SKIN_TEMPERATURE, MAX_SKIN_TEMPERATURE, 0.5f);
+    private final AnomalyDetector mTemperatureChange = new RateOfChangeDetector(0.05f, 0.02f, 30);
+    private final AnomalyDetector mMotionScore = new ZScoreDetector(MOTION_WINDOW, 8, 3, 0.05f);
+    private final AnomalyDetector mMotionRange = new ThresholdDetector(0.3f, 3, 0.2f);
+
+    private final int mHeartRateRangeAlert;
+    private final int mHeartRateChangeAlert;
+    private final int mTemperatureRangeAlert;
+    private final int mTemperatureChangeAlert;
+    private final int mMotionScoreAlert;
+    private final int mMotionRangeAlert;
+
+    // Set by reset() and carried out by the next frame, since frames can be running on
+    // another sensor's thread
+    private volatile boolean mResetMotion;
+    private volatile boolean mResetHeartRate;
+
+    public AnomalyMonitor(AlertDispatcher dispatcher) {
+        mDispatcher = dispatcher;
+        mHeartRateRangeAlert = dispatcher.register("Heart rate out of range");
+        mHeartRateChangeAlert = dispatcher.register("Heart rate changing fast");
+        mTemperatureRangeAlert = dispatcher.register("Skin temperature out of range");
+        mTemperatureChangeAlert = dispatcher.register("Skin temperature changing fast");
+        mMotionScoreAlert = dispatcher.register("Sudden motion");
+        mMotionRangeAlert = dispatcher.register("Fall or impact");
+    }
+
+    /**
+     * Starts taking the frames of the streams, which must be made with
+     * {@link #FRAME_PERIOD_MS}, and the skin temperature of the registry.
+     */
+    public void addTo(SensorChannelRegistry channels, SensorStreams streams) {
+        streams.getAligner().setListener(mFrameListener);
+        channels.getSkinTemperature().addConsumer(mSkinTemperatureConsumer);
+    }
+
+    public void removeFrom(SensorChannelRegistry channels, SensorStreams streams) {
+        streams.getAligner().setListener(null);
+        channels.getSkinTemperature().removeConsumer(mSkinTemperatureConsumer);
+    }
+
+    /**
+     * Forgets the samples of a sensor, so a gap in capture isn't taken for a change.
+     * Must be called while its channel is not registered.
+     */
+    public void reset(SensorType type) {
+        switch (type) {
+        case ACCELEROMETER:
+            mResetMotion = true;
+            break;
+        case HEART_RATE:
+            mResetHeartRate = true;
+            break;
+        case SKIN_TEMPERATURE:
+            mTemperatureRange.reset();
+            mTemperatureChange.reset();
+            break;
+        default:
+            break;
+        }
+    }
+
+    private void update(AnomalyDetector detector, int alert, long timestamp, float value) {
+        if (detector.update(timestamp, value)) {
+            mDispatcher.post(alert);
+        }
+    }
+
+    //
+    // A stream that isn't captured, or has fallen silent for longer than the aligner's
+    // lag, is invalid in the frame and its detectors skip it. The heart rate quality is
+    // held from the last sample, so it tells whether the interpolated rate is locked.
+    //
+    private StreamAligner.FrameListener mFrameListener = new StreamAligner.FrameListener() {
+        @Override
+        public void onFrame(StreamAligner.Frame frame) {
+            long timestamp = frame.getTimestamp();
+            if (mResetMotion) {
+                mResetMotion = false;
+                mMotionScore.reset();
+                mMotionRange.reset();
+            }
+            if (mResetHeartRate) {
+                mResetHeartRate = false;
+                mHeartRateRange.reset();
+                mHeartRateChange.reset();
+            }
+
+            if (frame.isValid(SensorStreams.STREAM_ACCELEROMETER)) {
+                float x = frame.get(SensorStreams.ACCELERATION_X);
+                float y = frame.get(SensorStreams.ACCELERATION_Y);
+                float z = frame.get(SensorStreams.ACCELERATION_Z);
+                float magnitude = (float) Math.sqrt(x * x + y * y + z * z);
+                update(mMotionScore, mMotionScoreAlert, timestamp, magnitude);
+                update(mMotionRange, mMotionRangeAlert, timestamp, magnitude);
+            }
+
+            if (frame.isValid(SensorStreams.STREAM_HEART_RATE)
+                    && (int) frame.get(SensorStreams.HEART_RATE_QUALITY) == HeartRateQuality.LOCKED.ordinal()) {
+                float heartRate = frame.get(SensorStreams.HEART_RATE);
+                update(mHeartRateRange, mHeartRateRangeAlert, timestamp, heartRate);
+                update(mHeartRateChange, mHeartRateChangeAlert, timestamp, heartRate);
+            }
+        }
+    };
+
+    private SensorChannel.Consumer<BandSkinTemperatureEvent> mSkinTemperatureConsumer = new SensorChannel.Consumer<BandSkinTemperatureEvent>() {
+        @Override
+        public void onSample(SensorType type, BandSkinTemperatureEvent event) {
+            update(mTemperatureRange, mTemperatureRangeAlert, event.getTimestamp(), event.getTemperature());
+            update(mTemperatureChange, mTemperatureChangeAlert, event.getTimestamp(), event.getTemperature());
+        }
+    };
+}
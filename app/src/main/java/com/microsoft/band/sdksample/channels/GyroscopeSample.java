@@ -0,0 +1,74 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.channels;
+
+import com.microsoft.band.sdksample.sensors.InertialSample;
+import com.microsoft.band.sensors.BandGyroscopeEvent;
+
+/**
+ * Presents a gyroscope event of the SDK as an {@link InertialSample}, so the SDK-free
+ * code of the core module can work on it.
+ * <p>
+ * One instance is reused for every sample of a channel instead of wrapping each event
+ * in a new object, so it must only be used on the thread that processes the channel
+ * and only until the next sample.
+ */
+public class GyroscopeSample implements InertialSample {
+
+    private BandGyroscopeEvent mEvent;
+
+    public GyroscopeSample set(BandGyroscopeEvent event) {
+        mEvent = event;
+        return this;
+    }
+
+    @Override
+    public long getTimestamp() {
+        return mEvent.getTimestamp();
+    }
+
+    @Override
+    public float getAccelerationX() {
+        return mEvent.getAccelerationX();
+    }
+
+    @Override
+    public float getAccelerationY() {
+        return mEvent.getAccelerationY();
+    }
+
+    @Override
+    public float getAccelerationZ() {
+        return mEvent.getAccelerationZ();
+    }
+
+    @Override
+    public float getAngularVelocityX() {
+        return mEvent.getAngularVelocityX();
+    }
+
+    @Override
+    public float getAngularVelocityY() {
+        return mEvent.getAngularVelocityY();
+    }
+
+    @Override
+    public float getAngularVelocityZ() {
+        return mEvent.getAngularVelocityZ();
+    }
+}
@@ -0,0 +1,257 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.channels;
+
+import com.microsoft.band.BandException;
+import com.microsoft.band.sdksample.sensors.SensorType;
+import com.microsoft.band.sensors.BandAccelerometerEvent;
+import com.microsoft.band.sensors.BandGyroscopeEvent;
+import com.microsoft.band.sensors.BandSensorManager;
+import com.microsoft.band.sensors.SampleRate;
+
+/**
+ * Chooses the sample rate of the accelerometer and gyroscope from what their data is
+ * needed for and how much the Band moves, and changes the rate of the running
+ * channels without a gap in their streams (see {@link SensorChannel.Inertial}).
+ * <p>
+ * The demand on a channel is a set of flags:
+ * <ul>
+ * <li>Without any demand the channel runs at MS128, the lowest rate.</li>
+ * <li>{@link #DEMAND_RECORDING} and {@link #DEMAND_HIGH_RATE} always get MS16, so
+ * recordings and consumers such as detectors see every sample.</li>
+ * <li>With only {@link #DEMAND_DISPLAY}, the rate follows the motion: MS128 while the
+ * Band is still, MS32 for moderate motion and MS16 for strong motion.</li>
+ * </ul>
+ * The motion level is a smoothed deviation of the acceleration magnitude from its
+ * running mean, in g, measured on the channel's own samples. The rate goes up as soon
+ * as the target does, and only comes down once the lower target has held for
+ * {@link #DOWNGRADE_HOLD_MS}, so it doesn't flap between rates.
+ * <p>
+ * Only the channels enabled with {@link #setEnabled} are controlled, and only while
+ * they are registered. {@link #update} must be called on the UI thread periodically.
+ */
+public class SampleRateController {
+
+    public static final int DEMAND_DISPLAY = 1;
+    public static final int DEMAND_RECORDING = 1 << 1;
+    public static final int DEMAND_HIGH_RATE = 1 << 2;
+
+    public static final float MODERATE_MOTION = 0.02f;
+    public static final float STRONG_MOTION = 0.15f;
+    public static final long DOWNGRADE_HOLD_MS = 3000;
+
+    // The time constant of the motion smoothing
+    private static final float MOTION_TIME_CONSTANT_MS = 1000f;
+
+    private final Control mAccelerometer;
+    private final Control mGyroscope;
+
+    public SampleRateController(SensorChannelRegistry channels) {
+        mAccelerometer = new Control(channels.getAccelerometer());
+        mGyroscope = new Control(channels.getGyroscope());
+
+        channels.getAccelerometer().addConsumer(new SensorChannel.Consumer<BandAccelerometerEvent>() {
+            @Override
+            public void onSample(SensorType type, BandAccelerometerEvent event) {
+                mAccelerometer.addMotion(event.getTimestamp(),
+                        event.getAccelerationX(), event.getAccelerationY(), event.getAccelerationZ());
+            }
+        });
+        channels.getGyroscope().addConsumer(new SensorChannel.Consumer<BandGyroscopeEvent>() {
+            @Override
+            public void onSample(SensorType type, BandGyroscopeEvent event) {
+                mGyroscope.addMotion(event.getTimestamp(),
+                        event.getAccelerationX(), event.getAccelerationY(), event.getAccelerationZ());
+            }
+        });
+    }
+
+    private Control getControl(SensorType type) {
+        switch (type) {
+        case ACCELEROMETER:
+            return mAccelerometer;
+        case GYROSCOPE:
+            return mGyroscope;
+        default:
+            throw new IllegalArgumentException(type + " has no sample rate");
+        }
+    }
+
+    /**
+     * Turns control of the channel's rate on or off. While it is off, the channel keeps
+     * whatever rate it has.
+     */
+    public void setEnabled(SensorType type, boolean enabled) {
+        getControl(type).mEnabled = enabled;
+    }
+
+    public boolean isEnabled(SensorType type) {
+        return getControl(type).mEnabled;
+    }
+
+    /**
+     * Adds or removes a demand flag on one channel.
+     */
+    public void setDemand(SensorType type, int flag, boolean on) {
+        getControl(type).setDemand(flag, on);
+    }
+
+    /**
+     * Adds or removes a demand flag on both channels.
+     */
+    public void setDemand(int flag, boolean on) {
+        mAccelerometer.setDemand(flag, on);
+        mGyroscope.setDemand(flag, on);
+    }
+
+    /**
+     * Returns the current motion level of the channel, in g.
+     */
+    public float getMotion(SensorType type) {
+        return getControl(type).mMotion;
+    }
+
+    /**
+     * Returns the rate the policy wants for the channel right now, without hysteresis.
+     * Use this as the rate to register a controlled channel with.
+     */
+    public SampleRate getTargetRate(SensorType type) {
+        return getControl(type).getTargetRate();
+    }
+
+    /**
+     * Completes a pending rate change of the channel, or starts a new one if the target
+     * rate differs from the current one. A pending change is completed even when control
+     * is off, so a sensor is never left with two listeners. Must be called on the UI
+     * thread.
+     */
+    public void update(SensorType type, BandSensorManager manager, long nowMs) throws BandException {
+        getControl(type).update(manager, nowMs);
+    }
+
+    /**
+     * Gives up a pending rate change of the channel, keeping its previous rate; see
+     * {@link SensorChannel.Inertial#abortRateChange}.
+     */
+    public void abortRateChange(SensorType type, BandSensorManager manager) throws BandException {
+        getControl(type).mChannel.abortRateChange(manager);
+    }
+
+    private static int getRank(SampleRate rate) {
+        switch (rate) {
+        case MS16:
+            return 2;
+        case MS32:
+            return 1;
+        default:
+            return 0;
+        }
+    }
+
+    private static class Control {
+        private final SensorChannel.Inertial<?, ?> mChannel;
+
+        private volatile boolean mEnabled;
+        private volatile int mDemand;
+
+        // Only used by the sensor thread, except mMotion
+        private long mLastTimestamp;
+        private float mMeanMagnitude;
+        private volatile float mMotion;
+
+        // Only used by the UI thread: when the target first dropped below the current rate
+        private long mLowerSince = -1;
+
+        Control(SensorChannel.Inertial<?, ?> channel) {
+            mChannel = channel;
+        }
+
+        synchronized void setDemand(int flag, boolean on) {
+            mDemand = on ? (mDemand | flag) : (mDemand & ~flag);
+        }
+
+        void addMotion(long timestamp, float x, float y, float z) {
+            float magnitude = (float) Math.sqrt(x * x + y * y + z * z);
+
+            long elapsed = timestamp - mLastTimestamp;
+            mLastTimestamp = timestamp;
+            if (elapsed <= 0 || elapsed > MOTION_TIME_CONSTANT_MS) {
+                // Start over after a gap
+                mMeanMagnitude = magnitude;
+                return;
+            }
+
+            float alpha = elapsed / (MOTION_TIME_CONSTANT_MS + elapsed);
+            mMeanMagnitude += alpha * (magnitude - mMeanMagnitude);
+            mMotion += alpha * (Math.abs(magnitude - mMeanMagnitude) - mMotion);
+        }
+
+        SampleRate getTargetRate() {
+            int demand = mDemand;
+            if ((demand & (DEMAND_RECORDING | DEMAND_HIGH_RATE)) != 0) {
+                return SampleRate.MS16;
+            } else if (demand == 0) {
+                return SampleRate.MS128;
+            }
+
+            float motion = mMotion;
+            if (motion >= STRONG_MOTION) {
+                return SampleRate.MS16;
+            } else if (motion >= MODERATE_MOTION) {
+                return SampleRate.MS32;
+            } else {
+                return SampleRate.MS128;
+            }
+        }
+
+        void update(BandSensorManager manager, long nowMs) throws BandException {
+            if (!mChannel.isRegistered()) {
+                mLowerSince = -1;
+                return;
+            }
+
+            if (mChannel.isChangingRate()) {
+                mChannel.completeRateChange(manager, nowMs);
+                return;
+            }
+
+            if (!mEnabled) {
+                mLowerSince = -1;
+                return;
+            }
+
+            SampleRate current = mChannel.getSampleRate();
+            SampleRate target = getTargetRate();
+            int difference = getRank(target) - getRank(current);
+
+            if (difference > 0) {
+                mLowerSince = -1;
+                mChannel.changeSampleRate(manager, target, nowMs);
+            } else if (difference < 0) {
+                if (mLowerSince < 0) {
+                    mLowerSince = nowMs;
+                } else if (nowMs - mLowerSince >= DOWNGRADE_HOLD_MS) {
+                    mLowerSince = -1;
+                    mChannel.changeSampleRate(manager, target, nowMs);
+                }
+            } else {
+                mLowerSince = -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,801 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.channels;
+
+import java.util.Arrays;
+
+import com.microsoft.band.BandException;
+import com.microsoft.band.sdksample.dsp.FilterChain;
+import com.microsoft.band.sdksample.recording.SessionRecorder;
+import com.microsoft.band.sdksample.sensors.HandoffQueue;
+import com.microsoft.band.sdksample.sensors.SampleStore;
+import com.microsoft.band.sdksample.sensors.SensorRingBuffer;
+import com.microsoft.band.sdksample.sensors.SensorType;
+import com.microsoft.band.sdksample.stats.SensorStatistics;
+import com.microsoft.band.sensors.BandAccelerometerEvent;
+import com.microsoft.band.sensors.BandAccelerometerEventListener;
+import com.microsoft.band.sensors.BandContactEvent;
+import com.microsoft.band.sensors.BandContactEventListener;
+import com.microsoft.band.sensors.BandContactStatus;
+import com.microsoft.band.sensors.BandDistanceEvent;
+import com.microsoft.band.sensors.BandDistanceEventListener;
+import com.microsoft.band.sensors.BandGyroscopeEvent;
+import com.microsoft.band.sensors.BandGyroscopeEventListener;
+import com.microsoft.band.sensors.BandHeartRateEvent;
+import com.microsoft.band.sensors.BandHeartRateEventListener;
+import com.microsoft.band.sensors.BandPedometerEvent;
+import com.microsoft.band.sensors.BandPedometerEventListener;
+import com.microsoft.band.sensors.BandSensorEvent;
+import com.microsoft.band.sensors.BandSensorManager;
+import com.microsoft.band.sensors.BandSkinTemperatureEvent;
+import com.microsoft.band.sensors.BandSkinTemperatureEventListener;
+import com.microsoft.band.sensors.BandUVEvent;
+import com.microsoft.band.sensors.BandUVEventListener;
+import com.microsoft.band.sensors.HeartRateQuality;
+import com.microsoft.band.sensors.SampleRate;
+
+/**
+ * One sensor stream of a Band: the SDK listener that receives its samples, the ring
+ * buffer they are published to, and whatever is derived from them.
+ * <p>
+ * Each concrete channel is the SDK listener of its own sensor (the inertial ones have
+ * two, see {@link Inertial}), so a sample goes straight to the code that handles it.
+ * Handling a sample publishes it to the ring buffer, records it if the registry has a
+ * recorder, updates the statistics and any derived state such as a sample store, hands
+ * it to the channel's consumers and marks the channel dirty in its registry, so the UI
+ * only looks at channels that produced data.
+ * <p>
+ * Once a {@link SensorHandoff} is started for the registry, the listener only queues
+ * the sample, and all of that happens on the channel's processing thread instead; the
+ * "sensor thread" in the rest of this package is whichever thread processes the
+ * channel's samples.
+ *
+ * @param <E> the sensor event type
+ */
+public abstract class SensorChannel<E extends BandSensorEvent> {
+
+    /**
+     * Receives every sample of a channel on the thread that processes it.
+     * Implementations must not block, since that would stall the sensor.
+     */
+    public interface Consumer<E> {
+        void onSample(SensorType type, E event);
+    }
+
+    private static final Consumer<?>[] NO_CONSUMERS = new Consumer<?>[0];
+
+    private final SensorChannelRegistry mRegistry;
+    private final SensorType mType;
+    private final SensorRingBuffer<E> mBuffer;
+    private final SensorMetrics mMetrics = new SensorMetrics();
+
+    // Copied on write, so the sensor thread can iterate without a lock or an iterator
+    private volatile Consumer<?>[] mConsumers = NO_CONSUMERS;
+
+    private volatile SampleRate mSampleRate;
+    private volatile boolean mRegistered;
+
+    // The queue to the processing thread, or null to process samples where they arrive
+    private volatile SensorHandoff.Lane<E> mLane;
+
+    SensorChannel(SensorChannelRegistry registry, SensorType type, int bufferCapacity) {
+        mRegistry = registry;
+        mType = type;
+        mBuffer = new SensorRingBuffer<E>(bufferCapacity);
+    }
+
+    public SensorType getType() {
+        return mType;
+    }
+
+    /**
+     * Returns the buffer every sample of this channel is published to. Consumers that
+     * run at their own pace can follow it with a cursor.
+     */
+    public SensorRingBuffer<E> getBuffer() {
+        return mBuffer;
+    }
+
+    /**
+     * Returns the rate the channel was last registered with. Only the inertial
+     * sensors take a rate; for the others this is whatever was passed to
+     * {@link #register}.
+     */
+    public SampleRate getSampleRate() {
+        return mSampleRate;
+    }
+
+    void setSampleRate(SampleRate rate) {
+        mSampleRate = rate;
+    }
+
+    public boolean isRegistered() {
+        return mRegistered;
+    }
+
+    /**
+     * Returns the delivery metrics of the channel, which the UI tells when it has
+     * shown the channel's data.
+     */
+    public SensorMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Returns the number of samples dropped because they were delivered twice.
+     */
+    public long getDuplicateCount() {
+        return 0;
+    }
+
+    /**
+     * Reads the delivery metrics together with the duplicate and handoff queue counts.
+     * Can be called from any thread.
+     */
+    public void getMetricsSnapshot(SensorMetrics.Snapshot snapshot) {
+        mMetrics.getSnapshot(snapshot, System.nanoTime());
+        snapshot.mType = mType;
+        snapshot.mSampleRate = (this instanceof Inertial) ? mSampleRate : null;
+        snapshot.mDuplicateCount = getDuplicateCount();
+
+        SensorHandoff.Lane<E> lane = mLane;
+        if (lane != null) {
+            HandoffQueue<E> queue = lane.getQueue();
+            snapshot.mQueueDepth = queue.getDepth();
+            snapshot.mQueueMaxDepth = queue.getMaxDepth();
+            snapshot.mQueueDroppedCount = queue.getDroppedCount();
+        } else {
+            snapshot.mQueueDepth = 0;
+            snapshot.mQueueMaxDepth = 0;
+            snapshot.mQueueDroppedCount = 0;
+        }
+    }
+
+    void setLane(SensorHandoff.Lane<E> lane) {
+        mLane = lane;
+    }
+
+    public synchronized void addConsumer(Consumer<? super E> consumer) {
+        Consumer<?>[] consumers = Arrays.copyOf(mConsumers, mConsumers.length + 1);
+        consumers[consumers.length - 1] = consumer;
+        mConsumers = consumers;
+    }
+
+    public synchronized void removeConsumer(Consumer<? super E> consumer) {
+        Consumer<?>[] consumers = mConsumers;
+        for (int i = 0; i < consumers.length; i++) {
+            if (consumers[i] == consumer) {
+                Consumer<?>[] remaining = new Consumer<?>[consumers.length - 1];
+                System.arraycopy(consumers, 0, remaining, 0, i);
+                System.arraycopy(consumers, i + 1, remaining, i, remaining.length - i);
+                mConsumers = remaining;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Starts the sensor. The statistics and metrics of the sensor are cleared first, so
+     * they only cover this registration.
+     */
+    public void register(BandSensorManager manager, SampleRate rate) throws BandException {
+        mRegistry.getStatistics().get(mType).clear();
+        mMetrics.clear();
+        setSampleRate(rate);
+        onRegister(manager, rate);
+        mRegistered = true;
+    }
+
+    public void unregister(BandSensorManager manager) throws BandException {
+        mRegistered = false;
+        onUnregister(manager);
+    }
+
+    protected abstract void onRegister(BandSensorManager manager, SampleRate rate) throws BandException;
+
+    protected abstract void onUnregister(BandSensorManager manager) throws BandException;
+
+    /**
+     * Copies the sample into the recording.
+     */
+    protected abstract void record(SessionRecorder recorder, E event);
+
+    /**
+     * Updates the statistics and any derived state with the sample.
+     *
+     * @return true if the sample changed something the UI shows
+     */
+    protected abstract boolean update(SensorStatistics statistics, E event);
+
+    /**
+     * Handles a sample delivered by the SDK. Called by the concrete listener methods.
+     */
+    protected final void handle(E event) {
+        long now = System.nanoTime();
+        mMetrics.onDelivered(now);
+
+        SensorHandoff.Lane<E> lane = mLane;
+        if (lane != null) {
+            lane.post(event, now);
+        } else {
+            process(event, now);
+        }
+    }
+
+    /**
+     * Does everything the channel does with a sample, on the SDK thread or the
+     * processing thread of the channel.
+     *
+     * @param deliveryNanos when the SDK delivered the sample
+     */
+    @SuppressWarnings("unchecked")
+    final void process(E event, long deliveryNanos) {
+        mBuffer.publish(event);
+
+        SessionRecorder recorder = mRegistry.getRecorder();
+        if (recorder != null) {
+            record(recorder, event);
+        }
+
+        boolean changed = update(mRegistry.getStatistics(), event);
+
+        Consumer<?>[] consumers = mConsumers;
+        for (int i = 0; i < consumers.length; i++) {
+            ((Consumer<E>) consumers[i]).onSample(mType, event);
+        }
+
+        if (changed) {
+            mMetrics.onChanged(deliveryNanos);
+            mRegistry.markDirty(mType);
+        }
+    }
+
+    //
+    // The channels of the Band sensors
+    //
+
+    /**
+     * A sensor that takes a sample rate, which can be changed while the sensor runs.
+     * <p>
+     * Changing the rate registers a second SDK listener with the new rate before the
+     * first one is unregistered, so the stream goes on without a gap. While both are
+     * registered the same sample may arrive twice, or samples at both rates may
+     * interleave, so a sample that is not newer than the last one handled is dropped.
+     * The handover completes in {@link #completeRateChange} once the new listener has
+     * delivered a sample, or after {@link #HANDOVER_TIMEOUT_MS} if it doesn't.
+     * <p>
+     * Like the rest of the channel, this expects the SDK to deliver the samples of
+     * both listeners on the same thread.
+     *
+     * @param <L> the SDK listener type
+     */
+    public abstract static class Inertial<E extends BandSensorEvent, L> extends SensorChannel<E> {
+
+        public static final long HANDOVER_TIMEOUT_MS = 2000;
+
+        private final Object[] mListeners = new Object[2];
+
+        // Only used by the UI thread
+        private int mActiveListener;
+        private long mPendingSince;
+        private SampleRate mPreviousRate;
+
+        // The listener being switched to, or -1. Read by the SDK thread.
+        private volatile int mPendingListener = -1;
+        private volatile boolean mPendingDelivered;
+
+        // The timestamp of the newest handled sample. Only written by the SDK thread
+        // while the channel is registered.
+        private volatile long mLastTimestamp;
+        private volatile long mDuplicateCount;
+
+        Inertial(SensorChannelRegistry registry, SensorType type, int bufferCapacity) {
+            super(registry, type, bufferCapacity);
+            mListeners[0] = newListener(0);
+            mListeners[1] = newListener(1);
+        }
+
+        /**
+         * Returns an SDK listener that passes its samples to {@link #deliver} with the
+         * given index.
+         */
+        protected abstract L newListener(int index);
+
+        protected abstract void registerListener(BandSensorManager manager, L listener, SampleRate rate) throws BandException;
+
+        protected abstract void unregisterListener(BandSensorManager manager, L listener) throws BandException;
+
+        @SuppressWarnings("unchecked")
+        private L getListener(int index) {
+            return (L) mListeners[index];
+        }
+
+        /**
+         * Returns the number of samples dropped because both listeners delivered them.
+         */
+        @Override
+        public long getDuplicateCount() {
+            return mDuplicateCount;
+        }
+
+        public boolean isChangingRate() {
+            return mPendingListener >= 0;
+        }
+
+        /**
+         * Starts changing the rate of the running sensor. Must be called on the UI
+         * thread. Does nothing if the sensor isn't registered, already runs at the
+         * rate, or a previous change hasn't completed yet.
+         *
+         * @return true if a change was started
+         */
+        public boolean changeSampleRate(BandSensorManager manager, SampleRate rate, long nowMs) throws BandException {
+            if (!isRegistered() || rate == getSampleRate() || mPendingListener >= 0) {
+                return false;
+            }
+
+            int next = 1 - mActiveListener;
+            mPendingDelivered = false;
+            mPendingSince = nowMs;
+            mPendingListener = next;
+            try {
+                registerListener(manager, getListener(next), rate);
+            } catch (BandException ex) {
+                mPendingListener = -1;
+                throw ex;
+            }
+
+            mPreviousRate = getSampleRate();
+            setSampleRate(rate);
+            return true;
+        }
+
+        /**
+         * Gives up a rate change under way: the new listener is unregistered and the
+         * sensor stays at its previous rate. Must be called on the UI thread. If the
+         * listener can't be unregistered, the change stays pending, so it is still
+         * unregistered when the sensor is.
+         *
+         * @return true if a change was aborted
+         */
+        public boolean abortRateChange(BandSensorManager manager) throws BandException {
+            int pending = mPendingListener;
+            if (pending < 0) {
+                return false;
+            }
+
+            unregisterListener(manager, getListener(pending));
+            mPendingListener = -1;
+            setSampleRate(mPreviousRate);
+            return true;
+        }
+
+        /**
+         * Unregisters the old listener of a rate change once the new one has taken over.
+         * Must be called on the UI thread, periodically while a change is under way.
+         *
+         * @return true if a change was completed
+         */
+        public boolean completeRateChange(BandSensorManager manager, long nowMs) throws BandException {
+            int pending = mPendingListener;
+            if (pending < 0 || (!mPendingDelivered && nowMs - mPendingSince < HANDOVER_TIMEOUT_MS)) {
+                return false;
+            }
+
+            int old = mActiveListener;
+            mActiveListener = pending;
+            mPendingListener = -1;
+            unregisterListener(manager, getListener(old));
+            return true;
+        }
+
+        @Override
+        protected void onRegister(BandSensorManager manager, SampleRate rate) throws BandException {
+            mLastTimestamp = Long.MIN_VALUE;
+            mPendingListener = -1;
+            registerListener(manager, getListener(mActiveListener), rate);
+        }
+
+        @Override
+        protected void onUnregister(BandSensorManager manager) throws BandException {
+            int pending = mPendingListener;
+            mPendingListener = -1;
+            if (pending >= 0) {
+                unregisterListener(manager, getListener(pending));
+            }
+
+            unregisterListener(manager, getListener(mActiveListener));
+        }
+
+        /**
+         * Handles a sample delivered to the listener with the given index.
+         */
+        protected final void deliver(int index, E event) {
+            // The new listener has taken over even if its first samples are duplicates
+            if (index == mPendingListener && !mPendingDelivered) {
+                mPendingDelivered = true;
+            }
+
+            long timestamp = event.getTimestamp();
+            if (timestamp <= mLastTimestamp) {
+                mDuplicateCount++;
+                return;
+            }
+
+            mLastTimestamp = timestamp;
+            handle(event);
+        }
+    }
+
+    /**
+     * The accelerometer. Samples are filtered, and the ones that survive decimation
+     * are copied into a sample store; only those mark the channel dirty.
+     */
+    public static class Accelerometer extends Inertial<BandAccelerometerEvent, BandAccelerometerEventListener> {
+
+        private final FilterChain mFilter;
+        private final SampleStore mStore;
+
+        // Only used by the sensor thread
+        private final float[] mValues = new float[SampleStore.ACCELEROMETER_COLUMNS];
+
+        Accelerometer(SensorChannelRegistry registry, int bufferCapacity, FilterChain.Builder filter, long storeSamples) {
+            super(registry, SensorType.ACCELEROMETER, bufferCapacity);
+            mFilter = filter.build(SampleStore.ACCELEROMETER_COLUMNS);
+            mStore = SampleStore.forAccelerometer(storeSamples);
+        }
+
+        public SampleStore getStore() {
+            return mStore;
+        }
+
+        @Override
+        protected BandAccelerometerEventListener newListener(final int index) {
+            return new BandAccelerometerEventListener() {
+                @Override
+                public void onBandAccelerometerChanged(BandAccelerometerEvent event) {
+                    deliver(index, event);
+                }
+            };
+        }
+
+        @Override
+        protected void registerListener(BandSensorManager manager, BandAccelerometerEventListener listener,
+                SampleRate rate) throws BandException {
+            manager.registerAccelerometerEventListener(listener, rate);
+        }
+
+        @Override
+        protected void unregisterListener(BandSensorManager manager, BandAccelerometerEventListener listener)
+                throws BandException {
+            manager.unregisterAccelerometerEventListener(listener);
+        }
+
+        @Override
+        protected void record(SessionRecorder recorder, BandAccelerometerEvent event) {
+            recorder.recordAccelerometer(event.getTimestamp(),
+                    event.getAccelerationX(), event.getAccelerationY(), event.getAccelerationZ());
+        }
+
+        @Override
+        protected boolean update(SensorStatistics statistics, BandAccelerometerEvent event) {
+            statistics.addAccelerometer(event.getTimestamp(),
+                    event.getAccelerationX(), event.getAccelerationY(), event.getAccelerationZ());
+
+            float[] values = mValues;
+            values[0] = event.getAccelerationX();
+            values[1] = event.getAccelerationY();
+            values[2] = event.getAccelerationZ();
+            if (!mFilter.process(event.getTimestamp(), values)) {
+                return false;
+            }
+
+            mStore.append(event.getTimestamp(), values[0], values[1], values[2]);
+            return true;
+        }
+    }
+
+    /**
+     * The gyroscope, which also reports acceleration. Filtered and stored like the
+     * accelerometer.
+     */
+    public static class Gyroscope extends Inertial<BandGyroscopeEvent, BandGyroscopeEventListener> {
+
+        private final FilterChain mFilter;
+        private final SampleStore mStore;
+
+        // Only used by the sensor thread
+        private final float[] mValues = new float[SampleStore.GYROSCOPE_COLUMNS];
+
+        Gyroscope(SensorChannelRegistry registry, int bufferCapacity, FilterChain.Builder filter, long storeSamples) {
+            super(registry, SensorType.GYROSCOPE, bufferCapacity);
+            mFilter = filter.build(SampleStore.GYROSCOPE_COLUMNS);
+            mStore = SampleStore.forGyroscope(storeSamples);
+        }
+
+        public SampleStore getStore() {
+            return mStore;
+        }
+
+        @Override
+        protected BandGyroscopeEventListener newListener(final int index) {
+            return new BandGyroscopeEventListener() {
+                @Override
+                public void onBandGyroscopeChanged(BandGyroscopeEvent event) {
+                    deliver(index, event);
+                }
+            };
+        }
+
+        @Override
+        protected void registerListener(BandSensorManager manager, BandGyroscopeEventListener listener,
+                SampleRate rate) throws BandException {
+            manager.registerGyroscopeEventListener(listener, rate);
+        }
+
+        @Override
+        protected void unregisterListener(BandSensorManager manager, BandGyroscopeEventListener listener)
+                throws BandException {
+            manager.unregisterGyroscopeEventListener(listener);
+        }
+
+        @Override
+        protected void record(SessionRecorder recorder, BandGyroscopeEvent event) {
+            recorder.recordGyroscope(event.getTimestamp(),
+                    event.getAccelerationX(), event.getAccelerationY(), event.getAccelerationZ(),
+                    event.getAngularVelocityX(), event.getAngularVelocityY(), event.getAngularVelocityZ());
+        }
+
+        @Override
+        protected boolean update(SensorStatistics statistics, BandGyroscopeEvent event) {
+            statistics.addGyroscope(event.getTimestamp(),
+                    event.getAngularVelocityX(), event.getAngularVelocityY(), event.getAngularVelocityZ());
+
+            float[] values = mValues;
+            values[0] = event.getAccelerationX();
+            values[1] = event.getAccelerationY();
+            values[2] = event.getAccelerationZ();
+            values[3] = event.getAngularVelocityX();
+            values[4] = event.getAngularVelocityY();
+            values[5] = event.getAngularVelocityZ();
+            if (!mFilter.process(event.getTimestamp(), values)) {
+                return false;
+            }
+
+            mStore.append(event.getTimestamp(), values[0], values[1], values[2], values[3], values[4], values[5]);
+            return true;
+        }
+    }
+
+    public static class Distance extends SensorChannel<BandDistanceEvent>
+            implements BandDistanceEventListener {
+
+        Distance(SensorChannelRegistry registry, int bufferCapacity) {
+            super(registry, SensorType.DISTANCE, bufferCapacity);
+        }
+
+        @Override
+        public void onBandDistanceChanged(BandDistanceEvent event) {
+            handle(event);
+        }
+
+        @Override
+        protected void onRegister(BandSensorManager manager, SampleRate rate) throws BandException {
+            manager.registerDistanceEventListener(this);
+        }
+
+        @Override
+        protected void onUnregister(BandSensorManager manager) throws BandException {
+            manager.unregisterDistanceEventListener(this);
+        }
+
+        @Override
+        protected void record(SessionRecorder recorder, BandDistanceEvent event) {
+            recorder.recordDistance(event.getTimestamp(), event.getTotalDistance(),
+                    event.getSpeed(), event.getPace(), event.getPedometerMode().ordinal());
+        }
+
+        @Override
+        protected boolean update(SensorStatistics statistics, BandDistanceEvent event) {
+            statistics.addDistance(event.getTimestamp(), event.getSpeed());
+            return true;
+        }
+    }
+
+    /**
+     * The heart rate. Readings are also copied into a sample store, for charting.
+     */
+    public static class HeartRate extends SensorChannel<BandHeartRateEvent>
+            implements BandHeartRateEventListener {
+
+        private final SampleStore mStore;
+
+        HeartRate(SensorChannelRegistry registry, int bufferCapacity, long storeSamples) {
+            super(registry, SensorType.HEART_RATE, bufferCapacity);
+            mStore = SampleStore.forSingleValue(storeSamples);
+        }
+
+        public SampleStore getStore() {
+            return mStore;
+        }
+
+        @Override
+        public void onBandHeartRateChanged(BandHeartRateEvent event) {
+            handle(event);
+        }
+
+        @Override
+        protected void onRegister(BandSensorManager manager, SampleRate rate) throws BandException {
+            manager.registerHeartRateEventListener(this);
+        }
+
+        @Override
+        protected void onUnregister(BandSensorManager manager) throws BandException {
+            manager.unregisterHeartRateEventListener(this);
+        }
+
+        @Override
+        protected void record(SessionRecorder recorder, BandHeartRateEvent event) {
+            recorder.recordHeartRate(event.getTimestamp(), event.getHeartRate(), event.getQuality().ordinal());
+        }
+
+        @Override
+        protected boolean update(SensorStatistics statistics, BandHeartRateEvent event) {
+            mStore.append(event.getTimestamp(), event.getHeartRate());
+            statistics.addHeartRate(event.getTimestamp(), event.getHeartRate(),
+                    event.getQuality() == HeartRateQuality.LOCKED);
+            return true;
+        }
+    }
+
+    public static class Contact extends SensorChannel<BandContactEvent>
+            implements BandContactEventListener {
+
+        Contact(SensorChannelRegistry registry, int bufferCapacity) {
+            super(registry, SensorType.CONTACT, bufferCapacity);
+        }
+
+        @Override
+        public void onBandContactChanged(BandContactEvent event) {
+            handle(event);
+        }
+
+        @Override
+        protected void onRegister(BandSensorManager manager, SampleRate rate) throws BandException {
+            manager.registerContactEventListener(this);
+        }
+
+        @Override
+        protected void onUnregister(BandSensorManager manager) throws BandException {
+            manager.unregisterContactEventListener(this);
+        }
+
+        @Override
+        protected void record(SessionRecorder recorder, BandContactEvent event) {
+            recorder.recordContact(event.getTimestamp(), event.getContactStatus().ordinal());
+        }
+
+        @Override
+        protected boolean update(SensorStatistics statistics, BandContactEvent event) {
+            statistics.addContact(event.getTimestamp(), event.getContactStatus() == BandContactStatus.WORN);
+            return true;
+        }
+    }
+
+    public static class SkinTemperature extends SensorChannel<BandSkinTemperatureEvent>
+            implements BandSkinTemperatureEventListener {
+
+        SkinTemperature(SensorChannelRegistry registry, int bufferCapacity) {
+            super(registry, SensorType.SKIN_TEMPERATURE, bufferCapacity);
+        }
+
+        @Override
+        public void onBandSkinTemperatureChanged(BandSkinTemperatureEvent event) {
+            handle(event);
+        }
+
+        @Override
+        protected void onRegister(BandSensorManager manager, SampleRate rate) throws BandException {
+            manager.registerSkinTemperatureEventListener(this);
+        }
+
+        @Override
+        protected void onUnregister(BandSensorManager manager) throws BandException {
+            manager.unregisterSkinTemperatureEventListener(this);
+        }
+
+        @Override
+        protected void record(SessionRecorder recorder, BandSkinTemperatureEvent event) {
+            recorder.recordSkinTemperature(event.getTimestamp(), event.getTemperature());
+        }
+
+        @Override
+        protected boolean update(SensorStatistics statistics, BandSkinTemperatureEvent event) {
+            statistics.addSkinTemperature(event.getTimestamp(), event.getTemperature());
+            return true;
+        }
+    }
+
+    public static class Ultraviolet extends SensorChannel<BandUVEvent>
+            implements BandUVEventListener {
+
+        Ultraviolet(SensorChannelRegistry registry, int bufferCapacity) {
+            super(registry, SensorType.ULTRAVIOLET, bufferCapacity);
+        }
+
+        @Override
+        public void onBandUVChanged(BandUVEvent event) {
+            handle(event);
+        }
+
+        @Override
+        protected void onRegister(BandSensorManager manager, SampleRate rate) throws BandException {
+            manager.registerUVEventListener(this);
+        }
+
+        @Override
+        protected void onUnregister(BandSensorManager manager) throws BandException {
+            manager.unregisterUVEventListener(this);
+        }
+
+        @Override
+        protected void record(SessionRecorder recorder, BandUVEvent event) {
+            recorder.recordUV(event.getTimestamp(), event.getUVIndexLevel().ordinal());
+        }
+
+        @Override
+        protected boolean update(SensorStatistics statistics, BandUVEvent event) {
+            statistics.addUV(event.getTimestamp(), event.getUVIndexLevel().ordinal());
+            return true;
+        }
+    }
+
+    public static class Pedometer extends SensorChannel<BandPedometerEvent>
+            implements BandPedometerEventListener {
+
+        Pedometer(SensorChannelRegistry registry, int bufferCapacity) {
+            super(registry, SensorType.PEDOMETER, bufferCapacity);
+        }
+
+        @Override
+        public void onBandPedometerChanged(BandPedometerEvent event) {
+            handle(event);
+        }
+
+        @Override
+        protected void onRegister(BandSensorManager manager, SampleRate rate) throws BandException {
+            manager.registerPedometerEventListener(this);
+        }
+
+        @Override
+        protected void onUnregister(BandSensorManager manager) throws BandException {
+            manager.unregisterPedometerEventListener(this);
+        }
+
+        @Override
+        protected void record(SessionRecorder recorder, BandPedometerEvent event) {
+            recorder.recordPedometer(event.getTimestamp(), event.getTotalSteps());
+        }
+
+        @Override
+        protected boolean update(SensorStatistics statistics, BandPedometerEvent event) {
+            statistics.addPedometer(event.getTimestamp(), event.getTotalSteps());
+            return true;
+        }
+    }
+}
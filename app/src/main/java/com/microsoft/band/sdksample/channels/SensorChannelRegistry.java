@@ -0,0 +1,210 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.channels;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.microsoft.band.sdksample.dsp.FilterChain;
+import com.microsoft.band.sdksample.recording.SessionRecorder;
+import com.microsoft.band.sdksample.sensors.SensorType;
+import com.microsoft.band.sdksample.stats.SensorStatistics;
+
+/**
+ * The channels of every sensor of one Band, indexed by {@link SensorType}, together
+ * with what they share: the statistics, the current recorder and a dirty mask. Every
+ * Band has its own registry, named after it, so the samples of different Bands never
+ * meet in the same buffers or locks.
+ * <p>
+ * Every channel that handles a sample the UI should show sets its bit in the dirty
+ * mask, one bit per sensor type ordinal, and notifies the {@link Callback}. The UI
+ * takes the whole mask at once with {@link #takeDirty()} and only updates the
+ * channels whose bits are set, so its work per frame depends on the sensors that
+ * actually produced data rather than on the number of sensors.
+ */
+public class SensorChannelRegistry {
+
+    public interface Callback {
+        /**
+         * Called on the sensor thread after a channel has been marked dirty. Must not
+         * block; typically this just requests a UI update.
+         */
+        void onChannelDirty(SensorType type);
+    }
+
+    //
+    // The inertial sensors can deliver 62.5 samples per second, so their buffers have
+    // room for several seconds of backlog; the other sensors report a few times per
+    // second at most. The stores hold the last two hours at the fastest rate.
+    //
+    public static final int INERTIAL_BUFFER_CAPACITY = 512;
+    public static final int LOW_RATE_BUFFER_CAPACITY = 32;
+    public static final long INERTIAL_STORE_SAMPLES = 2 * 60 * 60 * 1000 / 16;
+    public static final long HEART_RATE_STORE_SAMPLES = 2 * 60 * 60;
+
+    private final String mBandName;
+    private final SensorChannel<?>[] mChannels = new SensorChannel<?>[SensorType.values().length];
+
+    private final SensorChannel.Accelerometer mAccelerometer;
+    private final SensorChannel.Gyroscope mGyroscope;
+    private final SensorChannel.Distance mDistance;
+    private final SensorChannel.HeartRate mHeartRate;
+    private final SensorChannel.Contact mContact;
+    private final SensorChannel.SkinTemperature mSkinTemperature;
+    private final SensorChannel.Ultraviolet mUltraviolet;
+    private final SensorChannel.Pedometer mPedometer;
+
+    private final SensorStatistics mStatistics = new SensorStatistics();
+    private final AtomicInteger mDirty = new AtomicInteger();
+
+    private volatile SessionRecorder mRecorder;
+    private volatile Callback mCallback;
+
+    /**
+     * @param bandName       the name of the Band whose samples the channels carry
+     * @param inertialFilter the filter chain the accelerometer and gyroscope samples go
+     *                       through before they are stored
+     */
+    public SensorChannelRegistry(String bandName, FilterChain.Builder inertialFilter) {
+        mBandName = bandName;
+        mAccelerometer = add(new SensorChannel.Accelerometer(this, INERTIAL_BUFFER_CAPACITY, inertialFilter, INERTIAL_STORE_SAMPLES));
+        mGyroscope = add(new SensorChannel.Gyroscope(this, INERTIAL_BUFFER_CAPACITY, inertialFilter, INERTIAL_STORE_SAMPLES));
+        mDistance = add(new SensorChannel.Distance(this, LOW_RATE_BUFFER_CAPACITY));
+        mHeartRate = add(new SensorChannel.HeartRate(this, LOW_RATE_BUFFER_CAPACITY, HEART_RATE_STORE_SAMPLES));
+        mContact = add(new SensorChannel.Contact(this, LOW_RATE_BUFFER_CAPACITY));
+        mSkinTemperature = add(new SensorChannel.SkinTemperature(this, LOW_RATE_BUFFER_CAPACITY));
+        mUltraviolet = add(new SensorChannel.Ultraviolet(this, LOW_RATE_BUFFER_CAPACITY));
+        mPedometer = add(new SensorChannel.Pedometer(this, LOW_RATE_BUFFER_CAPACITY));
+    }
+
+    private <C extends SensorChannel<?>> C add(C channel) {
+        mChannels[channel.getType().ordinal()] = channel;
+        return channel;
+    }
+
+    /**
+     * Returns the name of the Band, which tags everything that comes out of these
+     * channels.
+     */
+    public String getBandName() {
+        return mBandName;
+    }
+
+    public SensorChannel<?> get(SensorType type) {
+        return mChannels[type.ordinal()];
+    }
+
+    public SensorChannel.Accelerometer getAccelerometer() {
+        return mAccelerometer;
+    }
+
+    public SensorChannel.Gyroscope getGyroscope() {
+        return mGyroscope;
+    }
+
+    public SensorChannel.Distance getDistance() {
+        return mDistance;
+    }
+
+    public SensorChannel.HeartRate getHeartRate() {
+        return mHeartRate;
+    }
+
+    public SensorChannel.Contact getContact() {
+        return mContact;
+    }
+
+    public SensorChannel.SkinTemperature getSkinTemperature() {
+        return mSkinTemperature;
+    }
+
+    public SensorChannel.Ultraviolet getUltraviolet() {
+        return mUltraviolet;
+    }
+
+    public SensorChannel.Pedometer getPedometer() {
+        return mPedometer;
+    }
+
+    public SensorStatistics getStatistics() {
+        return mStatistics;
+    }
+
+    /**
+     * Appends the delivery metrics of every channel that delivered samples since it was
+     * registered as CSV, headed by {@link SensorMetrics.Snapshot#CSV_HEADER}.
+     */
+    public void appendMetricsCsv(StringBuilder builder) {
+        builder.append(SensorMetrics.Snapshot.CSV_HEADER).append('\n');
+        SensorMetrics.Snapshot snapshot = new SensorMetrics.Snapshot();
+        for (SensorChannel<?> channel : mChannels) {
+            channel.getMetricsSnapshot(snapshot);
+            if (snapshot.getDeliveredCount() > 0) {
+                snapshot.appendCsv(builder);
+            }
+        }
+    }
+
+    /**
+     * Sets the recorder every channel copies its raw samples into, or null to stop
+     * recording.
+     */
+    public void setRecorder(SessionRecorder recorder) {
+        mRecorder = recorder;
+    }
+
+    public SessionRecorder getRecorder() {
+        return mRecorder;
+    }
+
+    public void setCallback(Callback callback) {
+        mCallback = callback;
+    }
+
+    /**
+     * Returns the bit of the given sensor type in the dirty mask.
+     */
+    public static int dirtyBit(SensorType type) {
+        return 1 << type.ordinal();
+    }
+
+    /**
+     * Returns the channels marked dirty since the previous call, as a mask of
+     * {@link #dirtyBit} values, and clears them. Can be called from any thread.
+     */
+    public int takeDirty() {
+        return mDirty.getAndSet(0);
+    }
+
+    void markDirty(SensorType type) {
+        int bit = dirtyBit(type);
+
+        // At high rates the bit is usually still set from the previous sample, in which
+        // case reading the mask is all it costs.
+        for (;;) {
+            int dirty = mDirty.get();
+            if ((dirty & bit) != 0 || mDirty.compareAndSet(dirty, dirty | bit)) {
+                break;
+            }
+        }
+
+        Callback callback = mCallback;
+        if (callback != null) {
+            callback.onChannelDirty(type);
+        }
+    }
+}
@@ -0,0 +1,342 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.channels;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.microsoft.band.sdksample.sensors.HandoffQueue;
+import com.microsoft.band.sdksample.sensors.HandoffQueue.OverflowPolicy;
+import com.microsoft.band.sdksample.sensors.SensorType;
+import com.microsoft.band.sensors.BandSensorEvent;
+
+/**
+ * Moves the processing of a registry's samples off the threads the Band SDK delivers
+ * them on.
+ * <p>
+ * Every channel gets a {@link HandoffQueue}, and the SDK listener does nothing but
+ * offer the sample to it. A small set of processing threads drains the queues and
+ * runs everything a channel does with a sample: the ring buffer, the recording, the
+ * statistics and filters, the consumers and the dirty mask. However slow that work
+ * gets, the SDK keeps delivering; what happens when a queue fills up is up to its
+ * {@link OverflowPolicy}.
+ * <p>
+ * Each channel is always processed by the same thread, which keeps its samples in
+ * order and keeps its ring buffer to a single producer. The accelerometer and the
+ * gyroscope get a thread each, and the low-rate sensors share one; with fewer threads
+ * the assignments wrap around. Threads with nothing to do sleep until a sample for
+ * them is queued, so idle sensors cost nothing.
+ */
+public class SensorHandoff {
+
+    public static final int DEFAULT_THREAD_COUNT = 3;
+
+    // The inertial queues hold as many samples as their ring buffers, several seconds
+    // at the fastest rate; a low-rate sensor produces far less than its queue in that
+    // time, so blocking on it should never happen in practice.
+    public static final OverflowPolicy INERTIAL_POLICY = OverflowPolicy.DROP_OLDEST;
+    public static final OverflowPolicy LOW_RATE_POLICY = OverflowPolicy.BLOCK;
+
+    // How many samples a thread takes from one queue before it turns to the next
+    private static final int MAX_BATCH = 64;
+
+    private final SensorChannelRegistry mRegistry;
+    private final Lane<?>[] mLanes = new Lane<?>[SensorType.values().length];
+    private final Worker[] mWorkers;
+
+    private volatile boolean mStarted;
+    private final AtomicLong mErrorCount = new AtomicLong();
+    private volatile RuntimeException mLastError;
+
+    /**
+     * Creates the queues of every channel of the registry with the default policies.
+     * Samples keep being processed on the SDK threads until {@link #start()}.
+     */
+    public SensorHandoff(SensorChannelRegistry registry, int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        }
+
+        mRegistry = registry;
+        mWorkers = new Worker[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            mWorkers[i] = new Worker(registry.getBandName() + "-sensors-" + i);
+        }
+
+        for (SensorType type : SensorType.values()) {
+            setOverflowPolicy(type, isInertial(type) ? INERTIAL_POLICY : LOW_RATE_POLICY);
+        }
+    }
+
+    private static boolean isInertial(SensorType type) {
+        return type == SensorType.ACCELEROMETER || type == SensorType.GYROSCOPE;
+    }
+
+    private int getThreadIndex(SensorType type) {
+        switch (type) {
+        case ACCELEROMETER:
+            return 0;
+        case GYROSCOPE:
+            return 1 % mWorkers.length;
+        default:
+            return 2 % mWorkers.length;
+        }
+    }
+
+    /**
+     * Replaces the queue of a sensor with an empty one with the given policy. Must be
+     * called before {@link #start()}.
+     */
+    public void setOverflowPolicy(SensorType type, OverflowPolicy policy) {
+        if (mStarted) {
+            throw new IllegalStateException("The handoff has already started");
+        }
+
+        SensorChannel<?> channel = mRegistry.get(type);
+        mLanes[type.ordinal()] = newLane(channel, channel.getBuffer().getCapacity(), policy);
+    }
+
+    private <E extends BandSensorEvent> Lane<E> newLane(SensorChannel<E> channel, int capacity, OverflowPolicy policy) {
+        return new Lane<E>(channel, new HandoffQueue<E>(capacity, policy), mWorkers[getThreadIndex(channel.getType())]);
+    }
+
+    /**
+     * Returns the queue of a sensor, for its depth and drop metrics.
+     */
+    public HandoffQueue<?> getQueue(SensorType type) {
+        return mLanes[type.ordinal()].mQueue;
+    }
+
+    public int getThreadCount() {
+        return mWorkers.length;
+    }
+
+    /**
+     * Returns the number of samples whose processing threw an exception. The
+     * processing thread goes on with the next sample.
+     */
+    public long getErrorCount() {
+        return mErrorCount.get();
+    }
+
+    public RuntimeException getLastError() {
+        return mLastError;
+    }
+
+    /**
+     * Starts the processing threads and routes every channel's samples through its
+     * queue.
+     */
+    public synchronized void start() {
+        if (mStarted) {
+            return;
+        }
+        mStarted = true;
+
+        for (Lane<?> lane : mLanes) {
+            lane.mWorker.mLanes.add(lane);
+        }
+        for (Worker worker : mWorkers) {
+            worker.start();
+        }
+        for (Lane<?> lane : mLanes) {
+            lane.attach();
+        }
+    }
+
+    /**
+     * Closes the queues and tells the processing threads to finish what is queued and
+     * end, without waiting for them; see {@link #awaitStop(long)}. Samples delivered
+     * from then on are dropped, so the sensors should be stopped first.
+     */
+    public synchronized void stop() {
+        if (!mStarted) {
+            return;
+        }
+
+        for (Lane<?> lane : mLanes) {
+            lane.mQueue.close();
+        }
+        for (Worker worker : mWorkers) {
+            worker.finish();
+        }
+    }
+
+    /**
+     * Waits up to the given time for the processing threads to end after
+     * {@link #stop()}. A thread working off a long backlog goes on after a timeout.
+     *
+     * @return true if every thread has ended
+     */
+    public boolean awaitStop(long timeoutMillis) {
+        long deadline = System.nanoTime() + timeoutMillis * 1000 * 1000;
+        boolean interrupted = false;
+        boolean stopped = true;
+        for (Worker worker : mWorkers) {
+            for (;;) {
+                long remaining = deadline - System.nanoTime();
+                try {
+                    if (remaining > 0) {
+                        worker.mThread.join(remaining / (1000 * 1000), (int) (remaining % (1000 * 1000)));
+                    }
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            stopped &= !worker.mThread.isAlive();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return stopped;
+    }
+
+    private void onError(RuntimeException ex) {
+        mErrorCount.incrementAndGet();
+        mLastError = ex;
+    }
+
+    /**
+     * The queue of one channel and the thread that processes it.
+     */
+    static final class Lane<E extends BandSensorEvent> {
+
+        private final SensorChannel<E> mChannel;
+        private final HandoffQueue<E> mQueue;
+        private final Worker mWorker;
+
+        // Receives the delivery time of a polled sample. Only used by the worker.
+        private final long[] mDeliveryNanos = new long[1];
+
+        Lane(SensorChannel<E> channel, HandoffQueue<E> queue, Worker worker) {
+            mChannel = channel;
+            mQueue = queue;
+            mWorker = worker;
+        }
+
+        HandoffQueue<E> getQueue() {
+            return mQueue;
+        }
+
+        void attach() {
+            mChannel.setLane(this);
+        }
+
+        /**
+         * Queues a sample and wakes its thread. Called on the SDK thread.
+         */
+        void post(E event, long deliveryNanos) {
+            if (mQueue.offer(event, deliveryNanos)) {
+                mWorker.wake();
+            }
+        }
+
+        /**
+         * Processes up to the given number of queued samples.
+         *
+         * @return the number of samples taken from the queue
+         */
+        int drain(SensorHandoff handoff, int max) {
+            SensorMetrics metrics = mChannel.getMetrics();
+            long[] deliveryNanos = mDeliveryNanos;
+            int count = 0;
+            E event;
+            while (count < max && (event = mQueue.poll(deliveryNanos)) != null) {
+                count++;
+                metrics.onHandoff(System.nanoTime() - deliveryNanos[0]);
+                try {
+                    mChannel.process(event, deliveryNanos[0]);
+                } catch (RuntimeException ex) {
+                    handoff.onError(ex);
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * A processing thread and the lanes it drains.
+     */
+    private final class Worker implements Runnable {
+
+        private final ArrayList<Lane<?>> mLanes = new ArrayList<Lane<?>>();
+        private final Thread mThread;
+
+        private volatile boolean mParked;
+        private volatile boolean mFinishing;
+
+        Worker(String name) {
+            mThread = new Thread(this, name);
+            mThread.setDaemon(true);
+        }
+
+        void start() {
+            mThread.start();
+        }
+
+        void wake() {
+            if (mParked) {
+                LockSupport.unpark(mThread);
+            }
+        }
+
+        void finish() {
+            mFinishing = true;
+            LockSupport.unpark(mThread);
+        }
+
+        private boolean isIdle() {
+            for (int i = 0; i < mLanes.size(); i++) {
+                if (!mLanes.get(i).mQueue.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            ArrayList<Lane<?>> lanes = mLanes;
+            for (;;) {
+                int count = 0;
+                for (int i = 0; i < lanes.size(); i++) {
+                    count += lanes.get(i).drain(SensorHandoff.this, MAX_BATCH);
+                }
+                if (count > 0) {
+                    continue;
+                }
+
+                // The queues are closed by now, so once they are empty they stay empty
+                if (mFinishing) {
+                    return;
+                }
+
+                // Announce the sleep before the last look at the queues: a producer
+                // either queued its sample before that look, or sees the flag after
+                // queueing and wakes us.
+                mParked = true;
+                if (isIdle() && !mFinishing) {
+                    LockSupport.park(this);
+                }
+                mParked = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,307 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.channels;
+
+import java.util.Locale;
+
+import com.microsoft.band.sdksample.sensors.SensorType;
+import com.microsoft.band.sdksample.stats.LogHistogram;
+import com.microsoft.band.sensors.SampleRate;
+
+/**
+ * How the samples of one channel get from the Band to the screen: the rate they are
+ * delivered at, how regularly they arrive, how long they wait for the processing
+ * thread, and how old the newest sample is by the time a frame shows it.
+ * <p>
+ * Times are taken with {@link System#nanoTime()} when the SDK delivers a sample, and
+ * carried along with it to the processing thread and the UI. Every step only reads
+ * the clock, bumps a histogram bucket and writes a field or two, so the metrics stay
+ * on in normal use. Intervals and latencies are recorded in microseconds.
+ * <p>
+ * {@link SensorChannel#getMetricsSnapshot} reads them together with the duplicate
+ * and queue counts of the channel, and {@link Snapshot#appendCsv} exports the result.
+ */
+public class SensorMetrics {
+
+    /**
+     * The rate is the number of samples delivered in the last window of this length.
+     */
+    public static final long RATE_WINDOW_NANOS = 1000 * 1000 * 1000L;
+
+    private final LogHistogram mIntervals = new LogHistogram();
+    private final LogHistogram mHandoffWaits = new LogHistogram();
+    private final LogHistogram mScreenLatencies = new LogHistogram();
+
+    // Only written by the SDK thread
+    private long mLastDeliveryNanos;
+    private volatile long mDeliveredCount;
+    private volatile long mWindowStartNanos;
+    private volatile long mWindowCount;
+    private volatile double mRate;
+
+    // When the newest sample that changed what the UI shows was delivered, and how
+    // many such samples there were. Written by the processing thread.
+    private volatile long mChangedDeliveryNanos;
+    private volatile long mChangedCount;
+
+    // Only used by the UI thread, except mShownCount
+    private long mShownChangedCount;
+    private volatile long mShownCount;
+
+    /**
+     * Forgets everything. Called when the sensor is registered, while no samples
+     * arrive.
+     */
+    void clear() {
+        mIntervals.clear();
+        mHandoffWaits.clear();
+        mScreenLatencies.clear();
+        mDeliveredCount = 0;
+        mWindowCount = 0;
+        mRate = 0;
+        mChangedCount = 0;
+        mShownChangedCount = 0;
+        mShownCount = 0;
+    }
+
+    /**
+     * Counts a sample delivered by the SDK. Called on the SDK thread.
+     */
+    void onDelivered(long nowNanos) {
+        if (mDeliveredCount == 0) {
+            mWindowStartNanos = nowNanos;
+        } else {
+            mIntervals.record((nowNanos - mLastDeliveryNanos) / 1000);
+        }
+        mLastDeliveryNanos = nowNanos;
+        mDeliveredCount++;
+
+        long elapsed = nowNanos - mWindowStartNanos;
+        if (elapsed >= RATE_WINDOW_NANOS) {
+            mRate = mWindowCount * 1e9 / elapsed;
+            mWindowStartNanos = nowNanos;
+            mWindowCount = 0;
+        }
+        mWindowCount++;
+    }
+
+    /**
+     * Records how long a sample waited in the handoff queue. Called on the processing
+     * thread.
+     */
+    void onHandoff(long waitNanos) {
+        mHandoffWaits.record(waitNanos / 1000);
+    }
+
+    /**
+     * Notes that a sample delivered at the given time changed what the UI shows.
+     * Called on the processing thread.
+     */
+    void onChanged(long deliveryNanos) {
+        mChangedDeliveryNanos = deliveryNanos;
+        mChangedCount++;
+    }
+
+    /**
+     * Records the age of the newest changed sample, now that the UI has shown it.
+     * Must be called on the UI thread right after it updated the channel's views.
+     */
+    public void onShown(long nowNanos) {
+        long changed = mChangedCount;
+        if (changed == mShownChangedCount) {
+            return;
+        }
+
+        mShownChangedCount = changed;
+        mShownCount++;
+        mScreenLatencies.record((nowNanos - mChangedDeliveryNanos) / 1000);
+    }
+
+    void getSnapshot(Snapshot snapshot, long nowNanos) {
+        long delivered = mDeliveredCount;
+        snapshot.mDeliveredCount = delivered;
+
+        // Without a recent sample the last window's rate would stay forever, so a
+        // window that has run for twice its length counts as it stands
+        long elapsed = nowNanos - mWindowStartNanos;
+        if (delivered == 0) {
+            snapshot.mRate = 0;
+        } else if (elapsed >= 2 * RATE_WINDOW_NANOS) {
+            snapshot.mRate = mWindowCount * 1e9 / elapsed;
+        } else {
+            snapshot.mRate = mRate;
+        }
+
+        snapshot.mUnshownCount = Math.max(0, mChangedCount - mShownCount);
+        mIntervals.getSnapshot(snapshot.mIntervals);
+        mHandoffWaits.getSnapshot(snapshot.mHandoffWaits);
+        mScreenLatencies.getSnapshot(snapshot.mScreenLatencies);
+    }
+
+    /**
+     * The metrics of a channel at one point in time. Reusable, so that an overlay can
+     * take one every frame without allocating.
+     */
+    public static class Snapshot {
+
+        public static final String CSV_HEADER = "sensor,requested_rate,rate,delivered,"
+                + "interval_p50_us,interval_p99_us,interval_max_us,"
+                + "handoff_p50_us,handoff_p99_us,handoff_max_us,"
+                + "screen_p50_us,screen_p99_us,screen_max_us,"
+                + "duplicates,queue_depth,queue_max_depth,queue_dropped,unshown";
+
+        SensorType mType;
+        SampleRate mSampleRate;
+        long mDeliveredCount;
+        double mRate;
+        long mDuplicateCount;
+        int mQueueDepth;
+        int mQueueMaxDepth;
+        long mQueueDroppedCount;
+        long mUnshownCount;
+        final LogHistogram.Snapshot mIntervals = new LogHistogram.Snapshot();
+        final LogHistogram.Snapshot mHandoffWaits = new LogHistogram.Snapshot();
+        final LogHistogram.Snapshot mScreenLatencies = new LogHistogram.Snapshot();
+
+        public SensorType getType() {
+            return mType;
+        }
+
+        /**
+         * Returns the rate the sensor was registered with, or null for the sensors
+         * that don't take one.
+         */
+        public SampleRate getSampleRate() {
+            return mSampleRate;
+        }
+
+        /**
+         * Returns the samples per second asked for with the sample rate, or NaN.
+         */
+        public double getRequestedRate() {
+            if (mSampleRate == null) {
+                return Double.NaN;
+            }
+
+            switch (mSampleRate) {
+            case MS16:
+                return 1000.0 / 16;
+            case MS32:
+                return 1000.0 / 32;
+            default:
+                return 1000.0 / 128;
+            }
+        }
+
+        /**
+         * Returns the samples per second the SDK actually delivered recently.
+         */
+        public double getRate() {
+            return mRate;
+        }
+
+        public long getDeliveredCount() {
+            return mDeliveredCount;
+        }
+
+        /**
+         * Returns the microseconds between consecutive samples.
+         */
+        public LogHistogram.Snapshot getIntervals() {
+            return mIntervals;
+        }
+
+        /**
+         * Returns the microseconds samples waited for the processing thread.
+         */
+        public LogHistogram.Snapshot getHandoffWaits() {
+            return mHandoffWaits;
+        }
+
+        /**
+         * Returns the microseconds from the delivery of a sample to the frame that
+         * showed it.
+         */
+        public LogHistogram.Snapshot getScreenLatencies() {
+            return mScreenLatencies;
+        }
+
+        /**
+         * Returns the number of samples dropped because both listeners of a rate
+         * change delivered them.
+         */
+        public long getDuplicateCount() {
+            return mDuplicateCount;
+        }
+
+        public int getQueueDepth() {
+            return mQueueDepth;
+        }
+
+        public int getQueueMaxDepth() {
+            return mQueueMaxDepth;
+        }
+
+        /**
+         * Returns the number of samples the handoff queue dropped or overwrote.
+         */
+        public long getQueueDroppedCount() {
+            return mQueueDroppedCount;
+        }
+
+        /**
+         * Returns the number of samples that would have changed the screen but were
+         * replaced by a newer one before the next frame.
+         */
+        public long getUnshownCount() {
+            return mUnshownCount;
+        }
+
+        /**
+         * Appends the snapshot as a line matching {@link #CSV_HEADER}.
+         */
+        public void appendCsv(StringBuilder builder) {
+            builder.append(mType.name().toLowerCase(Locale.US)).append(',');
+            if (mSampleRate != null) {
+                builder.append(getRequestedRate());
+            }
+            builder.append(',').append((float) mRate);
+            builder.append(',').append(mDeliveredCount);
+            appendPercentiles(builder, mIntervals);
+            appendPercentiles(builder, mHandoffWaits);
+            appendPercentiles(builder, mScreenLatencies);
+            builder.append(',').append(mDuplicateCount);
+            builder.append(',').append(mQueueDepth);
+            builder.append(',').append(mQueueMaxDepth);
+            builder.append(',').append(mQueueDroppedCount);
+            builder.append(',').append(mUnshownCount);
+            builder.append('\n');
+        }
+
+        private static void appendPercentiles(StringBuilder builder, LogHistogram.Snapshot histogram) {
+            if (histogram.getCount() == 0) {
+                builder.append(",,,");
+                return;
+            }
+
+            builder.append(',').append(histogram.getPercentile(0.5));
+            builder.append(',').append(histogram.getPercentile(0.99));
+            builder.append(',').append(histogram.getMax());
+        }
+    }
+}
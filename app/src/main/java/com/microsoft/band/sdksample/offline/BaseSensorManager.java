@@ -0,0 +1,324 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.offline;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.microsoft.band.BandPendingResult;
+import com.microsoft.band.sdksample.sensors.SensorType;
+import com.microsoft.band.sensors.BandAccelerometerEvent;
+import com.microsoft.band.sensors.BandAccelerometerEventListener;
+import com.microsoft.band.sensors.BandContactEvent;
+import com.microsoft.band.sensors.BandContactEventListener;
+import com.microsoft.band.sensors.BandDistanceEvent;
+import com.microsoft.band.sensors.BandDistanceEventListener;
+import com.microsoft.band.sensors.BandGyroscopeEvent;
+import com.microsoft.band.sensors.BandGyroscopeEventListener;
+import com.microsoft.band.sensors.BandHeartRateEvent;
+import com.microsoft.band.sensors.BandHeartRateEventListener;
+import com.microsoft.band.sensors.BandPedometerEvent;
+import com.microsoft.band.sensors.BandPedometerEventListener;
+import com.microsoft.band.sensors.BandSensorManager;
+import com.microsoft.band.sensors.BandSkinTemperatureEvent;
+import com.microsoft.band.sensors.BandSkinTemperatureEventListener;
+import com.microsoft.band.sensors.BandUVEvent;
+import com.microsoft.band.sensors.BandUVEventListener;
+import com.microsoft.band.sensors.SampleRate;
+
+/**
+ * Listener bookkeeping for sensor managers that produce samples without a Band.
+ * <p>
+ * Registration works like the SDK's: a listener registered twice is only called
+ * once, and the accelerometer and gyroscope keep the most recently requested
+ * {@link SampleRate}. Subclasses produce the samples and deliver them through the
+ * dispatch methods, which may be called from any thread.
+ */
+public abstract class BaseSensorManager implements BandSensorManager {
+
+    private static final BandPendingResult<Void> DONE = ImmediateResult.of(null);
+
+    private final List<BandAccelerometerEventListener> mAccelerometerListeners = new CopyOnWriteArrayList<BandAccelerometerEventListener>();
+    private final List<BandGyroscopeEventListener> mGyroscopeListeners = new CopyOnWriteArrayList<BandGyroscopeEventListener>();
+    private final List<BandDistanceEventListener> mDistanceListeners = new CopyOnWriteArrayList<BandDistanceEventListener>();
+    private final List<BandHeartRateEventListener> mHeartRateListeners = new CopyOnWriteArrayList<BandHeartRateEventListener>();
+    private final List<BandContactEventListener> mContactListeners = new CopyOnWriteArrayList<BandContactEventListener>();
+    private final List<BandSkinTemperatureEventListener> mSkinTemperatureListeners = new CopyOnWriteArrayList<BandSkinTemperatureEventListener>();
+    private final List<BandUVEventListener> mUVListeners = new CopyOnWriteArrayList<BandUVEventListener>();
+    private final List<BandPedometerEventListener> mPedometerListeners = new CopyOnWriteArrayList<BandPedometerEventListener>();
+
+    private volatile SampleRate mAccelerometerRate = SampleRate.MS128;
+    private volatile SampleRate mGyroscopeRate = SampleRate.MS128;
+
+    /**
+     * Called after a listener was registered or unregistered, with the sensor it was for.
+     */
+    protected void onListenersChanged(SensorType type) {
+    }
+
+    /**
+     * Returns true if at least one listener is registered for the sensor.
+     */
+    public boolean hasListeners(SensorType type) {
+        return !getListeners(type).isEmpty();
+    }
+
+    public SampleRate getAccelerometerRate() {
+        return mAccelerometerRate;
+    }
+
+    public SampleRate getGyroscopeRate() {
+        return mGyroscopeRate;
+    }
+
+    //
+    // Dispatching
+    //
+
+    protected void dispatchAccelerometer(BandAccelerometerEvent event) {
+        for (BandAccelerometerEventListener listener : mAccelerometerListeners) {
+            listener.onBandAccelerometerChanged(event);
+        }
+    }
+
+    protected void dispatchGyroscope(BandGyroscopeEvent event) {
+        for (BandGyroscopeEventListener listener : mGyroscopeListeners) {
+            listener.onBandGyroscopeChanged(event);
+        }
+    }
+
+    protected void dispatchDistance(BandDistanceEvent event) {
+        for (BandDistanceEventListener listener : mDistanceListeners) {
+            listener.onBandDistanceChanged(event);
+        }
+    }
+
+    protected void dispatchHeartRate(BandHeartRateEvent event) {
+        for (BandHeartRateEventListener listener : mHeartRateListeners) {
+            listener.onBandHeartRateChanged(event);
+        }
+    }
+
+    protected void dispatchContact(BandContactEvent event) {
+        for (BandContactEventListener listener : mContactListeners) {
+            listener.onBandContactChanged(event);
+        }
+    }
+
+    protected void dispatchSkinTemperature(BandSkinTemperatureEvent event) {
+        for (BandSkinTemperatureEventListener listener : mSkinTemperatureListeners) {
+            listener.onBandSkinTemperatureChanged(event);
+        }
+    }
+
+    protected void dispatchUV(BandUVEvent event) {
+        for (BandUVEventListener listener : mUVListeners) {
+            listener.onBandUVChanged(event);
+        }
+    }
+
+    protected void dispatchPedometer(BandPedometerEvent event) {
+        for (BandPedometerEventListener listener : mPedometerListeners) {
+            listener.onBandPedometerChanged(event);
+        }
+    }
+
+    //
+    // BandSensorManager
+    //
+
+    @Override
+    public BandPendingResult<Void> registerAccelerometerEventListener(BandAccelerometerEventListener listener, SampleRate rate) {
+        mAccelerometerRate = rate;
+        return register(mAccelerometerListeners, listener, SensorType.ACCELEROMETER);
+    }
+
+    @Override
+    public BandPendingResult<Void> unregisterAccelerometerEventListeners() {
+        return unregisterAll(mAccelerometerListeners, SensorType.ACCELEROMETER);
+    }
+
+    @Override
+    public BandPendingResult<Void> unregisterAccelerometerEventListener(BandAccelerometerEventListener listener) {
+        return unregister(mAccelerometerListeners, listener, SensorType.ACCELEROMETER);
+    }
+
+    @Override
+    public BandPendingResult<Void> registerGyroscopeEventListener(BandGyroscopeEventListener listener, SampleRate rate) {
+        mGyroscopeRate = rate;
+        return register(mGyroscopeListeners, listener, SensorType.GYROSCOPE);
+    }
+
+    @Override
+    public BandPendingResult<Void> unregisterGyroscopeEventListeners() {
+        return unregisterAll(mGyroscopeListeners, SensorType.GYROSCOPE);
+    }
+
+    @Override
+    public BandPendingResult<Void> unregisterGyroscopeEventListener(BandGyroscopeEventListener listener) {
+        return unregister(mGyroscopeListeners, listener, SensorType.GYROSCOPE);
+    }
+
+    @Override
+    public BandPendingResult<Void> registerHeartRateEventListener(BandHeartRateEventListener listener) {
+        return register(mHeartRateListeners, listener, SensorType.HEART_RATE);
+    }
+
+    @Override
+    public BandPendingResult<Void> unregisterHeartRateEventListeners() {
+        return unregisterAll(mHeartRateListeners, SensorType.HEART_RATE);
+    }
+
+    @Override
+    public BandPendingResult<Void> unregisterHeartRateEventListener(BandHeartRateEventListener listener) {
+        return unregister(mHeartRateListeners, listener, SensorType.HEART_RATE);
+    }
+
+    @Override
+    public BandPendingResult<Void> registerPedometerEventListener(BandPedometerEventListener listener) {
+        return register(mPedometerListeners, listener, SensorType.PEDOMETER);
+    }
+
+    @Override
+    public BandPendingResult<Void> unregisterPedometerEventListeners() {
+        return unregisterAll(mPedometerListeners, SensorType.PEDOMETER);
+    }
+
+    @Override
+    public BandPendingResult<Void> unregisterPedometerEventListener(BandPedometerEventListener listener) {
+        return unregister(mPedometerListeners, listener, SensorType.PEDOMETER);
+    }
+
+    @Override
+    public BandPendingResult<Void> registerDistanceEventListener(BandDistanceEventListener listener) {
+        return register(mDistanceListeners, listener, SensorType.DISTANCE);
+    }
+
+    @Override
+    public BandPendingResult<Void> unregisterDistanceEventListeners() {
+        return unregisterAll(mDistanceListeners, SensorType.DISTANCE);
+    }
+
+    @Override
+    public BandPendingResult<Void> unregisterDistanceEventListener(BandDistanceEventListener listener) {
+        return unregister(mDistanceListeners, listener, SensorType.DISTANCE);
+    }
+
+    @Override
+    public BandPendingResult<Void> registerSkinTemperatureEventListener(BandSkinTemperatureEventListener listener) {
+        return register(mSkinTemperatureListeners, listener, SensorType.SKIN_TEMPERATURE);
+    }
+
+    @Override
+    public BandPendingResult<Void> unregisterSkinTemperatureEventListeners() {
+        return unregisterAll(mSkinTemperatureListeners, SensorType.SKIN_TEMPERATURE);
+    }
+
+    @Override
+    public BandPendingResult<Void> unregisterSkinTemperatureEventListener(BandSkinTemperatureEventListener listener) {
+        return unregister(mSkinTemperatureListeners, listener, SensorType.SKIN_TEMPERATURE);
+    }
+
+    @Override
+    public BandPendingResult<Void> registerUVEventListener(BandUVEventListener listener) {
+        return register(mUVListeners, listener, SensorType.ULTRAVIOLET);
+    }
+
+    @Override
+    public BandPendingResult<Void> unregisterUVEventListeners() {
+        return unregisterAll(mUVListeners, SensorType.ULTRAVIOLET);
+    }
+
+    @Override
+    public BandPendingResult<Void> unregisterUVEventListener(BandUVEventListener listener) {
+        return unregister(mUVListeners, listener, SensorType.ULTRAVIOLET);
+    }
+
+    @Override
+    public BandPendingResult<Void> registerContactEventListener(BandContactEventListener listener) {
+        return register(mContactListeners, listener, SensorType.CONTACT);
+    }
+
+    @Override
+    public BandPendingResult<Void> unregisterContactEventListeners() {
+        return unregisterAll(mContactListeners, SensorType.CONTACT);
+    }
+
+    @Override
+    public BandPendingResult<Void> unregisterContactEventListener(BandContactEventListener listener) {
+        return unregister(mContactListeners, listener, SensorType.CONTACT);
+    }
+
+    @Override
+    public BandPendingResult<Void> unregisterAllListeners() {
+        for (SensorType type : SensorType.values()) {
+            unregisterAll(getListeners(type), type);
+        }
+        return DONE;
+    }
+
+    //
+    // Helpers
+    //
+
+    private <L> BandPendingResult<Void> register(List<L> listeners, L listener, SensorType type) {
+        if (listener == null) {
+            throw new IllegalArgumentException("listener must not be null");
+        }
+        ((CopyOnWriteArrayList<L>) listeners).addIfAbsent(listener);
+        onListenersChanged(type);
+        return DONE;
+    }
+
+    private <L> BandPendingResult<Void> unregister(List<L> listeners, L listener, SensorType type) {
+        if (listeners.remove(listener)) {
+            onListenersChanged(type);
+        }
+        return DONE;
+    }
+
+    private BandPendingResult<Void> unregisterAll(List<?> listeners, SensorType type) {
+        if (!listeners.isEmpty()) {
+            listeners.clear();
+            onListenersChanged(type);
+        }
+        return DONE;
+    }
+
+    private List<?> getListeners(SensorType type) {
+        switch (type) {
+        case ACCELEROMETER:
+            return mAccelerometerListeners;
+        case GYROSCOPE:
+            return mGyroscopeListeners;
+        case DISTANCE:
+            return mDistanceListeners;
+        case HEART_RATE:
+            return mHeartRateListeners;
+        case CONTACT:
+            return mContactListeners;
+        case SKIN_TEMPERATURE:
+            return mSkinTemperatureListeners;
+        case ULTRAVIOLET:
+            return mUVListeners;
+        case PEDOMETER:
+            return mPedometerListeners;
+        }
+        throw new IllegalArgumentException("Unknown sensor type " + type);
+    }
+}
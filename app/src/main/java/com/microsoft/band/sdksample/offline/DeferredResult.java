@@ -0,0 +1,109 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.offline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.microsoft.band.BandException;
+import com.microsoft.band.BandPendingResult;
+import com.microsoft.band.BandResultCallback;
+
+/**
+ * A pending result that is completed later by whoever created it, for simulating
+ * operations that take time.
+ * <p>
+ * Callbacks registered before completion are called on the completing thread, later
+ * ones on the registering thread. The timeout given with a callback is not enforced.
+ */
+public class DeferredResult<R> implements BandPendingResult<R> {
+
+    private final CountDownLatch mDone = new CountDownLatch(1);
+    private final List<BandResultCallback<R>> mCallbacks = new ArrayList<BandResultCallback<R>>();
+    private R mResult;
+    private BandException mError;
+
+    public void complete(R result) {
+        finish(result, null);
+    }
+
+    public void fail(BandException error) {
+        finish(null, error);
+    }
+
+    public boolean isDone() {
+        return mDone.getCount() == 0;
+    }
+
+    private void finish(R result, BandException error) {
+        List<BandResultCallback<R>> callbacks;
+        synchronized (this) {
+            if (isDone()) {
+                throw new IllegalStateException("Already completed");
+            }
+            mResult = result;
+            mError = error;
+            mDone.countDown();
+            callbacks = new ArrayList<BandResultCallback<R>>(mCallbacks);
+            mCallbacks.clear();
+        }
+        for (BandResultCallback<R> callback : callbacks) {
+            callback.onResult(result, error);
+        }
+    }
+
+    @Override
+    public R await() throws InterruptedException, BandException {
+        mDone.await();
+        return getResult();
+    }
+
+    @Override
+    public R await(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException, BandException {
+        if (!mDone.await(timeout, unit)) {
+            throw new TimeoutException();
+        }
+        return getResult();
+    }
+
+    @Override
+    public void registerResultCallback(BandResultCallback<R> callback) {
+        synchronized (this) {
+            if (!isDone()) {
+                mCallbacks.add(callback);
+                return;
+            }
+        }
+        callback.onResult(mResult, mError);
+    }
+
+    @Override
+    public void registerResultCallback(BandResultCallback<R> callback, long timeout, TimeUnit unit) {
+        registerResultCallback(callback);
+    }
+
+    private synchronized R getResult() throws BandException {
+        if (mError != null) {
+            throw mError;
+        }
+        return mResult;
+    }
+}
@@ -0,0 +1,70 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.offline;
+
+import java.util.concurrent.TimeUnit;
+
+import com.microsoft.band.BandException;
+import com.microsoft.band.BandPendingResult;
+import com.microsoft.band.BandResultCallback;
+
+/**
+ * A pending result that is already complete, for operations that finish synchronously
+ * when there is no real Band on the other end.
+ */
+public class ImmediateResult<R> implements BandPendingResult<R> {
+
+    private final R mResult;
+    private final BandException mError;
+
+    public static <R> ImmediateResult<R> of(R result) {
+        return new ImmediateResult<R>(result, null);
+    }
+
+    public static <R> ImmediateResult<R> failed(BandException error) {
+        return new ImmediateResult<R>(null, error);
+    }
+
+    private ImmediateResult(R result, BandException error) {
+        mResult = result;
+        mError = error;
+    }
+
+    @Override
+    public R await() throws BandException {
+        if (mError != null) {
+            throw mError;
+        }
+        return mResult;
+    }
+
+    @Override
+    public R await(long timeout, TimeUnit unit) throws BandException {
+        return await();
+    }
+
+    @Override
+    public void registerResultCallback(BandResultCallback<R> callback) {
+        callback.onResult(mResult, mError);
+    }
+
+    @Override
+    public void registerResultCallback(BandResultCallback<R> callback, long timeout, TimeUnit unit) {
+        callback.onResult(mResult, mError);
+    }
+}
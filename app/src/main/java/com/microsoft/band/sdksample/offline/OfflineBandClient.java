@@ -0,0 +1,212 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.offline;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import com.microsoft.band.BandClient;
+import com.microsoft.band.BandConnectionCallback;
+import com.microsoft.band.BandConnectionState;
+import com.microsoft.band.BandException;
+import com.microsoft.band.BandPendingResult;
+import com.microsoft.band.ConnectionResult;
+import com.microsoft.band.notification.BandNotificationManager;
+import com.microsoft.band.notification.MessageFlags;
+import com.microsoft.band.notification.VibrationType;
+import com.microsoft.band.personalization.BandPersonalizationManager;
+import com.microsoft.band.sensors.BandSensorManager;
+import com.microsoft.band.tiles.BandTheme;
+import com.microsoft.band.tiles.BandTile;
+import com.microsoft.band.tiles.BandTileManager;
+
+/**
+ * A {@link BandClient} that isn't backed by a Band, for running the sensor pages
+ * without one. The Basics page offers every recorded session as a Band, added to the
+ * model like this:
+ * <pre>
+ * Model.getInstance().addBand(name, new OfflineBandClient(new ReplaySensorManager(sessionDir)));
+ * </pre>
+ * Connecting always succeeds at once. Only sensors are supported: notifications are
+ * logged and otherwise dropped, so alerting works as it would with a Band. There are
+ * no tiles and no room for any, and the other tile and personalization calls fail
+ * their pending results with a {@link BandException}, unless a subclass provides
+ * the managers.
+ */
+public class OfflineBandClient implements BandClient {
+
+    private static final String TAG = "OfflineBandClient";
+
+    private final BandSensorManager mSensorManager;
+    private final CopyOnWriteArrayList<BandConnectionCallback> mConnectionCallbacks = new CopyOnWriteArrayList<BandConnectionCallback>();
+    private volatile boolean mConnected;
+
+    public OfflineBandClient(BandSensorManager sensorManager) {
+        mSensorManager = sensorManager;
+    }
+
+    @Override
+    public BandSensorManager getSensorManager() {
+        return mSensorManager;
+    }
+
+    @Override
+    public BandPendingResult<ConnectionResult> connect() {
+        setConnected(true);
+        return ImmediateResult.of(ConnectionResult.OK);
+    }
+
+    @Override
+    public boolean isConnected() {
+        return mConnected;
+    }
+
+    @Override
+    public BandPendingResult<Void> disconnect() {
+        setConnected(false);
+        return ImmediateResult.of(null);
+    }
+
+    @Override
+    public void registerConnectionCallback(BandConnectionCallback callback) {
+        mConnectionCallbacks.addIfAbsent(callback);
+    }
+
+    @Override
+    public void unregisterConnectionCallback(BandConnectionCallback callback) {
+        mConnectionCallbacks.remove(callback);
+    }
+
+    @Override
+    public BandPendingResult<String> getFirmwareVersion() {
+        return ImmediateResult.of("offline");
+    }
+
+    @Override
+    public BandPendingResult<String> getHardwareVersion() {
+        return ImmediateResult.of("offline");
+    }
+
+    @Override
+    public BandNotificationManager getNotificationManager() {
+        return mNotificationManager;
+    }
+
+    @Override
+    public BandTileManager getTileManager() {
+        return mTileManager;
+    }
+
+    @Override
+    public BandPersonalizationManager getPersonalizationManager() {
+        return mPersonalizationManager;
+    }
+
+    /**
+     * Changes the connection state and tells the registered callbacks about it.
+     */
+    protected void setConnected(boolean connected) {
+        if (mConnected == connected) {
+            return;
+        }
+        mConnected = connected;
+        notifyConnectionState(connected ? BandConnectionState.CONNECTED : BandConnectionState.DISCONNECTED);
+    }
+
+    protected void notifyConnectionState(BandConnectionState state) {
+        for (BandConnectionCallback callback : mConnectionCallbacks) {
+            callback.onStateChanged(state);
+        }
+    }
+
+    private final BandNotificationManager mNotificationManager = new BandNotificationManager() {
+        @Override
+        public BandPendingResult<Void> vibrate(VibrationType type) {
+            Log.i(TAG, "Vibrate " + type);
+            return ImmediateResult.of(null);
+        }
+
+        @Override
+        public BandPendingResult<Void> showDialog(UUID tileId, String title, String body) {
+            Log.i(TAG, "Dialog " + title + ": " + body);
+            return ImmediateResult.of(null);
+        }
+
+        @Override
+        public BandPendingResult<Void> sendMessage(UUID tileId, String title, String body, Date date, MessageFlags flags) {
+            Log.i(TAG, "Message " + title + ": " + body);
+            return ImmediateResult.of(null);
+        }
+    };
+
+    private final BandTileManager mTileManager = new BandTileManager() {
+        @Override
+        public BandPendingResult<Collection<BandTile>> getTiles() {
+            return ImmediateResult.<Collection<BandTile>>of(Collections.<BandTile>emptyList());
+        }
+
+        @Override
+        public BandPendingResult<Integer> getRemainingTileCapacity() {
+            return ImmediateResult.of(0);
+        }
+
+        @Override
+        public BandPendingResult<Boolean> addTile(Activity activity, BandTile tile) {
+            return ImmediateResult.failed(new BandException("Tiles need a Band"));
+        }
+
+        @Override
+        public BandPendingResult<Boolean> removeTile(UUID tileId) {
+            return ImmediateResult.failed(new BandException("Tiles need a Band"));
+        }
+
+        @Override
+        public BandPendingResult<Boolean> removeTile(BandTile tile) {
+            return removeTile(tile.getTileId());
+        }
+    };
+
+    private final BandPersonalizationManager mPersonalizationManager = new BandPersonalizationManager() {
+        @Override
+        public BandPendingResult<Void> setMeTileImage(Bitmap image) {
+            return ImmediateResult.failed(new BandException("Personalization needs a Band"));
+        }
+
+        @Override
+        public BandPendingResult<Bitmap> getMeTileImage() {
+            return ImmediateResult.failed(new BandException("Personalization needs a Band"));
+        }
+
+        @Override
+        public BandPendingResult<Void> setTheme(BandTheme theme) {
+            return ImmediateResult.failed(new BandException("Personalization needs a Band"));
+        }
+
+        @Override
+        public BandPendingResult<BandTheme> getTheme() {
+            return ImmediateResult.failed(new BandException("Personalization needs a Band"));
+        }
+    };
+}
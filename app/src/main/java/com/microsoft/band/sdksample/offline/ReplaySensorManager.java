@@ -0,0 +1,233 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.offline;
+
+import java.io.File;
+import java.io.IOException;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.microsoft.band.sdksample.recording.SessionReader;
+import com.microsoft.band.sdksample.sensors.SensorType;
+
+/**
+ * A {@link com.microsoft.band.sensors.BandSensorManager} that plays back a session
+ * recorded by {@link com.microsoft.band.sdksample.recording.SessionRecorder}.
+ * <p>
+ * Playback starts when the first listener is registered and stops when the last one
+ * is unregistered, like the sensors of a real Band. Samples are delivered on a
+ * background thread at their recorded spacing divided by the speed, or as fast as the
+ * listeners take them when the speed is {@link #SPEED_UNLIMITED}. Sensors without
+ * listeners are skipped, so a session replays at the same pace whatever is listening.
+ * <p>
+ * The sample rate requested at registration is ignored; samples come at the rate they
+ * were recorded at.
+ */
+public class ReplaySensorManager extends BaseSensorManager {
+
+    private static final String TAG = "ReplaySensorManager";
+
+    public static final float SPEED_UNLIMITED = 0f;
+
+    // Don't sleep for less than this, it costs more than it saves
+    private static final long MIN_SLEEP_MS = 2;
+
+    private final File mSessionDirectory;
+    private volatile float mSpeed = 1f;
+    private volatile boolean mLooping;
+    private volatile long mReplayedCount;
+    private volatile IOException mLastError;
+
+    private Thread mThread;
+
+    public ReplaySensorManager(File sessionDirectory) {
+        mSessionDirectory = sessionDirectory;
+    }
+
+    /**
+     * Sets the playback speed as a multiple of real time, or {@link #SPEED_UNLIMITED}.
+     * Takes effect with the next sample.
+     */
+    public void setSpeed(float speed) {
+        if (speed < 0 || Float.isNaN(speed) || Float.isInfinite(speed)) {
+            throw new IllegalArgumentException("Invalid speed " + speed);
+        }
+        mSpeed = speed;
+    }
+
+    public float getSpeed() {
+        return mSpeed;
+    }
+
+    /**
+     * Sets whether the session starts over when it ends. Timestamps keep increasing
+     * across loops.
+     */
+    public void setLooping(boolean looping) {
+        mLooping = looping;
+    }
+
+    public boolean isLooping() {
+        return mLooping;
+    }
+
+    /**
+     * Returns the number of samples delivered to listeners so far.
+     */
+    public long getReplayedCount() {
+        return mReplayedCount;
+    }
+
+    /**
+     * Returns the error that stopped playback, or null.
+     */
+    public IOException getLastError() {
+        return mLastError;
+    }
+
+    public synchronized boolean isPlaying() {
+        return mThread != null;
+    }
+
+    @Override
+    protected synchronized void onListenersChanged(SensorType type) {
+        boolean listening = false;
+        for (SensorType sensor : SensorType.values()) {
+            listening |= hasListeners(sensor);
+        }
+
+        if (listening && mThread == null) {
+            mThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    replay();
+                }
+            }, TAG);
+            mThread.start();
+        } else if (!listening && mThread != null) {
+            mThread.interrupt();
+            mThread = null;
+        }
+    }
+
+    private void replay() {
+        SessionReader reader = null;
+        try {
+            reader = new SessionReader(mSessionDirectory);
+
+            // Recorded time is mapped onto the wall clock from an anchor that moves
+            // whenever the speed changes, so a change doesn't cause a burst or a pause
+            long anchorRecorded = 0;
+            long anchorWall = 0;
+            float anchorSpeed = 0;
+            long loopOffset = 0;
+            long lastTimestamp = 0;
+
+            while (!Thread.currentThread().isInterrupted()) {
+                if (!reader.next()) {
+                    if (!mLooping || lastTimestamp == 0) {
+                        break;
+                    }
+                    reader.rewind();
+                    if (!reader.next()) {
+                        break;
+                    }
+                    // Continue one sample period after the end of the previous loop
+                    loopOffset = lastTimestamp + 1 - reader.getTimestamp();
+                }
+
+                long timestamp = reader.getTimestamp() + loopOffset;
+                float speed = mSpeed;
+                if (lastTimestamp == 0 || speed != anchorSpeed) {
+                    anchorRecorded = timestamp;
+                    anchorWall = SystemClock.elapsedRealtime();
+                    anchorSpeed = speed;
+                }
+
+                if (speed != SPEED_UNLIMITED) {
+                    long due = anchorWall + (long) ((timestamp - anchorRecorded) / speed);
+                    long wait = due - SystemClock.elapsedRealtime();
+                    if (wait >= MIN_SLEEP_MS) {
+                        Thread.sleep(wait);
+                    }
+                }
+
+                lastTimestamp = timestamp;
+                if (dispatch(reader, timestamp)) {
+                    mReplayedCount++;
+                }
+            }
+        } catch (InterruptedException e) {
+            // Stopped
+        } catch (IOException e) {
+            Log.e(TAG, "Replay of " + mSessionDirectory + " failed", e);
+            mLastError = e;
+        } finally {
+            if (reader != null) {
+                reader.close();
+            }
+            synchronized (this) {
+                if (mThread == Thread.currentThread()) {
+                    mThread = null;
+                }
+            }
+        }
+    }
+
+    private boolean dispatch(SessionReader reader, long timestamp) {
+        SensorType type = reader.getSensorType();
+        if (!hasListeners(type)) {
+            return false;
+        }
+
+        switch (type) {
+        case ACCELEROMETER:
+            dispatchAccelerometer(new SampleEvents.Accelerometer(timestamp,
+                    reader.getAccelerationX(), reader.getAccelerationY(), reader.getAccelerationZ()));
+            break;
+        case GYROSCOPE:
+            dispatchGyroscope(new SampleEvents.Gyroscope(timestamp,
+                    reader.getAccelerationX(), reader.getAccelerationY(), reader.getAccelerationZ(),
+                    reader.getAngularVelocityX(), reader.getAngularVelocityY(), reader.getAngularVelocityZ()));
+            break;
+        case DISTANCE:
+            dispatchDistance(new SampleEvents.Distance(timestamp, reader.getTotalDistance(),
+                    reader.getSpeed(), reader.getPace(), SampleEvents.pedometerMode(reader.getPedometerMode())));
+            break;
+        case HEART_RATE:
+            dispatchHeartRate(new SampleEvents.HeartRate(timestamp, reader.getHeartRate(),
+                    SampleEvents.heartRateQuality(reader.getHeartRateQuality())));
+            break;
+        case CONTACT:
+            dispatchContact(new SampleEvents.Contact(timestamp,
+                    SampleEvents.contactStatus(reader.getContactStatus())));
+            break;
+        case SKIN_TEMPERATURE:
+            dispatchSkinTemperature(new SampleEvents.SkinTemperature(timestamp, reader.getTemperature()));
+            break;
+        case ULTRAVIOLET:
+            dispatchUV(new SampleEvents.UV(timestamp, SampleEvents.uvIndexLevel(reader.getUVIndexLevel())));
+            break;
+        case PEDOMETER:
+            dispatchPedometer(new SampleEvents.Pedometer(timestamp, reader.getTotalSteps()));
+            break;
+        }
+        return true;
+    }
+}
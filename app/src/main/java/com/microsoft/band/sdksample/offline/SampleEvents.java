@@ -0,0 +1,245 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.offline;
+
+import com.microsoft.band.sensors.BandAccelerometerEvent;
+import com.microsoft.band.sensors.BandContactEvent;
+import com.microsoft.band.sensors.BandContactStatus;
+import com.microsoft.band.sensors.BandDistanceEvent;
+import com.microsoft.band.sensors.BandGyroscopeEvent;
+import com.microsoft.band.sensors.BandHeartRateEvent;
+import com.microsoft.band.sensors.BandPedometerEvent;
+import com.microsoft.band.sensors.BandSkinTemperatureEvent;
+import com.microsoft.band.sensors.BandUVEvent;
+import com.microsoft.band.sensors.HeartRateQuality;
+import com.microsoft.band.sensors.PedometerMode;
+import com.microsoft.band.sensors.UVIndexLevel;
+
+/**
+ * Immutable implementations of the Band SDK sensor events, used to deliver samples
+ * that don't come from a Band. Like the SDK's own events they are handed to the
+ * listeners and may be kept by them, so a new one is created for every sample.
+ */
+public final class SampleEvents {
+
+    // values() copies the array on every call, so keep one for ordinal lookups
+    private static final PedometerMode[] PEDOMETER_MODES = PedometerMode.values();
+    private static final HeartRateQuality[] HEART_RATE_QUALITIES = HeartRateQuality.values();
+    private static final BandContactStatus[] CONTACT_STATES = BandContactStatus.values();
+    private static final UVIndexLevel[] UV_INDEX_LEVELS = UVIndexLevel.values();
+
+    private SampleEvents() {
+    }
+
+    public static PedometerMode pedometerMode(int ordinal) {
+        return PEDOMETER_MODES[clamp(ordinal, PEDOMETER_MODES.length)];
+    }
+
+    public static HeartRateQuality heartRateQuality(int ordinal) {
+        return HEART_RATE_QUALITIES[clamp(ordinal, HEART_RATE_QUALITIES.length)];
+    }
+
+    public static BandContactStatus contactStatus(int ordinal) {
+        return CONTACT_STATES[clamp(ordinal, CONTACT_STATES.length)];
+    }
+
+    public static UVIndexLevel uvIndexLevel(int ordinal) {
+        return UV_INDEX_LEVELS[clamp(ordinal, UV_INDEX_LEVELS.length)];
+    }
+
+    private static int clamp(int ordinal, int count) {
+        return Math.max(0, Math.min(count - 1, ordinal));
+    }
+
+    private abstract static class Event {
+        private final long mTimestamp;
+
+        Event(long timestamp) {
+            mTimestamp = timestamp;
+        }
+
+        public long getTimestamp() {
+            return mTimestamp;
+        }
+    }
+
+    public static class Accelerometer extends Event implements BandAccelerometerEvent {
+        private final float mX, mY, mZ;
+
+        public Accelerometer(long timestamp, float x, float y, float z) {
+            super(timestamp);
+            mX = x;
+            mY = y;
+            mZ = z;
+        }
+
+        public float getAccelerationX() {
+            return mX;
+        }
+
+        public float getAccelerationY() {
+            return mY;
+        }
+
+        public float getAccelerationZ() {
+            return mZ;
+        }
+    }
+
+    public static class Gyroscope extends Event implements BandGyroscopeEvent {
+        private final float mAccX, mAccY, mAccZ;
+        private final float mAngX, mAngY, mAngZ;
+
+        public Gyroscope(long timestamp, float accelerationX, float accelerationY, float accelerationZ,
+                float angularVelocityX, float angularVelocityY, float angularVelocityZ) {
+            super(timestamp);
+            mAccX = accelerationX;
+            mAccY = accelerationY;
+            mAccZ = accelerationZ;
+            mAngX = angularVelocityX;
+            mAngY = angularVelocityY;
+            mAngZ = angularVelocityZ;
+        }
+
+        public float getAccelerationX() {
+            return mAccX;
+        }
+
+        public float getAccelerationY() {
+            return mAccY;
+        }
+
+        public float getAccelerationZ() {
+            return mAccZ;
+        }
+
+        public float getAngularVelocityX() {
+            return mAngX;
+        }
+
+        public float getAngularVelocityY() {
+            return mAngY;
+        }
+
+        public float getAngularVelocityZ() {
+            return mAngZ;
+        }
+    }
+
+    public static class Distance extends Event implements BandDistanceEvent {
+        private final long mTotalDistance;
+        private final float mSpeed;
+        private final float mPace;
+        private final PedometerMode mMode;
+
+        public Distance(long timestamp, long totalDistance, float speed, float pace, PedometerMode mode) {
+            super(timestamp);
+            mTotalDistance = totalDistance;
+            mSpeed = speed;
+            mPace = pace;
+            mMode = mode;
+        }
+
+        public long getTotalDistance() {
+            return mTotalDistance;
+        }
+
+        public float getSpeed() {
+            return mSpeed;
+        }
+
+        public float getPace() {
+            return mPace;
+        }
+
+        public PedometerMode getPedometerMode() {
+            return mMode;
+        }
+    }
+
+    public static class HeartRate extends Event implements BandHeartRateEvent {
+        private final int mHeartRate;
+        private final HeartRateQuality mQuality;
+
+        public HeartRate(long timestamp, int heartRate, HeartRateQuality quality) {
+            super(timestamp);
+            mHeartRate = heartRate;
+            mQuality = quality;
+        }
+
+        public int getHeartRate() {
+            return mHeartRate;
+        }
+
+        public HeartRateQuality getQuality() {
+            return mQuality;
+        }
+    }
+
+    public static class Contact extends Event implements BandContactEvent {
+        private final BandContactStatus mStatus;
+
+        public Contact(long timestamp, BandContactStatus status) {
+            super(timestamp);
+            mStatus = status;
+        }
+
+        public BandContactStatus getContactStatus() {
+            return mStatus;
+        }
+    }
+
+    public static class SkinTemperature extends Event implements BandSkinTemperatureEvent {
+        private final float mTemperature;
+
+        public SkinTemperature(long timestamp, float temperature) {
+            super(timestamp);
+            mTemperature = temperature;
+        }
+
+        public float getTemperature() {
+            return mTemperature;
+        }
+    }
+
+    public static class UV extends Event implements BandUVEvent {
+        private final UVIndexLevel mLevel;
+
+        public UV(long timestamp, UVIndexLevel level) {
+            super(timestamp);
+            mLevel = level;
+        }
+
+        public UVIndexLevel getUVIndexLevel() {
+            return mLevel;
+        }
+    }
+
+    public static class Pedometer extends Event implements BandPedometerEvent {
+        private final long mTotalSteps;
+
+        public Pedometer(long timestamp, long totalSteps) {
+            super(timestamp);
+            mTotalSteps = totalSteps;
+        }
+
+        public long getTotalSteps() {
+            return mTotalSteps;
+        }
+    }
+}
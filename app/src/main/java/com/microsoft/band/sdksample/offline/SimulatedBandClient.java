@@ -0,0 +1,370 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.offline;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+
+import com.microsoft.band.BandConnectionState;
+import com.microsoft.band.BandIOErrorType;
+import com.microsoft.band.BandIOException;
+import com.microsoft.band.BandPendingResult;
+import com.microsoft.band.ConnectionResult;
+import com.microsoft.band.notification.BandNotificationManager;
+import com.microsoft.band.notification.MessageFlags;
+import com.microsoft.band.notification.VibrationType;
+import com.microsoft.band.personalization.BandPersonalizationManager;
+import com.microsoft.band.tiles.BandTheme;
+import com.microsoft.band.tiles.BandTile;
+import com.microsoft.band.tiles.BandTileManager;
+
+/**
+ * A simulated Band, for soak and stress testing the whole app without hardware.
+ * <p>
+ * Sensors come from a {@link SyntheticSensorManager}. Connecting takes a configurable
+ * time, and the connection can be made to drop at random and come back by itself,
+ * with the state changes reported to the connection callbacks like a real client
+ * does. While disconnected no samples are generated and the notification, tile and
+ * personalization calls fail with a {@link BandIOException}. Tiles and the theme are
+ * kept in memory; notifications are only counted.
+ */
+public class SimulatedBandClient extends OfflineBandClient {
+
+    public static final String VERSION = "simulated";
+
+    /** The number of tiles a Band has room for. */
+    public static final int TILE_CAPACITY = 13;
+
+    private static final AtomicInteger sThreadCount = new AtomicInteger();
+
+    private final SyntheticSensorManager mSensorManager;
+    private final ScheduledExecutorService mScheduler;
+    private final Random mRandom = new Random();
+
+    private volatile long mConnectLatencyMs = 500;
+    private volatile long mMeanConnectedMs;
+    private volatile long mReconnectDelayMs = 5000;
+    private volatile int mDisconnectCount;
+    private final AtomicInteger mNotificationCount = new AtomicInteger();
+
+    // Incremented on every connect and disconnect, so stale scheduled work can tell
+    private int mConnectionId;
+    private boolean mConnecting;
+
+    private final Map<UUID, BandTile> mTiles = new LinkedHashMap<UUID, BandTile>();
+    private volatile Bitmap mMeTileImage;
+    private volatile BandTheme mTheme = BandTheme.CYBER_THEME;
+
+    public SimulatedBandClient() {
+        this(new SyntheticSensorManager());
+    }
+
+    public SimulatedBandClient(SyntheticSensorManager sensorManager) {
+        super(sensorManager);
+        mSensorManager = sensorManager;
+        mSensorManager.setEnabled(false);
+        mScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "SimulatedBandClient-" + sThreadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    //
+    // Configuration
+    //
+
+    /**
+     * Sets how long {@link #connect()} takes to complete.
+     */
+    public void setConnectLatency(long latencyMs) {
+        mConnectLatencyMs = latencyMs;
+    }
+
+    /**
+     * Makes the connection drop after a random time with the given mean, measured from
+     * when it was made. Zero, the default, keeps it up.
+     */
+    public void setMeanTimeBetweenDisconnects(long meanMs) {
+        mMeanConnectedMs = meanMs;
+    }
+
+    /**
+     * Sets how long after a simulated drop the connection comes back. A negative delay
+     * leaves it down until {@link #connect()} is called.
+     */
+    public void setReconnectDelay(long delayMs) {
+        mReconnectDelayMs = delayMs;
+    }
+
+    @Override
+    public SyntheticSensorManager getSensorManager() {
+        return mSensorManager;
+    }
+
+    /**
+     * Returns the number of simulated connection drops so far.
+     */
+    public int getDisconnectCount() {
+        return mDisconnectCount;
+    }
+
+    /**
+     * Returns the number of vibrations, dialogs and messages sent so far.
+     */
+    public int getNotificationCount() {
+        return mNotificationCount.get();
+    }
+
+    /**
+     * Stops the background work. The client can't be used afterwards.
+     */
+    public void shutdown() {
+        disconnect();
+        mScheduler.shutdownNow();
+    }
+
+    //
+    // BandClient
+    //
+
+    @Override
+    public synchronized BandPendingResult<ConnectionResult> connect() {
+        if (isConnected()) {
+            return ImmediateResult.of(ConnectionResult.OK);
+        }
+
+        final DeferredResult<ConnectionResult> result = new DeferredResult<ConnectionResult>();
+        final int id = ++mConnectionId;
+        mConnecting = true;
+        notifyConnectionState(BandConnectionState.CONNECTING);
+        mScheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                boolean connected = onConnected(id);
+                result.complete(connected ? ConnectionResult.OK : ConnectionResult.INTERNAL_ERROR);
+            }
+        }, mConnectLatencyMs, TimeUnit.MILLISECONDS);
+        return result;
+    }
+
+    @Override
+    public synchronized BandPendingResult<Void> disconnect() {
+        mConnectionId++;
+        mConnecting = false;
+        mSensorManager.setEnabled(false);
+        return super.disconnect();
+    }
+
+    @Override
+    public BandPendingResult<String> getFirmwareVersion() {
+        return ImmediateResult.of(VERSION);
+    }
+
+    @Override
+    public BandPendingResult<String> getHardwareVersion() {
+        return ImmediateResult.of(VERSION);
+    }
+
+    @Override
+    public BandNotificationManager getNotificationManager() {
+        return mNotificationManager;
+    }
+
+    @Override
+    public BandTileManager getTileManager() {
+        return mTileManager;
+    }
+
+    @Override
+    public BandPersonalizationManager getPersonalizationManager() {
+        return mPersonalizationManager;
+    }
+
+    //
+    // Connection simulation
+    //
+
+    private synchronized boolean onConnected(final int id) {
+        if (id != mConnectionId || !mConnecting) {
+            // Disconnected while connecting
+            return false;
+        }
+        mConnecting = false;
+        setConnected(true);
+        mSensorManager.setEnabled(true);
+
+        long mean = mMeanConnectedMs;
+        if (mean > 0) {
+            // Exponentially distributed, like independent failures
+            long uptime = (long) (-Math.log(1 - mRandom.nextDouble()) * mean);
+            mScheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    onConnectionLost(id);
+                }
+            }, uptime, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    private synchronized void onConnectionLost(int id) {
+        if (id != mConnectionId || !isConnected()) {
+            return;
+        }
+        mDisconnectCount++;
+        disconnect();
+
+        long delay = mReconnectDelayMs;
+        if (delay >= 0) {
+            final int lostId = mConnectionId;
+            mScheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (SimulatedBandClient.this) {
+                        // Unless the app connected or disconnected in the meantime
+                        if (lostId == mConnectionId) {
+                            connect();
+                        }
+                    }
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void checkConnected() throws BandIOException {
+        if (!isConnected()) {
+            throw new BandIOException("Simulated Band is not connected", BandIOErrorType.DEVICE_ERROR);
+        }
+    }
+
+    //
+    // Managers
+    //
+
+    private final BandNotificationManager mNotificationManager = new BandNotificationManager() {
+        @Override
+        public BandPendingResult<Void> vibrate(VibrationType type) throws BandIOException {
+            return notified();
+        }
+
+        @Override
+        public BandPendingResult<Void> showDialog(UUID tileId, String title, String body) throws BandIOException {
+            return notified();
+        }
+
+        @Override
+        public BandPendingResult<Void> sendMessage(UUID tileId, String title, String body, Date date, MessageFlags flags)
+                throws BandIOException {
+            return notified();
+        }
+
+        private BandPendingResult<Void> notified() throws BandIOException {
+            checkConnected();
+            mNotificationCount.incrementAndGet();
+            return ImmediateResult.of(null);
+        }
+    };
+
+    private final BandTileManager mTileManager = new BandTileManager() {
+        @Override
+        public BandPendingResult<Collection<BandTile>> getTiles() throws BandIOException {
+            checkConnected();
+            synchronized (mTiles) {
+                return ImmediateResult.<Collection<BandTile>>of(new ArrayList<BandTile>(mTiles.values()));
+            }
+        }
+
+        @Override
+        public BandPendingResult<Integer> getRemainingTileCapacity() throws BandIOException {
+            checkConnected();
+            synchronized (mTiles) {
+                return ImmediateResult.of(TILE_CAPACITY - mTiles.size());
+            }
+        }
+
+        @Override
+        public BandPendingResult<Boolean> addTile(Activity activity, BandTile tile) throws BandIOException {
+            checkConnected();
+            synchronized (mTiles) {
+                if (mTiles.size() >= TILE_CAPACITY && !mTiles.containsKey(tile.getTileId())) {
+                    return ImmediateResult.of(false);
+                }
+                mTiles.put(tile.getTileId(), tile);
+                return ImmediateResult.of(true);
+            }
+        }
+
+        @Override
+        public BandPendingResult<Boolean> removeTile(UUID tileId) throws BandIOException {
+            checkConnected();
+            synchronized (mTiles) {
+                return ImmediateResult.of(mTiles.remove(tileId) != null);
+            }
+        }
+
+        @Override
+        public BandPendingResult<Boolean> removeTile(BandTile tile) throws BandIOException {
+            return removeTile(tile.getTileId());
+        }
+    };
+
+    private final BandPersonalizationManager mPersonalizationManager = new BandPersonalizationManager() {
+        @Override
+        public BandPendingResult<Void> setMeTileImage(Bitmap image) throws BandIOException {
+            checkConnected();
+            mMeTileImage = image;
+            return ImmediateResult.of(null);
+        }
+
+        @Override
+        public BandPendingResult<Bitmap> getMeTileImage() throws BandIOException {
+            checkConnected();
+            return ImmediateResult.of(mMeTileImage);
+        }
+
+        @Override
+        public BandPendingResult<Void> setTheme(BandTheme theme) throws BandIOException {
+            checkConnected();
+            mTheme = theme;
+            return ImmediateResult.of(null);
+        }
+
+        @Override
+        public BandPendingResult<BandTheme> getTheme() throws BandIOException {
+            checkConnected();
+            return ImmediateResult.of(mTheme);
+        }
+    };
+}
@@ -0,0 +1,329 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.offline;
+
+import java.util.Random;
+
+import com.microsoft.band.sdksample.sensors.SensorType;
+import com.microsoft.band.sensors.BandContactStatus;
+import com.microsoft.band.sensors.HeartRateQuality;
+import com.microsoft.band.sensors.PedometerMode;
+import com.microsoft.band.sensors.SampleRate;
+
+/**
+ * A {@link com.microsoft.band.sensors.BandSensorManager} that generates samples from
+ * {@link Waveform}s, for soak and stress testing without a Band.
+ * <p>
+ * The accelerometer and gyroscope run at the {@link SampleRate} they were registered
+ * with; the other sensors report at fixed intervals close to the Band's. Distance and
+ * steps are integrated from the speed and step rate waveforms, so they only grow.
+ * Generation runs on a background thread while the manager is enabled and anything
+ * is listening. Samples can be given a random delivery delay to imitate Bluetooth
+ * jitter; their timestamps stay on schedule.
+ * <p>
+ * Waveforms can be replaced at any time and apply from the next sample.
+ */
+public class SyntheticSensorManager extends BaseSensorManager {
+
+    private static final String TAG = "SyntheticSensorManager";
+
+    static final long HEART_RATE_INTERVAL_MS = 1000;
+    static final long DISTANCE_INTERVAL_MS = 1000;
+    static final long PEDOMETER_INTERVAL_MS = 1000;
+    static final long CONTACT_INTERVAL_MS = 1000;
+    static final long SKIN_TEMPERATURE_INTERVAL_MS = 30 * 1000;
+    static final long UV_INTERVAL_MS = 60 * 1000;
+
+    private static final SensorType[] SENSOR_TYPES = SensorType.values();
+
+    // Defaults resemble a resting wrist: gravity on Z, small motion, ~70 bpm
+    private volatile Waveform mAccelerationX = Waveform.sine(0f, 0.05f, 1000).withNoise(0.01f, 1);
+    private volatile Waveform mAccelerationY = Waveform.sine(0f, 0.05f, 1300).withNoise(0.01f, 2);
+    private volatile Waveform mAccelerationZ = Waveform.constant(1f).withNoise(0.01f, 3);
+    private volatile Waveform mAngularVelocityX = Waveform.sine(0f, 5f, 1700).withNoise(0.5f, 4);
+    private volatile Waveform mAngularVelocityY = Waveform.sine(0f, 5f, 1900).withNoise(0.5f, 5);
+    private volatile Waveform mAngularVelocityZ = Waveform.sine(0f, 5f, 2300).withNoise(0.5f, 6);
+    private volatile Waveform mHeartRate = Waveform.sine(70f, 8f, 60 * 1000).withNoise(2f, 7);
+    private volatile Waveform mSkinTemperature = Waveform.sine(33f, 0.5f, 10 * 60 * 1000);
+    private volatile Waveform mSpeed = Waveform.square(0f, 140f, 5 * 60 * 1000, 0.5f);
+    private volatile Waveform mStepRate = Waveform.square(0f, 2f, 5 * 60 * 1000, 0.5f);
+    private volatile Waveform mUVIndexLevel = Waveform.constant(1f);
+    private volatile Waveform mContact = Waveform.constant(1f);
+
+    private volatile boolean mEnabled = true;
+    private volatile long mJitterMs;
+    private volatile long mGeneratedCount;
+
+    private Thread mThread;
+
+    //
+    // Configuration
+    //
+
+    /**
+     * Sets the acceleration on each axis, in g.
+     */
+    public void setAcceleration(Waveform x, Waveform y, Waveform z) {
+        mAccelerationX = x;
+        mAccelerationY = y;
+        mAccelerationZ = z;
+    }
+
+    /**
+     * Sets the angular velocity around each axis, in degrees per second.
+     */
+    public void setAngularVelocity(Waveform x, Waveform y, Waveform z) {
+        mAngularVelocityX = x;
+        mAngularVelocityY = y;
+        mAngularVelocityZ = z;
+    }
+
+    /**
+     * Sets the heart rate, in beats per minute.
+     */
+    public void setHeartRate(Waveform heartRate) {
+        mHeartRate = heartRate;
+    }
+
+    /**
+     * Sets the skin temperature, in degrees Celsius.
+     */
+    public void setSkinTemperature(Waveform temperature) {
+        mSkinTemperature = temperature;
+    }
+
+    /**
+     * Sets the speed, in cm/s. A speed of zero reports the pedometer as idle.
+     */
+    public void setSpeed(Waveform speed) {
+        mSpeed = speed;
+    }
+
+    /**
+     * Sets the step rate, in steps per second.
+     */
+    public void setStepRate(Waveform stepRate) {
+        mStepRate = stepRate;
+    }
+
+    /**
+     * Sets the UV index level, as an ordinal of {@link com.microsoft.band.sensors.UVIndexLevel}.
+     */
+    public void setUVIndexLevel(Waveform level) {
+        mUVIndexLevel = level;
+    }
+
+    /**
+     * Sets the contact state: the Band is worn while the waveform is at least 0.5.
+     */
+    public void setContact(Waveform contact) {
+        mContact = contact;
+    }
+
+    /**
+     * Delays each sample by a random time up to the given maximum.
+     */
+    public void setJitter(long maxDelayMs) {
+        if (maxDelayMs < 0) {
+            throw new IllegalArgumentException("Invalid jitter " + maxDelayMs);
+        }
+        mJitterMs = maxDelayMs;
+    }
+
+    /**
+     * Starts or stops generation without touching the listeners, for simulating a lost
+     * connection.
+     */
+    public void setEnabled(boolean enabled) {
+        mEnabled = enabled;
+        onListenersChanged(null);
+    }
+
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    /**
+     * Returns the number of samples delivered to listeners so far.
+     */
+    public long getGeneratedCount() {
+        return mGeneratedCount;
+    }
+
+    public synchronized boolean isGenerating() {
+        return mThread != null;
+    }
+
+    @Override
+    protected synchronized void onListenersChanged(SensorType type) {
+        boolean listening = false;
+        for (SensorType sensor : SENSOR_TYPES) {
+            listening |= hasListeners(sensor);
+        }
+
+        boolean run = listening && mEnabled;
+        if (run && mThread == null) {
+            mThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    generate();
+                }
+            }, TAG);
+            mThread.start();
+        } else if (!run && mThread != null) {
+            mThread.interrupt();
+            mThread = null;
+        }
+    }
+
+    //
+    // Generation
+    //
+
+    private static long getInterval(SampleRate rate) {
+        switch (rate) {
+        case MS16:
+            return 16;
+        case MS32:
+            return 32;
+        default:
+            return 128;
+        }
+    }
+
+    private long getInterval(SensorType type) {
+        switch (type) {
+        case ACCELEROMETER:
+            return getInterval(getAccelerometerRate());
+        case GYROSCOPE:
+            return getInterval(getGyroscopeRate());
+        case HEART_RATE:
+            return HEART_RATE_INTERVAL_MS;
+        case DISTANCE:
+            return DISTANCE_INTERVAL_MS;
+        case PEDOMETER:
+            return PEDOMETER_INTERVAL_MS;
+        case CONTACT:
+            return CONTACT_INTERVAL_MS;
+        case SKIN_TEMPERATURE:
+            return SKIN_TEMPERATURE_INTERVAL_MS;
+        case ULTRAVIOLET:
+            return UV_INTERVAL_MS;
+        }
+        throw new IllegalArgumentException("Unknown sensor type " + type);
+    }
+
+    private void generate() {
+        Random random = new Random();
+        long start = System.currentTimeMillis();
+        long[] due = new long[SENSOR_TYPES.length];
+        for (int i = 0; i < due.length; i++) {
+            due[i] = start;
+        }
+
+        // Integrated state
+        double totalDistance = 0;
+        double totalSteps = 0;
+        long lastIntegration = start;
+        int lastContact = -1;
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                long next = Long.MAX_VALUE;
+                for (long time : due) {
+                    next = Math.min(next, time);
+                }
+
+                long jitter = mJitterMs;
+                long delay = next - System.currentTimeMillis() + (jitter > 0 ? (long) (random.nextDouble() * jitter) : 0);
+                if (delay > 0) {
+                    Thread.sleep(delay);
+                }
+
+                // Distance and steps are integrated whether or not anyone is listening
+                if (next > lastIntegration) {
+                    double seconds = (next - lastIntegration) / 1000.0;
+                    totalDistance += Math.max(0f, mSpeed.valueAt(next)) * seconds;
+                    totalSteps += Math.max(0f, mStepRate.valueAt(next)) * seconds;
+                    lastIntegration = next;
+                }
+
+                for (int i = 0; i < SENSOR_TYPES.length; i++) {
+                    if (due[i] != next) {
+                        continue;
+                    }
+                    SensorType type = SENSOR_TYPES[i];
+                    due[i] = next + getInterval(type);
+                    if (!hasListeners(type)) {
+                        continue;
+                    }
+
+                    switch (type) {
+                    case ACCELEROMETER:
+                        dispatchAccelerometer(new SampleEvents.Accelerometer(next,
+                                mAccelerationX.valueAt(next), mAccelerationY.valueAt(next), mAccelerationZ.valueAt(next)));
+                        break;
+                    case GYROSCOPE:
+                        dispatchGyroscope(new SampleEvents.Gyroscope(next,
+                                mAccelerationX.valueAt(next), mAccelerationY.valueAt(next), mAccelerationZ.valueAt(next),
+                                mAngularVelocityX.valueAt(next), mAngularVelocityY.valueAt(next), mAngularVelocityZ.valueAt(next)));
+                        break;
+                    case DISTANCE:
+                        float speed = Math.max(0f, mSpeed.valueAt(next));
+                        dispatchDistance(new SampleEvents.Distance(next, (long) totalDistance, speed,
+                                speed > 0 ? 100000f / speed : 0f,
+                                speed > 0 ? PedometerMode.WALKING : PedometerMode.IDLE));
+                        break;
+                    case HEART_RATE:
+                        dispatchHeartRate(new SampleEvents.HeartRate(next, Math.round(mHeartRate.valueAt(next)),
+                                HeartRateQuality.LOCKED));
+                        break;
+                    case CONTACT:
+                        // Like the Band, only report changes
+                        int contact = mContact.valueAt(next) >= 0.5f ? 1 : 0;
+                        if (contact == lastContact) {
+                            continue;
+                        }
+                        lastContact = contact;
+                        dispatchContact(new SampleEvents.Contact(next,
+                                contact == 1 ? BandContactStatus.WORN : BandContactStatus.NOT_WORN));
+                        break;
+                    case SKIN_TEMPERATURE:
+                        dispatchSkinTemperature(new SampleEvents.SkinTemperature(next, mSkinTemperature.valueAt(next)));
+                        break;
+                    case ULTRAVIOLET:
+                        dispatchUV(new SampleEvents.UV(next, SampleEvents.uvIndexLevel(Math.round(mUVIndexLevel.valueAt(next)))));
+                        break;
+                    case PEDOMETER:
+                        dispatchPedometer(new SampleEvents.Pedometer(next, (long) totalSteps));
+                        break;
+                    }
+                    mGeneratedCount++;
+                }
+            }
+        } catch (InterruptedException e) {
+            // Stopped
+        } finally {
+            synchronized (this) {
+                if (mThread == Thread.currentThread()) {
+                    mThread = null;
+                }
+            }
+        }
+    }
+}
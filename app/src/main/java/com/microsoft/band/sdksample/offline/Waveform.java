@@ -0,0 +1,140 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.offline;
+
+/**
+ * A value that varies over time, used to generate synthetic sensor samples.
+ * <p>
+ * Waveforms are stateless functions of time, so they can be shared between sensors
+ * and threads, and the same time always gives the same value. Noise is derived from
+ * a hash of the time instead of a random number generator for the same reason.
+ */
+public abstract class Waveform {
+
+    /**
+     * Returns the value at the given time, in milliseconds.
+     */
+    public abstract float valueAt(long timeMs);
+
+    public static Waveform constant(final float value) {
+        return new Waveform() {
+            @Override
+            public float valueAt(long timeMs) {
+                return value;
+            }
+        };
+    }
+
+    /**
+     * A sine wave oscillating around {@code mean}.
+     */
+    public static Waveform sine(final float mean, final float amplitude, final long periodMs) {
+        checkPeriod(periodMs);
+        return new Waveform() {
+            @Override
+            public float valueAt(long timeMs) {
+                double phase = (double) (timeMs % periodMs) / periodMs;
+                return mean + amplitude * (float) Math.sin(2 * Math.PI * phase);
+            }
+        };
+    }
+
+    /**
+     * Alternates between {@code low} and {@code high}, staying high for the given
+     * fraction of each period.
+     */
+    public static Waveform square(final float low, final float high, final long periodMs, final float dutyCycle) {
+        checkPeriod(periodMs);
+        return new Waveform() {
+            @Override
+            public float valueAt(long timeMs) {
+                return (timeMs % periodMs) < dutyCycle * periodMs ? high : low;
+            }
+        };
+    }
+
+    /**
+     * Rises linearly from {@code low} to {@code high} over each period, then starts over.
+     */
+    public static Waveform sawtooth(final float low, final float high, final long periodMs) {
+        checkPeriod(periodMs);
+        return new Waveform() {
+            @Override
+            public float valueAt(long timeMs) {
+                return low + (high - low) * (float) (timeMs % periodMs) / periodMs;
+            }
+        };
+    }
+
+    /**
+     * Adds uniformly distributed noise in [-amplitude, amplitude) to this waveform.
+     */
+    public Waveform withNoise(final float amplitude, final long seed) {
+        final Waveform base = this;
+        return new Waveform() {
+            @Override
+            public float valueAt(long timeMs) {
+                // 24 bits of a mixed hash, scaled to [-1, 1)
+                float unit = (mix(timeMs ^ seed) >>> 40) / (float) (1 << 23) - 1f;
+                return base.valueAt(timeMs) + amplitude * unit;
+            }
+        };
+    }
+
+    /**
+     * Returns the sum of this waveform and another.
+     */
+    public Waveform plus(final Waveform other) {
+        final Waveform base = this;
+        return new Waveform() {
+            @Override
+            public float valueAt(long timeMs) {
+                return base.valueAt(timeMs) + other.valueAt(timeMs);
+            }
+        };
+    }
+
+    /**
+     * Limits this waveform to [min, max].
+     */
+    public Waveform clamp(final float min, final float max) {
+        final Waveform base = this;
+        return new Waveform() {
+            @Override
+            public float valueAt(long timeMs) {
+                return Math.max(min, Math.min(max, base.valueAt(timeMs)));
+            }
+        };
+    }
+
+    // The finalizer of MurmurHash3, spreads every input bit over the whole output
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private static void checkPeriod(long periodMs) {
+        if (periodMs <= 0) {
+            throw new IllegalArgumentException("Period must be positive: " + periodMs);
+        }
+    }
+}
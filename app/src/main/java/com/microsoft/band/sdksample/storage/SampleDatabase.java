@@ -0,0 +1,138 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.storage;
+
+import java.util.Locale;
+
+import com.microsoft.band.sdksample.Util;
+import com.microsoft.band.sdksample.sensors.SensorType;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+/**
+ * The SQLite database the sensor samples of one Band are stored in, for access to its
+ * history with SQL. Every Band has its own database file, so Bands don't wait for each
+ * other's transactions.
+ * <p>
+ * Every sensor has its own table, named after its {@link SensorType} in lower case,
+ * with a timestamp column in ms since the epoch and one column per value, in the
+ * order of {@link com.microsoft.band.sdksample.recording.SessionFormat}:
+ * <pre>
+ *   accelerometer     x, y, z                              REAL (g)
+ *   gyroscope         ax, ay, az, gx, gy, gz               REAL (g, degrees/s)
+ *   distance          total_distance INTEGER (cm), speed REAL (cm/s), pace REAL (ms/m),
+ *                     pedometer_mode INTEGER
+ *   heart_rate        heart_rate INTEGER (bpm), quality INTEGER
+ *   contact           status INTEGER
+ *   skin_temperature  temperature REAL (Celsius)
+ *   ultraviolet       index_level INTEGER
+ *   pedometer         total_steps INTEGER
+ * </pre>
+ * Enum values are stored as ordinals of the corresponding Band SDK enums. The
+ * database uses write-ahead logging, so readers don't block the writer.
+ */
+public class SampleDatabase extends SQLiteOpenHelper {
+
+    private static final String NAME_PREFIX = "samples-";
+    private static final String NAME_SUFFIX = ".db";
+    private static final int VERSION = 1;
+
+    public static final String COLUMN_TIMESTAMP = "timestamp";
+
+    private static final String[][] COLUMNS = new String[SensorType.values().length + 1][];
+
+    static {
+        COLUMNS[SensorType.ACCELEROMETER.getId()] = new String[] { "x REAL", "y REAL", "z REAL" };
+        COLUMNS[SensorType.GYROSCOPE.getId()] = new String[] { "ax REAL", "ay REAL", "az REAL",
+                "gx REAL", "gy REAL", "gz REAL" };
+        COLUMNS[SensorType.DISTANCE.getId()] = new String[] { "total_distance INTEGER", "speed REAL", "pace REAL",
+                "pedometer_mode INTEGER" };
+        COLUMNS[SensorType.HEART_RATE.getId()] = new String[] { "heart_rate INTEGER", "quality INTEGER" };
+        COLUMNS[SensorType.CONTACT.getId()] = new String[] { "status INTEGER" };
+        COLUMNS[SensorType.SKIN_TEMPERATURE.getId()] = new String[] { "temperature REAL" };
+        COLUMNS[SensorType.ULTRAVIOLET.getId()] = new String[] { "index_level INTEGER" };
+        COLUMNS[SensorType.PEDOMETER.getId()] = new String[] { "total_steps INTEGER" };
+    }
+
+    public SampleDatabase(Context context, String bandName) {
+        super(context, getDatabaseName(bandName), null, VERSION);
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    /**
+     * Returns the name of the database file of the Band.
+     */
+    public static String getDatabaseName(String bandName) {
+        return NAME_PREFIX + Util.toFileName(bandName) + NAME_SUFFIX;
+    }
+
+    public static String getTableName(SensorType type) {
+        return type.name().toLowerCase(Locale.US);
+    }
+
+    /**
+     * Returns the number of value columns of the sensor's table, not counting the
+     * timestamp.
+     */
+    public static int getColumnCount(SensorType type) {
+        return COLUMNS[type.getId()].length;
+    }
+
+    /**
+     * Returns an INSERT statement for the sensor's table with one parameter per column,
+     * the timestamp first.
+     */
+    public static String getInsertStatement(SensorType type) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(getTableName(type))
+                .append(" VALUES (?");
+        for (int i = getColumnCount(type); i > 0; i--) {
+            sql.append(", ?");
+        }
+        return sql.append(')').toString();
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        // With write-ahead logging a commit doesn't need to wait for the data to
+        // reach storage; at worst the last commits are lost if power is.
+        db.execSQL("PRAGMA synchronous = NORMAL");
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        for (SensorType type : SensorType.values()) {
+            String table = getTableName(type);
+            StringBuilder sql = new StringBuilder("CREATE TABLE ").append(table)
+                    .append(" (").append(COLUMN_TIMESTAMP).append(" INTEGER NOT NULL");
+            for (String column : COLUMNS[type.getId()]) {
+                sql.append(", ").append(column);
+            }
+            db.execSQL(sql.append(')').toString());
+
+            // Samples arrive in time order, so this index only ever grows at its end
+            db.execSQL("CREATE INDEX " + table + "_" + COLUMN_TIMESTAMP + " ON " + table
+                    + " (" + COLUMN_TIMESTAMP + ")");
+        }
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+    }
+}
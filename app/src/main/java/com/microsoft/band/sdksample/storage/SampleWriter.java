@@ -0,0 +1,487 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.storage;
+
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.microsoft.band.sdksample.channels.SensorChannel;
+import com.microsoft.band.sdksample.channels.SensorChannelRegistry;
+import com.microsoft.band.sdksample.sensors.SensorType;
+import com.microsoft.band.sensors.BandAccelerometerEvent;
+import com.microsoft.band.sensors.BandContactEvent;
+import com.microsoft.band.sensors.BandDistanceEvent;
+import com.microsoft.band.sensors.BandGyroscopeEvent;
+import com.microsoft.band.sensors.BandHeartRateEvent;
+import com.microsoft.band.sensors.BandPedometerEvent;
+import com.microsoft.band.sensors.BandSkinTemperatureEvent;
+import com.microsoft.band.sensors.BandUVEvent;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Writes sensor samples into a {@link SampleDatabase} on a dedicated thread.
+ * <p>
+ * The sensor threads only copy each sample into a row taken from a fixed pool and
+ * queue it, which neither blocks nor allocates. The writer thread collects the queued
+ * rows for up to {@link #COMMIT_INTERVAL_MS}, or until it has {@link #MAX_BATCH_ROWS},
+ * and inserts them in one transaction with statements compiled once per table. With
+ * both inertial sensors at their fastest rate a commit holds well over a thousand rows,
+ * and a backlog is worked off in batches of the maximum size.
+ * <p>
+ * If the writer falls so far behind that the pool runs out, new samples are dropped
+ * and counted in {@link #getDroppedCount()}; the sensors are never slowed down.
+ */
+public class SampleWriter {
+
+    private static final String TAG = "SampleWriter";
+
+    // About two minutes of all sensors at their fastest rates
+    public static final int POOL_SIZE = 16384;
+    public static final int MAX_BATCH_ROWS = 4096;
+    public static final long COMMIT_INTERVAL_MS = 10 * 1000;
+
+    // A sample of any sensor: its timestamp and up to six float, one long and one int value
+    private static class Row {
+        SensorType mType;
+        long mTimestamp;
+        final float[] mFloats = new float[6];
+        long mLong;
+        int mInt;
+    }
+
+    // Queued by close() to make the writer finish
+    private static final Row CLOSE = new Row();
+
+    private final SampleDatabase mDatabase;
+    private final ArrayBlockingQueue<Row> mFreeRows = new ArrayBlockingQueue<Row>(POOL_SIZE);
+    private final ArrayBlockingQueue<Row> mQueue = new ArrayBlockingQueue<Row>(POOL_SIZE + 1);
+    private final Thread mThread;
+
+    // Written and committed only on the writer thread; dropped on every sensor thread
+    private volatile long mWrittenCount;
+    private final AtomicLong mDroppedCount = new AtomicLong();
+    private volatile long mCommitCount;
+    private volatile long mInsertNanos;
+    private volatile RuntimeException mLastError;
+
+    public SampleWriter(SampleDatabase database) {
+        mDatabase = database;
+        for (int i = 0; i < POOL_SIZE; i++) {
+            mFreeRows.add(new Row());
+        }
+
+        mThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeRows();
+            }
+        }, TAG);
+        mThread.start();
+    }
+
+    /**
+     * Returns the number of samples committed to the database so far.
+     */
+    public long getWrittenCount() {
+        return mWrittenCount;
+    }
+
+    /**
+     * Returns the number of samples lost because the pool ran out, because their
+     * transaction failed, or because they arrived after {@link #close()}.
+     */
+    public long getDroppedCount() {
+        return mDroppedCount.get();
+    }
+
+    public long getCommitCount() {
+        return mCommitCount;
+    }
+
+    /**
+     * Returns the number of rows the writer inserted per second of time spent in its
+     * transactions, which is the sustained rate it can take; 0 before the first commit.
+     */
+    public double getInsertRate() {
+        long nanos = mInsertNanos;
+        return (nanos > 0) ? mWrittenCount * 1e9 / nanos : 0;
+    }
+
+    /**
+     * Returns the most recent database error, or null if there was none.
+     */
+    public RuntimeException getLastError() {
+        return mLastError;
+    }
+
+    //
+    // Producer side, called on the sensor threads
+    //
+
+    private Row obtain(SensorType type, long timestamp) {
+        Row row = mFreeRows.poll();
+        if (row == null) {
+            mDroppedCount.incrementAndGet();
+            return null;
+        }
+
+        row.mType = type;
+        row.mTimestamp = timestamp;
+        return row;
+    }
+
+    private void queue(Row row) {
+        // Never fails: there are only POOL_SIZE rows, and room for CLOSE
+        mQueue.offer(row);
+    }
+
+    public void writeAccelerometer(long timestamp, float x, float y, float z) {
+        Row row = obtain(SensorType.ACCELEROMETER, timestamp);
+        if (row != null) {
+            row.mFloats[0] = x;
+            row.mFloats[1] = y;
+            row.mFloats[2] = z;
+            queue(row);
+        }
+    }
+
+    public void writeGyroscope(long timestamp, float accelerationX, float accelerationY, float accelerationZ,
+            float angularVelocityX, float angularVelocityY, float angularVelocityZ) {
+        Row row = obtain(SensorType.GYROSCOPE, timestamp);
+        if (row != null) {
+            float[] floats = row.mFloats;
+            floats[0] = accelerationX;
+            floats[1] = accelerationY;
+            floats[2] = accelerationZ;
+            floats[3] = angularVelocityX;
+            floats[4] = angularVelocityY;
+            floats[5] = angularVelocityZ;
+            queue(row);
+        }
+    }
+
+    public void writeDistance(long timestamp, long totalDistance, float speed, float pace, int pedometerMode) {
+        Row row = obtain(SensorType.DISTANCE, timestamp);
+        if (row != null) {
+            row.mLong = totalDistance;
+            row.mFloats[0] = speed;
+            row.mFloats[1] = pace;
+            row.mInt = pedometerMode;
+            queue(row);
+        }
+    }
+
+    public void writeHeartRate(long timestamp, int heartRate, int quality) {
+        Row row = obtain(SensorType.HEART_RATE, timestamp);
+        if (row != null) {
+            row.mLong = heartRate;
+            row.mInt = quality;
+            queue(row);
+        }
+    }
+
+    public void writeContact(long timestamp, int contactStatus) {
+        Row row = obtain(SensorType.CONTACT, timestamp);
+        if (row != null) {
+            row.mInt = contactStatus;
+            queue(row);
+        }
+    }
+
+    public void writeSkinTemperature(long timestamp, float temperature) {
+        Row row = obtain(SensorType.SKIN_TEMPERATURE, timestamp);
+        if (row != null) {
+            row.mFloats[0] = temperature;
+            queue(row);
+        }
+    }
+
+    public void writeUV(long timestamp, int uvIndexLevel) {
+        Row row = obtain(SensorType.ULTRAVIOLET, timestamp);
+        if (row != null) {
+            row.mInt = uvIndexLevel;
+            queue(row);
+        }
+    }
+
+    public void writePedometer(long timestamp, long totalSteps) {
+        Row row = obtain(SensorType.PEDOMETER, timestamp);
+        if (row != null) {
+            row.mLong = totalSteps;
+            queue(row);
+        }
+    }
+
+    /**
+     * Writes every sample of the registry's channels until {@link #removeFrom} is called.
+     */
+    public void addTo(SensorChannelRegistry channels) {
+        channels.getAccelerometer().addConsumer(mAccelerometerConsumer);
+        channels.getGyroscope().addConsumer(mGyroscopeConsumer);
+        channels.getDistance().addConsumer(mDistanceConsumer);
+        channels.getHeartRate().addConsumer(mHeartRateConsumer);
+        channels.getContact().addConsumer(mContactConsumer);
+        channels.getSkinTemperature().addConsumer(mSkinTemperatureConsumer);
+        channels.getUltraviolet().addConsumer(mUltravioletConsumer);
+        channels.getPedometer().addConsumer(mPedometerConsumer);
+    }
+
+    public void removeFrom(SensorChannelRegistry channels) {
+        channels.getAccelerometer().removeConsumer(mAccelerometerConsumer);
+        channels.getGyroscope().removeConsumer(mGyroscopeConsumer);
+        channels.getDistance().removeConsumer(mDistanceConsumer);
+        channels.getHeartRate().removeConsumer(mHeartRateConsumer);
+        channels.getContact().removeConsumer(mContactConsumer);
+        channels.getSkinTemperature().removeConsumer(mSkinTemperatureConsumer);
+        channels.getUltraviolet().removeConsumer(mUltravioletConsumer);
+        channels.getPedometer().removeConsumer(mPedometerConsumer);
+    }
+
+    /**
+     * Commits whatever is queued, stops the writer thread and closes the database.
+     * Blocks until that is done, so don't call it on the UI thread.
+     */
+    public void close() {
+        mQueue.offer(CLOSE);
+        try {
+            mThread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        mDatabase.close();
+    }
+
+    //
+    // Writer thread
+    //
+
+    private void writeRows() {
+        SQLiteStatement[] statements = new SQLiteStatement[SensorType.values().length + 1];
+        ArrayList<Row> batch = new ArrayList<Row>(MAX_BATCH_ROWS);
+        boolean closing = false;
+
+        try {
+            SQLiteDatabase db = mDatabase.getWritableDatabase();
+            for (SensorType type : SensorType.values()) {
+                statements[type.getId()] = db.compileStatement(SampleDatabase.getInsertStatement(type));
+            }
+
+            while (!closing) {
+                closing = collectBatch(batch);
+                if (!batch.isEmpty()) {
+                    insertBatch(db, statements, batch);
+                }
+            }
+        } catch (RuntimeException ex) {
+            // The database can't be opened; nothing will ever be written
+            Log.e(TAG, "Can't write samples", ex);
+            mLastError = ex;
+        } catch (InterruptedException ex) {
+            // Only close() stops us
+        } finally {
+            for (SQLiteStatement statement : statements) {
+                if (statement != null) {
+                    statement.close();
+                }
+            }
+        }
+
+        // Count whatever could not be written, and keep counting late samples
+        mFreeRows.clear();
+        mDroppedCount.addAndGet(batch.size() + mQueue.size());
+        mQueue.clear();
+
+        Log.i(TAG, String.format(Locale.US, "Wrote %d samples in %d commits at %.0f rows/s, dropped %d",
+                mWrittenCount, mCommitCount, getInsertRate(), mDroppedCount.get()));
+    }
+
+    /**
+     * Waits for the next rows and collects them into the batch until it is full or the
+     * commit interval has passed since its first row.
+     *
+     * @return true if close() was called
+     */
+    private boolean collectBatch(ArrayList<Row> batch) throws InterruptedException {
+        Row row = mQueue.take();
+        long deadline = SystemClock.elapsedRealtime() + COMMIT_INTERVAL_MS;
+
+        while (row != CLOSE) {
+            batch.add(row);
+            if (batch.size() == MAX_BATCH_ROWS) {
+                return false;
+            }
+
+            row = mQueue.poll();
+            if (row == null) {
+                long remaining = deadline - SystemClock.elapsedRealtime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                row = mQueue.poll(remaining, TimeUnit.MILLISECONDS);
+                if (row == null) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void insertBatch(SQLiteDatabase db, SQLiteStatement[] statements, ArrayList<Row> batch) {
+        long start = System.nanoTime();
+        int count = batch.size();
+
+        db.beginTransactionNonExclusive();
+        try {
+            for (int i = 0; i < count; i++) {
+                Row row = batch.get(i);
+                SQLiteStatement statement = statements[row.mType.getId()];
+                bind(statement, row);
+                statement.executeInsert();
+            }
+            db.setTransactionSuccessful();
+            mWrittenCount += count;
+            mCommitCount++;
+        } catch (RuntimeException ex) {
+            Log.w(TAG, "Writing " + count + " samples failed", ex);
+            mLastError = ex;
+            mDroppedCount.addAndGet(count);
+        } finally {
+            try {
+                db.endTransaction();
+            } catch (RuntimeException ex) {
+                mLastError = ex;
+            }
+        }
+
+        mInsertNanos += System.nanoTime() - start;
+
+        for (int i = 0; i < count; i++) {
+            mFreeRows.offer(batch.get(i));
+        }
+        batch.clear();
+    }
+
+    private static void bind(SQLiteStatement statement, Row row) {
+        float[] floats = row.mFloats;
+        statement.bindLong(1, row.mTimestamp);
+
+        switch (row.mType) {
+        case ACCELEROMETER:
+            statement.bindDouble(2, floats[0]);
+            statement.bindDouble(3, floats[1]);
+            statement.bindDouble(4, floats[2]);
+            break;
+        case GYROSCOPE:
+            for (int i = 0; i < 6; i++) {
+                statement.bindDouble(2 + i, floats[i]);
+            }
+            break;
+        case DISTANCE:
+            statement.bindLong(2, row.mLong);
+            statement.bindDouble(3, floats[0]);
+            statement.bindDouble(4, floats[1]);
+            statement.bindLong(5, row.mInt);
+            break;
+        case HEART_RATE:
+            statement.bindLong(2, row.mLong);
+            statement.bindLong(3, row.mInt);
+            break;
+        case CONTACT:
+        case ULTRAVIOLET:
+            statement.bindLong(2, row.mInt);
+            break;
+        case SKIN_TEMPERATURE:
+            statement.bindDouble(2, floats[0]);
+            break;
+        case PEDOMETER:
+            statement.bindLong(2, row.mLong);
+            break;
+        }
+    }
+
+    //
+    // Channel consumers
+    //
+
+    private SensorChannel.Consumer<BandAccelerometerEvent> mAccelerometerConsumer = new SensorChannel.Consumer<BandAccelerometerEvent>() {
+        @Override
+        public void onSample(SensorType type, BandAccelerometerEvent event) {
+            writeAccelerometer(event.getTimestamp(),
+                    event.getAccelerationX(), event.getAccelerationY(), event.getAccelerationZ());
+        }
+    };
+
+    private SensorChannel.Consumer<BandGyroscopeEvent> mGyroscopeConsumer = new SensorChannel.Consumer<BandGyroscopeEvent>() {
+        @Override
+        public void onSample(SensorType type, BandGyroscopeEvent event) {
+            writeGyroscope(event.getTimestamp(),
+                    event.getAccelerationX(), event.getAccelerationY(), event.getAccelerationZ(),
+                    event.getAngularVelocityX(), event.getAngularVelocityY(), event.getAngularVelocityZ());
+        }
+    };
+
+    private SensorChannel.Consumer<BandDistanceEvent> mDistanceConsumer = new SensorChannel.Consumer<BandDistanceEvent>() {
+        @Override
+        public void onSample(SensorType type, BandDistanceEvent event) {
+            writeDistance(event.getTimestamp(), event.getTotalDistance(),
+                    event.getSpeed(), event.getPace(), event.getPedometerMode().ordinal());
+        }
+    };
+
+    private SensorChannel.Consumer<BandHeartRateEvent> mHeartRateConsumer = new SensorChannel.Consumer<BandHeartRateEvent>() {
+        @Override
+        public void onSample(SensorType type, BandHeartRateEvent event) {
+            writeHeartRate(event.getTimestamp(), event.getHeartRate(), event.getQuality().ordinal());
+        }
+    };
+
+    private SensorChannel.Consumer<BandContactEvent> mContactConsumer = new SensorChannel.Consumer<BandContactEvent>() {
+        @Override
+        public void onSample(SensorType type, BandContactEvent event) {
+            writeContact(event.getTimestamp(), event.getContactStatus().ordinal());
+        }
+    };
+
+    private SensorChannel.Consumer<BandSkinTemperatureEvent> mSkinTemperatureConsumer = new SensorChannel.Consumer<BandSkinTemperatureEvent>() {
+        @Override
+        public void onSample(SensorType type, BandSkinTemperatureEvent event) {
+            writeSkinTemperature(event.getTimestamp(), event.getTemperature());
+        }
+    };
+
+    private SensorChannel.Consumer<BandUVEvent> mUltravioletConsumer = new SensorChannel.Consumer<BandUVEvent>() {
+        @Override
+        public void onSample(SensorType type, BandUVEvent event) {
+            writeUV(event.getTimestamp(), event.getUVIndexLevel().ordinal());
+        }
+    };
+
+    private SensorChannel.Consumer<BandPedometerEvent> mPedometerConsumer = new SensorChannel.Consumer<BandPedometerEvent>() {
+        @Override
+        public void onSample(SensorType type, BandPedometerEvent event) {
+            writePedometer(event.getTimestamp(), event.getTotalSteps());
+        }
+    };
+}
@@ -0,0 +1,254 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.benchmarks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.microsoft.band.sdksample.codec.BlockDecoder;
+import com.microsoft.band.sdksample.codec.BlockEncoder;
+import com.microsoft.band.sdksample.codec.BlockFormat;
+import com.microsoft.band.sdksample.recording.SessionExporter;
+import com.microsoft.band.sdksample.sensors.SensorType;
+
+/**
+ * Measures compressing a block of samples with {@link BlockEncoder} and decoding all of
+ * its columns again with {@link BlockDecoder}, in samples per microsecond, for streams
+ * shaped like what a Band on the wrist of someone walking delivers:
+ * <ul>
+ * <li>ACCELEROMETER: 62 Hz with a few ms of jitter, values in steps of 1/4096 g</li>
+ * <li>SKIN_TEMPERATURE: every 30 s, drifting slowly in steps of 0.01 degrees</li>
+ * <li>HEART_RATE: every second, a wandering rate and the quality enum, which is locked
+ * apart from a few short spells of acquiring</li>
+ * <li>ULTRAVIOLET: every minute, the index level enum, which rarely changes</li>
+ * </ul>
+ * The size of the blocks, in bytes per sample next to the uncompressed size, is printed
+ * at the end of each trial, since JMH only reports rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    // The block size of the columnar export
+    private static final int SAMPLES = SessionExporter.BLOCK_SAMPLES;
+
+    @Param({ "ACCELEROMETER", "SKIN_TEMPERATURE", "HEART_RATE", "ULTRAVIOLET" })
+    public SensorType mType;
+
+    private BlockFormat.ColumnType[] mColumnTypes;
+    private final long[] mTimestamps = new long[SAMPLES];
+    private float[][] mFloats;
+    private long[][] mCounters;
+    private int[][] mEnums;
+
+    private BlockEncoder mEncoder;
+    private ByteBuffer mBlock;
+    private int mBlockSize;
+
+    // Decoded into by the decode benchmark
+    private final long[] mDecodedTimestamps = new long[SAMPLES];
+    private final float[] mDecodedFloats = new float[SAMPLES];
+    private final long[] mDecodedCounters = new long[SAMPLES];
+    private final int[] mDecodedEnums = new int[SAMPLES];
+
+    @Setup
+    public void setUp() {
+        int columnCount = BlockFormat.getColumnCount(mType);
+        mColumnTypes = new BlockFormat.ColumnType[columnCount];
+        mFloats = new float[columnCount][];
+        mCounters = new long[columnCount][];
+        mEnums = new int[columnCount][];
+        for (int i = 0; i < columnCount; i++) {
+            mColumnTypes[i] = BlockFormat.getColumnType(mType, i);
+            switch (mColumnTypes[i]) {
+            case FLOAT:
+                mFloats[i] = new float[SAMPLES];
+                break;
+            case COUNTER:
+                mCounters[i] = new long[SAMPLES];
+                break;
+            case ENUM:
+                mEnums[i] = new int[SAMPLES];
+                break;
+            }
+        }
+
+        generate(new Random(42));
+
+        mEncoder = new BlockEncoder(mType, SAMPLES);
+        encodeBlock();
+        mBlockSize = mEncoder.finish();
+        mBlock = ByteBuffer.allocate(mBlockSize);
+        mEncoder.writeTo(mBlock);
+        mBlock.flip();
+    }
+
+    private void generate(Random random) {
+        long timestamp = 1444041600000L;
+        switch (mType) {
+        case ACCELEROMETER:
+            for (int i = 0; i < SAMPLES; i++) {
+                timestamp += 16 + random.nextInt(3) - 1;
+                mTimestamps[i] = timestamp;
+
+                // Arm swing at about two steps a second, gravity mostly along z
+                double phase = 2 * Math.PI * 1.8 * timestamp / 1000.0;
+                mFloats[0][i] = toSteps(0.25 * Math.sin(phase) + 0.02 * random.nextGaussian(), 4096);
+                mFloats[1][i] = toSteps(0.15 * Math.cos(phase) + 0.02 * random.nextGaussian(), 4096);
+                mFloats[2][i] = toSteps(-0.97 + 0.1 * Math.sin(2 * phase) + 0.02 * random.nextGaussian(), 4096);
+            }
+            break;
+        case SKIN_TEMPERATURE:
+            double temperature = 31.5;
+            for (int i = 0; i < SAMPLES; i++) {
+                timestamp += 30000;
+                mTimestamps[i] = timestamp;
+                temperature += 0.02 * random.nextGaussian();
+                mFloats[0][i] = toSteps(temperature, 100);
+            }
+            break;
+        case HEART_RATE:
+            double rate = 72;
+            int acquiring = 10;
+            for (int i = 0; i < SAMPLES; i++) {
+                timestamp += 1000;
+                mTimestamps[i] = timestamp;
+                rate = Math.max(50, Math.min(160, rate + random.nextGaussian()));
+                mCounters[0][i] = Math.round(rate);
+
+                // HeartRateQuality: ACQUIRING, LOCKED
+                if (acquiring == 0 && random.nextInt(500) == 0) {
+                    acquiring = 5 + random.nextInt(10);
+                }
+                mEnums[1][i] = (acquiring > 0) ? 0 : 1;
+                if (acquiring > 0) {
+                    acquiring--;
+                }
+            }
+            break;
+        case ULTRAVIOLET:
+            int level = 0;
+            for (int i = 0; i < SAMPLES; i++) {
+                timestamp += 60000;
+                mTimestamps[i] = timestamp;
+
+                // UVIndexLevel: NONE to VERY_HIGH
+                if (random.nextInt(40) == 0) {
+                    level = Math.max(0, Math.min(4, level + random.nextInt(3) - 1));
+                }
+                mEnums[0][i] = level;
+            }
+            break;
+        default:
+            throw new IllegalArgumentException("No stream for " + mType);
+        }
+    }
+
+    private static float toSteps(double value, int stepsPerUnit) {
+        return (float) Math.rint(value * stepsPerUnit) / stepsPerUnit;
+    }
+
+    private void encodeBlock() {
+        BlockFormat.ColumnType[] columnTypes = mColumnTypes;
+        for (int i = 0; i < SAMPLES; i++) {
+            mEncoder.beginSample(mTimestamps[i]);
+            for (int column = 0; column < columnTypes.length; column++) {
+                switch (columnTypes[column]) {
+                case FLOAT:
+                    mEncoder.putFloat(mFloats[column][i]);
+                    break;
+                case COUNTER:
+                    mEncoder.putCounter(mCounters[column][i]);
+                    break;
+                case ENUM:
+                    mEncoder.putEnum(mEnums[column][i]);
+                    break;
+                }
+            }
+        }
+    }
+
+    @TearDown
+    public void printBlockSize() {
+        int uncompressed = 8 + 4 * mColumnTypes.length;
+        System.out.println(String.format(Locale.US, "%s: %.2f bytes per sample, %d uncompressed", mType,
+                (double) mBlockSize / SAMPLES, uncompressed));
+    }
+
+    /**
+     * Encodes a block and copies it out, as the columnar export does.
+     */
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public ByteBuffer encode() {
+        encodeBlock();
+        mBlock.clear();
+        mEncoder.writeTo(mBlock);
+        return mBlock;
+    }
+
+    /**
+     * Reads the header of a block and decodes every column.
+     */
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public long decode() throws IOException {
+        mBlock.rewind();
+        BlockDecoder decoder = BlockDecoder.read(mBlock);
+        decoder.decodeTimestamps(mDecodedTimestamps);
+        long checksum = mDecodedTimestamps[SAMPLES - 1];
+        for (int column = 0; column < mColumnTypes.length; column++) {
+            switch (mColumnTypes[column]) {
+            case FLOAT:
+                decoder.decodeFloats(column, mDecodedFloats);
+                checksum += Float.floatToRawIntBits(mDecodedFloats[SAMPLES - 1]);
+                break;
+            case COUNTER:
+                decoder.decodeCounters(column, mDecodedCounters);
+                checksum += mDecodedCounters[SAMPLES - 1];
+                break;
+            case ENUM:
+                decoder.decodeEnums(column, mDecodedEnums);
+                checksum += mDecodedEnums[SAMPLES - 1];
+                break;
+            }
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,98 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.microsoft.band.sdksample.color.ColorConversion;
+
+/**
+ * Measures the color math of the color picker: the gradient colors the color area
+ * regenerates whenever the hue changes, the colors of the hue bar it renders when it is
+ * created, and finding the hue of a color.
+ * <p>
+ * Only the math is measured; drawing the gradients into bitmaps needs Android.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColorBenchmark {
+
+    private static final int HUE_COUNT = 360;
+
+    private final int[] mBaseColors = new int[HUE_COUNT];
+    private final int[] mGradient = new int[ColorConversion.MAX_CHANNEL + 1];
+    private final int[] mHueBar = new int[HUE_COUNT];
+    private int mIndex;
+
+    @Setup
+    public void setUp() {
+        for (int hue = 0; hue < HUE_COUNT; hue++) {
+            mBaseColors[hue] = ColorConversion.hueToColor(hue);
+        }
+    }
+
+    private int nextBaseColor() {
+        int color = mBaseColors[mIndex];
+        mIndex = (mIndex + 1) % HUE_COUNT;
+        return color;
+    }
+
+    /**
+     * The top colors of the columns of the color area, as ColorAreaPicker.updateMainColors
+     * computes them for a new hue.
+     */
+    @Benchmark
+    public int[] areaGradient() {
+        int baseColor = nextBaseColor();
+        for (int x = 0; x < mGradient.length; x++) {
+            mGradient[x] = ColorConversion.areaColor(baseColor, x, 0);
+        }
+        return mGradient;
+    }
+
+    /**
+     * The colors of the hue bar, as HueBarSlider.preRenderHueBar computes them.
+     */
+    @Benchmark
+    public int[] hueBar() {
+        for (int hue = 0; hue < HUE_COUNT; hue++) {
+            mHueBar[hue] = ColorConversion.hueToColor(hue);
+        }
+        return mHueBar;
+    }
+
+    @Benchmark
+    public float getHue() {
+        return ColorConversion.getHue(nextBaseColor());
+    }
+}
@@ -0,0 +1,85 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.benchmarks;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.microsoft.band.sdksample.text.FixedPointFormatter;
+
+/**
+ * Measures formatting the values the sensor sections show on every frame, with
+ * {@link FixedPointFormatter} as they do and with String.format as a baseline.
+ * <p>
+ * The values are accelerations in g as the Band reports them, cycled through so the
+ * number of digits varies like it does on screen.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormattingBenchmark {
+
+    // A power of two, so the next value is found with a mask
+    private static final int VALUE_COUNT = 1024;
+
+    private final float[] mValues = new float[VALUE_COUNT];
+    private final char[] mChars = new char[FixedPointFormatter.MAX_NUMBER_LENGTH];
+    private int mIndex;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            mValues[i] = (random.nextFloat() - 0.5f) * 8;
+        }
+    }
+
+    private float next() {
+        return mValues[mIndex++ & (VALUE_COUNT - 1)];
+    }
+
+    @Benchmark
+    public int formatFixed() {
+        return FixedPointFormatter.formatFixed(next(), 3, mChars, 0);
+    }
+
+    @Benchmark
+    public int formatLong() {
+        return FixedPointFormatter.formatLong((long) (next() * 1000), mChars, 0);
+    }
+
+    @Benchmark
+    public String stringFormat() {
+        return String.format(Locale.US, "%.3f", next());
+    }
+}
@@ -0,0 +1,277 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.microsoft.band.sdksample.fusion.ComplementaryFilter;
+import com.microsoft.band.sdksample.fusion.MadgwickFilter;
+import com.microsoft.band.sdksample.fusion.MahonyFilter;
+import com.microsoft.band.sdksample.fusion.OrientationFilter;
+import com.microsoft.band.sdksample.recording.SessionReader;
+import com.microsoft.band.sdksample.sensors.SensorType;
+
+/**
+ * Measures the orientation filters over a minute of gyroscope samples at 62 Hz, in
+ * samples per microsecond. Before measuring, each filter is run over the samples once
+ * and checked for accuracy; a filter that is off by more than
+ * {@link #MAX_ERROR_DEGREES} fails the benchmark, so a faster but broken filter can't
+ * go unnoticed.
+ * <p>
+ * By default the samples are synthetic: the Band rolling at a constant rate while
+ * pitched up, with the noise of the real sensors added. The orientation of that motion
+ * is known at every sample, and the check is the largest angle between it and the
+ * filter's. The filters are currently off by at most 2.0 (Madgwick), 1.6 (Mahony) and
+ * 0.7 (complementary) degrees.
+ * <p>
+ * With {@code -p mSession=<directory>} (or {@code gradle jmh -Psession=<directory>})
+ * the first minute of the gyroscope records of a recorded session is replayed instead.
+ * Nothing knows the true orientation of a real recording, so the check is the mean
+ * angle between the gravity the filter expects and the measured acceleration, over the
+ * samples where the Band held still.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FusionBenchmark {
+
+    public static final String SYNTHETIC = "synthetic";
+
+    private static final int SAMPLES = 62 * 60;
+    private static final float INTERVAL_SECONDS = 0.016f;
+
+    private static final double ROLL_RATE_DEGREES = 90;
+    private static final double PITCH_DEGREES = 20;
+
+    // Noise of the Band's sensors at rest, in g and degrees/s
+    private static final double ACCELEROMETER_NOISE = 0.01;
+    private static final double GYROSCOPE_NOISE = 0.5;
+
+    // Samples the filters get to settle before the error counts
+    private static final int SETTLE_SAMPLES = 62 * 2;
+    private static final double MAX_ERROR_DEGREES = 5;
+
+    // A replayed sample is still if it measures gravity alone and barely turns
+    private static final double STILL_ACCELERATION_TOLERANCE = 0.05;
+    private static final double STILL_ROTATION_DEGREES = 10;
+
+    @Param({ "MADGWICK", "MAHONY", "COMPLEMENTARY" })
+    public String mFilterName;
+
+    @Param({ SYNTHETIC })
+    public String mSession;
+
+    private OrientationFilter mFilter;
+
+    // The stream, one sample per index
+    private final float[] mAx = new float[SAMPLES];
+    private final float[] mAy = new float[SAMPLES];
+    private final float[] mAz = new float[SAMPLES];
+    private final float[] mGx = new float[SAMPLES];
+    private final float[] mGy = new float[SAMPLES];
+    private final float[] mGz = new float[SAMPLES];
+    private final float[] mIntervals = new float[SAMPLES];
+
+    // The true orientation after each synthetic sample, as a quaternion w, x, y, z
+    private final float[][] mExpected = new float[SAMPLES][4];
+
+    private final float[] mQuaternion = new float[4];
+
+    @Setup
+    public void setUp() throws IOException {
+        mFilter = newFilter(mFilterName);
+
+        double error;
+        if (SYNTHETIC.equals(mSession)) {
+            generate(new Random(42));
+            error = measureError();
+        } else {
+            load(new File(mSession));
+            error = measureTiltError();
+        }
+        if (error > MAX_ERROR_DEGREES) {
+            throw new IllegalStateException(mFilterName + " is off by " + error + " degrees");
+        }
+    }
+
+    private static OrientationFilter newFilter(String name) {
+        if ("MADGWICK".equals(name)) {
+            return new MadgwickFilter();
+        } else if ("MAHONY".equals(name)) {
+            return new MahonyFilter();
+        } else if ("COMPLEMENTARY".equals(name)) {
+            return new ComplementaryFilter();
+        }
+        throw new IllegalArgumentException("Unknown filter " + name);
+    }
+
+    //
+    // With the yaw and pitch constant, the body rate of a roll-pitch-yaw orientation is
+    // just the roll rate about X, and gravity in the Band frame is
+    // (-sin pitch, sin roll cos pitch, cos roll cos pitch).
+    //
+    private void generate(Random random) {
+        double pitch = Math.toRadians(PITCH_DEGREES);
+        for (int i = 0; i < SAMPLES; i++) {
+            double roll = Math.toRadians(ROLL_RATE_DEGREES) * INTERVAL_SECONDS * i;
+            mAx[i] = (float) (-Math.sin(pitch) + ACCELEROMETER_NOISE * random.nextGaussian());
+            mAy[i] = (float) (Math.sin(roll) * Math.cos(pitch) + ACCELEROMETER_NOISE * random.nextGaussian());
+            mAz[i] = (float) (Math.cos(roll) * Math.cos(pitch) + ACCELEROMETER_NOISE * random.nextGaussian());
+            mGx[i] = (float) (ROLL_RATE_DEGREES + GYROSCOPE_NOISE * random.nextGaussian());
+            mGy[i] = (float) (GYROSCOPE_NOISE * random.nextGaussian());
+            mGz[i] = (float) (GYROSCOPE_NOISE * random.nextGaussian());
+            mIntervals[i] = INTERVAL_SECONDS;
+
+            double cr = Math.cos(roll / 2);
+            double sr = Math.sin(roll / 2);
+            double cp = Math.cos(pitch / 2);
+            double sp = Math.sin(pitch / 2);
+            mExpected[i][0] = (float) (cr * cp);
+            mExpected[i][1] = (float) (sr * cp);
+            mExpected[i][2] = (float) (cr * sp);
+            mExpected[i][3] = (float) (-sr * sp);
+        }
+    }
+
+    /**
+     * Reads the first SAMPLES gyroscope records of the session. The interval of the
+     * first one is taken to be the Band's fastest.
+     */
+    private void load(File session) throws IOException {
+        SessionReader reader = new SessionReader(session);
+        try {
+            int count = 0;
+            long previous = -1;
+            while (count < SAMPLES && reader.next()) {
+                if (reader.getSensorType() != SensorType.GYROSCOPE) {
+                    continue;
+                }
+
+                long timestamp = reader.getTimestamp();
+                mAx[count] = reader.getAccelerationX();
+                mAy[count] = reader.getAccelerationY();
+                mAz[count] = reader.getAccelerationZ();
+                mGx[count] = reader.getAngularVelocityX();
+                mGy[count] = reader.getAngularVelocityY();
+                mGz[count] = reader.getAngularVelocityZ();
+                mIntervals[count] = (previous < 0 || timestamp <= previous)
+                        ? INTERVAL_SECONDS : (timestamp - previous) / 1000f;
+                previous = timestamp;
+                count++;
+            }
+
+            if (count < SAMPLES) {
+                throw new IllegalArgumentException(session + " has only " + count + " gyroscope samples, "
+                        + SAMPLES + " are needed");
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Runs the filter over the stream and returns the largest angle, in degrees, between
+     * its orientation and the true one once it has settled.
+     */
+    private double measureError() {
+        mFilter.reset();
+        double largest = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            mFilter.update(mAx[i], mAy[i], mAz[i], mGx[i], mGy[i], mGz[i], mIntervals[i]);
+            if (i < SETTLE_SAMPLES) {
+                continue;
+            }
+
+            mFilter.getQuaternion(mQuaternion);
+            float[] expected = mExpected[i];
+            double dot = Math.abs(mQuaternion[0] * expected[0] + mQuaternion[1] * expected[1]
+                    + mQuaternion[2] * expected[2] + mQuaternion[3] * expected[3]);
+            largest = Math.max(largest, Math.toDegrees(2 * Math.acos(Math.min(1, dot))));
+        }
+        return largest;
+    }
+
+    /**
+     * Runs the filter over the stream and returns the mean angle, in degrees, between
+     * the direction of gravity in its orientation and the measured acceleration, over
+     * the still samples once it has settled.
+     */
+    private double measureTiltError() {
+        mFilter.reset();
+        double sum = 0;
+        int count = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            mFilter.update(mAx[i], mAy[i], mAz[i], mGx[i], mGy[i], mGz[i], mIntervals[i]);
+            double magnitude = Math.sqrt(mAx[i] * mAx[i] + mAy[i] * mAy[i] + mAz[i] * mAz[i]);
+            double rotation = Math.sqrt(mGx[i] * mGx[i] + mGy[i] * mGy[i] + mGz[i] * mGz[i]);
+            if (i < SETTLE_SAMPLES || Math.abs(magnitude - 1) > STILL_ACCELERATION_TOLERANCE
+                    || rotation > STILL_ROTATION_DEGREES) {
+                continue;
+            }
+
+            // Gravity, the Z axis of the world, rotated into the Band's frame
+            mFilter.getQuaternion(mQuaternion);
+            float w = mQuaternion[0];
+            float x = mQuaternion[1];
+            float y = mQuaternion[2];
+            float z = mQuaternion[3];
+            double gx = 2 * (x * z - w * y);
+            double gy = 2 * (y * z + w * x);
+            double gz = w * w - x * x - y * y + z * z;
+
+            double cos = (gx * mAx[i] + gy * mAy[i] + gz * mAz[i]) / magnitude;
+            sum += Math.toDegrees(Math.acos(Math.max(-1, Math.min(1, cos))));
+            count++;
+        }
+
+        if (count == 0) {
+            throw new IllegalArgumentException(mSession + " has no still samples to check the filters against");
+        }
+        return sum / count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public float update() {
+        OrientationFilter filter = mFilter;
+        filter.reset();
+        for (int i = 0; i < SAMPLES; i++) {
+            filter.update(mAx[i], mAy[i], mAz[i], mGx[i], mGy[i], mGz[i], mIntervals[i]);
+        }
+        return filter.getRoll();
+    }
+}
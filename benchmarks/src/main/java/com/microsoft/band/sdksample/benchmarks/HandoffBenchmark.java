@@ -0,0 +1,102 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.microsoft.band.sdksample.sensors.HandoffQueue;
+import com.microsoft.band.sdksample.sensors.SensorRingBuffer;
+
+/**
+ * Measures the way of a sensor event from the SDK's listener to the screen: the offer
+ * into the channel's {@link HandoffQueue} on the SDK thread against the processing
+ * thread polling it, and the {@link SensorRingBuffer} the processing thread publishes
+ * into against the UI thread taking the newest sample.
+ * <p>
+ * Each pair runs as a group of two threads sharing one queue or buffer, as they do
+ * while a sensor is captured, so the results include the cost of the cache lines going
+ * back and forth.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandoffBenchmark {
+
+    // The size of the inertial channels' queues and buffers
+    private static final int CAPACITY = 512;
+
+    private final Object mSample = new Object();
+
+    private HandoffQueue<Object> mQueue;
+    private SensorRingBuffer<Object> mBuffer;
+    private SensorRingBuffer<Object>.Cursor mCursor;
+
+    // Only used by the polling thread
+    private final long[] mTime = new long[1];
+
+    @Setup
+    public void setUp() {
+        mQueue = new HandoffQueue<Object>(CAPACITY, HandoffQueue.OverflowPolicy.DROP_OLDEST);
+        mBuffer = new SensorRingBuffer<Object>(CAPACITY);
+        mCursor = mBuffer.newCursor();
+    }
+
+    @Benchmark
+    @Group("handoff")
+    @GroupThreads(1)
+    public boolean offer() {
+        return mQueue.offer(mSample, System.nanoTime());
+    }
+
+    @Benchmark
+    @Group("handoff")
+    @GroupThreads(1)
+    public Object poll() {
+        return mQueue.poll(mTime);
+    }
+
+    @Benchmark
+    @Group("ringBuffer")
+    @GroupThreads(1)
+    public void publish() {
+        mBuffer.publish(mSample);
+    }
+
+    @Benchmark
+    @Group("ringBuffer")
+    @GroupThreads(1)
+    public Object pollLatest() {
+        return mCursor.pollLatest();
+    }
+}
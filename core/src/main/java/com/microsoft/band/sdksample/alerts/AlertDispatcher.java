@@ -0,0 +1,255 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.alerts;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Turns the alerts raised by detectors into notifications on the Band, coalesced and
+ * rate-limited so a storm of alerts can't flood the Bluetooth link.
+ * <p>
+ * The alerts are registered up front, and each gets a bit in a pending mask, like the
+ * dirty mask of the channels. {@link #post(int)} only sets the bit and, if no dispatch
+ * is scheduled yet, schedules one, so it is cheap enough for the processing threads
+ * and never waits for the Band. The dispatch runs on the dispatcher's own thread:
+ * <ul>
+ * <li>every alert pending by then goes into a single notification, so any number of
+ * alerts costs one call to the {@link Sink};</li>
+ * <li>consecutive notifications are at least the minimum interval apart; alerts
+ * posted in between wait for the next one;</li>
+ * <li>an alert that was notified less than the cooldown ago is dropped, so an anomaly
+ * that keeps coming back doesn't buzz the wearer over and over.</li>
+ * </ul>
+ */
+public class AlertDispatcher {
+
+    /**
+     * Delivers the notifications, typically as a vibration and a message on the Band.
+     */
+    public interface Sink {
+        /**
+         * Called on the dispatcher's thread, one notification at a time, so it may block
+         * until the Band has it.
+         *
+         * @param title the text of the first alert
+         * @param body  the text of every alert in the notification, one per line
+         */
+        void send(String title, String body) throws Exception;
+    }
+
+    public static final int MAX_ALERTS = 32;
+
+    public static final long DEFAULT_MIN_INTERVAL_MS = 10 * 1000;
+    public static final long DEFAULT_COOLDOWN_MS = 60 * 1000;
+
+    private final Sink mSink;
+    private final long mMinIntervalNanos;
+    private final long mCooldownNanos;
+    private final ScheduledExecutorService mExecutor;
+
+    // Registered before the dispatcher is used, read-only afterwards
+    private final ArrayList<String> mTexts = new ArrayList<String>();
+
+    private final AtomicInteger mPending = new AtomicInteger();
+    private final AtomicBoolean mScheduled = new AtomicBoolean();
+
+    // Only used on the dispatcher's thread
+    private final long[] mLastSentNanos = new long[MAX_ALERTS];
+    private int mSentMask;
+    private long mLastDispatchNanos;
+    private boolean mDispatched;
+    private final StringBuilder mBody = new StringBuilder();
+
+    private volatile boolean mClosed;
+    private final AtomicLong mPostedCount = new AtomicLong();
+    private volatile long mSentCount;
+    private volatile long mSuppressedCount;
+    private volatile int mErrorCount;
+    private volatile Exception mLastError;
+
+    public AlertDispatcher(Sink sink) {
+        this(sink, DEFAULT_MIN_INTERVAL_MS, DEFAULT_COOLDOWN_MS);
+    }
+
+    /**
+     * @param minIntervalMs the least time between two notifications
+     * @param cooldownMs    the least time before the same alert is notified again
+     */
+    public AlertDispatcher(Sink sink, long minIntervalMs, long cooldownMs) {
+        if (minIntervalMs < 0 || cooldownMs < 0) {
+            throw new IllegalArgumentException("Invalid interval");
+        }
+        mSink = sink;
+        mMinIntervalNanos = TimeUnit.MILLISECONDS.toNanos(minIntervalMs);
+        mCooldownNanos = TimeUnit.MILLISECONDS.toNanos(cooldownMs);
+        mExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "AlertDispatcher");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Registers an alert. Must be called before any alert is posted.
+     *
+     * @param text what the notification says about the alert
+     * @return the id to post the alert with
+     */
+    public synchronized int register(String text) {
+        if (mTexts.size() == MAX_ALERTS) {
+            throw new IllegalStateException("At most " + MAX_ALERTS + " alerts");
+        }
+        mTexts.add(text);
+        return mTexts.size() - 1;
+    }
+
+    /**
+     * Asks for the alert to be notified. Can be called from any thread; only sets a bit
+     * and, for the first alert since the last dispatch, schedules the next one.
+     */
+    public void post(int alert) {
+        if (mClosed) {
+            return;
+        }
+        mPostedCount.incrementAndGet();
+
+        int bit = 1 << alert;
+        for (;;) {
+            int pending = mPending.get();
+            if ((pending & bit) != 0 || mPending.compareAndSet(pending, pending | bit)) {
+                break;
+            }
+        }
+
+        if (mScheduled.compareAndSet(false, true)) {
+            try {
+                mExecutor.execute(mDispatch);
+            } catch (RejectedExecutionException ex) {
+                // Closed meanwhile; the alert is dropped like any pending one
+            }
+        }
+    }
+
+    private final Runnable mDispatch = new Runnable() {
+        @Override
+        public void run() {
+            long now = System.nanoTime();
+            long wait = mDispatched ? mLastDispatchNanos + mMinIntervalNanos - now : 0;
+            if (wait > 0) {
+                // Too soon after the previous notification; alerts keep gathering
+                if (!mClosed) {
+                    mExecutor.schedule(this, wait, TimeUnit.NANOSECONDS);
+                }
+                return;
+            }
+
+            // Alerts posted from here on schedule another dispatch
+            mScheduled.set(false);
+            dispatch(mPending.getAndSet(0), now);
+        }
+    };
+
+    private void dispatch(int pending, long now) {
+        String title = null;
+        mBody.setLength(0);
+        for (; pending != 0; pending &= pending - 1) {
+            int alert = Integer.numberOfTrailingZeros(pending);
+            int bit = 1 << alert;
+            if ((mSentMask & bit) != 0 && now - mLastSentNanos[alert] < mCooldownNanos) {
+                mSuppressedCount++;
+                continue;
+            }
+            mSentMask |= bit;
+            mLastSentNanos[alert] = now;
+
+            String text = getText(alert);
+            if (title == null) {
+                title = text;
+            } else {
+                mBody.append('\n');
+            }
+            mBody.append(text);
+        }
+        if (title == null || mClosed) {
+            return;
+        }
+
+        mDispatched = true;
+        mLastDispatchNanos = now;
+        try {
+            mSink.send(title, mBody.toString());
+            mSentCount++;
+        } catch (Exception ex) {
+            mErrorCount++;
+            mLastError = ex;
+        }
+    }
+
+    private synchronized String getText(int alert) {
+        return mTexts.get(alert);
+    }
+
+    /**
+     * Drops the pending alerts and stops the dispatcher's thread. A notification being
+     * sent is interrupted rather than waited for, so this can be called on the UI thread.
+     */
+    public void close() {
+        mClosed = true;
+        mExecutor.shutdownNow();
+    }
+
+    /**
+     * Returns the number of times alerts were posted.
+     */
+    public long getPostedCount() {
+        return mPostedCount.get();
+    }
+
+    /**
+     * Returns the number of notifications delivered to the sink.
+     */
+    public long getSentCount() {
+        return mSentCount;
+    }
+
+    /**
+     * Returns the number of alerts dropped because they were still cooling down.
+     */
+    public long getSuppressedCount() {
+        return mSuppressedCount;
+    }
+
+    public int getErrorCount() {
+        return mErrorCount;
+    }
+
+    public Exception getLastError() {
+        return mLastError;
+    }
+}
@@ -0,0 +1,84 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.alerts;
+
+/**
+ * Watches one stream of values for an anomaly, one sample at a time.
+ * <p>
+ * A detector is either clear or active. It becomes active when a sample crosses its
+ * raise condition and only clears once the samples are back past a lower clear
+ * condition, so a value hovering around the limit raises one alert rather than one per
+ * sample. {@link #update} returns true only for the sample that raised it.
+ * <p>
+ * Every detector takes constant time and doesn't allocate per sample, so it can run
+ * on a sensor's processing thread at the full sample rate. A detector is used by one
+ * thread at a time.
+ */
+public abstract class AnomalyDetector {
+
+    private boolean mActive;
+    private long mRaisedCount;
+
+    /**
+     * Evaluates the next sample of the stream.
+     *
+     * @param timestamp the sample time in milliseconds, increasing
+     * @return true if this sample raised the anomaly
+     */
+    public boolean update(long timestamp, float value) {
+        boolean active = evaluate(timestamp, value, mActive);
+        boolean raised = active && !mActive;
+        mActive = active;
+        if (raised) {
+            mRaisedCount++;
+        }
+        return raised;
+    }
+
+    /**
+     * Returns whether the stream is in the anomalous state.
+     */
+    public boolean isActive() {
+        return mActive;
+    }
+
+    /**
+     * Returns the number of times the anomaly was raised since the detector was made.
+     */
+    public long getRaisedCount() {
+        return mRaisedCount;
+    }
+
+    /**
+     * Forgets the stream, for example when capture restarts, and clears the anomaly.
+     */
+    public void reset() {
+        mActive = false;
+        onReset();
+    }
+
+    /**
+     * Takes the sample into account and returns whether the stream is anomalous now.
+     *
+     * @param active whether it was anomalous before this sample, which decides whether
+     *               the raise or the clear condition applies
+     */
+    protected abstract boolean evaluate(long timestamp, float value, boolean active);
+
+    protected abstract void onReset();
+}
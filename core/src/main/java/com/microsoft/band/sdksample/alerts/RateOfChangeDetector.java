@@ -0,0 +1,95 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.alerts;
+
+/**
+ * Raises an anomaly when the value changes faster than a given rate, such as a heart
+ * rate climbing steeply or a skin temperature dropping fast.
+ * <p>
+ * The rate between consecutive samples is smoothed with an exponential moving average
+ * over a time constant, so a single jittery sample doesn't count as a trend. The
+ * anomaly clears once the smoothed rate is back below the clear rate.
+ */
+public class RateOfChangeDetector extends AnomalyDetector {
+
+    // A longer gap, such as a pause in capture, starts the rate over
+    private static final long MAX_INTERVAL_MS = 60 * 1000;
+
+    private final float mRaiseRate;
+    private final float mClearRate;
+    private final float mTimeConstantSeconds;
+
+    private long mLastTimestamp = -1;
+    private float mLastValue;
+    private float mRate;
+
+    /**
+     * @param raiseRate           the change per second, either way, that raises the
+     *                            anomaly
+     * @param clearRate           the change per second below which it clears, less than
+     *                            raiseRate
+     * @param timeConstantSeconds how long the rate is smoothed over
+     */
+    public RateOfChangeDetector(float raiseRate, float clearRate, float timeConstantSeconds) {
+        if (!(clearRate > 0) || !(raiseRate > clearRate) || !(timeConstantSeconds > 0)) {
+            throw new IllegalArgumentException("Invalid rates " + raiseRate + ", " + clearRate);
+        }
+        mRaiseRate = raiseRate;
+        mClearRate = clearRate;
+        mTimeConstantSeconds = timeConstantSeconds;
+    }
+
+    /**
+     * Returns the smoothed change per second.
+     */
+    public float getRate() {
+        return mRate;
+    }
+
+    @Override
+    protected boolean evaluate(long timestamp, float value, boolean active) {
+        if (Float.isNaN(value)) {
+            return active;
+        }
+
+        long interval = timestamp - mLastTimestamp;
+        if (mLastTimestamp < 0 || interval > MAX_INTERVAL_MS) {
+            mLastTimestamp = timestamp;
+            mLastValue = value;
+            mRate = 0;
+            return false;
+        }
+        if (interval <= 0) {
+            return active;
+        }
+
+        float seconds = interval / 1000f;
+        float rate = (value - mLastValue) / seconds;
+        mRate += (rate - mRate) * seconds / (mTimeConstantSeconds + seconds);
+        mLastTimestamp = timestamp;
+        mLastValue = value;
+
+        return Math.abs(mRate) >= (active ? mClearRate : mRaiseRate);
+    }
+
+    @Override
+    protected void onReset() {
+        mLastTimestamp = -1;
+        mRate = 0;
+    }
+}
@@ -0,0 +1,58 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.alerts;
+
+/**
+ * Raises an anomaly when the value leaves a fixed range, and clears it once the value
+ * is back inside the range by at least the hysteresis.
+ */
+public class ThresholdDetector extends AnomalyDetector {
+
+    private final float mLow;
+    private final float mHigh;
+    private final float mHysteresis;
+
+    /**
+     * @param low        the lowest normal value, or negative infinity for no lower limit
+     * @param high       the highest normal value, or infinity for no upper limit
+     * @param hysteresis how far inside the range the value must return to clear
+     */
+    public ThresholdDetector(float low, float high, float hysteresis) {
+        if (!(high > low) || hysteresis < 0 || 2 * hysteresis >= high - low) {
+            throw new IllegalArgumentException("Invalid range " + low + " to " + high + " with hysteresis " + hysteresis);
+        }
+        mLow = low;
+        mHigh = high;
+        mHysteresis = hysteresis;
+    }
+
+    @Override
+    protected boolean evaluate(long timestamp, float value, boolean active) {
+        if (Float.isNaN(value)) {
+            return active;
+        }
+        if (active) {
+            return value > mHigh - mHysteresis || value < mLow + mHysteresis;
+        }
+        return value > mHigh || value < mLow;
+    }
+
+    @Override
+    protected void onReset() {
+    }
+}
@@ -0,0 +1,111 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.alerts;
+
+/**
+ * Raises an anomaly when a sample lies too many standard deviations from the mean of
+ * the samples before it, which catches sudden departures from whatever the stream's
+ * recent normal is, such as an impact in the acceleration magnitude.
+ * <p>
+ * The window holds the last fixed number of samples, in a ring with running sums, so
+ * a sample takes constant time: one value enters and one leaves. The sums are of the
+ * values minus the first value seen, which keeps them small and the variance accurate
+ * for streams with a large offset such as a magnitude around 1 g. Every sample joins
+ * the window, anomalous ones included, so a lasting change becomes the new normal and
+ * the anomaly clears.
+ */
+public class ZScoreDetector extends AnomalyDetector {
+
+    private final float[] mWindow;
+    private final float mRaiseScore;
+    private final float mClearScore;
+    private final float mMinDeviation;
+
+    private int mCount;
+    private int mNext;
+    private float mOffset;
+    private double mSum;
+    private double mSumOfSquares;
+
+    /**
+     * @param windowSize   the number of previous samples the mean and deviation come from;
+     *                     nothing is raised until the window is full
+     * @param raiseScore   the distance from the mean, in standard deviations, that raises
+     *                     the anomaly
+     * @param clearScore   the distance below which it clears, less than raiseScore
+     * @param minDeviation the smallest standard deviation assumed, so a window of nearly
+     *                     constant values doesn't turn noise into huge scores
+     */
+    public ZScoreDetector(int windowSize, float raiseScore, float clearScore, float minDeviation) {
+        if (windowSize < 2) {
+            throw new IllegalArgumentException("The window must hold at least 2 samples");
+        }
+        if (!(clearScore > 0) || !(raiseScore > clearScore) || !(minDeviation > 0)) {
+            throw new IllegalArgumentException("Invalid scores " + raiseScore + ", " + clearScore);
+        }
+        mWindow = new float[windowSize];
+        mRaiseScore = raiseScore;
+        mClearScore = clearScore;
+        mMinDeviation = minDeviation;
+    }
+
+    public int getWindowSize() {
+        return mWindow.length;
+    }
+
+    @Override
+    protected boolean evaluate(long timestamp, float value, boolean active) {
+        if (Float.isNaN(value)) {
+            return active;
+        }
+        if (mCount == 0) {
+            mOffset = value;
+        }
+
+        int size = mWindow.length;
+        boolean result = active;
+        if (mCount == size) {
+            double mean = mSum / size;
+            double variance = Math.max(0, (mSumOfSquares - mSum * mean) / (size - 1));
+            double deviation = Math.max(Math.sqrt(variance), mMinDeviation);
+            double score = Math.abs(value - mOffset - mean) / deviation;
+            result = score >= (active ? mClearScore : mRaiseScore);
+
+            float oldest = mWindow[mNext];
+            mSum -= oldest;
+            mSumOfSquares -= (double) oldest * oldest;
+        } else {
+            mCount++;
+        }
+
+        float shifted = value - mOffset;
+        mWindow[mNext] = shifted;
+        mSum += shifted;
+        mSumOfSquares += (double) shifted * shifted;
+        mNext = (mNext + 1 == size) ? 0 : mNext + 1;
+        return result;
+    }
+
+    @Override
+    protected void onReset() {
+        mCount = 0;
+        mNext = 0;
+        mSum = 0;
+        mSumOfSquares = 0;
+    }
+}
@@ -0,0 +1,347 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.align;
+
+import java.util.Arrays;
+
+/**
+ * Aligns streams of samples that arrive on independent schedules onto one fixed-rate
+ * clock, so computations over several sensors see all of them at the same instants.
+ * <p>
+ * Each stream has a number of signals, each resampled either by linear interpolation
+ * between the samples around a frame time, for continuous signals, or by holding the
+ * last sample at or before it, for enums and counters. The aligner is a streaming
+ * merge-join: a frame is emitted once every stream has a sample at or after its time,
+ * or once the newest sample of any stream is {@code maxLagMs} past it, so a slow or
+ * stopped stream delays the frames by at most that much. Such a stream's signals are
+ * held at their last value, and it is marked invalid in the frame once its last sample
+ * is more than {@code maxLagMs} old.
+ * <p>
+ * Every stream keeps its samples in a ring of fixed capacity, which must cover
+ * {@code maxLagMs} at the stream's rate; older samples are dropped and counted. Frames
+ * are delivered to the {@link FrameListener} in a reused {@link Frame}, on the thread
+ * that pushed the sample that completed them, so emitting a frame doesn't allocate.
+ * <p>
+ * Streams are added before the first sample is pushed. After that the aligner is
+ * thread safe; samples of different streams can be pushed from different threads.
+ */
+public class StreamAligner {
+
+    public enum Mode {
+        LINEAR,
+        HOLD
+    }
+
+    public interface FrameListener {
+        /**
+         * Called for every frame, with the aligner locked. The frame is only valid
+         * during the call.
+         */
+        void onFrame(Frame frame);
+    }
+
+    /**
+     * The values of all signals at one instant, in the order the streams and their
+     * signals were added.
+     */
+    public static class Frame {
+        private long mIndex;
+        private long mTimestamp;
+        private final float[] mValues;
+        private final boolean[] mValid;
+
+        Frame(int columnCount, int streamCount) {
+            mValues = new float[columnCount];
+            mValid = new boolean[streamCount];
+        }
+
+        /**
+         * Returns the number of the frame, counting from 0, including skipped frames.
+         */
+        public long getIndex() {
+            return mIndex;
+        }
+
+        public long getTimestamp() {
+            return mTimestamp;
+        }
+
+        public int getColumnCount() {
+            return mValues.length;
+        }
+
+        /**
+         * Returns the value of the signal in the given column, or NaN if its stream
+         * had no sample yet.
+         */
+        public float get(int column) {
+            return mValues[column];
+        }
+
+        /**
+         * Returns false if the stream had no sample at or before the frame time, or its
+         * last one is older than the maximum lag.
+         */
+        public boolean isValid(int stream) {
+            return mValid[stream];
+        }
+    }
+
+    // The samples of one stream, oldest first. After each frame only the last sample
+    // at or before its time and the later ones are kept.
+    private static class Stream {
+        final int mWidth;
+        final int mFirstColumn;
+        final Mode[] mModes;
+        final int mCapacity;
+        final long[] mTimestamps;
+        final float[] mValues;
+        int mHead;
+        int mCount;
+        long mNewest = Long.MIN_VALUE;
+
+        Stream(Mode[] modes, int firstColumn, int capacity) {
+            mWidth = modes.length;
+            mFirstColumn = firstColumn;
+            mModes = modes;
+            mCapacity = capacity;
+            mTimestamps = new long[capacity];
+            mValues = new float[capacity * modes.length];
+        }
+
+        int slot(int i) {
+            int slot = mHead + i;
+            return (slot >= mCapacity) ? slot - mCapacity : slot;
+        }
+
+        void dropOldest() {
+            mHead = slot(1);
+            mCount--;
+        }
+    }
+
+    private final long mPeriodMs;
+    private final long mMaxLagMs;
+
+    private Stream[] mStreams = new Stream[0];
+    private int mColumnCount;
+    private FrameListener mListener;
+    private Frame mFrame;
+
+    private boolean mStarted;
+    private long mNextFrameTime;
+    private long mNextFrameIndex;
+    private long mNewest = Long.MIN_VALUE;
+
+    private long mDroppedCount;
+    private long mSkippedFrameCount;
+
+    /**
+     * @param periodMs the time between frames
+     * @param maxLagMs how long frames wait for a late stream
+     */
+    public StreamAligner(long periodMs, long maxLagMs) {
+        if (periodMs <= 0 || maxLagMs < 0) {
+            throw new IllegalArgumentException("Invalid period or lag: " + periodMs + ", " + maxLagMs);
+        }
+        mPeriodMs = periodMs;
+        mMaxLagMs = maxLagMs;
+    }
+
+    public long getPeriod() {
+        return mPeriodMs;
+    }
+
+    /**
+     * Adds a stream with one signal per mode.
+     *
+     * @param capacity the number of samples the stream buffers
+     * @return the index of the stream, to push its samples with
+     */
+    public synchronized int addStream(Mode[] modes, int capacity) {
+        if (mStarted) {
+            throw new IllegalStateException("Streams must be added before the first sample");
+        }
+        if (modes.length == 0 || capacity < 2) {
+            throw new IllegalArgumentException("A stream needs a signal and room for two samples");
+        }
+
+        int index = mStreams.length;
+        mStreams = Arrays.copyOf(mStreams, index + 1);
+        mStreams[index] = new Stream(modes.clone(), mColumnCount, capacity);
+        mColumnCount += modes.length;
+        mFrame = new Frame(mColumnCount, mStreams.length);
+        return index;
+    }
+
+    /**
+     * Returns the frame column of the given signal of a stream.
+     */
+    public int getColumn(int stream, int signal) {
+        return mStreams[stream].mFirstColumn + signal;
+    }
+
+    public synchronized void setListener(FrameListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Returns the number of samples dropped because their stream's buffer was full, or
+     * because they were out of order.
+     */
+    public synchronized long getDroppedCount() {
+        return mDroppedCount;
+    }
+
+    /**
+     * Returns the number of frames skipped over gaps in all streams.
+     */
+    public synchronized long getSkippedFrameCount() {
+        return mSkippedFrameCount;
+    }
+
+    /**
+     * Adds a sample to a stream and emits the frames it completes. Samples of each
+     * stream must come in time order.
+     *
+     * @param values one value per signal of the stream, copied
+     */
+    public synchronized void push(int streamIndex, long timestamp, float[] values) {
+        Stream stream = mStreams[streamIndex];
+        if (timestamp <= stream.mNewest) {
+            mDroppedCount++;
+            return;
+        }
+
+        if (stream.mCount == stream.mCapacity) {
+            stream.dropOldest();
+            mDroppedCount++;
+        }
+        int slot = stream.slot(stream.mCount++);
+        stream.mTimestamps[slot] = timestamp;
+        System.arraycopy(values, 0, stream.mValues, slot * stream.mWidth, stream.mWidth);
+        stream.mNewest = timestamp;
+
+        if (timestamp > mNewest) {
+            mNewest = timestamp;
+        }
+        if (!mStarted) {
+            // The first frame is the first multiple of the period from here
+            mStarted = true;
+            mNextFrameTime = ceilDiv(timestamp, mPeriodMs) * mPeriodMs;
+        }
+
+        emitFrames();
+    }
+
+    /**
+     * Forgets every sample and restarts the clock with the next one.
+     */
+    public synchronized void reset() {
+        for (Stream stream : mStreams) {
+            stream.mHead = 0;
+            stream.mCount = 0;
+            stream.mNewest = Long.MIN_VALUE;
+        }
+        mStarted = false;
+        mNextFrameIndex = 0;
+        mNewest = Long.MIN_VALUE;
+    }
+
+    private void emitFrames() {
+        // After a gap in every stream, jump to the frames that can still be interpolated
+        // instead of emitting one for every period of the gap
+        long latestDue = mNewest - mMaxLagMs;
+        if (latestDue - mNextFrameTime > mMaxLagMs + mPeriodMs) {
+            long skipped = (latestDue - mNextFrameTime) / mPeriodMs;
+            mNextFrameTime += skipped * mPeriodMs;
+            mNextFrameIndex += skipped;
+            mSkippedFrameCount += skipped;
+        }
+
+        while (isComplete(mNextFrameTime)) {
+            fillFrame(mNextFrameTime);
+            if (mListener != null) {
+                mListener.onFrame(mFrame);
+            }
+            mNextFrameTime += mPeriodMs;
+        }
+    }
+
+    private boolean isComplete(long time) {
+        if (mNewest - time >= mMaxLagMs) {
+            return true;
+        }
+        for (Stream stream : mStreams) {
+            if (stream.mNewest < time) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void fillFrame(long time) {
+        Frame frame = mFrame;
+        frame.mIndex = mNextFrameIndex++;
+        frame.mTimestamp = time;
+        float[] out = frame.mValues;
+
+        for (int s = 0; s < mStreams.length; s++) {
+            Stream stream = mStreams[s];
+
+            // Keep the last sample at or before the frame time as the oldest
+            while (stream.mCount >= 2 && stream.mTimestamps[stream.slot(1)] <= time) {
+                stream.dropOldest();
+            }
+
+            int width = stream.mWidth;
+            int column = stream.mFirstColumn;
+            if (stream.mCount == 0 || stream.mTimestamps[stream.mHead] > time) {
+                Arrays.fill(out, column, column + width, Float.NaN);
+                frame.mValid[s] = false;
+                continue;
+            }
+
+            int before = stream.mHead;
+            long t0 = stream.mTimestamps[before];
+            frame.mValid[s] = (time - t0 <= mMaxLagMs);
+
+            if (stream.mCount == 1) {
+                System.arraycopy(stream.mValues, before * width, out, column, width);
+                continue;
+            }
+
+            int after = stream.slot(1);
+            float fraction = (float) (time - t0) / (stream.mTimestamps[after] - t0);
+            float[] values = stream.mValues;
+            for (int i = 0; i < width; i++) {
+                float v0 = values[before * width + i];
+                if (stream.mModes[i] == Mode.LINEAR) {
+                    out[column + i] = v0 + (values[after * width + i] - v0) * fraction;
+                } else {
+                    out[column + i] = v0;
+                }
+            }
+        }
+    }
+
+    private static long ceilDiv(long x, long y) {
+        long quotient = x / y;
+        return (quotient * y < x && x > 0) ? quotient + 1 : quotient;
+    }
+}
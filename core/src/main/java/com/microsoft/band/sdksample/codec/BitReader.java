@@ -0,0 +1,97 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.codec;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads values written by a {@link BitWriter} from a region of a buffer.
+ * <p>
+ * The buffer is read with absolute gets, so its position is never changed and a
+ * memory-mapped file can be read in place. Reading past the end of the region throws
+ * a {@link BufferUnderflowException}. Not thread safe.
+ */
+public class BitReader {
+
+    private final ByteBuffer mBuffer;
+    private final long mBitLength;
+    private int mBytePosition;
+    private long mBitPosition;
+
+    // Bits read from the buffer but not returned yet, right aligned
+    private long mPending;
+    private int mPendingBits;
+
+    /**
+     * @param offset    the index of the first byte of the region in the buffer
+     * @param bitLength the number of valid bits in the region
+     */
+    public BitReader(ByteBuffer buffer, int offset, long bitLength) {
+        mBuffer = buffer;
+        mBytePosition = offset;
+        mBitLength = bitLength;
+    }
+
+    /**
+     * Reads count bits, up to 64, and returns them as the lowest bits of the result.
+     */
+    public long readBits(int count) {
+        if (count > 32) {
+            long high = readBits(count - 32);
+            return (high << 32) | readBits(32);
+        }
+        if (count <= 0) {
+            return 0;
+        }
+        if (mBitPosition + count > mBitLength) {
+            throw new BufferUnderflowException();
+        }
+
+        while (mPendingBits < count) {
+            mPending = (mPending << 8) | (mBuffer.get(mBytePosition++) & 0xff);
+            mPendingBits += 8;
+        }
+
+        mPendingBits -= count;
+        mBitPosition += count;
+        long value = (mPending >>> mPendingBits) & ((1L << count) - 1);
+        mPending &= (1L << mPendingBits) - 1;
+        return value;
+    }
+
+    public boolean readBit() {
+        return readBits(1) != 0;
+    }
+
+    /**
+     * Reads count bits and sign-extends them from the highest one.
+     */
+    public long readSignedBits(int count) {
+        long value = readBits(count);
+        int shift = 64 - count;
+        return (value << shift) >> shift;
+    }
+
+    /**
+     * Returns the number of bits that can still be read.
+     */
+    public long getRemainingBits() {
+        return mBitLength - mBitPosition;
+    }
+}
@@ -0,0 +1,103 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.codec;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Appends values of any width up to 64 bits to a growable byte array, most
+ * significant bit first.
+ * <p>
+ * Bits are collected in a long and stored a byte at a time, so writing doesn't
+ * allocate unless the array has to grow. Not thread safe.
+ */
+public class BitWriter {
+
+    private byte[] mBytes;
+    private int mByteLength;
+
+    // Bits written but not stored yet, right aligned; always fewer than 8 between calls
+    private long mPending;
+    private int mPendingBits;
+
+    public BitWriter(int initialCapacityBytes) {
+        mBytes = new byte[Math.max(initialCapacityBytes, 16)];
+    }
+
+    /**
+     * Writes the lowest count bits of value.
+     */
+    public void writeBits(long value, int count) {
+        if (count > 32) {
+            writeBits(value >>> 32, count - 32);
+            writeBits(value, 32);
+            return;
+        }
+        if (count <= 0) {
+            return;
+        }
+
+        mPending = (mPending << count) | (value & ((1L << count) - 1));
+        mPendingBits += count;
+
+        while (mPendingBits >= 8) {
+            mPendingBits -= 8;
+            if (mByteLength == mBytes.length) {
+                mBytes = Arrays.copyOf(mBytes, mBytes.length * 2);
+            }
+            mBytes[mByteLength++] = (byte) (mPending >>> mPendingBits);
+        }
+        mPending &= (1L << mPendingBits) - 1;
+    }
+
+    public void writeBit(boolean bit) {
+        writeBits(bit ? 1 : 0, 1);
+    }
+
+    /**
+     * Returns the number of bits written since the last reset.
+     */
+    public long getBitLength() {
+        return mByteLength * 8L + mPendingBits;
+    }
+
+    /**
+     * Returns the number of bytes {@link #copyTo} writes, with the last byte padded.
+     */
+    public int getByteLength() {
+        return mByteLength + (mPendingBits > 0 ? 1 : 0);
+    }
+
+    /**
+     * Copies the bits written so far to the buffer, padding the last byte with zeros.
+     * The writer is not changed.
+     */
+    public void copyTo(ByteBuffer buffer) {
+        buffer.put(mBytes, 0, mByteLength);
+        if (mPendingBits > 0) {
+            buffer.put((byte) (mPending << (8 - mPendingBits)));
+        }
+    }
+
+    public void reset() {
+        mByteLength = 0;
+        mPending = 0;
+        mPendingBits = 0;
+    }
+}
@@ -0,0 +1,161 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.microsoft.band.sdksample.sensors.SensorType;
+
+/**
+ * Reads blocks written by a {@link BlockEncoder}.
+ * <p>
+ * {@link #read} only parses the header of the block at the buffer's position and
+ * moves the position past the block, so going through a file of blocks to find a
+ * time range costs nothing per sample. The columns of a block are then decoded one
+ * at a time, each independently of the others, straight from the buffer.
+ */
+public class BlockDecoder {
+
+    private final ByteBuffer mBuffer;
+    private final SensorType mType;
+    private final int mSampleCount;
+    private final long mFirstTimestamp;
+    private final long mLastTimestamp;
+
+    // Column 0 holds the timestamps
+    private final int[] mColumnOffsets;
+    private final long[] mColumnBitLengths;
+
+    private BlockDecoder(ByteBuffer buffer, SensorType type, int sampleCount, long firstTimestamp,
+            long lastTimestamp, int[] columnOffsets, long[] columnBitLengths) {
+        mBuffer = buffer;
+        mType = type;
+        mSampleCount = sampleCount;
+        mFirstTimestamp = firstTimestamp;
+        mLastTimestamp = lastTimestamp;
+        mColumnOffsets = columnOffsets;
+        mColumnBitLengths = columnBitLengths;
+    }
+
+    /**
+     * Reads the header of the block at the buffer's position and moves the position
+     * to the end of the block. The buffer must not be changed while the returned
+     * decoder is used.
+     *
+     * @throws IOException if there is no valid block at the position
+     */
+    public static BlockDecoder read(ByteBuffer buffer) throws IOException {
+        ByteBuffer block = buffer.duplicate().order(BlockFormat.BYTE_ORDER);
+        int start = block.position();
+        if (block.remaining() < BlockFormat.COLUMN_LENGTHS_OFFSET) {
+            throw new IOException("Truncated block header");
+        }
+        if (block.getInt(start + BlockFormat.MAGIC_OFFSET) != BlockFormat.MAGIC) {
+            throw new IOException("Not a sample block");
+        }
+        if (block.get(start + BlockFormat.VERSION_OFFSET) != BlockFormat.VERSION) {
+            throw new IOException("Unsupported block version " + block.get(start + BlockFormat.VERSION_OFFSET));
+        }
+
+        SensorType type = SensorType.fromId(block.get(start + BlockFormat.TYPE_OFFSET));
+        if (type == null || block.get(start + BlockFormat.COLUMN_COUNT_OFFSET) != BlockFormat.getColumnCount(type)) {
+            throw new IOException("Unknown sensor type or columns in block");
+        }
+
+        int headerSize = BlockFormat.getHeaderSize(type);
+        int payloadLength = block.getInt(start + BlockFormat.PAYLOAD_LENGTH_OFFSET);
+        if (payloadLength < 0 || block.remaining() < headerSize + (long) payloadLength) {
+            throw new IOException("Truncated block");
+        }
+
+        int columnCount = BlockFormat.getColumnCount(type) + 1;
+        int[] offsets = new int[columnCount];
+        long[] bitLengths = new long[columnCount];
+        int offset = start + headerSize;
+        for (int i = 0; i < columnCount; i++) {
+            bitLengths[i] = block.getInt(start + BlockFormat.COLUMN_LENGTHS_OFFSET + 4 * i) & 0xffffffffL;
+            offsets[i] = offset;
+            offset += (int) ((bitLengths[i] + 7) / 8);
+        }
+        if (offset != start + headerSize + payloadLength) {
+            throw new IOException("Column lengths don't match the payload length");
+        }
+
+        buffer.position(offset);
+        return new BlockDecoder(block, type, block.getInt(start + BlockFormat.SAMPLE_COUNT_OFFSET),
+                block.getLong(start + BlockFormat.FIRST_TIMESTAMP_OFFSET),
+                block.getLong(start + BlockFormat.LAST_TIMESTAMP_OFFSET), offsets, bitLengths);
+    }
+
+    public SensorType getType() {
+        return mType;
+    }
+
+    public int getSampleCount() {
+        return mSampleCount;
+    }
+
+    public long getFirstTimestamp() {
+        return mFirstTimestamp;
+    }
+
+    public long getLastTimestamp() {
+        return mLastTimestamp;
+    }
+
+    private BitReader newReader(int column, BlockFormat.ColumnType type) {
+        if (type != null && BlockFormat.getColumnType(mType, column) != type) {
+            throw new IllegalArgumentException("Column " + column + " of " + mType + " is not " + type);
+        }
+        int index = (type == null) ? 0 : column + 1;
+        return new BitReader(mBuffer, mColumnOffsets[index], mColumnBitLengths[index]);
+    }
+
+    /**
+     * Decodes the timestamps into the start of the array, which must have room for
+     * {@link #getSampleCount()} values.
+     */
+    public void decodeTimestamps(long[] timestamps) {
+        DeltaOfDelta.Decoder decoder = new DeltaOfDelta.Decoder(newReader(0, null));
+        for (int i = 0; i < mSampleCount; i++) {
+            timestamps[i] = decoder.next();
+        }
+    }
+
+    public void decodeFloats(int column, float[] values) {
+        XorFloat.Decoder decoder = new XorFloat.Decoder(newReader(column, BlockFormat.ColumnType.FLOAT));
+        for (int i = 0; i < mSampleCount; i++) {
+            values[i] = decoder.next();
+        }
+    }
+
+    public void decodeCounters(int column, long[] values) {
+        DeltaOfDelta.Decoder decoder = new DeltaOfDelta.Decoder(newReader(column, BlockFormat.ColumnType.COUNTER));
+        for (int i = 0; i < mSampleCount; i++) {
+            values[i] = decoder.next();
+        }
+    }
+
+    public void decodeEnums(int column, int[] values) {
+        RunLength.Decoder decoder = new RunLength.Decoder(newReader(column, BlockFormat.ColumnType.ENUM));
+        for (int i = 0; i < mSampleCount; i++) {
+            values[i] = decoder.next();
+        }
+    }
+}
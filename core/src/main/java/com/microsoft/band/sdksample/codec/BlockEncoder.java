@@ -0,0 +1,250 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.microsoft.band.sdksample.sensors.SensorType;
+
+/**
+ * Compresses the samples of one sensor into blocks as they arrive.
+ * <p>
+ * A sample is added with {@link #beginSample} and one put call per value column, in
+ * the order given by {@link BlockFormat}. Adding a sample only appends a few bits to
+ * each column and doesn't allocate, so this can run on the sensor thread. When the
+ * block is full, or whenever the caller wants, {@link #finish} completes it, and
+ * {@link #writeTo} copies it out and starts the next one.
+ * <p>
+ * Not thread safe; use an encoder from one thread at a time.
+ */
+public class BlockEncoder {
+
+    private final SensorType mType;
+    private final int mMaxSamples;
+    private final BlockFormat.ColumnType[] mColumnTypes;
+
+    // Column 0 holds the timestamps
+    private final BitWriter[] mWriters;
+    private final DeltaOfDelta.Encoder[] mCounterEncoders;
+    private final XorFloat.Encoder[] mFloatEncoders;
+    private final RunLength.Encoder[] mEnumEncoders;
+
+    private int mSampleCount;
+    private long mFirstTimestamp;
+    private long mLastTimestamp;
+
+    // The value column the next put goes to, or -1 outside of a sample
+    private int mNextColumn = -1;
+    private boolean mFinished;
+
+    /**
+     * @param maxSamples the number of samples after which the block is full
+     */
+    public BlockEncoder(SensorType type, int maxSamples) {
+        if (maxSamples < 1) {
+            throw new IllegalArgumentException("A block must hold at least one sample");
+        }
+
+        mType = type;
+        mMaxSamples = maxSamples;
+
+        int columnCount = BlockFormat.getColumnCount(type);
+        mColumnTypes = new BlockFormat.ColumnType[columnCount];
+        mWriters = new BitWriter[columnCount + 1];
+        mCounterEncoders = new DeltaOfDelta.Encoder[columnCount + 1];
+        mFloatEncoders = new XorFloat.Encoder[columnCount + 1];
+        mEnumEncoders = new RunLength.Encoder[columnCount + 1];
+
+        // Room for about two bytes per value before a writer has to grow
+        mWriters[0] = new BitWriter(maxSamples * 2);
+        mCounterEncoders[0] = new DeltaOfDelta.Encoder(mWriters[0]);
+        for (int i = 0; i < columnCount; i++) {
+            BitWriter writer = new BitWriter(maxSamples * 2);
+            mWriters[i + 1] = writer;
+            mColumnTypes[i] = BlockFormat.getColumnType(type, i);
+            switch (mColumnTypes[i]) {
+            case FLOAT:
+                mFloatEncoders[i + 1] = new XorFloat.Encoder(writer);
+                break;
+            case COUNTER:
+                mCounterEncoders[i + 1] = new DeltaOfDelta.Encoder(writer);
+                break;
+            case ENUM:
+                mEnumEncoders[i + 1] = new RunLength.Encoder(writer);
+                break;
+            }
+        }
+    }
+
+    public SensorType getType() {
+        return mType;
+    }
+
+    public int getSampleCount() {
+        return mSampleCount;
+    }
+
+    public boolean isEmpty() {
+        return mSampleCount == 0;
+    }
+
+    public boolean isFull() {
+        return mSampleCount >= mMaxSamples;
+    }
+
+    public long getFirstTimestamp() {
+        return mFirstTimestamp;
+    }
+
+    public long getLastTimestamp() {
+        return mLastTimestamp;
+    }
+
+    /**
+     * Starts a sample. Its values must follow with one put call per column.
+     */
+    public void beginSample(long timestamp) {
+        if (mNextColumn >= 0 || mFinished) {
+            throw new IllegalStateException(mFinished ? "Block is finished" : "Previous sample is incomplete");
+        }
+        if (isFull()) {
+            throw new IllegalStateException("Block is full");
+        }
+
+        if (mSampleCount == 0) {
+            mFirstTimestamp = timestamp;
+        }
+        mLastTimestamp = timestamp;
+        mCounterEncoders[0].add(timestamp);
+        mSampleCount++;
+
+        mNextColumn = mColumnTypes.length > 0 ? 0 : -1;
+    }
+
+    public void putFloat(float value) {
+        mFloatEncoders[nextColumn(BlockFormat.ColumnType.FLOAT)].add(value);
+    }
+
+    public void putCounter(long value) {
+        mCounterEncoders[nextColumn(BlockFormat.ColumnType.COUNTER)].add(value);
+    }
+
+    public void putEnum(int ordinal) {
+        mEnumEncoders[nextColumn(BlockFormat.ColumnType.ENUM)].add(ordinal);
+    }
+
+    private int nextColumn(BlockFormat.ColumnType type) {
+        int column = mNextColumn;
+        if (column < 0 || mColumnTypes[column] != type) {
+            throw new IllegalStateException("Expected " + (column < 0 ? "a new sample" : mColumnTypes[column]));
+        }
+
+        mNextColumn = (column + 1 < mColumnTypes.length) ? column + 1 : -1;
+        return column + 1;
+    }
+
+    /**
+     * Completes the block, after which no more samples can be added until
+     * {@link #writeTo} or {@link #reset}.
+     *
+     * @return the size of the block in bytes
+     */
+    public int finish() {
+        if (mNextColumn >= 0) {
+            throw new IllegalStateException("Last sample is incomplete");
+        }
+
+        if (!mFinished) {
+            mFinished = true;
+            for (RunLength.Encoder encoder : mEnumEncoders) {
+                if (encoder != null) {
+                    encoder.finish();
+                }
+            }
+        }
+
+        return BlockFormat.getHeaderSize(mType) + getPayloadLength();
+    }
+
+    private int getPayloadLength() {
+        int length = 0;
+        for (BitWriter writer : mWriters) {
+            length += writer.getByteLength();
+        }
+        return length;
+    }
+
+    /**
+     * Completes the block if necessary, writes it at the buffer's position and starts
+     * a new block. The buffer must have room for the size returned by {@link #finish}.
+     */
+    public void writeTo(ByteBuffer buffer) {
+        finish();
+
+        ByteOrder order = buffer.order();
+        buffer.order(BlockFormat.BYTE_ORDER);
+        buffer.putInt(BlockFormat.MAGIC);
+        buffer.put(BlockFormat.VERSION);
+        buffer.put(mType.getId());
+        buffer.put((byte) mColumnTypes.length);
+        buffer.put((byte) 0);
+        buffer.putInt(mSampleCount);
+        buffer.putLong(mFirstTimestamp);
+        buffer.putLong(mLastTimestamp);
+        buffer.putInt(getPayloadLength());
+        for (BitWriter writer : mWriters) {
+            buffer.putInt((int) writer.getBitLength());
+        }
+        for (BitWriter writer : mWriters) {
+            writer.copyTo(buffer);
+        }
+        buffer.order(order);
+
+        reset();
+    }
+
+    /**
+     * Returns the completed block as a new array and starts a new block.
+     */
+    public byte[] toByteArray() {
+        byte[] block = new byte[finish()];
+        writeTo(ByteBuffer.wrap(block));
+        return block;
+    }
+
+    /**
+     * Drops the samples of the current block.
+     */
+    public void reset() {
+        for (int i = 0; i < mWriters.length; i++) {
+            mWriters[i].reset();
+            if (mCounterEncoders[i] != null) {
+                mCounterEncoders[i].reset();
+            } else if (mFloatEncoders[i] != null) {
+                mFloatEncoders[i].reset();
+            } else if (mEnumEncoders[i] != null) {
+                mEnumEncoders[i].reset();
+            }
+        }
+
+        mSampleCount = 0;
+        mNextColumn = -1;
+        mFinished = false;
+    }
+}
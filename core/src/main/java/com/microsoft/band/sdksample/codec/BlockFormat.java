@@ -0,0 +1,120 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.codec;
+
+import java.nio.ByteOrder;
+
+import com.microsoft.band.sdksample.sensors.SensorType;
+
+/**
+ * Layout of compressed blocks of sensor samples.
+ * <p>
+ * A block holds consecutive samples of one sensor, stored column by column: the
+ * timestamps first, then one column per value of the sensor. It starts with a header:
+ * <pre>
+ *   offset  size  field
+ *        0     4  magic, "BNDC"
+ *        4     1  format version
+ *        5     1  sensor type id
+ *        6     1  value column count, n
+ *        7     1  reserved, 0
+ *        8     4  sample count
+ *       12     8  timestamp of the first sample, in ms since the epoch
+ *       20     8  timestamp of the last sample
+ *       28     4  payload length in bytes
+ *       32  4n+4  length of each column in bits, the timestamps first
+ * </pre>
+ * followed by the payload: the columns back to back, each padded to a whole byte.
+ * The header gives the time range and size of a block, so readers can skip blocks
+ * they don't need, and any column can be decoded without decoding the others.
+ * <p>
+ * The columns of each sensor, in the order of {@link com.microsoft.band.sdksample.recording.SessionFormat}:
+ * <pre>
+ *   ACCELEROMETER     FLOAT x, y, z
+ *   GYROSCOPE         FLOAT ax, ay, az, gx, gy, gz
+ *   DISTANCE          COUNTER total, FLOAT speed, FLOAT pace, ENUM mode
+ *   HEART_RATE        COUNTER bpm, ENUM quality
+ *   CONTACT           ENUM status
+ *   SKIN_TEMPERATURE  FLOAT temperature
+ *   ULTRAVIOLET       ENUM index level
+ *   PEDOMETER         COUNTER total steps
+ * </pre>
+ * Timestamps and COUNTER columns are coded with {@link DeltaOfDelta}, FLOAT columns
+ * with {@link XorFloat} and ENUM columns with {@link RunLength}. Everything in the
+ * header is little-endian.
+ */
+public final class BlockFormat {
+
+    public enum ColumnType {
+        FLOAT,
+        COUNTER,
+        ENUM
+    }
+
+    public static final int MAGIC = 0x43444e42; // "BNDC" read as a little-endian int
+    public static final byte VERSION = 1;
+
+    public static final int MAGIC_OFFSET = 0;
+    public static final int VERSION_OFFSET = 4;
+    public static final int TYPE_OFFSET = 5;
+    public static final int COLUMN_COUNT_OFFSET = 6;
+    public static final int SAMPLE_COUNT_OFFSET = 8;
+    public static final int FIRST_TIMESTAMP_OFFSET = 12;
+    public static final int LAST_TIMESTAMP_OFFSET = 20;
+    public static final int PAYLOAD_LENGTH_OFFSET = 28;
+    public static final int COLUMN_LENGTHS_OFFSET = 32;
+
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private static final ColumnType[][] COLUMNS = new ColumnType[SensorType.values().length + 1][];
+
+    static {
+        ColumnType f = ColumnType.FLOAT;
+        ColumnType c = ColumnType.COUNTER;
+        ColumnType e = ColumnType.ENUM;
+        COLUMNS[SensorType.ACCELEROMETER.getId()] = new ColumnType[] { f, f, f };
+        COLUMNS[SensorType.GYROSCOPE.getId()] = new ColumnType[] { f, f, f, f, f, f };
+        COLUMNS[SensorType.DISTANCE.getId()] = new ColumnType[] { c, f, f, e };
+        COLUMNS[SensorType.HEART_RATE.getId()] = new ColumnType[] { c, e };
+        COLUMNS[SensorType.CONTACT.getId()] = new ColumnType[] { e };
+        COLUMNS[SensorType.SKIN_TEMPERATURE.getId()] = new ColumnType[] { f };
+        COLUMNS[SensorType.ULTRAVIOLET.getId()] = new ColumnType[] { e };
+        COLUMNS[SensorType.PEDOMETER.getId()] = new ColumnType[] { c };
+    }
+
+    private BlockFormat() {
+    }
+
+    /**
+     * Returns the number of value columns of the sensor, not counting the timestamps.
+     */
+    public static int getColumnCount(SensorType type) {
+        return COLUMNS[type.getId()].length;
+    }
+
+    public static ColumnType getColumnType(SensorType type, int column) {
+        return COLUMNS[type.getId()][column];
+    }
+
+    /**
+     * Returns the size of the header of a block of the sensor.
+     */
+    public static int getHeaderSize(SensorType type) {
+        return COLUMN_LENGTHS_OFFSET + 4 * (getColumnCount(type) + 1);
+    }
+}
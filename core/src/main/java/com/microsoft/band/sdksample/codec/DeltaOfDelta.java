@@ -0,0 +1,131 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.codec;
+
+/**
+ * Delta-of-delta coding of long values that change at a steady rate, such as
+ * timestamps and running totals.
+ * <p>
+ * The first value is stored in 64 bits. Every further value is stored as the change
+ * of its delta from the previous delta, using the shortest of these codes:
+ * <pre>
+ *   0                          delta of delta is 0
+ *   10    +  7 bits            -64 .. 63
+ *   110   +  9 bits            -256 .. 255
+ *   1110  + 12 bits            -2048 .. 2047
+ *   11110 + 32 bits            any int
+ *   11111 + 64 bits            anything else
+ * </pre>
+ * Samples arriving at a fixed interval cost one bit each, and a little jitter in
+ * their timestamps nine. The second value is coded the same way, against a delta
+ * of 0.
+ */
+public final class DeltaOfDelta {
+
+    private DeltaOfDelta() {
+    }
+
+    public static class Encoder {
+        private final BitWriter mWriter;
+        private boolean mStarted;
+        private long mPrevious;
+        private long mPreviousDelta;
+
+        public Encoder(BitWriter writer) {
+            mWriter = writer;
+        }
+
+        public void add(long value) {
+            BitWriter writer = mWriter;
+            if (!mStarted) {
+                mStarted = true;
+                mPrevious = value;
+                writer.writeBits(value, 64);
+                return;
+            }
+
+            long delta = value - mPrevious;
+            long deltaOfDelta = delta - mPreviousDelta;
+            mPrevious = value;
+            mPreviousDelta = delta;
+
+            if (deltaOfDelta == 0) {
+                writer.writeBits(0, 1);
+            } else if (deltaOfDelta >= -64 && deltaOfDelta <= 63) {
+                writer.writeBits(0x2, 2);
+                writer.writeBits(deltaOfDelta, 7);
+            } else if (deltaOfDelta >= -256 && deltaOfDelta <= 255) {
+                writer.writeBits(0x6, 3);
+                writer.writeBits(deltaOfDelta, 9);
+            } else if (deltaOfDelta >= -2048 && deltaOfDelta <= 2047) {
+                writer.writeBits(0xe, 4);
+                writer.writeBits(deltaOfDelta, 12);
+            } else if (deltaOfDelta >= Integer.MIN_VALUE && deltaOfDelta <= Integer.MAX_VALUE) {
+                writer.writeBits(0x1e, 5);
+                writer.writeBits(deltaOfDelta, 32);
+            } else {
+                writer.writeBits(0x1f, 5);
+                writer.writeBits(deltaOfDelta, 64);
+            }
+        }
+
+        public void reset() {
+            mStarted = false;
+            mPreviousDelta = 0;
+        }
+    }
+
+    public static class Decoder {
+        private final BitReader mReader;
+        private boolean mStarted;
+        private long mPrevious;
+        private long mPreviousDelta;
+
+        public Decoder(BitReader reader) {
+            mReader = reader;
+        }
+
+        public long next() {
+            BitReader reader = mReader;
+            if (!mStarted) {
+                mStarted = true;
+                mPrevious = reader.readBits(64);
+                return mPrevious;
+            }
+
+            long deltaOfDelta;
+            if (!reader.readBit()) {
+                deltaOfDelta = 0;
+            } else if (!reader.readBit()) {
+                deltaOfDelta = reader.readSignedBits(7);
+            } else if (!reader.readBit()) {
+                deltaOfDelta = reader.readSignedBits(9);
+            } else if (!reader.readBit()) {
+                deltaOfDelta = reader.readSignedBits(12);
+            } else if (!reader.readBit()) {
+                deltaOfDelta = reader.readSignedBits(32);
+            } else {
+                deltaOfDelta = reader.readBits(64);
+            }
+
+            mPreviousDelta += deltaOfDelta;
+            mPrevious += mPreviousDelta;
+            return mPrevious;
+        }
+    }
+}
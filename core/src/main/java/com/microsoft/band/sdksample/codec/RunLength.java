@@ -0,0 +1,119 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.codec;
+
+/**
+ * Run-length coding of small int values, such as the ordinals of the Band's enums,
+ * which usually stay the same for many samples in a row.
+ * <p>
+ * Every run of equal values is stored as the value in 8 bits and the run length
+ * minus one:
+ * <pre>
+ *   0  +  4 bits               runs of up to 16
+ *   10 + 12 bits               up to 4096
+ *   11 + 32 bits               longer
+ * </pre>
+ * A run is only written when it ends, so {@link Encoder#finish} must be called after
+ * the last value.
+ */
+public final class RunLength {
+
+    public static final int MAX_VALUE = 255;
+
+    private RunLength() {
+    }
+
+    public static class Encoder {
+        private final BitWriter mWriter;
+        private int mValue;
+        private int mRunLength;
+
+        public Encoder(BitWriter writer) {
+            mWriter = writer;
+        }
+
+        public void add(int value) {
+            if (value < 0 || value > MAX_VALUE) {
+                throw new IllegalArgumentException("Value must be between 0 and " + MAX_VALUE);
+            }
+
+            if (mRunLength > 0 && value != mValue) {
+                writeRun();
+            }
+            mValue = value;
+            mRunLength++;
+        }
+
+        /**
+         * Writes the current run. Adding more values afterwards starts a new run.
+         */
+        public void finish() {
+            if (mRunLength > 0) {
+                writeRun();
+            }
+        }
+
+        private void writeRun() {
+            BitWriter writer = mWriter;
+            int length = mRunLength - 1;
+            writer.writeBits(mValue, 8);
+            if (length < 16) {
+                writer.writeBits(0, 1);
+                writer.writeBits(length, 4);
+            } else if (length < 4096) {
+                writer.writeBits(0x2, 2);
+                writer.writeBits(length, 12);
+            } else {
+                writer.writeBits(0x3, 2);
+                writer.writeBits(length, 32);
+            }
+            mRunLength = 0;
+        }
+
+        public void reset() {
+            mRunLength = 0;
+        }
+    }
+
+    public static class Decoder {
+        private final BitReader mReader;
+        private int mValue;
+        private long mRemaining;
+
+        public Decoder(BitReader reader) {
+            mReader = reader;
+        }
+
+        public int next() {
+            if (mRemaining == 0) {
+                BitReader reader = mReader;
+                mValue = (int) reader.readBits(8);
+                if (!reader.readBit()) {
+                    mRemaining = reader.readBits(4) + 1;
+                } else if (!reader.readBit()) {
+                    mRemaining = reader.readBits(12) + 1;
+                } else {
+                    mRemaining = reader.readBits(32) + 1;
+                }
+            }
+
+            mRemaining--;
+            return mValue;
+        }
+    }
+}
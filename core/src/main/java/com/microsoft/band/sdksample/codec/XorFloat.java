@@ -0,0 +1,119 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.codec;
+
+/**
+ * Lossless XOR coding of float values, as in Facebook's Gorilla time series database.
+ * <p>
+ * The first value is stored in 32 bits. Every further value is XORed with the
+ * previous one, and only the bits between the leading and trailing zeros of the
+ * result are stored:
+ * <pre>
+ *   0                                          same value as before
+ *   10 + meaningful bits                       fits in the previous window
+ *   11 + 5 bits leading zeros
+ *      + 5 bits meaningful bit count - 1
+ *      + meaningful bits                       opens a new window
+ * </pre>
+ * Slowly changing values such as temperatures mostly differ in their low mantissa
+ * bits, so they compress well; noisy inertial values less so, but still losslessly.
+ */
+public final class XorFloat {
+
+    private XorFloat() {
+    }
+
+    public static class Encoder {
+        private final BitWriter mWriter;
+        private boolean mStarted;
+        private int mPrevious;
+
+        // The window of the last stored meaningful bits, or -1 before there is one
+        private int mLeading = -1;
+        private int mTrailing;
+
+        public Encoder(BitWriter writer) {
+            mWriter = writer;
+        }
+
+        public void add(float value) {
+            BitWriter writer = mWriter;
+            int bits = Float.floatToRawIntBits(value);
+            if (!mStarted) {
+                mStarted = true;
+                mPrevious = bits;
+                writer.writeBits(bits, 32);
+                return;
+            }
+
+            int xor = bits ^ mPrevious;
+            mPrevious = bits;
+            if (xor == 0) {
+                writer.writeBits(0, 1);
+                return;
+            }
+
+            int leading = Integer.numberOfLeadingZeros(xor);
+            int trailing = Integer.numberOfTrailingZeros(xor);
+            if (mLeading >= 0 && leading >= mLeading && trailing >= mTrailing) {
+                writer.writeBits(0x2, 2);
+                writer.writeBits(xor >>> mTrailing, 32 - mLeading - mTrailing);
+            } else {
+                int meaningful = 32 - leading - trailing;
+                // The control bits and the window in one write
+                writer.writeBits((0x3 << 10) | (leading << 5) | (meaningful - 1), 12);
+                writer.writeBits(xor >>> trailing, meaningful);
+                mLeading = leading;
+                mTrailing = trailing;
+            }
+        }
+
+        public void reset() {
+            mStarted = false;
+            mLeading = -1;
+        }
+    }
+
+    public static class Decoder {
+        private final BitReader mReader;
+        private boolean mStarted;
+        private int mPrevious;
+        private int mLeading;
+        private int mTrailing;
+
+        public Decoder(BitReader reader) {
+            mReader = reader;
+        }
+
+        public float next() {
+            BitReader reader = mReader;
+            if (!mStarted) {
+                mStarted = true;
+                mPrevious = (int) reader.readBits(32);
+            } else if (reader.readBit()) {
+                if (reader.readBit()) {
+                    mLeading = (int) reader.readBits(5);
+                    mTrailing = 32 - mLeading - ((int) reader.readBits(5) + 1);
+                }
+                int meaningful = 32 - mLeading - mTrailing;
+                mPrevious ^= (int) reader.readBits(meaningful) << mTrailing;
+            }
+            return Float.intBitsToFloat(mPrevious);
+        }
+    }
+}
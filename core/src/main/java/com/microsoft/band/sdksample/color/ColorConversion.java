@@ -0,0 +1,159 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.color;
+
+/**
+ * Converts between packed ARGB colors, as the SDK's themes and Android use them, and
+ * their channels, hues and HSV components, without depending on Android.
+ * <p>
+ * The conversions match android.graphics.Color, so the color picker and anything that
+ * works on theme colors give the same results on a device and on a plain JVM.
+ */
+public final class ColorConversion {
+
+    public static final int BLACK = 0xff000000;
+    public static final int WHITE = 0xffffffff;
+
+    /**
+     * The largest value of a channel.
+     */
+    public static final int MAX_CHANNEL = 255;
+
+    private ColorConversion() {
+    }
+
+    /**
+     * Packs the channels, each 0 to 255, into an opaque color.
+     */
+    public static int rgb(int red, int green, int blue) {
+        return BLACK | (red << 16) | (green << 8) | blue;
+    }
+
+    public static int alpha(int color) {
+        return color >>> 24;
+    }
+
+    public static int red(int color) {
+        return (color >> 16) & 0xff;
+    }
+
+    public static int green(int color) {
+        return (color >> 8) & 0xff;
+    }
+
+    public static int blue(int color) {
+        return color & 0xff;
+    }
+
+    /**
+     * Returns the hue of the color in degrees, from 0 (inclusive) to 360 (exclusive), or 0
+     * for grays.
+     */
+    public static float getHue(int color) {
+        int red = red(color);
+        int green = green(color);
+        int blue = blue(color);
+        int max = Math.max(red, Math.max(green, blue));
+        int delta = max - Math.min(red, Math.min(green, blue));
+        if (delta == 0) {
+            return 0;
+        }
+
+        float hue;
+        if (max == red) {
+            hue = 60f * (green - blue) / delta;
+        } else if (max == green) {
+            hue = 60f * (blue - red) / delta + 120;
+        } else {
+            hue = 60f * (red - green) / delta + 240;
+        }
+        return (hue < 0) ? hue + 360 : hue;
+    }
+
+    /**
+     * Fills the array with the hue in degrees and the saturation and value from 0 to 1 of
+     * the color, ignoring its alpha.
+     */
+    public static void colorToHsv(int color, float[] hsv) {
+        int max = Math.max(red(color), Math.max(green(color), blue(color)));
+        int min = Math.min(red(color), Math.min(green(color), blue(color)));
+        hsv[0] = getHue(color);
+        hsv[1] = (max == 0) ? 0 : (float) (max - min) / max;
+        hsv[2] = (float) max / MAX_CHANNEL;
+    }
+
+    /**
+     * Returns the opaque color with the given hue in degrees, which wraps around, and the
+     * given saturation and value, which are clamped to 0 to 1.
+     */
+    public static int hsvToColor(float hue, float saturation, float value) {
+        saturation = clamp(saturation);
+        value = clamp(value);
+
+        float sector = hue / 60f;
+        float floor = (float) Math.floor(sector);
+        float fraction = sector - floor;
+        int index = ((int) floor % 6 + 6) % 6;
+
+        int v = Math.round(value * MAX_CHANNEL);
+        int p = Math.round(value * (1 - saturation) * MAX_CHANNEL);
+        int q = Math.round(value * (1 - saturation * fraction) * MAX_CHANNEL);
+        int t = Math.round(value * (1 - saturation * (1 - fraction)) * MAX_CHANNEL);
+
+        switch (index) {
+        case 0:
+            return rgb(v, t, p);
+        case 1:
+            return rgb(q, v, p);
+        case 2:
+            return rgb(p, v, t);
+        case 3:
+            return rgb(p, q, v);
+        case 4:
+            return rgb(t, p, v);
+        default:
+            return rgb(v, p, q);
+        }
+    }
+
+    /**
+     * Returns the fully saturated, brightest color of the hue in degrees, which is what
+     * the hue bar of the picker shows.
+     */
+    public static int hueToColor(float hue) {
+        return hsvToColor(hue, 1, 1);
+    }
+
+    /**
+     * Returns the color the picker's color area shows for a base color at the given
+     * position, each coordinate 0 to {@link #MAX_CHANNEL}: the columns fade from white on
+     * the left to the base color on the right, and every column darkens to black at the
+     * bottom.
+     */
+    public static int areaColor(int baseColor, int x, int y) {
+        int topRed = MAX_CHANNEL - (MAX_CHANNEL - red(baseColor)) * x / MAX_CHANNEL;
+        int topGreen = MAX_CHANNEL - (MAX_CHANNEL - green(baseColor)) * x / MAX_CHANNEL;
+        int topBlue = MAX_CHANNEL - (MAX_CHANNEL - blue(baseColor)) * x / MAX_CHANNEL;
+        int shade = MAX_CHANNEL - y;
+        return rgb(topRed * shade / MAX_CHANNEL, topGreen * shade / MAX_CHANNEL, topBlue * shade / MAX_CHANNEL);
+    }
+
+    private static float clamp(float value) {
+        return (value < 0) ? 0 : (value > 1) ? 1 : value;
+    }
+}
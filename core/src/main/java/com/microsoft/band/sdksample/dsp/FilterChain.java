@@ -0,0 +1,187 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.dsp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A sequence of {@link FloatFilter}s applied to every axis of a multi-axis sensor,
+ * optionally followed by decimation.
+ * <p>
+ * Each call to {@link #process} filters one sample of every axis in place and tells
+ * whether the sample survives decimation. The filters see every sample, so a low-pass
+ * or moving average stage in front of the decimation keeps it from aliasing. The time
+ * between samples is taken from their timestamps; after a gap longer than the reset
+ * gap, or when time goes backwards, the chain starts over as if new.
+ * <p>
+ * Chains are created by a {@link Builder}, which can build any number of independent
+ * chains, for example one per sensor. A chain must only be used by one thread.
+ */
+public class FilterChain {
+
+    public static final long DEFAULT_RESET_GAP_MS = 1000;
+
+    // Used for samples that share a timestamp before an interval is known: the
+    // fastest Band sample rate
+    private static final float DEFAULT_INTERVAL_SECONDS = 0.016f;
+
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private final FloatFilter[][] mFilters;
+    private final int mDecimation;
+    private final long mResetGapMs;
+
+    private long mLastTimestamp = NO_TIMESTAMP;
+    private float mLastInterval = DEFAULT_INTERVAL_SECONDS;
+    private int mPhase;
+
+    private FilterChain(Builder builder, int axisCount) {
+        mFilters = new FloatFilter[axisCount][builder.mStages.size()];
+        for (int axis = 0; axis < axisCount; axis++) {
+            for (int stage = 0; stage < builder.mStages.size(); stage++) {
+                mFilters[axis][stage] = builder.mStages.get(stage).newInstance();
+            }
+        }
+        mDecimation = builder.mDecimation;
+        mResetGapMs = builder.mResetGapMs;
+    }
+
+    public int getAxisCount() {
+        return mFilters.length;
+    }
+
+    public int getDecimation() {
+        return mDecimation;
+    }
+
+    /**
+     * Returns true if the chain neither filters nor decimates.
+     */
+    public boolean isPassThrough() {
+        return mDecimation == 1 && (mFilters.length == 0 || mFilters[0].length == 0);
+    }
+
+    /**
+     * Filters one sample of every axis.
+     *
+     * @param timestamp the sample time in milliseconds
+     * @param values one value per axis, replaced with the filtered values
+     * @return true if the sample should be passed on, false if decimation drops it
+     */
+    public boolean process(long timestamp, float[] values) {
+        if (values.length < mFilters.length) {
+            throw new IllegalArgumentException("Expected " + mFilters.length + " values");
+        }
+
+        long elapsed = timestamp - mLastTimestamp;
+        if (mLastTimestamp != NO_TIMESTAMP && (elapsed < 0 || elapsed > mResetGapMs)) {
+            reset();
+        } else if (elapsed > 0 && mLastTimestamp != NO_TIMESTAMP) {
+            mLastInterval = elapsed / 1000f;
+        }
+        mLastTimestamp = timestamp;
+
+        float interval = mLastInterval;
+        for (int axis = 0; axis < mFilters.length; axis++) {
+            FloatFilter[] filters = mFilters[axis];
+            float value = values[axis];
+            for (FloatFilter filter : filters) {
+                value = filter.filter(value, interval);
+            }
+            values[axis] = value;
+        }
+
+        boolean emit = mPhase == 0;
+        if (++mPhase == mDecimation) {
+            mPhase = 0;
+        }
+        return emit;
+    }
+
+    /**
+     * Resets every filter and the decimation phase.
+     */
+    public void reset() {
+        for (FloatFilter[] filters : mFilters) {
+            for (FloatFilter filter : filters) {
+                filter.reset();
+            }
+        }
+        mLastTimestamp = NO_TIMESTAMP;
+        mLastInterval = DEFAULT_INTERVAL_SECONDS;
+        mPhase = 0;
+    }
+
+    /**
+     * Describes a filter chain. The stages are applied in the order they are added.
+     * An empty builder builds chains that pass every sample through unchanged.
+     */
+    public static class Builder {
+        private final List<FloatFilter> mStages = new ArrayList<FloatFilter>();
+        private int mDecimation = 1;
+        private long mResetGapMs = DEFAULT_RESET_GAP_MS;
+
+        public Builder lowPass(float cutoffHz) {
+            return add(new LowPassFilter(cutoffHz));
+        }
+
+        public Builder highPass(float cutoffHz) {
+            return add(new HighPassFilter(cutoffHz));
+        }
+
+        public Builder movingAverage(int length) {
+            return add(new MovingAverageFilter(length));
+        }
+
+        /**
+         * Adds a stage. The filter is only used as a prototype; every chain gets its
+         * own instances from {@link FloatFilter#newInstance()}.
+         */
+        public Builder add(FloatFilter filter) {
+            mStages.add(filter);
+            return this;
+        }
+
+        /**
+         * Passes on only one of every {@code factor} samples, after all the filters.
+         */
+        public Builder decimate(int factor) {
+            if (factor < 1) {
+                throw new IllegalArgumentException("Decimation factor must be positive: " + factor);
+            }
+            mDecimation = factor;
+            return this;
+        }
+
+        /**
+         * Sets the gap between samples after which a chain starts over.
+         */
+        public Builder resetAfterGap(long gapMs) {
+            mResetGapMs = gapMs;
+            return this;
+        }
+
+        /**
+         * Builds a new chain for a sensor with the given number of axes.
+         */
+        public FilterChain build(int axisCount) {
+            return new FilterChain(this, axisCount);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.dsp;
+
+/**
+ * A stateful filter over a stream of float samples, such as one axis of the
+ * accelerometer. Filters take constant time per sample and don't allocate while
+ * filtering.
+ * <p>
+ * An instance holds the state of one stream. To filter another stream with the same
+ * parameters, use {@link #newInstance()}.
+ */
+public interface FloatFilter {
+
+    /**
+     * Filters the next sample.
+     *
+     * @param value the input sample
+     * @param intervalSeconds the time since the previous sample, always positive
+     * @return the output sample
+     */
+    float filter(float value, float intervalSeconds);
+
+    /**
+     * Forgets every sample seen so far; the next sample starts the stream over.
+     */
+    void reset();
+
+    /**
+     * Returns a new filter with the same parameters and no state.
+     */
+    FloatFilter newInstance();
+}
@@ -0,0 +1,75 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.dsp;
+
+/**
+ * A first-order high-pass filter, for removing slowly changing offsets such as
+ * gravity from acceleration or drift from angular velocity. Like {@link LowPassFilter}
+ * it adapts to the time between samples.
+ */
+public class HighPassFilter implements FloatFilter {
+
+    private final float mTimeConstant;
+    private final float mCutoffHz;
+    private boolean mPrimed;
+    private float mPreviousInput;
+    private float mOutput;
+
+    /**
+     * @param cutoffHz the frequency at which the input is attenuated by 3 dB
+     */
+    public HighPassFilter(float cutoffHz) {
+        if (!(cutoffHz > 0)) {
+            throw new IllegalArgumentException("Cutoff must be positive: " + cutoffHz);
+        }
+        mCutoffHz = cutoffHz;
+        mTimeConstant = (float) (1 / (2 * Math.PI * cutoffHz));
+    }
+
+    public float getCutoff() {
+        return mCutoffHz;
+    }
+
+    @Override
+    public float filter(float value, float intervalSeconds) {
+        if (!mPrimed) {
+            // Treat everything before the first sample as the same value, so the
+            // output starts at zero instead of with a step
+            mPreviousInput = value;
+            mOutput = 0;
+            mPrimed = true;
+            return 0;
+        }
+        float alpha = mTimeConstant / (mTimeConstant + intervalSeconds);
+        mOutput = alpha * (mOutput + value - mPreviousInput);
+        mPreviousInput = value;
+        return mOutput;
+    }
+
+    @Override
+    public void reset() {
+        mPrimed = false;
+        mPreviousInput = 0;
+        mOutput = 0;
+    }
+
+    @Override
+    public FloatFilter newInstance() {
+        return new HighPassFilter(mCutoffHz);
+    }
+}
@@ -0,0 +1,81 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.dsp;
+
+/**
+ * The mean of the last N samples. The sum is updated incrementally and recomputed
+ * from the window once per wrap, which keeps rounding errors from accumulating at a
+ * constant cost per sample.
+ */
+public class MovingAverageFilter implements FloatFilter {
+
+    private final float[] mWindow;
+    private int mCount;
+    private int mNext;
+    private double mSum;
+
+    /**
+     * @param length the number of samples to average
+     */
+    public MovingAverageFilter(int length) {
+        if (length < 1) {
+            throw new IllegalArgumentException("Length must be positive: " + length);
+        }
+        mWindow = new float[length];
+    }
+
+    public int getLength() {
+        return mWindow.length;
+    }
+
+    @Override
+    public float filter(float value, float intervalSeconds) {
+        float[] window = mWindow;
+        if (mCount < window.length) {
+            mCount++;
+        } else {
+            mSum -= window[mNext];
+        }
+        window[mNext] = value;
+        mSum += value;
+
+        if (++mNext == window.length) {
+            mNext = 0;
+            if (mCount == window.length) {
+                double sum = 0;
+                for (float sample : window) {
+                    sum += sample;
+                }
+                mSum = sum;
+            }
+        }
+        return (float) (mSum / mCount);
+    }
+
+    @Override
+    public void reset() {
+        mCount = 0;
+        mNext = 0;
+        mSum = 0;
+    }
+
+    @Override
+    public FloatFilter newInstance() {
+        return new MovingAverageFilter(mWindow.length);
+    }
+}
@@ -0,0 +1,155 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.fusion;
+
+/**
+ * The classic complementary filter on Euler angles.
+ * <p>
+ * Roll, pitch and yaw are integrated from the gyroscope, and roll and pitch are then
+ * blended with the angles of gravity measured by the accelerometer: high-pass filtered
+ * gyroscope, low-pass filtered accelerometer, with the crossover given by a time
+ * constant. It is the cheapest and easiest to reason about, but the Euler angles make
+ * it inaccurate near +-90 degrees of pitch, where the quaternion filters aren't.
+ */
+public class ComplementaryFilter implements OrientationFilter {
+
+    public static final float DEFAULT_TIME_CONSTANT = 1.0f;
+
+    // Past this pitch the gyroscope can't be integrated into Euler angles reliably
+    private static final double MAX_PITCH = Math.toRadians(89);
+
+    private final float mTimeConstant;
+
+    private boolean mPrimed;
+    private double mRoll;
+    private double mPitch;
+    private double mYaw;
+
+    public ComplementaryFilter() {
+        this(DEFAULT_TIME_CONSTANT);
+    }
+
+    /**
+     * @param timeConstant the time in seconds over which the accelerometer takes over
+     *                     from the gyroscope
+     */
+    public ComplementaryFilter(float timeConstant) {
+        if (!(timeConstant > 0)) {
+            throw new IllegalArgumentException("Time constant must be positive: " + timeConstant);
+        }
+        mTimeConstant = timeConstant;
+    }
+
+    public float getTimeConstant() {
+        return mTimeConstant;
+    }
+
+    @Override
+    public void update(float ax, float ay, float az, float gx, float gy, float gz, float intervalSeconds) {
+        boolean hasGravity = !(ax == 0 && ay == 0 && az == 0);
+        double accelRoll = Math.atan2(ay, az);
+        double accelPitch = Math.atan2(-ax, Math.sqrt(ay * ay + az * az));
+
+        if (!mPrimed) {
+            if (hasGravity) {
+                mRoll = accelRoll;
+                mPitch = accelPitch;
+                mYaw = 0;
+                mPrimed = true;
+            }
+            return;
+        }
+
+        // Body rates to Euler angle rates
+        double p = Math.toRadians(gx);
+        double q = Math.toRadians(gy);
+        double r = Math.toRadians(gz);
+        double sinRoll = Math.sin(mRoll);
+        double cosRoll = Math.cos(mRoll);
+        double pitch = Math.max(-MAX_PITCH, Math.min(MAX_PITCH, mPitch));
+        double tanPitch = Math.tan(pitch);
+        double cosPitch = Math.cos(pitch);
+
+        double roll = mRoll + (p + (q * sinRoll + r * cosRoll) * tanPitch) * intervalSeconds;
+        pitch = mPitch + (q * cosRoll - r * sinRoll) * intervalSeconds;
+        double yaw = mYaw + (q * sinRoll + r * cosRoll) / cosPitch * intervalSeconds;
+
+        if (hasGravity) {
+            double alpha = mTimeConstant / (mTimeConstant + intervalSeconds);
+            roll += (1 - alpha) * wrap(accelRoll - roll);
+            pitch += (1 - alpha) * (accelPitch - pitch);
+        }
+
+        mRoll = wrap(roll);
+        mPitch = pitch;
+        mYaw = wrap(yaw);
+    }
+
+    @Override
+    public void getQuaternion(float[] dest) {
+        double cr = Math.cos(mRoll / 2);
+        double sr = Math.sin(mRoll / 2);
+        double cp = Math.cos(mPitch / 2);
+        double sp = Math.sin(mPitch / 2);
+        double cy = Math.cos(mYaw / 2);
+        double sy = Math.sin(mYaw / 2);
+
+        dest[0] = (float) (cr * cp * cy + sr * sp * sy);
+        dest[1] = (float) (sr * cp * cy - cr * sp * sy);
+        dest[2] = (float) (cr * sp * cy + sr * cp * sy);
+        dest[3] = (float) (cr * cp * sy - sr * sp * cy);
+    }
+
+    @Override
+    public float getRoll() {
+        return (float) mRoll;
+    }
+
+    @Override
+    public float getPitch() {
+        return (float) mPitch;
+    }
+
+    @Override
+    public float getYaw() {
+        return (float) mYaw;
+    }
+
+    @Override
+    public void reset() {
+        mPrimed = false;
+        mRoll = 0;
+        mPitch = 0;
+        mYaw = 0;
+    }
+
+    @Override
+    public OrientationFilter newInstance() {
+        return new ComplementaryFilter(mTimeConstant);
+    }
+
+    // Wraps an angle into -pi..pi
+    private static double wrap(double angle) {
+        if (angle > Math.PI) {
+            return angle - 2 * Math.PI;
+        } else if (angle < -Math.PI) {
+            return angle + 2 * Math.PI;
+        }
+        return angle;
+    }
+}
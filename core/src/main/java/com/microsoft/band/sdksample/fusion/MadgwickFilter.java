@@ -0,0 +1,116 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.fusion;
+
+/**
+ * Madgwick's gradient descent orientation filter, without magnetometer.
+ * <p>
+ * Each sample, the quaternion rate from the gyroscope is corrected by one step of
+ * gradient descent towards the orientation in which gravity matches the measured
+ * acceleration. The step size beta is the gyroscope error, in radians/s, the filter
+ * assumes: a larger beta corrects drift faster but lets more accelerometer noise and
+ * motion through.
+ * <p>
+ * See S. Madgwick, "An efficient orientation filter for inertial and inertial/magnetic
+ * sensor arrays", 2010.
+ */
+public class MadgwickFilter extends QuaternionFilter {
+
+    public static final float DEFAULT_BETA = 0.1f;
+
+    private final float mBeta;
+
+    public MadgwickFilter() {
+        this(DEFAULT_BETA);
+    }
+
+    public MadgwickFilter(float beta) {
+        if (!(beta >= 0)) {
+            throw new IllegalArgumentException("Beta must not be negative: " + beta);
+        }
+        mBeta = beta;
+    }
+
+    public float getBeta() {
+        return mBeta;
+    }
+
+    @Override
+    protected void integrate(float ax, float ay, float az, float gx, float gy, float gz, float intervalSeconds) {
+        float q0 = mQ0;
+        float q1 = mQ1;
+        float q2 = mQ2;
+        float q3 = mQ3;
+
+        // Rate of change of the quaternion from the gyroscope
+        float qDot0 = 0.5f * (-q1 * gx - q2 * gy - q3 * gz);
+        float qDot1 = 0.5f * (q0 * gx + q2 * gz - q3 * gy);
+        float qDot2 = 0.5f * (q0 * gy - q1 * gz + q3 * gx);
+        float qDot3 = 0.5f * (q0 * gz + q1 * gy - q2 * gx);
+
+        // Free fall gives no direction to correct towards
+        if (!(ax == 0 && ay == 0 && az == 0)) {
+            float recipNorm = invSqrt(ax * ax + ay * ay + az * az);
+            ax *= recipNorm;
+            ay *= recipNorm;
+            az *= recipNorm;
+
+            float _2q0 = 2 * q0;
+            float _2q1 = 2 * q1;
+            float _2q2 = 2 * q2;
+            float _2q3 = 2 * q3;
+            float _4q0 = 4 * q0;
+            float _4q1 = 4 * q1;
+            float _4q2 = 4 * q2;
+            float _8q1 = 8 * q1;
+            float _8q2 = 8 * q2;
+            float q0q0 = q0 * q0;
+            float q1q1 = q1 * q1;
+            float q2q2 = q2 * q2;
+            float q3q3 = q3 * q3;
+
+            // Gradient of the error between estimated and measured gravity
+            float s0 = _4q0 * q2q2 + _2q2 * ax + _4q0 * q1q1 - _2q1 * ay;
+            float s1 = _4q1 * q3q3 - _2q3 * ax + 4 * q0q0 * q1 - _2q0 * ay - _4q1 + _8q1 * q1q1
+                    + _8q1 * q2q2 + _4q1 * az;
+            float s2 = 4 * q0q0 * q2 + _2q0 * ax + _4q2 * q3q3 - _2q3 * ay - _4q2 + _8q2 * q1q1
+                    + _8q2 * q2q2 + _4q2 * az;
+            float s3 = 4 * q1q1 * q3 - _2q1 * ax + 4 * q2q2 * q3 - _2q2 * ay;
+
+            float sumSquares = s0 * s0 + s1 * s1 + s2 * s2 + s3 * s3;
+            if (sumSquares > 0) {
+                recipNorm = invSqrt(sumSquares);
+                qDot0 -= mBeta * s0 * recipNorm;
+                qDot1 -= mBeta * s1 * recipNorm;
+                qDot2 -= mBeta * s2 * recipNorm;
+                qDot3 -= mBeta * s3 * recipNorm;
+            }
+        }
+
+        mQ0 = q0 + qDot0 * intervalSeconds;
+        mQ1 = q1 + qDot1 * intervalSeconds;
+        mQ2 = q2 + qDot2 * intervalSeconds;
+        mQ3 = q3 + qDot3 * intervalSeconds;
+        normalizeQuaternion();
+    }
+
+    @Override
+    public OrientationFilter newInstance() {
+        return new MadgwickFilter(mBeta);
+    }
+}
@@ -0,0 +1,127 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.fusion;
+
+/**
+ * Mahony's explicit complementary filter on the rotation group, without magnetometer.
+ * <p>
+ * The error between the estimated and the measured direction of gravity is fed back
+ * into the angular velocity through a PI controller before it is integrated. The
+ * proportional gain sets how fast roll and pitch follow the accelerometer; the
+ * integral gain, if not 0, lets the filter learn and cancel a constant gyroscope bias
+ * about the roll and pitch axes.
+ * <p>
+ * See R. Mahony, T. Hamel and J.-M. Pflimlin, "Nonlinear complementary filters on the
+ * special orthogonal group", 2008.
+ */
+public class MahonyFilter extends QuaternionFilter {
+
+    public static final float DEFAULT_KP = 1.0f;
+    public static final float DEFAULT_KI = 0.0f;
+
+    private final float mKp;
+    private final float mKi;
+
+    // The integral of the error, in radians/s
+    private float mIntegralX;
+    private float mIntegralY;
+    private float mIntegralZ;
+
+    public MahonyFilter() {
+        this(DEFAULT_KP, DEFAULT_KI);
+    }
+
+    public MahonyFilter(float kp, float ki) {
+        if (!(kp >= 0) || !(ki >= 0)) {
+            throw new IllegalArgumentException("Gains must not be negative: " + kp + ", " + ki);
+        }
+        mKp = kp;
+        mKi = ki;
+    }
+
+    public float getProportionalGain() {
+        return mKp;
+    }
+
+    public float getIntegralGain() {
+        return mKi;
+    }
+
+    @Override
+    protected void integrate(float ax, float ay, float az, float gx, float gy, float gz, float intervalSeconds) {
+        float q0 = mQ0;
+        float q1 = mQ1;
+        float q2 = mQ2;
+        float q3 = mQ3;
+
+        // Free fall gives no direction to correct towards
+        if (!(ax == 0 && ay == 0 && az == 0)) {
+            float recipNorm = invSqrt(ax * ax + ay * ay + az * az);
+            ax *= recipNorm;
+            ay *= recipNorm;
+            az *= recipNorm;
+
+            // Half the estimated direction of gravity in the Band frame
+            float halfVx = q1 * q3 - q0 * q2;
+            float halfVy = q0 * q1 + q2 * q3;
+            float halfVz = q0 * q0 - 0.5f + q3 * q3;
+
+            // Half the error, the cross product of measured and estimated gravity
+            float halfEx = ay * halfVz - az * halfVy;
+            float halfEy = az * halfVx - ax * halfVz;
+            float halfEz = ax * halfVy - ay * halfVx;
+
+            if (mKi > 0) {
+                mIntegralX += 2 * mKi * halfEx * intervalSeconds;
+                mIntegralY += 2 * mKi * halfEy * intervalSeconds;
+                mIntegralZ += 2 * mKi * halfEz * intervalSeconds;
+                gx += mIntegralX;
+                gy += mIntegralY;
+                gz += mIntegralZ;
+            }
+
+            gx += 2 * mKp * halfEx;
+            gy += 2 * mKp * halfEy;
+            gz += 2 * mKp * halfEz;
+        }
+
+        float halfDt = 0.5f * intervalSeconds;
+        gx *= halfDt;
+        gy *= halfDt;
+        gz *= halfDt;
+
+        mQ0 = q0 + (-q1 * gx - q2 * gy - q3 * gz);
+        mQ1 = q1 + (q0 * gx + q2 * gz - q3 * gy);
+        mQ2 = q2 + (q0 * gy - q1 * gz + q3 * gx);
+        mQ3 = q3 + (q0 * gz + q1 * gy - q2 * gx);
+        normalizeQuaternion();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        mIntegralX = 0;
+        mIntegralY = 0;
+        mIntegralZ = 0;
+    }
+
+    @Override
+    public OrientationFilter newInstance() {
+        return new MahonyFilter(mKp, mKi);
+    }
+}
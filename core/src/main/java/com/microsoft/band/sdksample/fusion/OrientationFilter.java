@@ -0,0 +1,65 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.fusion;
+
+/**
+ * Estimates the orientation of the Band from its accelerometer and gyroscope.
+ * <p>
+ * The gyroscope is integrated for fast response, and the direction of gravity
+ * measured by the accelerometer pulls roll and pitch back when they drift. Nothing
+ * corrects the yaw, which drifts with the gyroscope bias; it is only meaningful
+ * relative to where the Band pointed a short while ago.
+ * <p>
+ * Angles follow the aerospace convention: roll about the X axis, then pitch about Y,
+ * then yaw about Z, all in radians. Filters take constant time per sample and don't
+ * allocate. An instance holds the state of one stream; to estimate another stream
+ * with the same parameters, use {@link #newInstance()}.
+ */
+public interface OrientationFilter {
+
+    /**
+     * Updates the orientation with the next sample. The first sample after creation
+     * or {@link #reset()} sets roll and pitch from the accelerometer alone.
+     *
+     * @param ax the acceleration along X, in any unit, usually g
+     * @param gx the angular velocity about X in degrees/s, as reported by the Band
+     * @param intervalSeconds the time since the previous sample, always positive
+     */
+    void update(float ax, float ay, float az, float gx, float gy, float gz, float intervalSeconds);
+
+    /**
+     * Copies the orientation as a unit quaternion w, x, y, z into the array.
+     */
+    void getQuaternion(float[] dest);
+
+    float getRoll();
+
+    float getPitch();
+
+    float getYaw();
+
+    /**
+     * Forgets the orientation; the next sample starts over.
+     */
+    void reset();
+
+    /**
+     * Returns a new filter with the same parameters and no state.
+     */
+    OrientationFilter newInstance();
+}
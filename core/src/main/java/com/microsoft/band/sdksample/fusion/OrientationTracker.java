@@ -0,0 +1,124 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.fusion;
+
+import com.microsoft.band.sdksample.sensors.InertialSample;
+
+/**
+ * Runs an {@link OrientationFilter} over the samples of the gyroscope, which carry the
+ * acceleration as well as the angular velocity, and publishes the newest orientation
+ * for other threads.
+ * <p>
+ * The filter runs on the sensor thread at the rate the samples arrive, with the
+ * interval between samples taken from their timestamps, so it keeps up when the
+ * sample rate changes. The latest orientation can be read from any thread.
+ */
+public class OrientationTracker {
+
+    // A longer gap, such as a pause in capture, is integrated as if it were this long,
+    // so one stale angular velocity can't spin the orientation around
+    private static final float MAX_INTERVAL_SECONDS = 0.2f;
+
+    private final OrientationFilter mFilter;
+    private long mLastTimestamp = -1;
+
+    // Only used by the sensor thread
+    private final float[] mQuaternion = new float[4];
+
+    // Published orientation, guarded by this
+    private final float[] mPublished = new float[4];
+    private float mRoll;
+    private float mPitch;
+    private float mYaw;
+    private long mUpdateCount;
+
+    public OrientationTracker(OrientationFilter filter) {
+        mFilter = filter;
+        mPublished[0] = 1;
+    }
+
+    /**
+     * Updates the orientation with the next gyroscope sample. Must be called on one
+     * thread at a time, in the order the samples arrive; older or repeated samples are
+     * ignored.
+     */
+    public void onSample(InertialSample sample) {
+        long timestamp = sample.getTimestamp();
+        if (mLastTimestamp >= 0 && timestamp <= mLastTimestamp) {
+            return;
+        }
+
+        float interval = (mLastTimestamp < 0) ? 0 : Math.min((timestamp - mLastTimestamp) / 1000f, MAX_INTERVAL_SECONDS);
+        mLastTimestamp = timestamp;
+
+        mFilter.update(sample.getAccelerationX(), sample.getAccelerationY(), sample.getAccelerationZ(),
+                sample.getAngularVelocityX(), sample.getAngularVelocityY(), sample.getAngularVelocityZ(), interval);
+        mFilter.getQuaternion(mQuaternion);
+        float roll = mFilter.getRoll();
+        float pitch = mFilter.getPitch();
+        float yaw = mFilter.getYaw();
+
+        synchronized (this) {
+            System.arraycopy(mQuaternion, 0, mPublished, 0, 4);
+            mRoll = roll;
+            mPitch = pitch;
+            mYaw = yaw;
+            mUpdateCount++;
+        }
+    }
+
+    /**
+     * Copies the newest orientation as a unit quaternion w, x, y, z into the array.
+     */
+    public synchronized void getQuaternion(float[] dest) {
+        System.arraycopy(mPublished, 0, dest, 0, 4);
+    }
+
+    /**
+     * Copies the newest roll, pitch and yaw, in radians, into the array.
+     */
+    public synchronized void getEulerAngles(float[] dest) {
+        dest[0] = mRoll;
+        dest[1] = mPitch;
+        dest[2] = mYaw;
+    }
+
+    /**
+     * Returns the number of samples the orientation was updated with, which tells
+     * readers whether it changed.
+     */
+    public synchronized long getUpdateCount() {
+        return mUpdateCount;
+    }
+
+    /**
+     * Starts over with the next sample. Must be called while no samples arrive, such as
+     * before the sensor is registered.
+     */
+    public synchronized void reset() {
+        mFilter.reset();
+        mLastTimestamp = -1;
+        mRoll = 0;
+        mPitch = 0;
+        mYaw = 0;
+        mPublished[0] = 1;
+        mPublished[1] = 0;
+        mPublished[2] = 0;
+        mPublished[3] = 0;
+    }
+}
@@ -0,0 +1,124 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.fusion;
+
+/**
+ * Base class of the filters that keep the orientation as a unit quaternion, which
+ * has no singularities and is cheap to integrate.
+ */
+public abstract class QuaternionFilter implements OrientationFilter {
+
+    static final float DEGREES_TO_RADIANS = (float) (Math.PI / 180);
+
+    // The orientation, rotating the Band frame into the earth frame
+    protected float mQ0 = 1;
+    protected float mQ1;
+    protected float mQ2;
+    protected float mQ3;
+
+    private boolean mPrimed;
+
+    @Override
+    public final void update(float ax, float ay, float az, float gx, float gy, float gz, float intervalSeconds) {
+        if (!mPrimed) {
+            // Start level with gravity instead of converging from the identity, which
+            // takes seconds
+            if (ax == 0 && ay == 0 && az == 0) {
+                return;
+            }
+            setFromGravity(ax, ay, az);
+            mPrimed = true;
+            return;
+        }
+
+        integrate(ax, ay, az, gx * DEGREES_TO_RADIANS, gy * DEGREES_TO_RADIANS, gz * DEGREES_TO_RADIANS,
+                intervalSeconds);
+    }
+
+    /**
+     * Advances the quaternion by one sample and normalizes it.
+     *
+     * @param gx the angular velocity about X, in radians/s
+     */
+    protected abstract void integrate(float ax, float ay, float az, float gx, float gy, float gz,
+            float intervalSeconds);
+
+    @Override
+    public void getQuaternion(float[] dest) {
+        dest[0] = mQ0;
+        dest[1] = mQ1;
+        dest[2] = mQ2;
+        dest[3] = mQ3;
+    }
+
+    @Override
+    public float getRoll() {
+        return (float) Math.atan2(2 * (mQ0 * mQ1 + mQ2 * mQ3), 1 - 2 * (mQ1 * mQ1 + mQ2 * mQ2));
+    }
+
+    @Override
+    public float getPitch() {
+        float sinPitch = 2 * (mQ0 * mQ2 - mQ3 * mQ1);
+        // Rounding can push it just past 1 at +-90 degrees
+        return (float) Math.asin(Math.max(-1, Math.min(1, sinPitch)));
+    }
+
+    @Override
+    public float getYaw() {
+        return (float) Math.atan2(2 * (mQ0 * mQ3 + mQ1 * mQ2), 1 - 2 * (mQ2 * mQ2 + mQ3 * mQ3));
+    }
+
+    @Override
+    public void reset() {
+        mQ0 = 1;
+        mQ1 = 0;
+        mQ2 = 0;
+        mQ3 = 0;
+        mPrimed = false;
+    }
+
+    /**
+     * Sets roll and pitch so gravity points along the measured acceleration, and the
+     * yaw to 0.
+     */
+    protected void setFromGravity(float ax, float ay, float az) {
+        double roll = Math.atan2(ay, az);
+        double pitch = Math.atan2(-ax, Math.sqrt(ay * ay + az * az));
+        double cr = Math.cos(roll / 2);
+        double sr = Math.sin(roll / 2);
+        double cp = Math.cos(pitch / 2);
+        double sp = Math.sin(pitch / 2);
+
+        mQ0 = (float) (cr * cp);
+        mQ1 = (float) (sr * cp);
+        mQ2 = (float) (cr * sp);
+        mQ3 = (float) (-sr * sp);
+    }
+
+    protected void normalizeQuaternion() {
+        float recipNorm = invSqrt(mQ0 * mQ0 + mQ1 * mQ1 + mQ2 * mQ2 + mQ3 * mQ3);
+        mQ0 *= recipNorm;
+        mQ1 *= recipNorm;
+        mQ2 *= recipNorm;
+        mQ3 *= recipNorm;
+    }
+
+    static float invSqrt(float x) {
+        return (float) (1 / Math.sqrt(x));
+    }
+}
@@ -0,0 +1,353 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.recording;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import com.microsoft.band.sdksample.codec.BlockEncoder;
+import com.microsoft.band.sdksample.codec.BlockFormat;
+import com.microsoft.band.sdksample.sensors.SensorType;
+import com.microsoft.band.sdksample.text.FixedPointFormatter;
+
+/**
+ * Exports a recorded session to a file for offline analysis, as CSV or in a compact
+ * columnar format, optionally gzipped.
+ * <p>
+ * The session is streamed from a {@link SessionReader} through one reused buffer into
+ * a file channel, so memory use doesn't depend on the session length and nothing is
+ * allocated per record.
+ * <p>
+ * A CSV export has a header line and one line per record:
+ * <pre>
+ *   sensor,timestamp,v0,v1,v2,v3,v4,v5
+ *   ACCELEROMETER,1444041600016,0.012451,-0.981201,0.046875
+ * </pre>
+ * with the values of each sensor in the order of {@link SessionFormat}, enums as
+ * ordinals, floats with {@link #CSV_DECIMALS} decimals and the unused value columns
+ * left out.
+ * <p>
+ * A columnar export starts with a header:
+ * <pre>
+ *   offset  size  field
+ *        0     4  magic, "BNDX"
+ *        4     2  format version
+ *        6     2  header size in bytes
+ *        8     4  maximum number of samples per block
+ *       12     4  reserved, 0
+ * </pre>
+ * followed by compressed blocks as described by {@link BlockFormat}, back to back
+ * until the end of the file. Each block holds up to {@link #BLOCK_SAMPLES} samples of
+ * one sensor, stored column by column, and the blocks of a sensor are in time order.
+ * <p>
+ * Not thread safe; an exporter exports one session at a time.
+ */
+public class SessionExporter {
+
+    public enum Format {
+        CSV,
+        COLUMNAR
+    }
+
+    public static final int COLUMNAR_MAGIC = 0x58444e42; // "BNDX" read as a little-endian int
+    public static final short COLUMNAR_VERSION = 1;
+    public static final int COLUMNAR_HEADER_SIZE = 16;
+
+    public static final int BLOCK_SAMPLES = 4096;
+    public static final int CSV_DECIMALS = 6;
+
+    // Well above the largest possible block, so any block fits after a flush
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private static final String CSV_HEADER = "sensor,timestamp,v0,v1,v2,v3,v4,v5\n";
+
+    private final Format mFormat;
+    private final boolean mGzip;
+
+    private final ByteBuffer mBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(BlockFormat.BYTE_ORDER);
+    private WritableByteChannel mChannel;
+
+    // CSV lines are formatted here before they are copied to the buffer
+    private final char[] mLine = new char[256];
+    private final char[][] mSensorNames = new char[SensorType.values().length + 1][];
+
+    // Created on first use, indexed by sensor type id
+    private final BlockEncoder[] mEncoders = new BlockEncoder[SensorType.values().length + 1];
+
+    private long mRecordCount;
+
+    public SessionExporter(Format format, boolean gzip) {
+        mFormat = format;
+        mGzip = gzip;
+
+        for (SensorType type : SensorType.values()) {
+            mSensorNames[type.getId()] = type.name().toCharArray();
+        }
+    }
+
+    public Format getFormat() {
+        return mFormat;
+    }
+
+    /**
+     * Returns the file name extension of the exports, such as ".csv.gz".
+     */
+    public String getExtension() {
+        String extension = (mFormat == Format.CSV) ? ".csv" : ".bndx";
+        return mGzip ? extension + ".gz" : extension;
+    }
+
+    /**
+     * Exports the session in the given directory, replacing the destination file. A
+     * failed export leaves a partial file behind.
+     *
+     * @return the number of records exported
+     * @throws IOException if the session can't be read or the file can't be written
+     */
+    public long export(File sessionDirectory, File destination) throws IOException {
+        SessionReader reader = new SessionReader(sessionDirectory);
+        FileOutputStream file = new FileOutputStream(destination);
+        OutputStream gzip = null;
+
+        mRecordCount = 0;
+        mBuffer.clear();
+        try {
+            if (mGzip) {
+                gzip = new FastGzipOutputStream(file);
+                mChannel = Channels.newChannel(gzip);
+            } else {
+                mChannel = file.getChannel();
+            }
+
+            if (mFormat == Format.CSV) {
+                exportCsv(reader);
+            } else {
+                exportColumnar(reader);
+            }
+            flush();
+
+            if (gzip != null) {
+                // Writes the gzip trailer
+                gzip.close();
+                gzip = null;
+            }
+        } finally {
+            mChannel = null;
+            reader.close();
+            for (BlockEncoder encoder : mEncoders) {
+                if (encoder != null) {
+                    encoder.reset();
+                }
+            }
+
+            if (gzip != null) {
+                gzip.close();
+            }
+            file.close();
+        }
+
+        return mRecordCount;
+    }
+
+    // The default compression level triples the time of a CSV export for a few percent
+    // smaller files
+    private static class FastGzipOutputStream extends GZIPOutputStream {
+        FastGzipOutputStream(OutputStream out) throws IOException {
+            super(out, BUFFER_SIZE);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+
+    //
+    // CSV
+    //
+
+    private void exportCsv(SessionReader reader) throws IOException {
+        int length = FixedPointFormatter.append(CSV_HEADER, mLine, 0);
+        putLine(length);
+
+        char[] line = mLine;
+        while (reader.next()) {
+            SensorType type = reader.getSensorType();
+            char[] name = mSensorNames[type.getId()];
+            System.arraycopy(name, 0, line, 0, name.length);
+            int offset = name.length;
+            line[offset++] = ',';
+            offset = FixedPointFormatter.formatLong(reader.getTimestamp(), line, offset);
+
+            switch (type) {
+            case ACCELEROMETER:
+                offset = appendFloat(reader.getAccelerationX(), offset);
+                offset = appendFloat(reader.getAccelerationY(), offset);
+                offset = appendFloat(reader.getAccelerationZ(), offset);
+                break;
+            case GYROSCOPE:
+                offset = appendFloat(reader.getAccelerationX(), offset);
+                offset = appendFloat(reader.getAccelerationY(), offset);
+                offset = appendFloat(reader.getAccelerationZ(), offset);
+                offset = appendFloat(reader.getAngularVelocityX(), offset);
+                offset = appendFloat(reader.getAngularVelocityY(), offset);
+                offset = appendFloat(reader.getAngularVelocityZ(), offset);
+                break;
+            case DISTANCE:
+                offset = appendLong(reader.getTotalDistance(), offset);
+                offset = appendFloat(reader.getSpeed(), offset);
+                offset = appendFloat(reader.getPace(), offset);
+                offset = appendLong(reader.getPedometerMode(), offset);
+                break;
+            case HEART_RATE:
+                offset = appendLong(reader.getHeartRate(), offset);
+                offset = appendLong(reader.getHeartRateQuality(), offset);
+                break;
+            case CONTACT:
+                offset = appendLong(reader.getContactStatus(), offset);
+                break;
+            case SKIN_TEMPERATURE:
+                offset = appendFloat(reader.getTemperature(), offset);
+                break;
+            case ULTRAVIOLET:
+                offset = appendLong(reader.getUVIndexLevel(), offset);
+                break;
+            case PEDOMETER:
+                offset = appendLong(reader.getTotalSteps(), offset);
+                break;
+            }
+
+            line[offset++] = '\n';
+            putLine(offset);
+            mRecordCount++;
+        }
+    }
+
+    private int appendFloat(float value, int offset) {
+        mLine[offset++] = ',';
+        return FixedPointFormatter.formatFixed(value, CSV_DECIMALS, mLine, offset);
+    }
+
+    private int appendLong(long value, int offset) {
+        mLine[offset++] = ',';
+        return FixedPointFormatter.formatLong(value, mLine, offset);
+    }
+
+    private void putLine(int length) throws IOException {
+        if (mBuffer.remaining() < length) {
+            flush();
+        }
+
+        // Everything we format is ASCII
+        ByteBuffer buffer = mBuffer;
+        char[] line = mLine;
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) line[i]);
+        }
+    }
+
+    //
+    // Columnar
+    //
+
+    private void exportColumnar(SessionReader reader) throws IOException {
+        mBuffer.putInt(COLUMNAR_MAGIC);
+        mBuffer.putShort(COLUMNAR_VERSION);
+        mBuffer.putShort((short) COLUMNAR_HEADER_SIZE);
+        mBuffer.putInt(BLOCK_SAMPLES);
+        mBuffer.putInt(0);
+
+        while (reader.next()) {
+            SensorType type = reader.getSensorType();
+            BlockEncoder encoder = mEncoders[type.getId()];
+            if (encoder == null) {
+                encoder = new BlockEncoder(type, BLOCK_SAMPLES);
+                mEncoders[type.getId()] = encoder;
+            }
+
+            encoder.beginSample(reader.getTimestamp());
+            switch (type) {
+            case ACCELEROMETER:
+                encoder.putFloat(reader.getAccelerationX());
+                encoder.putFloat(reader.getAccelerationY());
+                encoder.putFloat(reader.getAccelerationZ());
+                break;
+            case GYROSCOPE:
+                encoder.putFloat(reader.getAccelerationX());
+                encoder.putFloat(reader.getAccelerationY());
+                encoder.putFloat(reader.getAccelerationZ());
+                encoder.putFloat(reader.getAngularVelocityX());
+                encoder.putFloat(reader.getAngularVelocityY());
+                encoder.putFloat(reader.getAngularVelocityZ());
+                break;
+            case DISTANCE:
+                encoder.putCounter(reader.getTotalDistance());
+                encoder.putFloat(reader.getSpeed());
+                encoder.putFloat(reader.getPace());
+                encoder.putEnum(reader.getPedometerMode());
+                break;
+            case HEART_RATE:
+                encoder.putCounter(reader.getHeartRate());
+                encoder.putEnum(reader.getHeartRateQuality());
+                break;
+            case CONTACT:
+                encoder.putEnum(reader.getContactStatus());
+                break;
+            case SKIN_TEMPERATURE:
+                encoder.putFloat(reader.getTemperature());
+                break;
+            case ULTRAVIOLET:
+                encoder.putEnum(reader.getUVIndexLevel());
+                break;
+            case PEDOMETER:
+                encoder.putCounter(reader.getTotalSteps());
+                break;
+            }
+            mRecordCount++;
+
+            if (encoder.isFull()) {
+                putBlock(encoder);
+            }
+        }
+
+        for (BlockEncoder encoder : mEncoders) {
+            if (encoder != null && !encoder.isEmpty()) {
+                putBlock(encoder);
+            }
+        }
+    }
+
+    private void putBlock(BlockEncoder encoder) throws IOException {
+        if (mBuffer.remaining() < encoder.finish()) {
+            flush();
+        }
+        encoder.writeTo(mBuffer);
+    }
+
+    private void flush() throws IOException {
+        ByteBuffer buffer = mBuffer;
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            mChannel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,111 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.recording;
+
+import java.nio.ByteOrder;
+
+import com.microsoft.band.sdksample.sensors.SensorType;
+
+/**
+ * Layout of recorded session segment files.
+ * <p>
+ * A session is a directory of segment files, numbered from 0. Every segment starts
+ * with a fixed header:
+ * <pre>
+ *   offset  size  field
+ *        0     4  magic, "BNDS"
+ *        4     2  format version
+ *        6     2  header size in bytes
+ *        8     4  segment number within the session
+ *       12     4  reserved, 0
+ *       16     8  wall clock time the segment was started, in ms since the epoch
+ *       24     8  length of the record data following the header, in bytes
+ * </pre>
+ * followed by records, back to back. Every record is a sensor type id byte and the
+ * sample timestamp, then a payload whose layout is fixed by the sensor type:
+ * <pre>
+ *   ACCELEROMETER     float x, float y, float z                        (acceleration in g)
+ *   GYROSCOPE         float ax, ay, az, float gx, gy, gz               (g, degrees/s)
+ *   DISTANCE          long total (cm), float speed (cm/s), float pace (ms/m), byte mode
+ *   HEART_RATE        int bpm, byte quality
+ *   CONTACT           byte status
+ *   SKIN_TEMPERATURE  float temperature (Celsius)
+ *   ULTRAVIOLET       byte index level
+ *   PEDOMETER         long total steps
+ * </pre>
+ * Enum values are stored as ordinals of the corresponding Band SDK enums. Everything
+ * is little-endian. The data length in the header only covers records known to be
+ * complete; anything after it is garbage from preallocation or an interrupted write.
+ */
+public final class SessionFormat {
+
+    public static final int MAGIC = 0x53444e42; // "BNDS" read as a little-endian int
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+
+    public static final int MAGIC_OFFSET = 0;
+    public static final int VERSION_OFFSET = 4;
+    public static final int HEADER_SIZE_OFFSET = 6;
+    public static final int SEGMENT_NUMBER_OFFSET = 8;
+    public static final int START_TIME_OFFSET = 16;
+    public static final int DATA_LENGTH_OFFSET = 24;
+
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    // Type id and timestamp
+    public static final int RECORD_HEADER_SIZE = 1 + 8;
+
+    public static final String SEGMENT_PREFIX = "segment-";
+    public static final String SEGMENT_SUFFIX = ".bnds";
+
+    private static final int[] PAYLOAD_SIZES = new int[SensorType.values().length + 1];
+
+    static {
+        PAYLOAD_SIZES[SensorType.ACCELEROMETER.getId()] = 3 * 4;
+        PAYLOAD_SIZES[SensorType.GYROSCOPE.getId()] = 6 * 4;
+        PAYLOAD_SIZES[SensorType.DISTANCE.getId()] = 8 + 4 + 4 + 1;
+        PAYLOAD_SIZES[SensorType.HEART_RATE.getId()] = 4 + 1;
+        PAYLOAD_SIZES[SensorType.CONTACT.getId()] = 1;
+        PAYLOAD_SIZES[SensorType.SKIN_TEMPERATURE.getId()] = 4;
+        PAYLOAD_SIZES[SensorType.ULTRAVIOLET.getId()] = 1;
+        PAYLOAD_SIZES[SensorType.PEDOMETER.getId()] = 8;
+    }
+
+    private SessionFormat() {
+    }
+
+    /**
+     * Returns the full size of a record of the given type, including its header.
+     */
+    public static int getRecordSize(SensorType type) {
+        return RECORD_HEADER_SIZE + PAYLOAD_SIZES[type.getId()];
+    }
+
+    /**
+     * Returns the name of the segment file with the given number.
+     */
+    public static String getSegmentName(int segmentNumber) {
+        // Zero padded so the files sort in recording order
+        String number = Integer.toString(segmentNumber);
+        StringBuilder name = new StringBuilder(SEGMENT_PREFIX);
+        for (int i = number.length(); i < 6; i++) {
+            name.append('0');
+        }
+        return name.append(number).append(SEGMENT_SUFFIX).toString();
+    }
+}
@@ -0,0 +1,322 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.recording;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.microsoft.band.sdksample.sensors.SensorType;
+
+/**
+ * Reads the records of a session written by {@link SessionRecorder}, in recording
+ * order, one segment at a time.
+ * <p>
+ * The reader works like a cursor: {@link #next()} decodes the next record into
+ * primitive fields that are then read through the getters for that sensor type. Only
+ * the current segment is mapped, so memory use doesn't depend on the session length,
+ * and reading doesn't allocate per record.
+ */
+public class SessionReader {
+
+    private static final FileFilter SEGMENT_FILTER = new FileFilter() {
+        @Override
+        public boolean accept(File file) {
+            String name = file.getName();
+            return name.startsWith(SessionFormat.SEGMENT_PREFIX) && name.endsWith(SessionFormat.SEGMENT_SUFFIX);
+        }
+    };
+
+    private final File[] mSegmentFiles;
+    private int mNextSegment;
+    private MappedByteBuffer mBuffer;
+    private int mLimit;
+
+    // The current record
+    private SensorType mType;
+    private long mTimestamp;
+    private final float[] mFloats = new float[6];
+    private long mLong;
+    private int mInt;
+    private int mEnumOrdinal;
+
+    /**
+     * @param sessionDirectory the directory the session was recorded into
+     * @throws IOException if the directory doesn't contain any segments
+     */
+    public SessionReader(File sessionDirectory) throws IOException {
+        File[] files = sessionDirectory.listFiles(SEGMENT_FILTER);
+
+        if (files == null || files.length == 0) {
+            throw new IOException("No recorded segments in " + sessionDirectory);
+        }
+
+        // Segment names are zero padded, so name order is recording order
+        Arrays.sort(files);
+        mSegmentFiles = files;
+    }
+
+    /**
+     * Returns whether the directory holds the segments of a recorded session.
+     */
+    public static boolean isSession(File directory) {
+        File[] files = directory.listFiles(SEGMENT_FILTER);
+        return files != null && files.length > 0;
+    }
+
+    /**
+     * Returns the sessions recorded below the directory, in name order: those directly
+     * in it, and those one level further down, where a recording of several Bands keeps
+     * the session of each Band.
+     */
+    public static List<File> findSessions(File directory) {
+        List<File> sessions = new ArrayList<File>();
+        File[] children = directory.listFiles();
+        if (children == null) {
+            return sessions;
+        }
+
+        Arrays.sort(children);
+        for (File child : children) {
+            if (!child.isDirectory()) {
+                continue;
+            }
+            if (isSession(child)) {
+                sessions.add(child);
+                continue;
+            }
+
+            File[] bands = child.listFiles();
+            if (bands != null) {
+                Arrays.sort(bands);
+                for (File band : bands) {
+                    if (band.isDirectory() && isSession(band)) {
+                        sessions.add(band);
+                    }
+                }
+            }
+        }
+        return sessions;
+    }
+
+    /**
+     * Moves back to the first record of the session.
+     */
+    public void rewind() {
+        mNextSegment = 0;
+        mBuffer = null;
+        mType = null;
+    }
+
+    /**
+     * Advances to the next record.
+     *
+     * @return false at the end of the session
+     * @throws IOException if a segment can't be read or is corrupt
+     */
+    public boolean next() throws IOException {
+        while (mBuffer == null || mBuffer.position() >= mLimit) {
+            if (mNextSegment >= mSegmentFiles.length) {
+                mType = null;
+                return false;
+            }
+            openSegment(mSegmentFiles[mNextSegment++]);
+        }
+
+        MappedByteBuffer buffer = mBuffer;
+        SensorType type = SensorType.fromId(buffer.get());
+        if (type == null || buffer.position() - 1 + SessionFormat.getRecordSize(type) > mLimit) {
+            throw new IOException("Corrupt record at offset " + (buffer.position() - 1));
+        }
+
+        mType = type;
+        mTimestamp = buffer.getLong();
+
+        switch (type) {
+        case ACCELEROMETER:
+            readFloats(buffer, 3);
+            break;
+        case GYROSCOPE:
+            readFloats(buffer, 6);
+            break;
+        case DISTANCE:
+            mLong = buffer.getLong();
+            readFloats(buffer, 2);
+            mEnumOrdinal = buffer.get();
+            break;
+        case HEART_RATE:
+            mInt = buffer.getInt();
+            mEnumOrdinal = buffer.get();
+            break;
+        case CONTACT:
+        case ULTRAVIOLET:
+            mEnumOrdinal = buffer.get();
+            break;
+        case SKIN_TEMPERATURE:
+            readFloats(buffer, 1);
+            break;
+        case PEDOMETER:
+            mLong = buffer.getLong();
+            break;
+        }
+        return true;
+    }
+
+    /**
+     * Releases the current segment. The reader can be used again after {@link #rewind()}.
+     */
+    public void close() {
+        mBuffer = null;
+        mNextSegment = mSegmentFiles.length;
+        mType = null;
+    }
+
+    /**
+     * Returns the sensor type of the current record.
+     */
+    public SensorType getSensorType() {
+        return mType;
+    }
+
+    public long getTimestamp() {
+        return mTimestamp;
+    }
+
+    //
+    // Accelerometer and gyroscope
+    //
+
+    public float getAccelerationX() {
+        return mFloats[0];
+    }
+
+    public float getAccelerationY() {
+        return mFloats[1];
+    }
+
+    public float getAccelerationZ() {
+        return mFloats[2];
+    }
+
+    public float getAngularVelocityX() {
+        return mFloats[3];
+    }
+
+    public float getAngularVelocityY() {
+        return mFloats[4];
+    }
+
+    public float getAngularVelocityZ() {
+        return mFloats[5];
+    }
+
+    //
+    // Distance
+    //
+
+    public long getTotalDistance() {
+        return mLong;
+    }
+
+    public float getSpeed() {
+        return mFloats[0];
+    }
+
+    public float getPace() {
+        return mFloats[1];
+    }
+
+    public int getPedometerMode() {
+        return mEnumOrdinal;
+    }
+
+    //
+    // Heart rate
+    //
+
+    public int getHeartRate() {
+        return mInt;
+    }
+
+    public int getHeartRateQuality() {
+        return mEnumOrdinal;
+    }
+
+    //
+    // Contact, skin temperature, UV and pedometer
+    //
+
+    public int getContactStatus() {
+        return mEnumOrdinal;
+    }
+
+    public float getTemperature() {
+        return mFloats[0];
+    }
+
+    public int getUVIndexLevel() {
+        return mEnumOrdinal;
+    }
+
+    public long getTotalSteps() {
+        return mLong;
+    }
+
+    private void readFloats(MappedByteBuffer buffer, int count) {
+        for (int i = 0; i < count; i++) {
+            mFloats[i] = buffer.getFloat();
+        }
+    }
+
+    private void openSegment(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            long fileLength = raf.length();
+            if (fileLength < SessionFormat.HEADER_SIZE) {
+                throw new IOException("Truncated segment " + file);
+            }
+
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, fileLength);
+            buffer.order(SessionFormat.BYTE_ORDER);
+
+            if (buffer.getInt(SessionFormat.MAGIC_OFFSET) != SessionFormat.MAGIC) {
+                throw new IOException("Not a session segment: " + file);
+            }
+            if (buffer.getShort(SessionFormat.VERSION_OFFSET) > SessionFormat.VERSION) {
+                throw new IOException("Unsupported session format version in " + file);
+            }
+
+            int headerSize = buffer.getShort(SessionFormat.HEADER_SIZE_OFFSET);
+            long dataLength = buffer.getLong(SessionFormat.DATA_LENGTH_OFFSET);
+
+            // The header only claims complete records, but a crash may have left the
+            // file shorter than the claimed length
+            mLimit = (int) Math.min(fileLength, headerSize + dataLength);
+            buffer.position(headerSize);
+            mBuffer = buffer;
+        } finally {
+            raf.close();
+        }
+    }
+}
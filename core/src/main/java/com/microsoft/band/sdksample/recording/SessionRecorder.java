@@ -0,0 +1,418 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.recording;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.microsoft.band.sdksample.sensors.SensorType;
+
+/**
+ * Records sensor samples into a session directory of memory-mapped segment files, in
+ * the layout described by {@link SessionFormat}.
+ * <p>
+ * Recording a sample only copies a few dozen bytes into the mapped segment, so it is
+ * cheap enough to do directly on the sensor callback threads. Everything that touches
+ * the file system happens on a background thread: the next segment is created and
+ * mapped before the current one fills up, and the segments are periodically flushed
+ * to storage together with their header.
+ * <p>
+ * Samples that can't be recorded because of an I/O error, or because the next segment
+ * isn't mapped yet when the current one fills up, are counted in
+ * {@link #getDroppedCount()} rather than thrown back at or stalling the sensor
+ * callbacks.
+ */
+public class SessionRecorder {
+
+    // 4 MB holds about twenty minutes of both inertial sensors at their fastest rate:
+    // 21 and 33 byte records at 62.5 Hz each
+    public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 1000;
+
+    private static final int PAGE_SIZE = 4096;
+
+    private final File mDirectory;
+    private final int mSegmentSize;
+    private final ScheduledExecutorService mExecutor;
+
+    // Guarded by "this". The current segment is also read by the flusher, which must
+    // not take the lock: the recording thread may hold it while waiting for the
+    // background thread to finish preparing the next segment.
+    private volatile Segment mSegment;
+    private Future<Segment> mNextSegment;
+    private boolean mClosed;
+
+    private volatile long mRecordedCount;
+    private volatile long mDroppedCount;
+    private volatile IOException mLastError;
+
+    /**
+     * Starts recording a new session into the given directory, which is created if needed.
+     *
+     * @throws IOException if the directory or the first segment can't be created
+     */
+    public SessionRecorder(File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_FLUSH_INTERVAL_MS);
+    }
+
+    public SessionRecorder(File directory, int segmentSize, long flushIntervalMillis) throws IOException {
+        if (segmentSize < SessionFormat.HEADER_SIZE + 256) {
+            throw new IllegalArgumentException("Segment size too small");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Can't create session directory " + directory);
+        }
+
+        mDirectory = directory;
+        mSegmentSize = segmentSize;
+        mExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "SessionRecorder");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        try {
+            mSegment = new Segment(directory, 0, segmentSize);
+        } catch (IOException ex) {
+            mExecutor.shutdown();
+            throw ex;
+        }
+
+        mNextSegment = prepareSegment(1);
+        mExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public File getDirectory() {
+        return mDirectory;
+    }
+
+    /**
+     * Returns the number of samples recorded so far.
+     */
+    public long getRecordedCount() {
+        return mRecordedCount;
+    }
+
+    /**
+     * Returns the number of samples that were lost because of I/O errors or because
+     * they arrived after {@link #close()}.
+     */
+    public long getDroppedCount() {
+        return mDroppedCount;
+    }
+
+    /**
+     * Returns the most recent I/O error, or null if there was none.
+     */
+    public IOException getLastError() {
+        return mLastError;
+    }
+
+    //
+    // Recording methods, one per sensor. Enum values are passed as ordinals of the
+    // Band SDK enums. All of them can be called from any thread.
+    //
+
+    public synchronized void recordAccelerometer(long timestamp, float x, float y, float z) {
+        MappedByteBuffer buffer = beginRecord(SensorType.ACCELEROMETER, timestamp);
+        if (buffer != null) {
+            buffer.putFloat(x).putFloat(y).putFloat(z);
+            endRecord();
+        }
+    }
+
+    public synchronized void recordGyroscope(long timestamp, float accelerationX, float accelerationY, float accelerationZ,
+            float angularVelocityX, float angularVelocityY, float angularVelocityZ) {
+        MappedByteBuffer buffer = beginRecord(SensorType.GYROSCOPE, timestamp);
+        if (buffer != null) {
+            buffer.putFloat(accelerationX).putFloat(accelerationY).putFloat(accelerationZ);
+            buffer.putFloat(angularVelocityX).putFloat(angularVelocityY).putFloat(angularVelocityZ);
+            endRecord();
+        }
+    }
+
+    public synchronized void recordDistance(long timestamp, long totalDistance, float speed, float pace, int pedometerMode) {
+        MappedByteBuffer buffer = beginRecord(SensorType.DISTANCE, timestamp);
+        if (buffer != null) {
+            buffer.putLong(totalDistance).putFloat(speed).putFloat(pace).put((byte) pedometerMode);
+            endRecord();
+        }
+    }
+
+    public synchronized void recordHeartRate(long timestamp, int heartRate, int quality) {
+        MappedByteBuffer buffer = beginRecord(SensorType.HEART_RATE, timestamp);
+        if (buffer != null) {
+            buffer.putInt(heartRate).put((byte) quality);
+            endRecord();
+        }
+    }
+
+    public synchronized void recordContact(long timestamp, int contactStatus) {
+        MappedByteBuffer buffer = beginRecord(SensorType.CONTACT, timestamp);
+        if (buffer != null) {
+            buffer.put((byte) contactStatus);
+            endRecord();
+        }
+    }
+
+    public synchronized void recordSkinTemperature(long timestamp, float temperature) {
+        MappedByteBuffer buffer = beginRecord(SensorType.SKIN_TEMPERATURE, timestamp);
+        if (buffer != null) {
+            buffer.putFloat(temperature);
+            endRecord();
+        }
+    }
+
+    public synchronized void recordUV(long timestamp, int uvIndexLevel) {
+        MappedByteBuffer buffer = beginRecord(SensorType.ULTRAVIOLET, timestamp);
+        if (buffer != null) {
+            buffer.put((byte) uvIndexLevel);
+            endRecord();
+        }
+    }
+
+    public synchronized void recordPedometer(long timestamp, long totalSteps) {
+        MappedByteBuffer buffer = beginRecord(SensorType.PEDOMETER, timestamp);
+        if (buffer != null) {
+            buffer.putLong(totalSteps);
+            endRecord();
+        }
+    }
+
+    /**
+     * Finishes the session: writes the final header, flushes everything to storage
+     * and removes the segment prepared in advance. Samples recorded afterwards are
+     * dropped.
+     */
+    public void close() {
+        Segment last;
+        Future<Segment> next;
+
+        synchronized (this) {
+            if (mClosed) {
+                return;
+            }
+            mClosed = true;
+            last = mSegment;
+            next = mNextSegment;
+            mSegment = null;
+            mNextSegment = null;
+        }
+
+        mExecutor.shutdown();
+        try {
+            mExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (last != null) {
+            last.finish();
+        }
+
+        try {
+            Segment unused = next.get();
+            unused.discard();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            // Nothing was created
+        }
+    }
+
+    //
+    // Writes the record header, rolling over to the next segment if the record doesn't
+    // fit in the current one. Returns the buffer to write the payload to, or null if
+    // the record has to be dropped. Callers hold the lock.
+    //
+    private MappedByteBuffer beginRecord(SensorType type, long timestamp) {
+        if (mClosed) {
+            mDroppedCount++;
+            return null;
+        }
+
+        int size = SessionFormat.getRecordSize(type);
+        if (mSegment.buffer.remaining() < size && !rollOver()) {
+            mDroppedCount++;
+            return null;
+        }
+
+        MappedByteBuffer buffer = mSegment.buffer;
+        buffer.put(type.getId()).putLong(timestamp);
+        return buffer;
+    }
+
+    private void endRecord() {
+        mSegment.publishLength();
+        mRecordedCount++;
+    }
+
+    //
+    // Switches to the segment prepared in the background. Normally it is ready long
+    // before it's needed; if it isn't, the sample is dropped rather than holding up
+    // every sensor callback behind the file system. Never waits under the lock.
+    //
+    private boolean rollOver() {
+        if (!mNextSegment.isDone()) {
+            return false;
+        }
+
+        final Segment full = mSegment;
+        int nextNumber = full.number + 1;
+
+        Segment next;
+        try {
+            next = mNextSegment.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException ex) {
+            mLastError = asIOException(ex.getCause());
+
+            // Try again with a fresh attempt for the next sample
+            mNextSegment = prepareSegment(nextNumber);
+            return false;
+        }
+
+        mSegment = next;
+        mNextSegment = prepareSegment(nextNumber + 1);
+
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                full.finish();
+            }
+        });
+        return true;
+    }
+
+    private Future<Segment> prepareSegment(final int number) {
+        return mExecutor.submit(new Callable<Segment>() {
+            @Override
+            public Segment call() throws IOException {
+                return new Segment(mDirectory, number, mSegmentSize);
+            }
+        });
+    }
+
+    //
+    // Runs on the background thread. The segment may still be written to while we
+    // flush it; the header only ever claims records that are complete.
+    //
+    private void flush() {
+        Segment segment = mSegment;
+        if (segment != null) {
+            segment.flush();
+        }
+    }
+
+    private static IOException asIOException(Throwable cause) {
+        return (cause instanceof IOException) ? (IOException) cause : new IOException(cause);
+    }
+
+    private final class Segment {
+        final int number;
+        final File file;
+        final MappedByteBuffer buffer;
+
+        // Length of the complete records, written by the recording thread
+        private volatile int mPublishedLength;
+
+        Segment(File directory, int number, int size) throws IOException {
+            this.number = number;
+            this.file = new File(directory, SessionFormat.getSegmentName(number));
+
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                raf.setLength(size);
+                buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            } finally {
+                // The mapping stays valid after the file is closed
+                raf.close();
+            }
+
+            // Touch every page now, on the background thread, so the recording thread
+            // doesn't take a page fault whenever it crosses into a new page.
+            for (int offset = 0; offset < size; offset += PAGE_SIZE) {
+                buffer.put(offset, (byte) 0);
+            }
+
+            buffer.order(SessionFormat.BYTE_ORDER);
+            buffer.putInt(SessionFormat.MAGIC_OFFSET, SessionFormat.MAGIC);
+            buffer.putShort(SessionFormat.VERSION_OFFSET, SessionFormat.VERSION);
+            buffer.putShort(SessionFormat.HEADER_SIZE_OFFSET, (short) SessionFormat.HEADER_SIZE);
+            buffer.putInt(SessionFormat.SEGMENT_NUMBER_OFFSET, number);
+            buffer.putLong(SessionFormat.START_TIME_OFFSET, System.currentTimeMillis());
+            buffer.putLong(SessionFormat.DATA_LENGTH_OFFSET, 0);
+            buffer.position(SessionFormat.HEADER_SIZE);
+        }
+
+        void publishLength() {
+            mPublishedLength = buffer.position() - SessionFormat.HEADER_SIZE;
+        }
+
+        void flush() {
+            buffer.putLong(SessionFormat.DATA_LENGTH_OFFSET, mPublishedLength);
+            buffer.force();
+        }
+
+        //
+        // Flushes the segment for the last time and trims the unused preallocated
+        // space off the end of the file.
+        //
+        void finish() {
+            flush();
+
+            try {
+                RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                try {
+                    raf.setLength(SessionFormat.HEADER_SIZE + mPublishedLength);
+                } finally {
+                    raf.close();
+                }
+            } catch (IOException ex) {
+                // Readers rely on the header length, so the extra space is harmless
+                mLastError = ex;
+            }
+        }
+
+        void discard() {
+            if (!file.delete()) {
+                mLastError = new IOException("Can't delete unused segment " + file);
+            }
+        }
+    }
+}
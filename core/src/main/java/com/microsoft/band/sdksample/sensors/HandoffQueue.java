@@ -0,0 +1,330 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.sensors;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded lock-free queue that hands samples from the threads that deliver them to
+ * the threads that process them.
+ * <p>
+ * Any number of threads can offer and poll concurrently. Every slot carries a sequence
+ * number that tells producers and consumers whose turn it is, so each side claims a
+ * slot with a single compare-and-set on its own position and never waits for the
+ * other, and nothing is allocated per sample. Each sample can carry a time, such as
+ * when it was delivered, which the consumer gets back with {@link #poll(long[])}.
+ * <p>
+ * What happens when the queue is full is decided by its {@link OverflowPolicy}. The
+ * queue counts what it drops and remembers the deepest it has been, so a processing
+ * thread that falls behind shows up in the metrics before it loses samples.
+ *
+ * @param <E> the sample type
+ */
+public class HandoffQueue<E> {
+
+    public enum OverflowPolicy {
+        /**
+         * Discards the oldest queued samples to make room, so the processing thread
+         * always works on the most recent data.
+         */
+        DROP_OLDEST,
+
+        /**
+         * Makes the producer wait until there is room. No sample is lost, at the cost
+         * of holding up the thread that delivers them.
+         */
+        BLOCK,
+
+        /**
+         * Once the queue is half full, keeps only every {@link #getSampleInterval()}-th
+         * sample, and drops new samples while it is full. The stream thins out evenly
+         * instead of losing a contiguous stretch.
+         */
+        SAMPLE
+    }
+
+    public static final int DEFAULT_SAMPLE_INTERVAL = 4;
+
+    // A blocked producer yields this many times before it starts sleeping
+    private static final int BLOCK_SPINS = 100;
+    private static final long BLOCK_PARK_NANOS = 100 * 1000;
+
+    private final AtomicReferenceArray<E> mSlots;
+    private final AtomicLongArray mSequences;
+
+    // Written and read like the slots, before the sequence hands them over
+    private final long[] mTimes;
+    private final int mCapacity;
+    private final int mMask;
+    private final OverflowPolicy mPolicy;
+    private final int mSampleInterval;
+
+    // The positions of the next sample to offer and to poll
+    private final AtomicLong mTail = new AtomicLong();
+    private final AtomicLong mHead = new AtomicLong();
+
+    private final AtomicLong mDroppedCount = new AtomicLong();
+    private final AtomicInteger mMaxDepth = new AtomicInteger();
+    private final AtomicLong mBlockedCount = new AtomicLong();
+    private volatile boolean mClosed;
+
+    // Counts the samples offered while SAMPLE thins out the stream. Producers may race
+    // on it, which only shifts which samples are kept.
+    private int mSampleCounter;
+
+    public HandoffQueue(int capacity, OverflowPolicy policy) {
+        this(capacity, policy, DEFAULT_SAMPLE_INTERVAL);
+    }
+
+    /**
+     * @param capacity       the number of slots, rounded up to a power of two
+     * @param sampleInterval one in how many samples {@link OverflowPolicy#SAMPLE} keeps
+     *                       while the queue is more than half full
+     */
+    public HandoffQueue(int capacity, OverflowPolicy policy, int sampleInterval) {
+        if (capacity < 2 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity must be between 2 and 2^30");
+        }
+        if (sampleInterval < 1) {
+            throw new IllegalArgumentException("Sample interval must be at least 1");
+        }
+
+        int highest = Integer.highestOneBit(capacity);
+        mCapacity = (highest == capacity) ? capacity : highest << 1;
+        mMask = mCapacity - 1;
+        mSlots = new AtomicReferenceArray<E>(mCapacity);
+        mSequences = new AtomicLongArray(mCapacity);
+        mTimes = new long[mCapacity];
+        for (int i = 0; i < mCapacity; i++) {
+            mSequences.set(i, i);
+        }
+        mPolicy = policy;
+        mSampleInterval = sampleInterval;
+    }
+
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    public OverflowPolicy getPolicy() {
+        return mPolicy;
+    }
+
+    public int getSampleInterval() {
+        return mSampleInterval;
+    }
+
+    public boolean offer(E sample) {
+        return offer(sample, 0);
+    }
+
+    /**
+     * Adds a sample, applying the overflow policy if the queue is full.
+     *
+     * @param time a time that goes along with the sample
+     * @return true if the sample was queued, false if it was dropped
+     */
+    public boolean offer(E sample, long time) {
+        if (mClosed) {
+            mDroppedCount.incrementAndGet();
+            return false;
+        }
+
+        if (mPolicy == OverflowPolicy.SAMPLE && getDepth() >= mCapacity / 2
+                && ++mSampleCounter % mSampleInterval != 0) {
+            mDroppedCount.incrementAndGet();
+            return false;
+        }
+
+        if (!tryOffer(sample, time)) {
+            switch (mPolicy) {
+            case DROP_OLDEST:
+                // A consumer may take the oldest sample before we do, which makes room
+                // just the same
+                do {
+                    if (poll() != null) {
+                        mDroppedCount.incrementAndGet();
+                    }
+                } while (!tryOffer(sample, time));
+                break;
+
+            case BLOCK:
+                mBlockedCount.incrementAndGet();
+                for (int spins = 0; !tryOffer(sample, time); spins++) {
+                    if (mClosed) {
+                        mDroppedCount.incrementAndGet();
+                        return false;
+                    }
+                    if (spins < BLOCK_SPINS) {
+                        Thread.yield();
+                    } else {
+                        LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                    }
+                }
+                break;
+
+            case SAMPLE:
+                mDroppedCount.incrementAndGet();
+                return false;
+            }
+        }
+
+        int depth = getDepth();
+        for (;;) {
+            int max = mMaxDepth.get();
+            if (depth <= max || mMaxDepth.compareAndSet(max, depth)) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    private boolean tryOffer(E sample, long time) {
+        long tail = mTail.get();
+        for (;;) {
+            int index = (int) (tail & mMask);
+            long distance = mSequences.get(index) - tail;
+            if (distance == 0) {
+                if (mTail.compareAndSet(tail, tail + 1)) {
+                    mSlots.lazySet(index, sample);
+                    mTimes[index] = time;
+                    // A full write, so that a consumer deciding to sleep either sees
+                    // the sample or is seen by the producer checking whether to wake it
+                    mSequences.set(index, tail + 1);
+                    return true;
+                }
+                tail = mTail.get();
+            } else if (distance < 0) {
+                // The slot still holds the sample from one lap ago
+                return false;
+            } else {
+                tail = mTail.get();
+            }
+        }
+    }
+
+    public E poll() {
+        return poll(null);
+    }
+
+    /**
+     * Removes and returns the oldest sample, or null if the queue is empty.
+     *
+     * @param time if not null, receives the time offered with the sample in its
+     *             first element
+     */
+    public E poll(long[] time) {
+        long head = mHead.get();
+        for (;;) {
+            int index = (int) (head & mMask);
+            long distance = mSequences.get(index) - (head + 1);
+            if (distance == 0) {
+                if (mHead.compareAndSet(head, head + 1)) {
+                    E sample = mSlots.get(index);
+                    if (time != null) {
+                        time[0] = mTimes[index];
+                    }
+                    mSlots.lazySet(index, null);
+                    mSequences.lazySet(index, head + mCapacity);
+                    return sample;
+                }
+                head = mHead.get();
+            } else if (distance < 0) {
+                // Nothing has been written to the slot yet
+                return null;
+            } else {
+                head = mHead.get();
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return getDepth() == 0;
+    }
+
+    /**
+     * Makes every further offer drop its sample, and releases producers waiting under
+     * {@link OverflowPolicy#BLOCK}. Samples already queued can still be polled.
+     */
+    public void close() {
+        mClosed = true;
+    }
+
+    public boolean isClosed() {
+        return mClosed;
+    }
+
+    //
+    // Metrics, which can be read from any thread
+    //
+
+    /**
+     * Returns the number of samples queued right now.
+     */
+    public int getDepth() {
+        // Read the head first, so a poll in between can only make the result too large
+        long head = mHead.get();
+        long depth = mTail.get() - head;
+        return (int) Math.max(0, Math.min(depth, mCapacity));
+    }
+
+    /**
+     * Returns the largest depth seen after an offer since the last {@link #resetMaxDepth()}.
+     */
+    public int getMaxDepth() {
+        return mMaxDepth.get();
+    }
+
+    public void resetMaxDepth() {
+        mMaxDepth.set(0);
+    }
+
+    /**
+     * Returns the number of samples queued so far.
+     */
+    public long getQueuedCount() {
+        return mTail.get();
+    }
+
+    /**
+     * Returns the number of samples taken out of the queue so far, including the ones
+     * discarded by {@link OverflowPolicy#DROP_OLDEST}.
+     */
+    public long getPolledCount() {
+        return mHead.get();
+    }
+
+    /**
+     * Returns the number of samples lost to the overflow policy or offered after
+     * {@link #close()}.
+     */
+    public long getDroppedCount() {
+        return mDroppedCount.get();
+    }
+
+    /**
+     * Returns how many times a producer had to wait under {@link OverflowPolicy#BLOCK}.
+     */
+    public long getBlockedCount() {
+        return mBlockedCount.get();
+    }
+}
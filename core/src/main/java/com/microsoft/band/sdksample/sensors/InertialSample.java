@@ -0,0 +1,46 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.sensors;
+
+/**
+ * A sample of the inertial sensors: the acceleration in g and the angular velocity in
+ * degrees per second, as the Band delivers them with every gyroscope reading.
+ * <p>
+ * This mirrors the getters of the SDK's gyroscope event so the code that works on the
+ * samples doesn't depend on the SDK and runs on any JVM. The app adapts the SDK events
+ * to it; elsewhere samples can come from a recording or be made up.
+ */
+public interface InertialSample {
+
+    /**
+     * Returns the time the Band took the sample, in milliseconds since the epoch.
+     */
+    long getTimestamp();
+
+    float getAccelerationX();
+
+    float getAccelerationY();
+
+    float getAccelerationZ();
+
+    float getAngularVelocityX();
+
+    float getAngularVelocityY();
+
+    float getAngularVelocityZ();
+}
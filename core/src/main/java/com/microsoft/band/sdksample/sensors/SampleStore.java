@@ -0,0 +1,339 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.sensors;
+
+/**
+ * Column-oriented in-memory store for long streams of sensor samples.
+ * <p>
+ * Every sample is a timestamp plus a fixed number of float values. Instead of keeping
+ * one object per sample, the values are copied into parallel primitive arrays that are
+ * allocated in fixed-size chunks as the store grows. Once the store holds its maximum
+ * number of chunks, the oldest chunk is recycled for new samples, so a long session
+ * neither allocates per sample nor grows beyond {@link #getMemoryFootprint()}.
+ * <p>
+ * Samples are addressed by an absolute index that keeps increasing as samples are
+ * appended; {@link #getFirstIndex()} moves forward when old chunks are recycled.
+ * A single thread may append while any number of threads read.
+ */
+public class SampleStore {
+
+    // Column layout shared by the accelerometer and gyroscope stores
+    public static final int ACCELERATION_X = 0;
+    public static final int ACCELERATION_Y = 1;
+    public static final int ACCELERATION_Z = 2;
+    public static final int ANGULAR_VELOCITY_X = 3;
+    public static final int ANGULAR_VELOCITY_Y = 4;
+    public static final int ANGULAR_VELOCITY_Z = 5;
+
+    // The only column of a single value store
+    public static final int VALUE = 0;
+
+    public static final int ACCELEROMETER_COLUMNS = 3;
+    public static final int GYROSCOPE_COLUMNS = 6;
+    public static final int SINGLE_VALUE_COLUMNS = 1;
+
+    // 4096 samples is a bit over a minute of data at the fastest Band sample rate
+    public static final int DEFAULT_CHUNK_SHIFT = 12;
+
+    // The low rate sensors report about once per second, so 256 samples is minutes
+    public static final int LOW_RATE_CHUNK_SHIFT = 8;
+
+    private final int mColumnCount;
+    private final int mChunkShift;
+    private final int mChunkSize;
+    private final int mChunkMask;
+
+    // Chunks are used as a ring once all of them have been allocated
+    private final long[][] mTimestampChunks;
+    private final float[][][] mValueChunks;
+
+    // Absolute index of the oldest retained sample and one past the newest one.
+    // Only the writer changes them; readers use them to validate what they read.
+    private volatile long mFirstIndex;
+    private volatile long mEndIndex;
+
+    /**
+     * Creates a store for accelerometer samples (acceleration X, Y and Z).
+     *
+     * @param maxSamples the number of samples to retain before recycling the oldest ones
+     */
+    public static SampleStore forAccelerometer(long maxSamples) {
+        return new SampleStore(ACCELEROMETER_COLUMNS, DEFAULT_CHUNK_SHIFT, maxSamples);
+    }
+
+    /**
+     * Creates a store for gyroscope samples (acceleration and angular velocity X, Y and Z).
+     *
+     * @param maxSamples the number of samples to retain before recycling the oldest ones
+     */
+    public static SampleStore forGyroscope(long maxSamples) {
+        return new SampleStore(GYROSCOPE_COLUMNS, DEFAULT_CHUNK_SHIFT, maxSamples);
+    }
+
+    /**
+     * Creates a store for a low rate sensor with a single value, such as the heart rate.
+     *
+     * @param maxSamples the number of samples to retain before recycling the oldest ones
+     */
+    public static SampleStore forSingleValue(long maxSamples) {
+        return new SampleStore(SINGLE_VALUE_COLUMNS, LOW_RATE_CHUNK_SHIFT, maxSamples);
+    }
+
+    /**
+     * @param columnCount the number of float values in every sample
+     * @param chunkShift  log2 of the number of samples held by one chunk
+     * @param maxSamples  the number of samples to retain, rounded up to whole chunks
+     */
+    public SampleStore(int columnCount, int chunkShift, long maxSamples) {
+        if (columnCount < 1) {
+            throw new IllegalArgumentException("A sample store needs at least one column");
+        }
+        if (chunkShift < 4 || chunkShift > 20) {
+            throw new IllegalArgumentException("Chunk shift must be between 4 and 20");
+        }
+
+        mColumnCount = columnCount;
+        mChunkShift = chunkShift;
+        mChunkSize = 1 << chunkShift;
+        mChunkMask = mChunkSize - 1;
+
+        // One extra chunk is kept so that a full set of maxSamples is always readable
+        // while the chunk after it is being filled.
+        long chunkCount = ((maxSamples + mChunkMask) >> chunkShift) + 1;
+        if (chunkCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many samples requested");
+        }
+
+        mTimestampChunks = new long[(int) Math.max(2, chunkCount)][];
+        mValueChunks = new float[mTimestampChunks.length][][];
+    }
+
+    public int getColumnCount() {
+        return mColumnCount;
+    }
+
+    /**
+     * Returns the index of the oldest sample still held by the store.
+     */
+    public long getFirstIndex() {
+        return mFirstIndex;
+    }
+
+    /**
+     * Returns the index the next appended sample will get, which is also the total
+     * number of samples appended since the store was created or cleared.
+     */
+    public long getEndIndex() {
+        return mEndIndex;
+    }
+
+    /**
+     * Returns the number of samples currently held.
+     */
+    public int size() {
+        return (int) (mEndIndex - mFirstIndex);
+    }
+
+    /**
+     * Returns the number of bytes used by the store once it has allocated all of its chunks.
+     */
+    public long getMemoryFootprint() {
+        return (long) mTimestampChunks.length * mChunkSize * (8 + 4 * mColumnCount);
+    }
+
+    /**
+     * Appends a sample with a single value. Must only be called from the writer thread.
+     */
+    public void append(long timestamp, float value) {
+        if (mColumnCount != 1) {
+            throw new IllegalStateException("Store has " + mColumnCount + " columns");
+        }
+
+        long index = mEndIndex;
+        int offset = prepareSlot(index);
+        mTimestampChunks[chunkSlot(index)][offset] = timestamp;
+        mValueChunks[chunkSlot(index)][0][offset] = value;
+        mEndIndex = index + 1;
+    }
+
+    /**
+     * Appends a sample with three values. Must only be called from the writer thread.
+     */
+    public void append(long timestamp, float x, float y, float z) {
+        if (mColumnCount != 3) {
+            throw new IllegalStateException("Store has " + mColumnCount + " columns");
+        }
+
+        long index = mEndIndex;
+        int offset = prepareSlot(index);
+        float[][] values = mValueChunks[chunkSlot(index)];
+        mTimestampChunks[chunkSlot(index)][offset] = timestamp;
+        values[0][offset] = x;
+        values[1][offset] = y;
+        values[2][offset] = z;
+        mEndIndex = index + 1;
+    }
+
+    /**
+     * Appends a sample with six values. Must only be called from the writer thread.
+     */
+    public void append(long timestamp, float x0, float y0, float z0, float x1, float y1, float z1) {
+        if (mColumnCount != 6) {
+            throw new IllegalStateException("Store has " + mColumnCount + " columns");
+        }
+
+        long index = mEndIndex;
+        int offset = prepareSlot(index);
+        float[][] values = mValueChunks[chunkSlot(index)];
+        mTimestampChunks[chunkSlot(index)][offset] = timestamp;
+        values[0][offset] = x0;
+        values[1][offset] = y0;
+        values[2][offset] = z0;
+        values[3][offset] = x1;
+        values[4][offset] = y1;
+        values[5][offset] = z1;
+        mEndIndex = index + 1;
+    }
+
+    /**
+     * Removes every sample. Chunks already allocated are kept for reuse. Must only be
+     * called from the writer thread.
+     */
+    public void clear() {
+        long end = mEndIndex;
+
+        // Restart on a chunk boundary so the chunk ring stays aligned with the indexes
+        long aligned = (end + mChunkMask) & ~(long) mChunkMask;
+        mFirstIndex = aligned;
+        mEndIndex = aligned;
+    }
+
+    /**
+     * Returns the timestamp of the sample at the given index.
+     *
+     * @throws IndexOutOfBoundsException if the sample is not (or no longer) held by the store
+     */
+    public long getTimestamp(long index) {
+        checkIndex(index);
+        long timestamp = mTimestampChunks[chunkSlot(index)][(int) (index & mChunkMask)];
+        checkIndex(index);
+        return timestamp;
+    }
+
+    /**
+     * Returns one value of the sample at the given index.
+     *
+     * @throws IndexOutOfBoundsException if the sample is not (or no longer) held by the store
+     */
+    public float getValue(int column, long index) {
+        checkIndex(index);
+        float value = mValueChunks[chunkSlot(index)][column][(int) (index & mChunkMask)];
+        checkIndex(index);
+        return value;
+    }
+
+    /**
+     * Copies consecutive values of one column into an array without allocating.
+     *
+     * @return the number of values copied. The copy is clipped to the samples currently
+     *         held, so fewer than count values may be copied; the ones copied are always
+     *         the newest of the requested range and start at dest[destOffset].
+     */
+    public int copyValues(int column, long fromIndex, float[] dest, int destOffset, int count) {
+        long first = Math.max(fromIndex, mFirstIndex);
+        long end = Math.min(fromIndex + count, mEndIndex);
+        int copied = 0;
+
+        for (long index = first; index < end; ) {
+            int offset = (int) (index & mChunkMask);
+            int run = (int) Math.min(mChunkSize - offset, end - index);
+            System.arraycopy(mValueChunks[chunkSlot(index)][column], offset, dest, destOffset + copied, run);
+            copied += run;
+            index += run;
+        }
+
+        // Anything overwritten while copying is no longer valid. Report only the tail
+        // that is still held.
+        long stillFirst = mFirstIndex;
+        if (stillFirst > first) {
+            int lost = (int) Math.min(copied, stillFirst - first);
+            System.arraycopy(dest, destOffset + lost, dest, destOffset, copied - lost);
+            copied -= lost;
+        }
+        return copied;
+    }
+
+    /**
+     * Copies consecutive timestamps into an array without allocating.
+     *
+     * @return the number of timestamps copied, see {@link #copyValues}
+     */
+    public int copyTimestamps(long fromIndex, long[] dest, int destOffset, int count) {
+        long first = Math.max(fromIndex, mFirstIndex);
+        long end = Math.min(fromIndex + count, mEndIndex);
+        int copied = 0;
+
+        for (long index = first; index < end; ) {
+            int offset = (int) (index & mChunkMask);
+            int run = (int) Math.min(mChunkSize - offset, end - index);
+            System.arraycopy(mTimestampChunks[chunkSlot(index)], offset, dest, destOffset + copied, run);
+            copied += run;
+            index += run;
+        }
+
+        long stillFirst = mFirstIndex;
+        if (stillFirst > first) {
+            int lost = (int) Math.min(copied, stillFirst - first);
+            System.arraycopy(dest, destOffset + lost, dest, destOffset, copied - lost);
+            copied -= lost;
+        }
+        return copied;
+    }
+
+    private int chunkSlot(long index) {
+        return (int) ((index >>> mChunkShift) % mTimestampChunks.length);
+    }
+
+    //
+    // Makes sure the chunk for the given index exists, recycling the oldest chunk when
+    // all of them are in use, and returns the offset of the index within the chunk.
+    //
+    private int prepareSlot(long index) {
+        int offset = (int) (index & mChunkMask);
+        if (offset == 0) {
+            int slot = chunkSlot(index);
+            if (mTimestampChunks[slot] == null) {
+                mValueChunks[slot] = new float[mColumnCount][mChunkSize];
+                mTimestampChunks[slot] = new long[mChunkSize];
+            } else {
+                // Move the readers off the chunk before we start overwriting it
+                long recycledEnd = index - (long) mChunkSize * (mTimestampChunks.length - 1);
+                if (mFirstIndex < recycledEnd) {
+                    mFirstIndex = recycledEnd;
+                }
+            }
+        }
+        return offset;
+    }
+
+    private void checkIndex(long index) {
+        if (index < mFirstIndex || index >= mEndIndex) {
+            throw new IndexOutOfBoundsException("Sample " + index + " is not in the store");
+        }
+    }
+}
@@ -0,0 +1,189 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.sensors;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free ring buffer holding every sample delivered for one sensor.
+ * <p>
+ * There is a single producer (the Band SDK callback thread for the sensor) and
+ * any number of consumers, each reading at its own pace through a {@link Cursor}.
+ * The producer never waits for consumers: once a consumer falls more than
+ * {@link #getCapacity()} samples behind, the oldest samples are overwritten and
+ * counted as dropped for that consumer.
+ *
+ * @param <E> the sensor event type
+ */
+public class SensorRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> mSlots;
+    private final int mCapacity;
+    private final int mMask;
+
+    // Sequence number of the next sample to be published. Only the producer writes it.
+    private final AtomicLong mHead = new AtomicLong();
+
+    /**
+     * @param capacity the number of slots, rounded up to a power of two. One slot is
+     *                 always reserved for the sample being written, so a consumer can
+     *                 fall at most capacity - 1 samples behind without losing any.
+     */
+    public SensorRingBuffer(int capacity) {
+        if (capacity < 2 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity must be between 2 and 2^30");
+        }
+
+        mCapacity = roundUpToPowerOfTwo(capacity);
+        mMask = mCapacity - 1;
+        mSlots = new AtomicReferenceArray<E>(mCapacity);
+    }
+
+    /**
+     * Appends a sample, overwriting the oldest one if the buffer is full. Must only be
+     * called from the producer thread.
+     */
+    public void publish(E sample) {
+        long head = mHead.get();
+        mSlots.lazySet((int) (head & mMask), sample);
+        mHead.lazySet(head + 1);
+    }
+
+    /**
+     * Returns the most recently published sample, or null if nothing has been published.
+     * This never fails because of slow consumers and can be called from any thread.
+     */
+    public E latest() {
+        for (;;) {
+            long head = mHead.get();
+            if (head == 0) {
+                return null;
+            }
+
+            E sample = mSlots.get((int) ((head - 1) & mMask));
+            if (mHead.get() - head < mCapacity - 1) {
+                return sample;
+            }
+        }
+    }
+
+    /**
+     * Returns the total number of samples published so far.
+     */
+    public long getPublishedCount() {
+        return mHead.get();
+    }
+
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Creates a new consumer positioned after the most recently published sample.
+     */
+    public Cursor newCursor() {
+        return new Cursor(mHead.get());
+    }
+
+    private static int roundUpToPowerOfTwo(int value) {
+        int highest = Integer.highestOneBit(value);
+        return (highest == value) ? value : highest << 1;
+    }
+
+    /**
+     * A read position in the buffer. Each cursor must be used from one thread only,
+     * but any number of cursors can read the same buffer concurrently.
+     */
+    public final class Cursor {
+
+        private long mNext;
+        private volatile long mDroppedCount;
+
+        private Cursor(long start) {
+            mNext = start;
+        }
+
+        /**
+         * Returns the next unread sample, or null if the cursor has caught up with the
+         * producer. If the producer has lapped this cursor, the overwritten samples are
+         * added to the dropped count and reading resumes at the oldest retained sample.
+         */
+        public E poll() {
+            for (;;) {
+                long head = mHead.get();
+                long next = mNext;
+                if (next >= head) {
+                    return null;
+                }
+
+                // Leave the slot the producer may be writing right now alone.
+                long oldest = head - mCapacity + 1;
+                if (next < oldest) {
+                    mDroppedCount += oldest - next;
+                    next = oldest;
+                }
+
+                E sample = mSlots.get((int) (next & mMask));
+
+                // If the producer moved far enough to reuse the slot while we were reading
+                // it, the sample we got may be a newer one. Try again from the new oldest.
+                if (mHead.get() - next < mCapacity) {
+                    mNext = next + 1;
+                    return sample;
+                }
+                mNext = next;
+            }
+        }
+
+        /**
+         * Returns the most recent sample if anything was published since the last read,
+         * otherwise null. Samples skipped this way are not counted as dropped, which
+         * makes this the cheap way for a display to follow the stream.
+         */
+        public E pollLatest() {
+            for (;;) {
+                long head = mHead.get();
+                if (mNext >= head) {
+                    return null;
+                }
+
+                E sample = mSlots.get((int) ((head - 1) & mMask));
+                if (mHead.get() - head < mCapacity - 1) {
+                    mNext = head;
+                    return sample;
+                }
+            }
+        }
+
+        /**
+         * Returns the number of published samples not yet read by this cursor.
+         */
+        public long getBacklog() {
+            return Math.max(0, mHead.get() - mNext);
+        }
+
+        /**
+         * Returns the number of samples this cursor lost because the producer overwrote
+         * them before they were read.
+         */
+        public long getDroppedCount() {
+            return mDroppedCount;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.sensors;
+
+/**
+ * The sensor streams a Band delivers. The ids are stable and used in stored data.
+ */
+public enum SensorType {
+    ACCELEROMETER(1),
+    GYROSCOPE(2),
+    DISTANCE(3),
+    HEART_RATE(4),
+    CONTACT(5),
+    SKIN_TEMPERATURE(6),
+    ULTRAVIOLET(7),
+    PEDOMETER(8);
+
+    private static final SensorType[] BY_ID;
+
+    static {
+        SensorType[] values = values();
+        BY_ID = new SensorType[values.length + 1];
+        for (SensorType type : values) {
+            BY_ID[type.mId] = type;
+        }
+    }
+
+    private final byte mId;
+
+    private SensorType(int id) {
+        mId = (byte) id;
+    }
+
+    public byte getId() {
+        return mId;
+    }
+
+    /**
+     * Returns the sensor type with the given id, or null if there is none.
+     */
+    public static SensorType fromId(int id) {
+        return (id > 0 && id < BY_ID.length) ? BY_ID[id] : null;
+    }
+}
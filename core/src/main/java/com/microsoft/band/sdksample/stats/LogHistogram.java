@@ -0,0 +1,202 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.stats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of non-negative values with logarithmic buckets, cheap enough to record
+ * every sensor sample into.
+ * <p>
+ * Every power of two is split into {@link #SUB_BUCKETS} equal buckets, so the width
+ * of a bucket is at most 1/16 of the values in it and every quantile is known to
+ * within about 6%, from microseconds to days, with a fixed number of buckets. Values
+ * up to 2 * SUB_BUCKETS have a bucket each.
+ * <p>
+ * Recording takes a bit scan and an atomic increment, and neither locks nor
+ * allocates; any number of threads can record while others read. A {@link Snapshot}
+ * copies the buckets, so quantiles are computed without holding up the recorders.
+ */
+public class LogHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The largest value that can be told apart; larger values are counted as this.
+     */
+    public static final long MAX_VALUE = (1L << 40) - 1;
+
+    public static final int BUCKET_COUNT = getBucketIndex(MAX_VALUE) + 1;
+
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong mMax = new AtomicLong(-1);
+
+    /**
+     * Returns the bucket a value falls into.
+     */
+    static int getBucketIndex(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        // The top SUB_BUCKET_BITS + 1 bits of the value select the bucket of its octave
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * Returns the smallest value counted in a bucket.
+     */
+    public static long getBucketStart(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+
+        int shift = (index >> SUB_BUCKET_BITS) - 1;
+        return (long) ((index & (SUB_BUCKETS - 1)) + SUB_BUCKETS) << shift;
+    }
+
+    static long getBucketWidth(int index) {
+        return (index < 2 * SUB_BUCKETS) ? 1 : 1L << ((index >> SUB_BUCKET_BITS) - 1);
+    }
+
+    /**
+     * Counts a value. Negative values are counted as 0.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        } else if (value > MAX_VALUE) {
+            value = MAX_VALUE;
+        }
+
+        mCounts.getAndIncrement(getBucketIndex(value));
+
+        // The maximum rarely changes, so this is usually a single read
+        for (;;) {
+            long max = mMax.get();
+            if (value <= max || mMax.compareAndSet(max, value)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Forgets every value. Values recorded concurrently may or may not be kept.
+     */
+    public void clear() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts.set(i, 0);
+        }
+        mMax.set(-1);
+    }
+
+    /**
+     * Copies the current counts into the snapshot. The copy is not atomic: values
+     * recorded while it is made may be missing, but nothing is counted twice.
+     */
+    public void getSnapshot(Snapshot snapshot) {
+        long total = 0;
+        long[] counts = snapshot.mCounts;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = mCounts.get(i);
+            counts[i] = count;
+            total += count;
+        }
+        snapshot.mTotalCount = total;
+        snapshot.mMax = mMax.get();
+    }
+
+    /**
+     * The counts of a histogram at one point in time. Reusable, so taking snapshots
+     * regularly doesn't allocate.
+     */
+    public static class Snapshot {
+        private final long[] mCounts = new long[BUCKET_COUNT];
+        private long mTotalCount;
+        private long mMax = -1;
+
+        public long getCount() {
+            return mTotalCount;
+        }
+
+        /**
+         * Returns the largest value recorded, or -1 if there is none.
+         */
+        public long getMax() {
+            return mMax;
+        }
+
+        /**
+         * Returns the mean of the values, taking each as the middle of its bucket, or
+         * NaN if there are none.
+         */
+        public double getMean() {
+            if (mTotalCount == 0) {
+                return Double.NaN;
+            }
+
+            double sum = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                long count = mCounts[i];
+                if (count != 0) {
+                    sum += count * getMiddle(i);
+                }
+            }
+            return sum / mTotalCount;
+        }
+
+        /**
+         * Returns the value below which the given fraction of the values lie, as the
+         * middle of its bucket but no more than the maximum, or -1 if there are no
+         * values.
+         *
+         * @param fraction between 0 and 1, e.g. 0.99 for the 99th percentile
+         */
+        public long getPercentile(double fraction) {
+            if (mTotalCount == 0) {
+                return -1;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(fraction * mTotalCount));
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += mCounts[i];
+                if (seen >= rank) {
+                    return Math.min(getMiddle(i), mMax);
+                }
+            }
+            return mMax;
+        }
+
+        /**
+         * Returns the number of values in each bucket, indexed like
+         * {@link LogHistogram#getBucketStart(int)}. The array is reused by the next
+         * snapshot.
+         */
+        public long[] getCounts() {
+            return mCounts;
+        }
+
+        private static long getMiddle(int index) {
+            return getBucketStart(index) + (getBucketWidth(index) - 1) / 2;
+        }
+    }
+}
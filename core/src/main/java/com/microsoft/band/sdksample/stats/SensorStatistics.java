@@ -0,0 +1,119 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.stats;
+
+import com.microsoft.band.sdksample.sensors.SensorType;
+
+/**
+ * A {@link SlidingWindowStats} for every Band sensor, each tracking the one quantity
+ * of the sensor that is meaningful to aggregate:
+ * <ul>
+ * <li>accelerometer: the magnitude of the acceleration, in g;</li>
+ * <li>gyroscope: the magnitude of the angular velocity, in degrees per second;</li>
+ * <li>distance: the speed, in cm/s;</li>
+ * <li>heart rate: the heart rate in beats per minute, while the reading is locked;</li>
+ * <li>contact: 1 while the Band is worn and 0 otherwise, so the mean is the fraction
+ * of samples taken while worn;</li>
+ * <li>skin temperature: in degrees Celsius;</li>
+ * <li>UV: the ordinal of the UV index level;</li>
+ * <li>pedometer: the total step count, so max - min is the number of steps taken in
+ * the window.</li>
+ * </ul>
+ */
+public class SensorStatistics {
+
+    public static final long DEFAULT_WINDOW_MS = 60 * 1000;
+
+    // Room for a full window at 62.5 samples per second
+    private static final int INERTIAL_CAPACITY = 4096;
+
+    // The other sensors report about once per second at most
+    private static final int LOW_RATE_CAPACITY = 128;
+
+    private final SlidingWindowStats[] mStats = new SlidingWindowStats[SensorType.values().length];
+
+    public SensorStatistics() {
+        this(DEFAULT_WINDOW_MS);
+    }
+
+    public SensorStatistics(long windowMs) {
+        set(SensorType.ACCELEROMETER, new SlidingWindowStats(windowMs, INERTIAL_CAPACITY, 0f, 8f, 256));
+        set(SensorType.GYROSCOPE, new SlidingWindowStats(windowMs, INERTIAL_CAPACITY, 0f, 500f, 250));
+        set(SensorType.DISTANCE, new SlidingWindowStats(windowMs, LOW_RATE_CAPACITY, 0f, 1000f, 100));
+        set(SensorType.HEART_RATE, new SlidingWindowStats(windowMs, LOW_RATE_CAPACITY, 30f, 230f, 200));
+        set(SensorType.CONTACT, new SlidingWindowStats(windowMs, LOW_RATE_CAPACITY, 0f, 2f, 2));
+        set(SensorType.SKIN_TEMPERATURE, new SlidingWindowStats(windowMs, LOW_RATE_CAPACITY, 20f, 45f, 250));
+        set(SensorType.ULTRAVIOLET, new SlidingWindowStats(windowMs, LOW_RATE_CAPACITY, 0f, 5f, 5));
+        set(SensorType.PEDOMETER, new SlidingWindowStats(windowMs, LOW_RATE_CAPACITY, 0f, 100000f, 100));
+    }
+
+    private void set(SensorType type, SlidingWindowStats stats) {
+        mStats[type.ordinal()] = stats;
+    }
+
+    public SlidingWindowStats get(SensorType type) {
+        return mStats[type.ordinal()];
+    }
+
+    public void addAccelerometer(long timestamp, float x, float y, float z) {
+        get(SensorType.ACCELEROMETER).add(timestamp, (float) Math.sqrt(x * x + y * y + z * z));
+    }
+
+    public void addGyroscope(long timestamp, float angularVelocityX, float angularVelocityY, float angularVelocityZ) {
+        get(SensorType.GYROSCOPE).add(timestamp, (float) Math.sqrt(angularVelocityX * angularVelocityX
+                + angularVelocityY * angularVelocityY + angularVelocityZ * angularVelocityZ));
+    }
+
+    public void addDistance(long timestamp, float speed) {
+        get(SensorType.DISTANCE).add(timestamp, speed);
+    }
+
+    /**
+     * Adds a heart rate reading. Readings taken before the sensor locked on are
+     * unreliable and only move the window forward.
+     */
+    public void addHeartRate(long timestamp, int heartRate, boolean locked) {
+        if (locked) {
+            get(SensorType.HEART_RATE).add(timestamp, heartRate);
+        } else {
+            get(SensorType.HEART_RATE).advanceTo(timestamp);
+        }
+    }
+
+    public void addContact(long timestamp, boolean worn) {
+        get(SensorType.CONTACT).add(timestamp, worn ? 1f : 0f);
+    }
+
+    public void addSkinTemperature(long timestamp, float temperature) {
+        get(SensorType.SKIN_TEMPERATURE).add(timestamp, temperature);
+    }
+
+    public void addUV(long timestamp, int levelOrdinal) {
+        get(SensorType.ULTRAVIOLET).add(timestamp, levelOrdinal);
+    }
+
+    public void addPedometer(long timestamp, long totalSteps) {
+        get(SensorType.PEDOMETER).add(timestamp, totalSteps);
+    }
+
+    public void clear() {
+        for (SlidingWindowStats stats : mStats) {
+            stats.clear();
+        }
+    }
+}
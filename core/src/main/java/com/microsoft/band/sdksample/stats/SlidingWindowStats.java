@@ -0,0 +1,344 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.stats;
+
+/**
+ * Statistics over the samples of the last few seconds of a stream: minimum, maximum,
+ * mean, variance and approximate quantiles, all kept up to date as samples arrive.
+ * <p>
+ * Adding a sample takes amortized constant time and doesn't allocate:
+ * <ul>
+ * <li>the minimum and maximum come from monotonic deques of sample indexes, whose
+ * fronts are the extremes of the window;</li>
+ * <li>the mean and variance are updated with Welford's method, which can also remove
+ * samples; they are recomputed exactly from the window every time a window's worth
+ * of samples has been removed, so rounding errors can't accumulate;</li>
+ * <li>quantiles come from a histogram with fixed buckets over an expected range,
+ * interpolated within the bucket and clamped to the exact minimum and maximum.
+ * Samples outside the range are counted in the first or last bucket.</li>
+ * </ul>
+ * The window ends at the newest sample, so it only moves when samples are added or
+ * {@link #advanceTo(long)} is called. When samples arrive faster than the capacity
+ * allows, the oldest ones are dropped early.
+ * <p>
+ * One thread may add samples while others read; the methods are synchronized, and
+ * {@link #getSummary(Summary)} reads everything at once.
+ */
+public class SlidingWindowStats {
+
+    private final long mWindowMs;
+    private final int mMask;
+
+    // The samples in the window, indexed by absolute sample number & mMask
+    private final long[] mTimestamps;
+    private final float[] mValues;
+    private long mHead;
+    private long mTail;
+
+    // Absolute sample numbers, increasing values for the minimum and decreasing
+    // values for the maximum
+    private final long[] mMinDeque;
+    private final long[] mMaxDeque;
+    private long mMinHead, mMinTail;
+    private long mMaxHead, mMaxTail;
+
+    private double mMean;
+    private double mSquaredDeviations;
+    private int mRemovalsSinceRecompute;
+
+    private final float mHistogramMin;
+    private final float mBucketWidth;
+    private final int[] mBuckets;
+
+    /**
+     * @param windowMs the length of the window in milliseconds
+     * @param maxSamples the most samples the window can hold, rounded up to a power of two
+     * @param histogramMin the low end of the expected value range
+     * @param histogramMax the high end of the expected value range
+     * @param bucketCount the number of histogram buckets the range is split into
+     */
+    public SlidingWindowStats(long windowMs, int maxSamples, float histogramMin, float histogramMax, int bucketCount) {
+        if (windowMs <= 0) {
+            throw new IllegalArgumentException("Invalid window " + windowMs);
+        }
+        if (maxSamples < 1 || maxSamples > 1 << 24) {
+            throw new IllegalArgumentException("Invalid capacity " + maxSamples);
+        }
+        if (!(histogramMax > histogramMin) || bucketCount < 1) {
+            throw new IllegalArgumentException("Invalid histogram range");
+        }
+
+        int capacity = Integer.highestOneBit(maxSamples);
+        if (capacity < maxSamples) {
+            capacity <<= 1;
+        }
+
+        mWindowMs = windowMs;
+        mMask = capacity - 1;
+        mTimestamps = new long[capacity];
+        mValues = new float[capacity];
+        mMinDeque = new long[capacity];
+        mMaxDeque = new long[capacity];
+        mHistogramMin = histogramMin;
+        mBucketWidth = (histogramMax - histogramMin) / bucketCount;
+        mBuckets = new int[bucketCount];
+    }
+
+    public long getWindow() {
+        return mWindowMs;
+    }
+
+    public int getCapacity() {
+        return mMask + 1;
+    }
+
+    /**
+     * Adds a sample and drops the ones that fall out of the window. NaN is ignored.
+     *
+     * @param timestamp the sample time in milliseconds
+     */
+    public synchronized void add(long timestamp, float value) {
+        if (Float.isNaN(value)) {
+            return;
+        }
+
+        evictBefore(timestamp - mWindowMs);
+        if (mTail - mHead > mMask) {
+            evictOldest();
+        }
+
+        long index = mTail++;
+        int slot = (int) (index & mMask);
+        mTimestamps[slot] = timestamp;
+        mValues[slot] = value;
+
+        while (mMinTail > mMinHead && mValues[(int) (mMinDeque[(int) ((mMinTail - 1) & mMask)] & mMask)] >= value) {
+            mMinTail--;
+        }
+        mMinDeque[(int) (mMinTail++ & mMask)] = index;
+
+        while (mMaxTail > mMaxHead && mValues[(int) (mMaxDeque[(int) ((mMaxTail - 1) & mMask)] & mMask)] <= value) {
+            mMaxTail--;
+        }
+        mMaxDeque[(int) (mMaxTail++ & mMask)] = index;
+
+        long count = mTail - mHead;
+        double delta = value - mMean;
+        mMean += delta / count;
+        mSquaredDeviations += delta * (value - mMean);
+
+        mBuckets[bucket(value)]++;
+    }
+
+    /**
+     * Moves the end of the window to the given time without adding a sample, for
+     * streams that have stopped reporting.
+     */
+    public synchronized void advanceTo(long timestamp) {
+        evictBefore(timestamp - mWindowMs);
+    }
+
+    public synchronized void clear() {
+        mHead = mTail;
+        mMinHead = mMinTail;
+        mMaxHead = mMaxTail;
+        mMean = 0;
+        mSquaredDeviations = 0;
+        mRemovalsSinceRecompute = 0;
+        for (int i = 0; i < mBuckets.length; i++) {
+            mBuckets[i] = 0;
+        }
+    }
+
+    public synchronized int getCount() {
+        return (int) (mTail - mHead);
+    }
+
+    /**
+     * Returns the smallest value in the window, or NaN if it is empty.
+     */
+    public synchronized float getMin() {
+        return mMinTail > mMinHead ? valueAt(mMinDeque[(int) (mMinHead & mMask)]) : Float.NaN;
+    }
+
+    /**
+     * Returns the largest value in the window, or NaN if it is empty.
+     */
+    public synchronized float getMax() {
+        return mMaxTail > mMaxHead ? valueAt(mMaxDeque[(int) (mMaxHead & mMask)]) : Float.NaN;
+    }
+
+    /**
+     * Returns the mean of the window, or NaN if it is empty.
+     */
+    public synchronized double getMean() {
+        return mTail > mHead ? mMean : Double.NaN;
+    }
+
+    /**
+     * Returns the sample variance of the window, or NaN with fewer than two samples.
+     */
+    public synchronized double getVariance() {
+        long count = mTail - mHead;
+        return count > 1 ? Math.max(0, mSquaredDeviations) / (count - 1) : Double.NaN;
+    }
+
+    /**
+     * Returns the approximate value below which the given fraction of the window
+     * falls, or NaN if the window is empty.
+     *
+     * @param fraction between 0 and 1, for example 0.95 for the 95th percentile
+     */
+    public synchronized float getQuantile(double fraction) {
+        long count = mTail - mHead;
+        if (count == 0) {
+            return Float.NaN;
+        }
+        if (fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("Invalid fraction " + fraction);
+        }
+
+        double rank = fraction * count;
+        long below = 0;
+        int bucket = 0;
+        while (bucket < mBuckets.length - 1 && below + mBuckets[bucket] < rank) {
+            below += mBuckets[bucket++];
+        }
+
+        double within = mBuckets[bucket] > 0 ? (rank - below) / mBuckets[bucket] : 0.5;
+        float estimate = (float) (mHistogramMin + (bucket + within) * mBucketWidth);
+        return Math.max(getMin(), Math.min(getMax(), estimate));
+    }
+
+    /**
+     * Copies the current statistics into the summary.
+     */
+    public synchronized void getSummary(Summary summary) {
+        summary.mCount = getCount();
+        summary.mMin = getMin();
+        summary.mMax = getMax();
+        summary.mMean = getMean();
+        summary.mVariance = getVariance();
+        summary.mMedian = getQuantile(0.5);
+        summary.mPercentile95 = getQuantile(0.95);
+    }
+
+    private void evictBefore(long oldest) {
+        while (mTail > mHead && mTimestamps[(int) (mHead & mMask)] < oldest) {
+            evictOldest();
+        }
+    }
+
+    private void evictOldest() {
+        long index = mHead;
+        float value = valueAt(index);
+
+        if (mMinDeque[(int) (mMinHead & mMask)] == index) {
+            mMinHead++;
+        }
+        if (mMaxDeque[(int) (mMaxHead & mMask)] == index) {
+            mMaxHead++;
+        }
+        mBuckets[bucket(value)]--;
+
+        mHead++;
+        long count = mTail - mHead;
+        if (count == 0) {
+            mMean = 0;
+            mSquaredDeviations = 0;
+            mRemovalsSinceRecompute = 0;
+        } else if (++mRemovalsSinceRecompute > mMask) {
+            recompute();
+        } else {
+            double delta = value - mMean;
+            mMean -= delta / count;
+            mSquaredDeviations -= delta * (value - mMean);
+        }
+    }
+
+    private void recompute() {
+        long count = mTail - mHead;
+        double sum = 0;
+        for (long i = mHead; i < mTail; i++) {
+            sum += valueAt(i);
+        }
+        double mean = sum / count;
+        double squaredDeviations = 0;
+        for (long i = mHead; i < mTail; i++) {
+            double deviation = valueAt(i) - mean;
+            squaredDeviations += deviation * deviation;
+        }
+        mMean = mean;
+        mSquaredDeviations = squaredDeviations;
+        mRemovalsSinceRecompute = 0;
+    }
+
+    private float valueAt(long index) {
+        return mValues[(int) (index & mMask)];
+    }
+
+    private int bucket(float value) {
+        int bucket = (int) ((value - mHistogramMin) / mBucketWidth);
+        return Math.max(0, Math.min(mBuckets.length - 1, bucket));
+    }
+
+    /**
+     * A consistent copy of the statistics of a window at one point in time.
+     */
+    public static class Summary {
+        private int mCount;
+        private float mMin = Float.NaN;
+        private float mMax = Float.NaN;
+        private double mMean = Double.NaN;
+        private double mVariance = Double.NaN;
+        private float mMedian = Float.NaN;
+        private float mPercentile95 = Float.NaN;
+
+        public int getCount() {
+            return mCount;
+        }
+
+        public float getMin() {
+            return mMin;
+        }
+
+        public float getMax() {
+            return mMax;
+        }
+
+        public double getMean() {
+            return mMean;
+        }
+
+        public double getVariance() {
+            return mVariance;
+        }
+
+        public double getStandardDeviation() {
+            return Math.sqrt(mVariance);
+        }
+
+        public float getMedian() {
+            return mMedian;
+        }
+
+        public float getPercentile95() {
+            return mPercentile95;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.text;
+
+/**
+ * Formats numbers into caller-provided char arrays without allocating.
+ * <p>
+ * This covers what the sample displays with String.format ("%.3f", "%d" and so on)
+ * but skips the Formatter, the boxing and the intermediate Strings, which matters
+ * when dozens of values are refreshed on every frame.
+ */
+public final class FixedPointFormatter {
+
+    /**
+     * The most decimals supported by {@link #formatFixed}.
+     */
+    public static final int MAX_DECIMALS = 9;
+
+    /**
+     * Enough room for any long or fixed-point value, including the sign and the point.
+     */
+    public static final int MAX_NUMBER_LENGTH = 21;
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9
+    };
+
+    private static final char[] NAN = "NaN".toCharArray();
+    private static final char[] INFINITY = "Infinity".toCharArray();
+
+    // Above this the fixed-point value no longer fits in a long
+    private static final double MAX_SCALED = 9.0e18;
+
+    private FixedPointFormatter() {
+    }
+
+    /**
+     * Writes the value with exactly the given number of decimals, rounding half away
+     * from zero, like String.format("%.<decimals>f", value) does for finite values.
+     *
+     * @return the offset just past the last character written
+     */
+    public static int formatFixed(double value, int decimals, char[] dest, int offset) {
+        if (decimals < 0 || decimals > MAX_DECIMALS) {
+            throw new IllegalArgumentException("Decimals must be between 0 and " + MAX_DECIMALS);
+        }
+
+        if (Double.isNaN(value)) {
+            return append(NAN, dest, offset);
+        }
+
+        boolean negative = (Double.doubleToRawLongBits(value) < 0);
+        if (negative) {
+            dest[offset++] = '-';
+            value = -value;
+        }
+
+        if (Double.isInfinite(value)) {
+            return append(INFINITY, dest, offset);
+        }
+
+        double scaled = value * POWERS_OF_TEN[decimals] + 0.5;
+        if (scaled >= MAX_SCALED) {
+            // Sensor values never get anywhere near this; drop the decimals rather than
+            // produce garbage.
+            return formatLong((long) Math.min(value, Long.MAX_VALUE), dest, offset);
+        }
+
+        long units = (long) scaled;
+        if (decimals == 0) {
+            return formatLong(units, dest, offset);
+        }
+
+        long factor = (long) POWERS_OF_TEN[decimals];
+        offset = formatLong(units / factor, dest, offset);
+        dest[offset++] = '.';
+
+        // Write the fraction right to left so leading zeros come out naturally
+        long fraction = units % factor;
+        int end = offset + decimals;
+        for (int i = end - 1; i >= offset; i--) {
+            dest[i] = (char) ('0' + (fraction % 10));
+            fraction /= 10;
+        }
+        return end;
+    }
+
+    /**
+     * Writes the value as a decimal integer, like String.valueOf(value).
+     *
+     * @return the offset just past the last character written
+     */
+    public static int formatLong(long value, char[] dest, int offset) {
+        if (value < 0) {
+            dest[offset++] = '-';
+            if (value == Long.MIN_VALUE) {
+                // Can't be negated; peel off the last digit first
+                offset = formatLong(-(value / 10), dest, offset);
+                dest[offset++] = '8';
+                return offset;
+            }
+            value = -value;
+        }
+
+        int length = 1;
+        for (long remaining = value / 10; remaining != 0; remaining /= 10) {
+            length++;
+        }
+
+        int end = offset + length;
+        for (int i = end - 1; i >= offset; i--) {
+            dest[i] = (char) ('0' + (value % 10));
+            value /= 10;
+        }
+        return end;
+    }
+
+    /**
+     * Copies the characters of the string into the array.
+     *
+     * @return the offset just past the last character written
+     */
+    public static int append(String text, char[] dest, int offset) {
+        int length = text.length();
+        text.getChars(0, length, dest, offset);
+        return offset + length;
+    }
+
+    private static int append(char[] text, char[] dest, int offset) {
+        System.arraycopy(text, 0, dest, offset, text.length);
+        return offset + text.length;
+    }
+}
@@ -0,0 +1,230 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.microsoft.band.sdksample.sensors.SensorType;
+
+/**
+ * Round-trips blocks through {@link BlockEncoder} and {@link BlockDecoder}.
+ */
+public class BlockCodecTest {
+
+    private static final float[] SPECIAL_FLOATS = { Float.NaN, 0f, -0f, Float.POSITIVE_INFINITY,
+            Float.NEGATIVE_INFINITY, Float.MIN_VALUE, -Float.MAX_VALUE, 1f, 1f, 1f, Float.NaN, -0f };
+
+    private static BlockDecoder roundTrip(BlockEncoder encoder) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(encoder.toByteArray());
+        BlockDecoder decoder = BlockDecoder.read(buffer);
+        assertEquals("The whole block is read", buffer.capacity(), buffer.position());
+        return decoder;
+    }
+
+    private static void assertSameBits(String message, float expected, float actual) {
+        assertEquals(message, Float.floatToRawIntBits(expected), Float.floatToRawIntBits(actual));
+    }
+
+    @Test
+    public void roundTripsFloatsBitForBit() throws IOException {
+        Random random = new Random(1);
+        int count = 1000;
+        long[] timestamps = new long[count];
+        float[][] values = new float[3][count];
+
+        BlockEncoder encoder = new BlockEncoder(SensorType.ACCELEROMETER, count);
+        long timestamp = 1444041600000L;
+        for (int i = 0; i < count; i++) {
+            timestamp += 15 + random.nextInt(3);
+            timestamps[i] = timestamp;
+            encoder.beginSample(timestamp);
+            for (int axis = 0; axis < 3; axis++) {
+                float value = (i < SPECIAL_FLOATS.length) ? SPECIAL_FLOATS[(i + axis) % SPECIAL_FLOATS.length]
+                        : (float) random.nextGaussian();
+                values[axis][i] = value;
+                encoder.putFloat(value);
+            }
+        }
+        assertTrue(encoder.isFull());
+
+        BlockDecoder decoder = roundTrip(encoder);
+        assertEquals(SensorType.ACCELEROMETER, decoder.getType());
+        assertEquals(count, decoder.getSampleCount());
+        assertEquals(timestamps[0], decoder.getFirstTimestamp());
+        assertEquals(timestamps[count - 1], decoder.getLastTimestamp());
+
+        long[] decodedTimestamps = new long[count];
+        decoder.decodeTimestamps(decodedTimestamps);
+        assertArrayEquals(timestamps, decodedTimestamps);
+
+        float[] decoded = new float[count];
+        for (int axis = 0; axis < 3; axis++) {
+            decoder.decodeFloats(axis, decoded);
+            for (int i = 0; i < count; i++) {
+                assertSameBits("Axis " + axis + ", sample " + i, values[axis][i], decoded[i]);
+            }
+        }
+    }
+
+    @Test
+    public void roundTripsNegativeZeroAndNaNPayloads() throws IOException {
+        float[] values = { 0f, -0f, 0f, Float.intBitsToFloat(0x7fc00001), Float.NaN, -0f, -0f };
+        BlockEncoder encoder = new BlockEncoder(SensorType.SKIN_TEMPERATURE, values.length);
+        for (int i = 0; i < values.length; i++) {
+            encoder.beginSample(i);
+            encoder.putFloat(values[i]);
+        }
+
+        float[] decoded = new float[values.length];
+        roundTrip(encoder).decodeFloats(0, decoded);
+        for (int i = 0; i < values.length; i++) {
+            assertSameBits("Sample " + i, values[i], decoded[i]);
+        }
+    }
+
+    @Test
+    public void compressesConstantRuns() throws IOException {
+        int count = 4096;
+        BlockEncoder encoder = new BlockEncoder(SensorType.HEART_RATE, count);
+        for (int i = 0; i < count; i++) {
+            encoder.beginSample(1000L * i);
+            encoder.putCounter(72);
+            encoder.putEnum(1);
+        }
+
+        int size = encoder.finish();
+        assertTrue("A constant block takes " + size + " bytes", size < BlockFormat.getHeaderSize(SensorType.HEART_RATE) + count);
+
+        BlockDecoder decoder = roundTrip(encoder);
+        long[] timestamps = new long[count];
+        long[] counters = new long[count];
+        int[] enums = new int[count];
+        decoder.decodeTimestamps(timestamps);
+        decoder.decodeCounters(0, counters);
+        decoder.decodeEnums(1, enums);
+        for (int i = 0; i < count; i++) {
+            assertEquals(1000L * i, timestamps[i]);
+            assertEquals(72, counters[i]);
+            assertEquals(1, enums[i]);
+        }
+    }
+
+    @Test
+    public void roundTripsRunsOfEveryLength() throws IOException {
+        // Runs of 1, 16, 17, 4096 and 4097 cover every run length code
+        int[] runs = { 1, 16, 17, 4096, 4097, 3 };
+        int count = 0;
+        for (int run : runs) {
+            count += run;
+        }
+
+        int[] values = new int[count];
+        BlockEncoder encoder = new BlockEncoder(SensorType.CONTACT, count);
+        int i = 0;
+        for (int r = 0; r < runs.length; r++) {
+            int value = (r % 2 == 0) ? 255 : r;
+            for (int j = 0; j < runs[r]; j++, i++) {
+                values[i] = value;
+                encoder.beginSample(i);
+                encoder.putEnum(value);
+            }
+        }
+
+        int[] decoded = new int[count];
+        roundTrip(encoder).decodeEnums(0, decoded);
+        assertArrayEquals(values, decoded);
+    }
+
+    @Test
+    public void roundTripsLargeCounterSteps() throws IOException {
+        long[] values = { 0, Long.MAX_VALUE / 2, 1, -5, -5, -5, Integer.MAX_VALUE, 1L << 40 };
+        BlockEncoder encoder = new BlockEncoder(SensorType.PEDOMETER, values.length);
+        for (int i = 0; i < values.length; i++) {
+            encoder.beginSample(i * 1000L);
+            encoder.putCounter(values[i]);
+        }
+
+        long[] decoded = new long[values.length];
+        roundTrip(encoder).decodeCounters(0, decoded);
+        assertArrayEquals(values, decoded);
+    }
+
+    @Test
+    public void readsConsecutiveBlocks() throws IOException {
+        BlockEncoder encoder = new BlockEncoder(SensorType.SKIN_TEMPERATURE, 10);
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        for (int block = 0; block < 3; block++) {
+            for (int i = 0; i <= block; i++) {
+                encoder.beginSample(100 * block + i);
+                encoder.putFloat(30 + block);
+            }
+            encoder.writeTo(buffer);
+        }
+        buffer.flip();
+
+        for (int block = 0; block < 3; block++) {
+            BlockDecoder decoder = BlockDecoder.read(buffer);
+            assertEquals(block + 1, decoder.getSampleCount());
+            assertEquals(100 * block, decoder.getFirstTimestamp());
+
+            float[] values = new float[decoder.getSampleCount()];
+            decoder.decodeFloats(0, values);
+            assertEquals(30 + block, values[block], 0);
+        }
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsCorruptBlocks() throws IOException {
+        BlockEncoder encoder = new BlockEncoder(SensorType.ACCELEROMETER, 4);
+        encoder.beginSample(0);
+        encoder.putFloat(0);
+        encoder.putFloat(0);
+        encoder.putFloat(1);
+        byte[] block = encoder.toByteArray();
+        block[0] ^= 1;
+        BlockDecoder.read(ByteBuffer.wrap(block));
+    }
+
+    @Test
+    public void rejectsValuesOfTheWrongColumnType() {
+        BlockEncoder encoder = new BlockEncoder(SensorType.HEART_RATE, 4);
+        encoder.beginSample(0);
+        try {
+            encoder.putFloat(72);
+            fail("A float was accepted for the heart rate counter");
+        } catch (IllegalStateException expected) {
+        }
+
+        encoder.putCounter(72);
+        try {
+            encoder.beginSample(1);
+            fail("A sample was started before the previous one was complete");
+        } catch (IllegalStateException expected) {
+        }
+    }
+}
@@ -0,0 +1,161 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.recording;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.microsoft.band.sdksample.sensors.SensorType;
+
+public class SessionRecorderTest {
+
+    @Rule
+    public final TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void readsBackEverySensor() throws IOException {
+        File directory = new File(mFolder.getRoot(), "session");
+        SessionRecorder recorder = new SessionRecorder(directory);
+        recorder.recordAccelerometer(1000, 0.5f, -1f, Float.NaN);
+        recorder.recordGyroscope(1016, 0.1f, 0.2f, 0.3f, -90f, 0f, 45.5f);
+        recorder.recordDistance(1020, 123456789L, 1.5f, 660f, 2);
+        recorder.recordHeartRate(1030, 72, 1);
+        recorder.recordContact(1040, 1);
+        recorder.recordSkinTemperature(1050, 31.25f);
+        recorder.recordUV(1060, 3);
+        recorder.recordPedometer(1070, 5000L);
+        recorder.close();
+        assertEquals(8, recorder.getRecordedCount());
+        assertEquals(0, recorder.getDroppedCount());
+        assertNull(recorder.getLastError());
+
+        SessionReader reader = new SessionReader(directory);
+        try {
+            assertTrue(reader.next());
+            assertEquals(SensorType.ACCELEROMETER, reader.getSensorType());
+            assertEquals(1000, reader.getTimestamp());
+            assertEquals(0.5f, reader.getAccelerationX(), 0);
+            assertEquals(-1f, reader.getAccelerationY(), 0);
+            assertTrue(Float.isNaN(reader.getAccelerationZ()));
+
+            assertTrue(reader.next());
+            assertEquals(SensorType.GYROSCOPE, reader.getSensorType());
+            assertEquals(1016, reader.getTimestamp());
+            assertEquals(0.3f, reader.getAccelerationZ(), 0);
+            assertEquals(-90f, reader.getAngularVelocityX(), 0);
+            assertEquals(0f, reader.getAngularVelocityY(), 0);
+            assertEquals(45.5f, reader.getAngularVelocityZ(), 0);
+
+            assertTrue(reader.next());
+            assertEquals(SensorType.DISTANCE, reader.getSensorType());
+            assertEquals(123456789L, reader.getTotalDistance());
+            assertEquals(1.5f, reader.getSpeed(), 0);
+            assertEquals(660f, reader.getPace(), 0);
+            assertEquals(2, reader.getPedometerMode());
+
+            assertTrue(reader.next());
+            assertEquals(SensorType.HEART_RATE, reader.getSensorType());
+            assertEquals(72, reader.getHeartRate());
+            assertEquals(1, reader.getHeartRateQuality());
+
+            assertTrue(reader.next());
+            assertEquals(SensorType.CONTACT, reader.getSensorType());
+            assertEquals(1, reader.getContactStatus());
+
+            assertTrue(reader.next());
+            assertEquals(SensorType.SKIN_TEMPERATURE, reader.getSensorType());
+            assertEquals(31.25f, reader.getTemperature(), 0);
+
+            assertTrue(reader.next());
+            assertEquals(SensorType.ULTRAVIOLET, reader.getSensorType());
+            assertEquals(3, reader.getUVIndexLevel());
+
+            assertTrue(reader.next());
+            assertEquals(SensorType.PEDOMETER, reader.getSensorType());
+            assertEquals(1070, reader.getTimestamp());
+            assertEquals(5000L, reader.getTotalSteps());
+
+            assertFalse(reader.next());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void readsAcrossSegments() throws IOException, InterruptedException {
+        File directory = new File(mFolder.getRoot(), "session");
+        int count = 1000;
+        SessionRecorder recorder = new SessionRecorder(directory, SessionFormat.HEADER_SIZE + 1024, 60000);
+        for (int i = 0; i < count; i++) {
+            // Dropped while the next segment is still being mapped, so try again
+            while (true) {
+                recorder.recordAccelerometer(i * 16L, i, -i, i / 2f);
+                if (recorder.getRecordedCount() == i + 1) {
+                    break;
+                }
+                Thread.sleep(1);
+            }
+        }
+        recorder.close();
+        assertNull(recorder.getLastError());
+        assertTrue(directory.list().length > 1);
+
+        SessionReader reader = new SessionReader(directory);
+        try {
+            for (int pass = 0; pass < 2; pass++) {
+                for (int i = 0; i < count; i++) {
+                    assertTrue("Record " + i, reader.next());
+                    assertEquals(i * 16L, reader.getTimestamp());
+                    assertEquals(i, reader.getAccelerationX(), 0);
+                    assertEquals(-i, reader.getAccelerationY(), 0);
+                    assertEquals(i / 2f, reader.getAccelerationZ(), 0);
+                }
+                assertFalse(reader.next());
+                reader.rewind();
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void findsRecordedSessions() throws IOException {
+        File root = mFolder.getRoot();
+        File session = new File(root, "session");
+        new SessionRecorder(session).close();
+        assertTrue(new File(root, "empty").mkdir());
+
+        assertTrue(SessionReader.isSession(session));
+        assertEquals(Collections.singletonList(session), SessionReader.findSessions(root));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsDirectoryWithoutSegments() throws IOException {
+        new SessionReader(mFolder.newFolder("empty"));
+    }
+}
@@ -0,0 +1,172 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.sensors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import com.microsoft.band.sdksample.sensors.HandoffQueue.OverflowPolicy;
+
+public class HandoffQueueTest {
+
+    private static void assertPolls(HandoffQueue<Integer> queue, int... expected) {
+        for (int value : expected) {
+            assertEquals(Integer.valueOf(value), queue.poll());
+        }
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void pollsInOfferOrderWithTimes() {
+        HandoffQueue<Integer> queue = new HandoffQueue<Integer>(4, OverflowPolicy.DROP_OLDEST);
+        assertTrue(queue.isEmpty());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(queue.offer(i, 100 + i));
+        }
+        assertEquals(3, queue.getDepth());
+
+        long[] time = new long[1];
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Integer.valueOf(i), queue.poll(time));
+            assertEquals(100 + i, time[0]);
+        }
+        assertNull(queue.poll(time));
+        assertEquals(3, queue.getQueuedCount());
+        assertEquals(3, queue.getPolledCount());
+        assertEquals(3, queue.getMaxDepth());
+    }
+
+    @Test
+    public void dropOldestKeepsNewestSamples() {
+        HandoffQueue<Integer> queue = new HandoffQueue<Integer>(4, OverflowPolicy.DROP_OLDEST);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(queue.offer(i));
+        }
+
+        assertEquals(6, queue.getDroppedCount());
+        assertEquals(4, queue.getMaxDepth());
+        assertPolls(queue, 6, 7, 8, 9);
+    }
+
+    @Test
+    public void blockWaitsForRoom() throws InterruptedException {
+        final HandoffQueue<Integer> queue = new HandoffQueue<Integer>(2, OverflowPolicy.BLOCK);
+        queue.offer(0);
+        queue.offer(1);
+
+        final AtomicBoolean offered = new AtomicBoolean();
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                offered.set(queue.offer(2));
+                done.countDown();
+            }
+        });
+        producer.start();
+
+        assertFalse("The producer didn't wait", done.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(Integer.valueOf(0), queue.poll());
+        assertTrue("The producer didn't resume", done.await(5, TimeUnit.SECONDS));
+        assertTrue(offered.get());
+
+        assertEquals(1, queue.getBlockedCount());
+        assertEquals(0, queue.getDroppedCount());
+        assertPolls(queue, 1, 2);
+    }
+
+    @Test
+    public void closeReleasesBlockedProducer() throws InterruptedException {
+        final HandoffQueue<Integer> queue = new HandoffQueue<Integer>(2, OverflowPolicy.BLOCK);
+        queue.offer(0);
+        queue.offer(1);
+
+        final AtomicBoolean offered = new AtomicBoolean(true);
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                offered.set(queue.offer(2));
+                done.countDown();
+            }
+        });
+        producer.start();
+
+        assertFalse(done.await(100, TimeUnit.MILLISECONDS));
+        queue.close();
+        assertTrue("The producer wasn't released", done.await(5, TimeUnit.SECONDS));
+        assertFalse(offered.get());
+        assertEquals(1, queue.getDroppedCount());
+
+        // What was queued before closing can still be taken
+        assertPolls(queue, 0, 1);
+    }
+
+    @Test
+    public void sampleThinsOutOnceHalfFull() {
+        HandoffQueue<Integer> queue = new HandoffQueue<Integer>(8, OverflowPolicy.SAMPLE, 4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+
+        // Past half full only every 4th sample is kept, until the queue is full
+        int kept = 0;
+        for (int i = 4; i < 40; i++) {
+            if (queue.offer(i)) {
+                kept++;
+            }
+        }
+
+        assertEquals(4, kept);
+        assertEquals(32, queue.getDroppedCount());
+        assertPolls(queue, 0, 1, 2, 3, 7, 11, 15, 19);
+    }
+
+    @Test
+    public void sampleKeepsEverySampleBelowHalfFull() {
+        HandoffQueue<Integer> queue = new HandoffQueue<Integer>(8, OverflowPolicy.SAMPLE, 4);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(queue.offer(i));
+            if (i % 2 == 1) {
+                queue.poll();
+                queue.poll();
+            }
+        }
+        assertEquals(0, queue.getDroppedCount());
+    }
+
+    @Test
+    public void closedQueueDropsOffers() {
+        HandoffQueue<Integer> queue = new HandoffQueue<Integer>(4, OverflowPolicy.DROP_OLDEST);
+        queue.offer(1);
+        queue.close();
+
+        assertTrue(queue.isClosed());
+        assertFalse(queue.offer(2));
+        assertEquals(1, queue.getDroppedCount());
+        assertPolls(queue, 1);
+    }
+}
@@ -0,0 +1,117 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.sensors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class SensorRingBufferTest {
+
+    @Test
+    public void roundsCapacityUpToPowerOfTwo() {
+        assertEquals(8, new SensorRingBuffer<Integer>(5).getCapacity());
+        assertEquals(8, new SensorRingBuffer<Integer>(8).getCapacity());
+    }
+
+    @Test
+    public void cursorReadsSamplesInOrder() {
+        SensorRingBuffer<Integer> buffer = new SensorRingBuffer<Integer>(8);
+        SensorRingBuffer<Integer>.Cursor cursor = buffer.newCursor();
+        assertNull(cursor.poll());
+
+        for (int i = 0; i < 5; i++) {
+            buffer.publish(i);
+        }
+        assertEquals(5, cursor.getBacklog());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Integer.valueOf(i), cursor.poll());
+        }
+        assertNull(cursor.poll());
+        assertEquals(0, cursor.getDroppedCount());
+    }
+
+    @Test
+    public void newCursorStartsAfterPublishedSamples() {
+        SensorRingBuffer<Integer> buffer = new SensorRingBuffer<Integer>(8);
+        buffer.publish(1);
+        SensorRingBuffer<Integer>.Cursor cursor = buffer.newCursor();
+        assertNull(cursor.poll());
+
+        buffer.publish(2);
+        assertEquals(Integer.valueOf(2), cursor.poll());
+    }
+
+    @Test
+    public void overwritesOldestSamplesOfSlowCursor() {
+        SensorRingBuffer<Integer> buffer = new SensorRingBuffer<Integer>(8);
+        SensorRingBuffer<Integer>.Cursor cursor = buffer.newCursor();
+        for (int i = 0; i < 20; i++) {
+            buffer.publish(i);
+        }
+
+        // One slot is kept free for the sample being written, so 7 samples are left
+        for (int i = 13; i < 20; i++) {
+            assertEquals(Integer.valueOf(i), cursor.poll());
+        }
+        assertNull(cursor.poll());
+        assertEquals(13, cursor.getDroppedCount());
+        assertEquals(20, buffer.getPublishedCount());
+    }
+
+    @Test
+    public void cursorsLoseSamplesIndependently() {
+        SensorRingBuffer<Integer> buffer = new SensorRingBuffer<Integer>(4);
+        SensorRingBuffer<Integer>.Cursor fast = buffer.newCursor();
+        SensorRingBuffer<Integer>.Cursor slow = buffer.newCursor();
+        for (int i = 0; i < 10; i++) {
+            buffer.publish(i);
+            assertEquals(Integer.valueOf(i), fast.poll());
+        }
+
+        assertEquals(Integer.valueOf(7), slow.poll());
+        assertEquals(0, fast.getDroppedCount());
+        assertEquals(7, slow.getDroppedCount());
+    }
+
+    @Test
+    public void pollLatestSkipsWithoutCountingDrops() {
+        SensorRingBuffer<Integer> buffer = new SensorRingBuffer<Integer>(4);
+        SensorRingBuffer<Integer>.Cursor cursor = buffer.newCursor();
+        assertNull(cursor.pollLatest());
+
+        for (int i = 0; i < 10; i++) {
+            buffer.publish(i);
+        }
+        assertEquals(Integer.valueOf(9), cursor.pollLatest());
+        assertNull(cursor.pollLatest());
+        assertEquals(0, cursor.getDroppedCount());
+        assertEquals(0, cursor.getBacklog());
+    }
+
+    @Test
+    public void latestIsNewestSample() {
+        SensorRingBuffer<Integer> buffer = new SensorRingBuffer<Integer>(4);
+        assertNull(buffer.latest());
+        for (int i = 0; i < 10; i++) {
+            buffer.publish(i);
+            assertEquals(Integer.valueOf(i), buffer.latest());
+        }
+    }
+}
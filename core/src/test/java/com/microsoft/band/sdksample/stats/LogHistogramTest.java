@@ -0,0 +1,124 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.stats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LogHistogramTest {
+
+    private static void assertInBucket(long value) {
+        int index = LogHistogram.getBucketIndex(value);
+        long start = LogHistogram.getBucketStart(index);
+        assertTrue(value + " is below its bucket at " + start, start <= value);
+        assertTrue(value + " is past its bucket at " + start, value < start + LogHistogram.getBucketWidth(index));
+    }
+
+    @Test
+    public void smallValuesHaveOwnBuckets() {
+        for (int value = 0; value < 2 * LogHistogram.SUB_BUCKETS; value++) {
+            assertEquals(value, LogHistogram.getBucketIndex(value));
+            assertEquals(value, LogHistogram.getBucketStart(value));
+            assertEquals(1, LogHistogram.getBucketWidth(value));
+        }
+    }
+
+    @Test
+    public void bucketsAreContiguous() {
+        for (int index = 0; index + 1 < LogHistogram.BUCKET_COUNT; index++) {
+            assertEquals("After bucket " + index, LogHistogram.getBucketStart(index) + LogHistogram.getBucketWidth(index),
+                    LogHistogram.getBucketStart(index + 1));
+        }
+        assertEquals(LogHistogram.BUCKET_COUNT - 1, LogHistogram.getBucketIndex(LogHistogram.MAX_VALUE));
+    }
+
+    @Test
+    public void valuesFallInsideTheirBucket() {
+        for (int bit = 0; bit < 40; bit++) {
+            long power = 1L << bit;
+            assertInBucket(power - 1);
+            assertInBucket(power);
+            assertInBucket(power + 1);
+        }
+
+        Random random = new Random(5);
+        for (int i = 0; i < 10000; i++) {
+            assertInBucket((random.nextLong() >>> 1) % (LogHistogram.MAX_VALUE + 1));
+        }
+    }
+
+    @Test
+    public void bucketsAreNarrowRelativeToValues() {
+        for (int index = 2 * LogHistogram.SUB_BUCKETS; index < LogHistogram.BUCKET_COUNT; index++) {
+            long width = LogHistogram.getBucketWidth(index);
+            assertTrue("Bucket " + index, width * LogHistogram.SUB_BUCKETS <= LogHistogram.getBucketStart(index));
+        }
+    }
+
+    @Test
+    public void percentilesAreWithinBucketPrecision() {
+        LogHistogram histogram = new LogHistogram();
+        for (int value = 1; value <= 10000; value++) {
+            histogram.record(value);
+        }
+
+        LogHistogram.Snapshot snapshot = new LogHistogram.Snapshot();
+        histogram.getSnapshot(snapshot);
+        assertEquals(10000, snapshot.getCount());
+        assertEquals(10000, snapshot.getMax());
+        assertEquals(5000, snapshot.getPercentile(0.5), 5000 / 16);
+        assertEquals(9900, snapshot.getPercentile(0.99), 9900 / 16);
+        assertEquals(5000.5, snapshot.getMean(), 5000 / 16);
+
+        // Exact below 32, and never past the recorded maximum
+        assertEquals(1, snapshot.getPercentile(0));
+        assertEquals(10000, snapshot.getPercentile(1), 10000 / 16);
+        assertTrue(snapshot.getPercentile(1) <= snapshot.getMax());
+    }
+
+    @Test
+    public void clampsOutOfRangeValues() {
+        LogHistogram histogram = new LogHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        LogHistogram.Snapshot snapshot = new LogHistogram.Snapshot();
+        histogram.getSnapshot(snapshot);
+        assertEquals(1, snapshot.getCounts()[0]);
+        assertEquals(1, snapshot.getCounts()[LogHistogram.BUCKET_COUNT - 1]);
+        assertEquals(LogHistogram.MAX_VALUE, snapshot.getMax());
+    }
+
+    @Test
+    public void emptyAfterClear() {
+        LogHistogram histogram = new LogHistogram();
+        histogram.record(42);
+        histogram.clear();
+
+        LogHistogram.Snapshot snapshot = new LogHistogram.Snapshot();
+        histogram.getSnapshot(snapshot);
+        assertEquals(0, snapshot.getCount());
+        assertEquals(-1, snapshot.getMax());
+        assertEquals(-1, snapshot.getPercentile(0.5));
+        assertTrue(Double.isNaN(snapshot.getMean()));
+    }
+}
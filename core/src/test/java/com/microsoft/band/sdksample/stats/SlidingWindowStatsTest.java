@@ -0,0 +1,158 @@
+//Copyright (c) Microsoft Corporation All rights reserved.  
+// 
+//MIT License: 
+// 
+//Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+//documentation files (the  "Software"), to deal in the Software without restriction, including without limitation
+//the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+//to permit persons to whom the Software is furnished to do so, subject to the following conditions: 
+// 
+//The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+//the Software. 
+// 
+//THE SOFTWARE IS PROVIDED ""AS IS"", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED
+//TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+//THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF
+//CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+//IN THE SOFTWARE.
+package com.microsoft.band.sdksample.stats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SlidingWindowStatsTest {
+
+    private static SlidingWindowStats newStats(long windowMs, int maxSamples) {
+        return new SlidingWindowStats(windowMs, maxSamples, 0, 100, 100);
+    }
+
+    @Test
+    public void evictsSamplesOlderThanWindow() {
+        SlidingWindowStats stats = newStats(1000, 64);
+        stats.add(0, 50);
+        stats.add(400, 10);
+        stats.add(800, 30);
+        assertEquals(3, stats.getCount());
+        assertEquals(10, stats.getMin(), 0);
+        assertEquals(50, stats.getMax(), 0);
+
+        // The window ends at the newest sample, so the one at 0 leaves at 1001
+        stats.add(1000, 20);
+        assertEquals(4, stats.getCount());
+        stats.add(1001, 20);
+        assertEquals(4, stats.getCount());
+        assertEquals(10, stats.getMin(), 0);
+        assertEquals(30, stats.getMax(), 0);
+        assertEquals(20, stats.getMean(), 1e-9);
+
+        stats.add(1500, 40);
+        assertEquals(4, stats.getCount());
+        assertEquals(20, stats.getMin(), 0);
+        assertEquals(40, stats.getMax(), 0);
+    }
+
+    @Test
+    public void evictsOldestSamplesAtCapacity() {
+        SlidingWindowStats stats = newStats(60000, 4);
+        for (int i = 0; i < 6; i++) {
+            stats.add(i, i);
+        }
+        assertEquals(4, stats.getCount());
+        assertEquals(2, stats.getMin(), 0);
+        assertEquals(5, stats.getMax(), 0);
+        assertEquals(3.5, stats.getMean(), 1e-9);
+    }
+
+    @Test
+    public void advanceToEmptiesStoppedStream() {
+        SlidingWindowStats stats = newStats(1000, 64);
+        stats.add(0, 1);
+        stats.add(500, 2);
+
+        stats.advanceTo(1200);
+        assertEquals(1, stats.getCount());
+        stats.advanceTo(2000);
+        assertEquals(0, stats.getCount());
+        assertTrue(Float.isNaN(stats.getMin()));
+        assertTrue(Float.isNaN(stats.getMax()));
+        assertTrue(Double.isNaN(stats.getMean()));
+        assertTrue(Double.isNaN(stats.getVariance()));
+        assertTrue(Float.isNaN(stats.getQuantile(0.5)));
+
+        // Starts over cleanly
+        stats.add(3000, 7);
+        assertEquals(7, stats.getMean(), 1e-9);
+        assertEquals(7, stats.getMin(), 0);
+    }
+
+    @Test
+    public void ignoresNaN() {
+        SlidingWindowStats stats = newStats(1000, 64);
+        stats.add(0, 5);
+        stats.add(1, Float.NaN);
+        assertEquals(1, stats.getCount());
+        assertEquals(5, stats.getMax(), 0);
+    }
+
+    @Test
+    public void matchesExactStatisticsWhileSliding() {
+        long window = 1000;
+        SlidingWindowStats stats = newStats(window, 256);
+        Random random = new Random(3);
+        long[] timestamps = new long[20000];
+        float[] values = new float[timestamps.length];
+
+        long timestamp = 0;
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamp += 1 + random.nextInt(15);
+            timestamps[i] = timestamp;
+            values[i] = 50 + 20 * (float) random.nextGaussian();
+            stats.add(timestamp, values[i]);
+
+            if (i % 997 != 0) {
+                continue;
+            }
+
+            // The samples still in the window, recomputed from scratch
+            int count = 0;
+            double sum = 0;
+            float min = Float.POSITIVE_INFINITY;
+            float max = Float.NEGATIVE_INFINITY;
+            for (int j = i; j >= 0 && timestamps[j] >= timestamp - window && count < 256; j--) {
+                count++;
+                sum += values[j];
+                min = Math.min(min, values[j]);
+                max = Math.max(max, values[j]);
+            }
+            double mean = sum / count;
+            double squares = 0;
+            for (int j = i; j > i - count; j--) {
+                squares += (values[j] - mean) * (values[j] - mean);
+            }
+
+            assertEquals(count, stats.getCount());
+            assertEquals(min, stats.getMin(), 0);
+            assertEquals(max, stats.getMax(), 0);
+            assertEquals(mean, stats.getMean(), 1e-6);
+            assertEquals(squares / (count - 1), stats.getVariance(), 1e-4);
+        }
+    }
+
+    @Test
+    public void quantilesStayWithinBucketAndRange() {
+        SlidingWindowStats stats = newStats(100000, 1024);
+        for (int i = 0; i < 1000; i++) {
+            stats.add(i, i / 10f);
+        }
+
+        // Buckets are 1 wide
+        assertEquals(50, stats.getQuantile(0.5), 1);
+        assertEquals(95, stats.getQuantile(0.95), 1);
+        assertEquals(stats.getMin(), stats.getQuantile(0), 0);
+        assertEquals(stats.getMax(), stats.getQuantile(1), 0);
+    }
+}